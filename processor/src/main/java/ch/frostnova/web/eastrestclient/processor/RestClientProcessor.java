@@ -0,0 +1,452 @@
+package ch.frostnova.web.eastrestclient.processor;
+
+import ch.frostnova.web.eastrestclient.processor.RestMethodModel.Parameter;
+import ch.frostnova.web.eastrestclient.processor.RestMethodModel.ParameterType;
+import ch.frostnova.web.eastrestclient.processor.RestMethodModel.ResultType;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Annotation processor generating rest client implementations at build time, for every interface with JAX-RS
+ * annotated (<code>@GET</code>, <code>@POST</code>, <code>@PUT</code>, <code>@DELETE</code>) methods. The generated
+ * class (see <code>GeneratedRestClient</code>) has the uri templates, parameter binding and codecs resolved, and is
+ * preferred by the rest client over a dynamic proxy.<p>
+ * The methods are validated the same way as the runtime binding does, invalid rest client interfaces fail the build.
+ * Interfaces that cannot be implemented by a generated class (generic interfaces or methods, private interfaces,
+ * interfaces with batched methods) are skipped, and are served by dynamic proxies as before.
+ */
+@SupportedAnnotationTypes({
+        RestClientProcessor.GET,
+        RestClientProcessor.POST,
+        RestClientProcessor.PUT,
+        RestClientProcessor.DELETE})
+public class RestClientProcessor extends AbstractProcessor {
+
+    final static String GET = "javax.ws.rs.GET";
+    final static String POST = "javax.ws.rs.POST";
+    final static String PUT = "javax.ws.rs.PUT";
+    final static String DELETE = "javax.ws.rs.DELETE";
+
+    private final static String PATH = "javax.ws.rs.Path";
+    private final static String CONSUMES = "javax.ws.rs.Consumes";
+    private final static String PRODUCES = "javax.ws.rs.Produces";
+    private final static String HEADER_PARAM = "javax.ws.rs.HeaderParam";
+    private final static String PATH_PARAM = "javax.ws.rs.PathParam";
+    private final static String QUERY_PARAM = "javax.ws.rs.QueryParam";
+    private final static String FORM_PARAM = "javax.ws.rs.FormParam";
+    private final static String COALESCE = "ch.frostnova.web.eastrestclient.http.Coalesce";
+    private final static String BATCH = "ch.frostnova.web.eastrestclient.http.Batch";
+    private final static String COMPRESS_REQUEST = "ch.frostnova.web.eastrestclient.http.CompressRequest";
+
+    private final static String[] REQUEST_METHODS = {GET, POST, PUT, DELETE};
+
+    /**
+     * Interfaces referencing types that are not available yet (generated in a later round).
+     */
+    private final Set<String> deferred = new LinkedHashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Set<TypeElement> restClientInterfaces = new LinkedHashSet<>();
+        for (String name : deferred) {
+            TypeElement deferredInterface = processingEnv.getElementUtils().getTypeElement(name);
+            if (deferredInterface != null) {
+                restClientInterfaces.add(deferredInterface);
+            }
+        }
+        deferred.clear();
+
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                Element enclosingElement = element.getEnclosingElement();
+                if (element.getKind() == ElementKind.METHOD && enclosingElement.getKind() == ElementKind.INTERFACE) {
+                    restClientInterfaces.add((TypeElement) enclosingElement);
+                }
+            }
+        }
+
+        for (TypeElement restClientInterface : restClientInterfaces) {
+            if (roundEnv.processingOver()) {
+                note(restClientInterface, "not generating a rest client implementation, referenced types could not be resolved");
+            } else {
+                process(restClientInterface);
+            }
+        }
+        // the JAX-RS annotations are not claimed, other processors may be interested in them as well
+        return false;
+    }
+
+    private void process(TypeElement restClientInterface) {
+        if (!restClientInterface.getTypeParameters().isEmpty()) {
+            note(restClientInterface, "not generating a rest client implementation for generic interface %s", restClientInterface);
+            return;
+        }
+        for (Element element = restClientInterface; element.getKind() != ElementKind.PACKAGE; element = element.getEnclosingElement()) {
+            boolean memberOrTopLevel = !(element instanceof TypeElement)
+                    || ((TypeElement) element).getNestingKind() == NestingKind.TOP_LEVEL
+                    || ((TypeElement) element).getNestingKind() == NestingKind.MEMBER;
+            if (!memberOrTopLevel || element.getModifiers().contains(Modifier.PRIVATE)) {
+                note(restClientInterface, "not generating a rest client implementation for %s, it is not accessible in its package", restClientInterface);
+                return;
+            }
+        }
+
+        DeclaredType interfaceType = (DeclaredType) restClientInterface.asType();
+        List<RestMethodModel> restMethods = new ArrayList<>();
+        boolean valid = true;
+        boolean generic = false;
+        boolean resolved = true;
+        boolean batched = false;
+        for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(restClientInterface))) {
+            Element declaringType = method.getEnclosingElement();
+            if (declaringType.getKind() != ElementKind.INTERFACE || method.isDefault() || method.getModifiers().contains(Modifier.STATIC)) {
+                // methods of java.lang.Object, default and static interface methods
+                continue;
+            }
+            if (!method.getTypeParameters().isEmpty()) {
+                generic = true;
+                continue;
+            }
+            ExecutableType methodType = (ExecutableType) processingEnv.getTypeUtils().asMemberOf(interfaceType, method);
+            if (!isResolved(methodType)) {
+                resolved = false;
+                continue;
+            }
+            if (annotation(method, BATCH) != null) {
+                batched = true;
+            }
+            RestMethodModel restMethod = bind(method, methodType);
+            if (restMethod == null) {
+                valid = false;
+            } else {
+                restMethods.add(restMethod);
+            }
+        }
+        if (!resolved) {
+            deferred.add(restClientInterface.getQualifiedName().toString());
+            return;
+        }
+        if (!valid) {
+            return;
+        }
+        if (generic) {
+            note(restClientInterface, "not generating a rest client implementation for %s, it has generic methods", restClientInterface);
+            return;
+        }
+        if (batched) {
+            note(restClientInterface, "not generating a rest client implementation for %s, it has batched methods", restClientInterface);
+            return;
+        }
+
+        String className = processingEnv.getElementUtils().getBinaryName(restClientInterface).toString().replace('$', '_') + "_RestClient";
+        boolean generatedAnnotation = processingEnv.getElementUtils().getTypeElement("javax.annotation.processing.Generated") != null;
+        RestClientSourceWriter sourceWriter = new RestClientSourceWriter(processingEnv, restClientInterface, className, restMethods, generatedAnnotation);
+        try (Writer writer = processingEnv.getFiler().createSourceFile(className, restClientInterface).openWriter()) {
+            writer.write(sourceWriter.write());
+        } catch (IOException ex) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    String.format("could not write rest client implementation %s: %s", className, ex.getMessage()), restClientInterface);
+        }
+    }
+
+    private static boolean isResolved(ExecutableType methodType) {
+        if (methodType.getReturnType().getKind() == TypeKind.ERROR) {
+            return false;
+        }
+        return methodType.getParameterTypes().stream().noneMatch(type -> type.getKind() == TypeKind.ERROR);
+    }
+
+    /**
+     * Bind and validate a rest method (same rules as the runtime binding).
+     *
+     * @return bound method, or null if the method is invalid (errors are reported)
+     */
+    private RestMethodModel bind(ExecutableElement method, ExecutableType methodType) {
+        List<String> requestMethods = new ArrayList<>();
+        for (String requestMethod : REQUEST_METHODS) {
+            if (annotation(method, requestMethod) != null) {
+                requestMethods.add(requestMethod.substring(requestMethod.lastIndexOf('.') + 1));
+            }
+        }
+        if (requestMethods.size() > 1) {
+            error(method, "multiple request method annotations found on method %s", method);
+            return null;
+        }
+        if (requestMethods.isEmpty()) {
+            error(method, "no request method annotation found on method %s, only GET,POST,PUT,DELETE are supported", method);
+            return null;
+        }
+
+        String template = joinPaths(
+                stringValue(annotation(method.getEnclosingElement(), PATH)),
+                stringValue(annotation(method, PATH)));
+        List<String> literals = new ArrayList<>();
+        List<String> placeholders = new ArrayList<>();
+        if (!parseTemplate(template, literals, placeholders)) {
+            error(method, "unterminated variable in uri template: %s", template);
+            return null;
+        }
+
+        TypeMirror returnType = methodType.getReturnType();
+        ResultType resultType = returnType.getKind() == TypeKind.DECLARED
+                ? ResultType.of(((TypeElement) ((DeclaredType) returnType).asElement()).getQualifiedName().toString())
+                : ResultType.VALUE;
+        TypeMirror codecType = resultType == ResultType.VALUE ? returnType : typeArgument(returnType);
+
+        AnnotationMirror coalesce = annotation(method, COALESCE);
+        if (coalesce == null) {
+            coalesce = annotation(method.getEnclosingElement(), COALESCE);
+        }
+        boolean coalesced = coalesce != null && !"false".equals(stringValue(coalesce)) && "GET".equals(requestMethods.get(0));
+
+        AnnotationMirror compressRequest = annotation(method, COMPRESS_REQUEST);
+        if (compressRequest == null) {
+            compressRequest = annotation(method.getEnclosingElement(), COMPRESS_REQUEST);
+        }
+        int compressThreshold = compressRequest != null ? Integer.parseInt(valueWithDefault(compressRequest)) : -1;
+
+        AnnotationMirror produces = annotation(method, PRODUCES);
+        if (produces == null) {
+            produces = annotation(method.getEnclosingElement(), PRODUCES);
+        }
+
+        RestMethodModel restMethod = new RestMethodModel(method, methodType, requestMethods.get(0), template,
+                literals, placeholders, stringValue(annotation(method, CONSUMES)), resultType, codecType, coalesced,
+                compressThreshold, joinedValues(produces));
+
+        boolean valid = true;
+        List<? extends VariableElement> parameters = method.getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            VariableElement parameter = parameters.get(i);
+            TypeMirror parameterType = methodType.getParameterTypes().get(i);
+
+            List<Parameter> bindings = new ArrayList<>();
+            addBinding(bindings, parameter, parameterType, HEADER_PARAM, ParameterType.HEADER_PARAM);
+            addBinding(bindings, parameter, parameterType, PATH_PARAM, ParameterType.PATH_PARAM);
+            addBinding(bindings, parameter, parameterType, QUERY_PARAM, ParameterType.QUERY_PARAM);
+            addBinding(bindings, parameter, parameterType, FORM_PARAM, ParameterType.FORM_PARAM);
+            if (bindings.size() > 1) {
+                error(parameter, "more than one param annotation on argument %d on method %s", i, method);
+                valid = false;
+                continue;
+            }
+            Parameter binding = bindings.isEmpty() ? new Parameter(parameter, parameterType, ParameterType.BODY, null) : bindings.get(0);
+            if (binding.getParameterType() == ParameterType.PATH_PARAM && !placeholders.contains(binding.getName())) {
+                error(parameter, "@PathParam(\"%s\") on argument %d is not part of path '%s' on method %s", binding.getName(), i, template, method);
+                valid = false;
+            }
+            restMethod.add(binding);
+        }
+        for (String variable : placeholders) {
+            if (restMethod.getParameters().stream().noneMatch(p -> p.getParameterType() == ParameterType.PATH_PARAM && variable.equals(p.getName()))) {
+                error(method, "no @PathParam for path variable '%s' on method %s", variable, method);
+                valid = false;
+            }
+        }
+        return valid ? restMethod : null;
+    }
+
+    private void addBinding(List<Parameter> bindings, VariableElement parameter, TypeMirror parameterType,
+                            String annotationName, ParameterType type) {
+        AnnotationMirror annotation = annotation(parameter, annotationName);
+        if (annotation != null) {
+            bindings.add(new Parameter(parameter, parameterType, type, stringValue(annotation)));
+        }
+    }
+
+    /**
+     * Result (async) or element (stream, iterator) type: the first type argument (upper bound for wildcards), or
+     * Object if raw.
+     */
+    private TypeMirror typeArgument(TypeMirror type) {
+        List<? extends TypeMirror> typeArguments = ((DeclaredType) type).getTypeArguments();
+        if (typeArguments.isEmpty()) {
+            return processingEnv.getElementUtils().getTypeElement("java.lang.Object").asType();
+        }
+        TypeMirror typeArgument = typeArguments.get(0);
+        if (typeArgument.getKind() == TypeKind.WILDCARD) {
+            TypeMirror extendsBound = ((WildcardType) typeArgument).getExtendsBound();
+            return extendsBound != null ? extendsBound : processingEnv.getElementUtils().getTypeElement("java.lang.Object").asType();
+        }
+        return typeArgument;
+    }
+
+    /**
+     * Join the paths of interface and method to a uri template (same as the runtime, leading and trailing slashes are
+     * removed).
+     */
+    static String joinPaths(String... paths) {
+        StringBuilder builder = new StringBuilder();
+        for (String path : paths) {
+            if (path == null) {
+                continue;
+            }
+            int start = 0;
+            int end = path.length();
+            while (start < end && path.charAt(start) == '/') {
+                start++;
+            }
+            while (end > start && path.charAt(end - 1) == '/') {
+                end--;
+            }
+            if (start < end) {
+                if (builder.length() > 0) {
+                    builder.append('/');
+                }
+                builder.append(path, start, end);
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Parse a uri template (JAX-RS syntax: <code>{name}</code> or <code>{name: regex}</code>) into literals and
+     * placeholders.
+     *
+     * @return true if parsed, false if a variable is not terminated
+     */
+    static boolean parseTemplate(String template, List<String> literals, List<String> placeholders) {
+        int literalStart = 0;
+        int index = 0;
+        while (index < template.length()) {
+            if (template.charAt(index) != '{') {
+                index++;
+                continue;
+            }
+            int end = -1;
+            int depth = 0;
+            for (int i = index; i < template.length() && end < 0; i++) {
+                char c = template.charAt(i);
+                if (c == '{') {
+                    depth++;
+                } else if (c == '}' && --depth == 0) {
+                    end = i;
+                }
+            }
+            if (end < 0) {
+                return false;
+            }
+            String variable = template.substring(index + 1, end);
+            int regexSeparator = variable.indexOf(':');
+            if (regexSeparator >= 0) {
+                variable = variable.substring(0, regexSeparator);
+            }
+            literals.add(template.substring(literalStart, index));
+            placeholders.add(variable.trim());
+            index = end + 1;
+            literalStart = index;
+        }
+        literals.add(template.substring(literalStart));
+        return true;
+    }
+
+    private static AnnotationMirror annotation(Element element, String name) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            if (((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().contentEquals(name)) {
+                return annotation;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * String value of an annotation (first value for arrays).
+     *
+     * @return value, or null if the annotation or value is absent
+     */
+    private static String stringValue(AnnotationMirror annotation) {
+        if (annotation == null) {
+            return null;
+        }
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : annotation.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals("value")) {
+                Object value = entry.getValue().getValue();
+                if (value instanceof List) {
+                    List<?> values = (List<?>) value;
+                    return values.isEmpty() ? null : String.valueOf(((AnnotationValue) values.get(0)).getValue());
+                }
+                return String.valueOf(value);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Values of an annotation (all values for arrays), joined with a comma.
+     *
+     * @return values, or null if the annotation or value is absent
+     */
+    private static String joinedValues(AnnotationMirror annotation) {
+        if (annotation == null) {
+            return null;
+        }
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : annotation.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals("value")) {
+                Object value = entry.getValue().getValue();
+                if (value instanceof List) {
+                    List<?> values = (List<?>) value;
+                    return values.isEmpty() ? null : values.stream()
+                            .map(v -> String.valueOf(((AnnotationValue) v).getValue()))
+                            .collect(Collectors.joining(", "));
+                }
+                return String.valueOf(value);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Value of an annotation, or the default value if not set.
+     *
+     * @return value, or null if the annotation has no value
+     */
+    private String valueWithDefault(AnnotationMirror annotation) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                : processingEnv.getElementUtils().getElementValuesWithDefaults(annotation).entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals("value")) {
+                return String.valueOf(entry.getValue().getValue());
+            }
+        }
+        return null;
+    }
+
+    private void error(Element element, String format, Object... args) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, String.format(format, args), element);
+    }
+
+    private void note(Element element, String format, Object... args) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, String.format(format, args), element);
+    }
+}
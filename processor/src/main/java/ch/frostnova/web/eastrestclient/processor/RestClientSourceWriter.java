@@ -0,0 +1,385 @@
+package ch.frostnova.web.eastrestclient.processor;
+
+import ch.frostnova.web.eastrestclient.processor.RestMethodModel.Parameter;
+import ch.frostnova.web.eastrestclient.processor.RestMethodModel.ParameterType;
+import ch.frostnova.web.eastrestclient.processor.RestMethodModel.ResultType;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Writes the source of a generated rest client implementation. All types are referenced by their qualified names,
+ * so member types of the rest client interface cannot shadow them.
+ */
+class RestClientSourceWriter {
+
+    private final static String GENERATED_REST_CLIENT = "ch.frostnova.web.eastrestclient.GeneratedRestClient";
+    private final static String REST_ADAPTER = "ch.frostnova.web.eastrestclient.http.RestAdapter";
+    private final static String REST_METHOD_CODEC = "ch.frostnova.web.eastrestclient.http.RestMethodCodec";
+    private final static String REST_METHOD_BINDING = "ch.frostnova.web.eastrestclient.http.RestMethodBinding";
+    private final static String REQUEST_METHOD = "ch.frostnova.web.eastrestclient.http.RequestMethod";
+    private final static String PERCENT_ENCODER = "ch.frostnova.web.eastrestclient.util.PercentEncoder";
+
+    private final ProcessingEnvironment processingEnv;
+    private final TypeElement restClientInterface;
+    private final String className;
+    private final List<RestMethodModel> restMethods;
+    private final boolean generatedAnnotation;
+    private final String[] codecFields;
+
+    private final StringBuilder source = new StringBuilder();
+
+    RestClientSourceWriter(ProcessingEnvironment processingEnv, TypeElement restClientInterface, String className,
+                           List<RestMethodModel> restMethods, boolean generatedAnnotation) {
+        this.processingEnv = processingEnv;
+        this.restClientInterface = restClientInterface;
+        this.className = className;
+        this.restMethods = restMethods;
+        this.generatedAnnotation = generatedAnnotation;
+
+        codecFields = new String[restMethods.size()];
+        Set<String> fieldNames = new HashSet<>();
+        for (int i = 0; i < restMethods.size(); i++) {
+            String fieldName = restMethods.get(i).getMethod().getSimpleName() + "Codec";
+            for (int suffix = 2; !fieldNames.add(fieldName); suffix++) {
+                fieldName = restMethods.get(i).getMethod().getSimpleName() + "Codec" + suffix;
+            }
+            codecFields[i] = fieldName;
+        }
+    }
+
+    String write() {
+        PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(restClientInterface);
+        String simpleClassName = className.substring(className.lastIndexOf('.') + 1);
+        String interfaceName = restClientInterface.getQualifiedName().toString();
+
+        if (!packageElement.isUnnamed()) {
+            line(0, "package %s;", packageElement.getQualifiedName());
+            line(0, "");
+        }
+        line(0, "/**");
+        line(0, " * Rest client implementation of {@link %s}, generated by the rest client annotation processor.", interfaceName);
+        line(0, " */");
+        if (generatedAnnotation) {
+            line(0, "@javax.annotation.processing.Generated(\"%s\")", RestClientProcessor.class.getName());
+        }
+        line(0, "public final class %s extends %s implements %s {", simpleClassName, GENERATED_REST_CLIENT, interfaceName);
+        line(0, "");
+        for (String codecField : codecFields) {
+            line(1, "private final %s %s;", REST_METHOD_CODEC, codecField);
+        }
+        line(0, "");
+        line(1, "public %s(%s restAdapter, java.lang.String baseURL) {", simpleClassName, REST_ADAPTER);
+        line(2, "super(restAdapter, baseURL);");
+        for (int i = 0; i < restMethods.size(); i++) {
+            RestMethodModel restMethod = restMethods.get(i);
+            line(2, "this.%s = restAdapter.bind(%s.builder(%s.class, %s, %s, %s)%s.build());", codecFields[i],
+                    REST_METHOD_BINDING, ((TypeElement) restMethod.getMethod().getEnclosingElement()).getQualifiedName(),
+                    literal(signature(restMethod)), literal(restMethod.getTemplate()),
+                    typeExpression(restMethod.getCodecType()), bindingOptions(restMethod));
+        }
+        line(1, "}");
+        for (int i = 0; i < restMethods.size(); i++) {
+            line(0, "");
+            writeMethod(restMethods.get(i), codecFields[i]);
+        }
+        line(0, "}");
+        return source.toString();
+    }
+
+    /**
+     * Options of the rest method binding which differ from the defaults, as builder calls.
+     */
+    private static String bindingOptions(RestMethodModel restMethod) {
+        StringBuilder options = new StringBuilder();
+        if (restMethod.getResultType().isElements()) {
+            options.append(".elements(true)");
+        }
+        if (restMethod.isCoalesced()) {
+            options.append(".coalesce(true)");
+        }
+        if (restMethod.getCompressThreshold() >= 0) {
+            options.append(".compressThreshold(").append(restMethod.getCompressThreshold()).append(')');
+        }
+        if (restMethod.getContentType() != null) {
+            options.append(".contentType(").append(literal(restMethod.getContentType())).append(')');
+        }
+        if (restMethod.getAccept() != null) {
+            options.append(".accept(").append(literal(restMethod.getAccept())).append(')');
+        }
+        return options.toString();
+    }
+
+    private void writeMethod(RestMethodModel restMethod, String codecField) {
+        List<Parameter> parameters = restMethod.getParameters();
+        Set<String> names = parameters.stream().map(Parameter::getVariableName).collect(Collectors.toCollection(HashSet::new));
+        String uri = unique("uri", names);
+        String headers = unique("headers", names);
+
+        boolean varArgs = restMethod.getMethod().isVarArgs();
+        StringBuilder signature = new StringBuilder();
+        for (int i = 0; i < parameters.size(); i++) {
+            Parameter parameter = parameters.get(i);
+            if (i > 0) {
+                signature.append(", ");
+            }
+            if (varArgs && i == parameters.size() - 1) {
+                signature.append(((ArrayType) parameter.getType()).getComponentType()).append("...");
+            } else {
+                signature.append(parameter.getType());
+            }
+            signature.append(' ').append(parameter.getVariableName());
+        }
+        List<? extends TypeMirror> thrownTypes = restMethod.getType().getThrownTypes();
+        String throwsClause = thrownTypes.isEmpty() ? "" :
+                " throws " + thrownTypes.stream().map(String::valueOf).collect(Collectors.joining(", "));
+        TypeMirror returnType = restMethod.getType().getReturnType();
+
+        line(1, "@Override");
+        line(1, "public %s %s(%s)%s {", returnType, restMethod.getMethod().getSimpleName(), signature, throwsClause);
+
+        // uri: base url, uri template and query parameters
+        String template = restMethod.getTemplate();
+        line(2, "java.lang.StringBuilder %s = newUriBuilder(%d);", uri, template.length() + 1 + 32 * parameters.size());
+        if (!template.isEmpty()) {
+            appendLiteral(uri, "/" + restMethod.getLiterals().get(0));
+            for (int i = 0; i < restMethod.getPlaceholders().size(); i++) {
+                String variable = restMethod.getPlaceholders().get(i);
+                Parameter parameter = pathParameter(parameters, variable);
+                String value = parameter.getType().getKind().isPrimitive()
+                        ? String.format("java.lang.String.valueOf(%s)", parameter.getVariableName())
+                        : String.format("pathParam(%s, %s, %s)", parameter.getVariableName(), literal(variable), literal(template));
+                line(2, "%s.encodePathSegment(%s, %s);", PERCENT_ENCODER, value, uri);
+                appendLiteral(uri, restMethod.getLiterals().get(i + 1));
+            }
+        }
+        List<Parameter> queryParameters = parameters(parameters, ParameterType.QUERY_PARAM);
+        if (!queryParameters.isEmpty()) {
+            String separator = unique("separator", names);
+            line(2, "char %s = '?';", separator);
+            for (Parameter parameter : queryParameters) {
+                int indent = beginNonNull(parameter);
+                String name = literal(URLEncoder.encode(parameter.getName(), StandardCharsets.UTF_8) + "=");
+                if (isIterable(parameter.getType())) {
+                    // collections are sent as repeated query parameter (same as the runtime binding)
+                    String element = unique("element", names);
+                    line(indent, "for (java.lang.Object %s : %s) {", element, parameter.getVariableName());
+                    line(indent + 1, "if (%s != null) {", element);
+                    line(indent + 2, "%s.append(%s).append(%s);", uri, separator, name);
+                    line(indent + 2, "%s.encodeQueryParam(%s.toString(), %s);", PERCENT_ENCODER, element, uri);
+                    line(indent + 2, "%s = '&';", separator);
+                    line(indent + 1, "}");
+                    line(indent, "}");
+                } else {
+                    line(indent, "%s.append(%s).append(%s);", uri, separator, name);
+                    line(indent, "%s.encodeQueryParam(%s, %s);", PERCENT_ENCODER, stringValue(parameter), uri);
+                    line(indent, "%s = '&';", separator);
+                }
+                endNonNull(parameter);
+            }
+        }
+
+        // headers (mutable, the content type is added by the rest adapter)
+        line(2, "java.util.Map<java.lang.String, java.lang.String> %s = new java.util.HashMap<>();", headers);
+        for (Parameter parameter : parameters(parameters, ParameterType.HEADER_PARAM)) {
+            int indent = beginNonNull(parameter);
+            line(indent, "%s.put(%s, %s);", headers, literal(parameter.getName()), stringValue(parameter));
+            endNonNull(parameter);
+        }
+
+        // body: the last non-null body argument (same as the runtime binding)
+        List<Parameter> bodyParameters = parameters(parameters, ParameterType.BODY);
+        String body = "null";
+        if (bodyParameters.size() == 1) {
+            body = bodyParameters.get(0).getVariableName();
+        } else if (bodyParameters.size() > 1) {
+            body = unique("body", names);
+            line(2, "java.lang.Object %s = null;", body);
+            for (Parameter parameter : bodyParameters) {
+                line(2, "if (%s != null) %s = %s;", parameter.getVariableName(), body, parameter.getVariableName());
+            }
+        }
+
+        String invocation = String.format("this.restAdapter.%s(%s.%s, java.net.URI.create(%s.toString()), %s, %s, %s, this.%s)",
+                restMethod.getResultType().getAdapterMethod(), REQUEST_METHOD, restMethod.getRequestMethod(),
+                uri, headers, literal(restMethod.getContentType()), body, codecField);
+        String statement = returnType.getKind() == TypeKind.VOID ? invocation + ";" : "return " + invocation + ";";
+
+        List<String> undeclaredExceptions = restMethod.getResultType() == ResultType.ASYNC ? List.of() :
+                List.of("java.io.IOException", "java.lang.InterruptedException").stream()
+                        .filter(exception -> !isDeclared(exception, thrownTypes))
+                        .collect(Collectors.toList());
+        if (undeclaredExceptions.isEmpty()) {
+            line(2, statement);
+        } else {
+            // checked exceptions not declared by the interface method are wrapped (same as for dynamic proxies)
+            String ex = unique("ex", names);
+            line(2, "try {");
+            line(3, statement);
+            line(2, "} catch (%s %s) {", String.join(" | ", undeclaredExceptions), ex);
+            line(3, "throw new java.lang.reflect.UndeclaredThrowableException(%s);", ex);
+            line(2, "}");
+        }
+        line(1, "}");
+    }
+
+    private void appendLiteral(String uri, String literal) {
+        if (!literal.isEmpty()) {
+            line(2, "%s.append(%s);", uri, literal(literal));
+        }
+    }
+
+    private int beginNonNull(Parameter parameter) {
+        if (parameter.getType().getKind().isPrimitive()) {
+            return 2;
+        }
+        line(2, "if (%s != null) {", parameter.getVariableName());
+        return 3;
+    }
+
+    private void endNonNull(Parameter parameter) {
+        if (!parameter.getType().getKind().isPrimitive()) {
+            line(2, "}");
+        }
+    }
+
+    /**
+     * String value of a (non-null) parameter, same as <code>String.valueOf(Object)</code>.
+     */
+    private static String stringValue(Parameter parameter) {
+        if (parameter.getType().getKind().isPrimitive()) {
+            return String.format("java.lang.String.valueOf(%s)", parameter.getVariableName());
+        }
+        return parameter.getVariableName() + ".toString()";
+    }
+
+    /**
+     * Parameter for a path variable. If several parameters are bound to the same variable, the last one is used.
+     */
+    private static Parameter pathParameter(List<Parameter> parameters, String variable) {
+        Parameter result = null;
+        for (Parameter parameter : parameters) {
+            if (parameter.getParameterType() == ParameterType.PATH_PARAM && variable.equals(parameter.getName())) {
+                result = parameter;
+            }
+        }
+        return result;
+    }
+
+    private static List<Parameter> parameters(List<Parameter> parameters, ParameterType parameterType) {
+        return parameters.stream().filter(p -> p.getParameterType() == parameterType).collect(Collectors.toList());
+    }
+
+    private boolean isIterable(TypeMirror type) {
+        Types types = processingEnv.getTypeUtils();
+        TypeMirror iterable = types.erasure(processingEnv.getElementUtils().getTypeElement("java.lang.Iterable").asType());
+        return type.getKind() == TypeKind.DECLARED && types.isAssignable(types.erasure(type), iterable);
+    }
+
+    private boolean isDeclared(String exception, List<? extends TypeMirror> thrownTypes) {
+        Types types = processingEnv.getTypeUtils();
+        TypeMirror exceptionType = processingEnv.getElementUtils().getTypeElement(exception).asType();
+        return thrownTypes.stream().anyMatch(thrownType -> types.isSubtype(exceptionType, thrownType));
+    }
+
+    /**
+     * Expression for the reflective type the codec is bound to: a class literal, or a JAX-RS generic type capturing
+     * the type arguments.
+     */
+    private String typeExpression(TypeMirror type) {
+        if (type.getKind() == TypeKind.VOID) {
+            return "void.class";
+        }
+        Types types = processingEnv.getTypeUtils();
+        TypeMirror erasure = types.erasure(type);
+        if (types.isSameType(type, erasure)) {
+            return erasure + ".class";
+        }
+        return String.format("new javax.ws.rs.core.GenericType<%s>() {%n        }.getType()", type);
+    }
+
+    /**
+     * Signature of the rest method, same as the runtime binding: method name and simple names of the erased parameter
+     * types (e.g. <code>get(long)</code>).
+     */
+    private String signature(RestMethodModel restMethod) {
+        ExecutableElement method = restMethod.getMethod();
+        return String.format("%s(%s)", method.getSimpleName(), method.getParameters().stream()
+                .map(parameter -> simpleName(parameter.asType())).collect(Collectors.joining(",")));
+    }
+
+    private String simpleName(TypeMirror type) {
+        TypeMirror erasure = processingEnv.getTypeUtils().erasure(type);
+        if (erasure.getKind() == TypeKind.ARRAY) {
+            return simpleName(((ArrayType) erasure).getComponentType()) + "[]";
+        }
+        if (erasure.getKind() == TypeKind.DECLARED) {
+            return ((DeclaredType) erasure).asElement().getSimpleName().toString();
+        }
+        return erasure.toString();
+    }
+
+    private static String unique(String name, Set<String> names) {
+        String result = name;
+        while (names.contains(result)) {
+            result = result + "_";
+        }
+        names.add(result);
+        return result;
+    }
+
+    /**
+     * Java string literal (or <code>null</code>). Control characters are written as escape sequences, other non-ASCII
+     * characters as Unicode escapes (which javac translates before tokenizing, so a line feed written as Unicode escape
+     * would end the line inside the literal).
+     */
+    static String literal(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder builder = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                builder.append('\\').append(c);
+            } else if (c >= 0x20 && c < 0x7f) {
+                builder.append(c);
+            } else if (c == '\n') {
+                builder.append("\\n");
+            } else if (c == '\r') {
+                builder.append("\\r");
+            } else if (c == '\t') {
+                builder.append("\\t");
+            } else if (c == '\b') {
+                builder.append("\\b");
+            } else if (c == '\f') {
+                builder.append("\\f");
+            } else if (c < 0x20) {
+                builder.append(String.format("\\%03o", (int) c));
+            } else {
+                builder.append(String.format("\\u%04x", (int) c));
+            }
+        }
+        return builder.append('"').toString();
+    }
+
+    private void line(int indent, String format, Object... args) {
+        if (!format.isEmpty()) {
+            source.append("    ".repeat(indent)).append(args.length > 0 ? String.format(format, args) : format);
+        }
+        source.append(System.lineSeparator());
+    }
+}
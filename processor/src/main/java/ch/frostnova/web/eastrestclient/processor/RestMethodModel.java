@@ -0,0 +1,210 @@
+package ch.frostnova.web.eastrestclient.processor;
+
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeMirror;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rest method of a rest client interface, as validated by the {@link RestClientProcessor}: the same binding the
+ * runtime performs for dynamic proxies, resolved at build time.
+ */
+class RestMethodModel {
+
+    private final ExecutableElement method;
+    private final ExecutableType type;
+    private final String requestMethod;
+    private final String template;
+    private final List<String> literals;
+    private final List<String> placeholders;
+    private final String contentType;
+    private final ResultType resultType;
+    private final TypeMirror codecType;
+    private final boolean coalesced;
+    private final int compressThreshold;
+    private final String accept;
+    private final List<Parameter> parameters = new ArrayList<>();
+
+    RestMethodModel(ExecutableElement method, ExecutableType type, String requestMethod, String template,
+                    List<String> literals, List<String> placeholders, String contentType,
+                    ResultType resultType, TypeMirror codecType, boolean coalesced, int compressThreshold,
+                    String accept) {
+        this.method = method;
+        this.type = type;
+        this.requestMethod = requestMethod;
+        this.template = template;
+        this.literals = literals;
+        this.placeholders = placeholders;
+        this.contentType = contentType;
+        this.resultType = resultType;
+        this.codecType = codecType;
+        this.coalesced = coalesced;
+        this.compressThreshold = compressThreshold;
+        this.accept = accept;
+    }
+
+    ExecutableElement getMethod() {
+        return method;
+    }
+
+    /**
+     * Type of the method, as member of the rest client interface (type arguments of super interfaces resolved).
+     */
+    ExecutableType getType() {
+        return type;
+    }
+
+    String getRequestMethod() {
+        return requestMethod;
+    }
+
+    String getTemplate() {
+        return template;
+    }
+
+    /**
+     * Literal segments of the uri template, one more than there are placeholders.
+     */
+    List<String> getLiterals() {
+        return literals;
+    }
+
+    /**
+     * Variable names of the placeholders in the uri template, in order of appearance.
+     */
+    List<String> getPlaceholders() {
+        return placeholders;
+    }
+
+    String getContentType() {
+        return contentType;
+    }
+
+    ResultType getResultType() {
+        return resultType;
+    }
+
+    /**
+     * Type the codec is bound to: the return type, or the result/element type for async and streamed results.
+     */
+    TypeMirror getCodecType() {
+        return codecType;
+    }
+
+    /**
+     * Whether identical concurrent calls are coalesced (<code>@Coalesce</code> on the method or interface).
+     */
+    boolean isCoalesced() {
+        return coalesced;
+    }
+
+    /**
+     * Minimum size of request bodies to compress (<code>@CompressRequest</code> on the method or interface), -1 if
+     * not declared.
+     */
+    int getCompressThreshold() {
+        return compressThreshold;
+    }
+
+    /**
+     * Accepted media types of the response (<code>@Produces</code> on the method or interface, joined with a comma),
+     * null if not declared.
+     */
+    String getAccept() {
+        return accept;
+    }
+
+    List<Parameter> getParameters() {
+        return parameters;
+    }
+
+    void add(Parameter parameter) {
+        parameters.add(parameter);
+    }
+
+    /**
+     * How the result of a method is delivered (same as in the runtime binding), and the method of the rest adapter
+     * performing the exchange.
+     */
+    enum ResultType {
+        VALUE("invoke"),
+        ASYNC("invokeAsync"),
+        STREAM("invokeStream"),
+        ITERATOR("invokeIterator");
+
+        private final String adapterMethod;
+
+        ResultType(String adapterMethod) {
+            this.adapterMethod = adapterMethod;
+        }
+
+        String getAdapterMethod() {
+            return adapterMethod;
+        }
+
+        boolean isElements() {
+            return this == STREAM || this == ITERATOR;
+        }
+
+        static ResultType of(String qualifiedName) {
+            switch (qualifiedName) {
+                case "java.util.concurrent.CompletableFuture":
+                case "java.util.concurrent.CompletionStage":
+                    return ASYNC;
+                case "java.util.stream.Stream":
+                    return STREAM;
+                case "java.util.Iterator":
+                    return ITERATOR;
+                default:
+                    return VALUE;
+            }
+        }
+    }
+
+    enum ParameterType {
+        HEADER_PARAM,
+        PATH_PARAM,
+        QUERY_PARAM,
+        FORM_PARAM,
+        BODY
+    }
+
+    static class Parameter {
+        private final VariableElement element;
+        private final TypeMirror type;
+        private final ParameterType parameterType;
+        private final String name;
+
+        Parameter(VariableElement element, TypeMirror type, ParameterType parameterType, String name) {
+            this.element = element;
+            this.type = type;
+            this.parameterType = parameterType;
+            this.name = name;
+        }
+
+        VariableElement getElement() {
+            return element;
+        }
+
+        TypeMirror getType() {
+            return type;
+        }
+
+        ParameterType getParameterType() {
+            return parameterType;
+        }
+
+        /**
+         * Name of the header, path or query parameter (null for the body).
+         */
+        String getName() {
+            return name;
+        }
+
+        String getVariableName() {
+            return element.getSimpleName().toString();
+        }
+    }
+}
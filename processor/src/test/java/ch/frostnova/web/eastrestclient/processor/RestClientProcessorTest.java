@@ -0,0 +1,214 @@
+package ch.frostnova.web.eastrestclient.processor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RestClientProcessorTest {
+
+    @TempDir
+    Path outputDirectory;
+
+    @Test
+    void shouldGenerateImplementation() throws Exception {
+        List<String> errors = process("test.ItemClient",
+                "package test;",
+                "import javax.ws.rs.*;",
+                "@Path(\"/api/items/\")",
+                "public interface ItemClient {",
+                "  @GET @Path(\"{id: [0-9]+}\") Item get(@PathParam(\"id\") long id, @QueryParam(\"q u\") String query, @HeaderParam(\"api-key\") String apiKey);",
+                "  @GET java.util.stream.Stream<Item> stream();",
+                "  @DELETE @Path(\"{id}\") void delete(@PathParam(\"id\") String id) throws java.io.IOException;",
+                "  @GET java.util.List<Item> getAll(@QueryParam(\"id\") java.util.List<Long> ids);",
+                "  default Item first() { return get(1, null, null); }",
+                "  class Item {}",
+                "}");
+        assertThat(errors).isEmpty();
+        assertThat(outputDirectory.resolve("test/ItemClient_RestClient.class")).exists();
+
+        String source = Files.readString(outputDirectory.resolve("test/ItemClient_RestClient.java"));
+        assertThat(source)
+                .contains("public final class ItemClient_RestClient extends ch.frostnova.web.eastrestclient.GeneratedRestClient implements test.ItemClient")
+                .contains("this.getCodec = restAdapter.bind(ch.frostnova.web.eastrestclient.http.RestMethodBinding.builder(test.ItemClient.class, \"get(long,String,String)\", \"api/items/{id: [0-9]+}\", test.ItemClient.Item.class).build());")
+                .contains("this.streamCodec = restAdapter.bind(ch.frostnova.web.eastrestclient.http.RestMethodBinding.builder(test.ItemClient.class, \"stream()\", \"api/items\", test.ItemClient.Item.class).elements(true).build());")
+                .contains("uri.append(\"/api/items/\");")
+                .contains("encodePathSegment(java.lang.String.valueOf(id), uri);")
+                .contains("uri.append(separator).append(\"q+u=\");")
+                .contains("for (java.lang.Object element : ids) {")
+                .contains("ch.frostnova.web.eastrestclient.util.PercentEncoder.encodeQueryParam(element.toString(), uri);")
+                .contains("headers.put(\"api-key\", apiKey.toString());")
+                .contains("encodePathSegment(pathParam(id, \"id\", \"api/items/{id}\"), uri);")
+                .contains("public void delete(java.lang.String id) throws java.io.IOException {")
+                .contains("catch (java.lang.InterruptedException ex)")
+                .doesNotContain("first()");
+    }
+
+    @Test
+    void shouldBindCoalescedMethods() throws Exception {
+        List<String> errors = process("test.CoalescedClient",
+                "package test;",
+                "import javax.ws.rs.*;",
+                "import ch.frostnova.web.eastrestclient.http.Coalesce;",
+                "@Coalesce",
+                "public interface CoalescedClient {",
+                "  @GET @Path(\"a\") String a();",
+                "  @GET @Path(\"b\") @Coalesce(false) String b();",
+                "  @PUT @Path(\"c\") String c();",
+                "}");
+        assertThat(errors).isEmpty();
+
+        String source = Files.readString(outputDirectory.resolve("test/CoalescedClient_RestClient.java"));
+        assertThat(source)
+                .contains("this.aCodec = restAdapter.bind(ch.frostnova.web.eastrestclient.http.RestMethodBinding.builder(test.CoalescedClient.class, \"a()\", \"a\", java.lang.String.class).coalesce(true).build());")
+                .contains("this.bCodec = restAdapter.bind(ch.frostnova.web.eastrestclient.http.RestMethodBinding.builder(test.CoalescedClient.class, \"b()\", \"b\", java.lang.String.class).build());")
+                .contains("this.cCodec = restAdapter.bind(ch.frostnova.web.eastrestclient.http.RestMethodBinding.builder(test.CoalescedClient.class, \"c()\", \"c\", java.lang.String.class).build());");
+    }
+
+    @Test
+    void shouldBindRequestCompression() throws Exception {
+        List<String> errors = process("test.UploadClient",
+                "package test;",
+                "import javax.ws.rs.*;",
+                "import ch.frostnova.web.eastrestclient.http.CompressRequest;",
+                "@CompressRequest",
+                "public interface UploadClient {",
+                "  @POST @Path(\"a\") String a(String body);",
+                "  @POST @Path(\"b\") @CompressRequest(4096) String b(String body);",
+                "}");
+        assertThat(errors).isEmpty();
+
+        String source = Files.readString(outputDirectory.resolve("test/UploadClient_RestClient.java"));
+        assertThat(source)
+                .contains("this.aCodec = restAdapter.bind(ch.frostnova.web.eastrestclient.http.RestMethodBinding.builder(test.UploadClient.class, \"a(String)\", \"a\", java.lang.String.class).compressThreshold(1024).build());")
+                .contains("this.bCodec = restAdapter.bind(ch.frostnova.web.eastrestclient.http.RestMethodBinding.builder(test.UploadClient.class, \"b(String)\", \"b\", java.lang.String.class).compressThreshold(4096).build());");
+    }
+
+    @Test
+    void shouldBindMediaTypes() throws Exception {
+        List<String> errors = process("test.BinaryClient",
+                "package test;",
+                "import javax.ws.rs.*;",
+                "@Produces(\"application/cbor\")",
+                "public interface BinaryClient {",
+                "  @GET @Path(\"a\") String a();",
+                "  @GET @Path(\"b\") @Produces({\"application/x-msgpack\", \"application/json\"}) String b();",
+                "  @POST @Path(\"c\") @Consumes(\"application/x-jackson-smile\") String c(String body);",
+                "}");
+        assertThat(errors).isEmpty();
+
+        String source = Files.readString(outputDirectory.resolve("test/BinaryClient_RestClient.java"));
+        assertThat(source)
+                .contains("this.aCodec = restAdapter.bind(ch.frostnova.web.eastrestclient.http.RestMethodBinding.builder(test.BinaryClient.class, \"a()\", \"a\", java.lang.String.class).accept(\"application/cbor\").build());")
+                .contains("this.bCodec = restAdapter.bind(ch.frostnova.web.eastrestclient.http.RestMethodBinding.builder(test.BinaryClient.class, \"b()\", \"b\", java.lang.String.class).accept(\"application/x-msgpack, application/json\").build());")
+                .contains("this.cCodec = restAdapter.bind(ch.frostnova.web.eastrestclient.http.RestMethodBinding.builder(test.BinaryClient.class, \"c(String)\", \"c\", java.lang.String.class).contentType(\"application/x-jackson-smile\").accept(\"application/cbor\").build());");
+    }
+
+    @Test
+    void shouldEscapeControlCharacters() throws Exception {
+        List<String> errors = process("test.ControlClient",
+                "package test;",
+                "import javax.ws.rs.*;",
+                "public interface ControlClient {",
+                "  @GET @Path(\"lines\\nand\\r\\nmore\") String get(@HeaderParam(\"x\\tkey\\u0001\") String key);",
+                "}");
+        assertThat(errors).isEmpty();
+        assertThat(outputDirectory.resolve("test/ControlClient_RestClient.class")).exists();
+
+        String source = Files.readString(outputDirectory.resolve("test/ControlClient_RestClient.java"));
+        assertThat(source)
+                .contains("builder(test.ControlClient.class, \"get(String)\", \"lines\\nand\\r\\nmore\", java.lang.String.class)")
+                .contains("headers.put(\"x\\tkey\\001\", key.toString());");
+    }
+
+    @Test
+    void shouldSkipBatchedInterface() throws Exception {
+        List<String> errors = process("test.BatchedClient",
+                "package test;",
+                "import javax.ws.rs.*;",
+                "import ch.frostnova.web.eastrestclient.http.Batch;",
+                "public interface BatchedClient {",
+                "  @GET @Path(\"{id}\") @Batch(\"getAll\") String get(@PathParam(\"id\") long id);",
+                "  @GET java.util.List<String> getAll(@QueryParam(\"id\") java.util.List<Long> ids);",
+                "}");
+
+        assertThat(errors).isEmpty();
+        assertThat(outputDirectory.resolve("test/BatchedClient_RestClient.java")).doesNotExist();
+    }
+
+    @Test
+    void shouldFailOnInvalidInterface() throws Exception {
+        List<String> errors = process("test.InvalidClient",
+                "package test;",
+                "import javax.ws.rs.*;",
+                "public interface InvalidClient {",
+                "  @GET @POST String getOrPost();",
+                "  String noRequestMethod();",
+                "  @GET String ambiguous(@PathParam(\"a\") @QueryParam(\"a\") String a);",
+                "  @GET @Path(\"{a}/{b}\") String missingPathParam(@PathParam(\"a\") String a);",
+                "  @GET @Path(\"{a}\") String unknownPathParam(@PathParam(\"a\") String a, @PathParam(\"c\") String c);",
+                "}");
+
+        assertThat(errors).hasSize(5);
+        assertThat(errors.get(0)).startsWith("multiple request method annotations found on method getOrPost()");
+        assertThat(errors.get(1)).startsWith("no request method annotation found on method noRequestMethod()");
+        assertThat(errors.get(2)).startsWith("more than one param annotation on argument 0 on method ambiguous(java.lang.String)");
+        assertThat(errors.get(3)).startsWith("no @PathParam for path variable 'b' on method missingPathParam(java.lang.String)");
+        assertThat(errors.get(4)).startsWith("@PathParam(\"c\") on argument 1 is not part of path '{a}'");
+        assertThat(outputDirectory.resolve("test/InvalidClient_RestClient.java")).doesNotExist();
+    }
+
+    @Test
+    void shouldSkipGenericInterface() throws Exception {
+        List<String> errors = process("test.GenericClient",
+                "package test;",
+                "import javax.ws.rs.*;",
+                "public interface GenericClient<T> {",
+                "  @GET T get();",
+                "}");
+
+        assertThat(errors).isEmpty();
+        assertThat(outputDirectory.resolve("test/GenericClient_RestClient.java")).doesNotExist();
+    }
+
+    /**
+     * Compile a source file with the processor (generated sources and classes are written to the output directory).
+     *
+     * @return error messages
+     */
+    private List<String> process(String className, String... lines) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        JavaFileObject source = new SimpleJavaFileObject(URI.create("string:///" + className.replace('.', '/') + ".java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return String.join("\n", lines);
+            }
+        };
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        List<String> options = List.of(
+                "-classpath", System.getProperty("java.class.path"),
+                "-s", outputDirectory.toString(),
+                "-d", outputDirectory.toString());
+
+        JavaCompiler.CompilationTask task = compiler.getTask(null, null, diagnostics, options, null, List.of(source));
+        task.setProcessors(List.of(new RestClientProcessor()));
+        task.call();
+
+        return diagnostics.getDiagnostics().stream()
+                .filter(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR)
+                .map(diagnostic -> diagnostic.getMessage(null))
+                .collect(Collectors.toList());
+    }
+}
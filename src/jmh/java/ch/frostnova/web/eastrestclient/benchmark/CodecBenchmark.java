@@ -0,0 +1,140 @@
+package ch.frostnova.web.eastrestclient.benchmark;
+
+import ch.frostnova.web.eastrestclient.converter.ObjectMappers;
+import ch.frostnova.web.eastrestclient.http.RestAdapter;
+import ch.frostnova.web.eastrestclient.http.RestMethodCodec;
+import ch.frostnova.web.eastrestclient.notes.api.Note;
+import ch.frostnova.web.eastrestclient.weather.api.Condition;
+import ch.frostnova.web.eastrestclient.weather.api.Temperature;
+import ch.frostnova.web.eastrestclient.weather.api.WeatherForecast;
+import ch.frostnova.web.eastrestclient.weather.api.WeatherForecastDay;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Type;
+import java.net.http.HttpClient;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+import static javax.ws.rs.core.MediaType.APPLICATION_XML;
+
+/**
+ * Serialization and deserialization of request and response bodies: the bound codec of a rest method (readers and
+ * writers resolved once) compared to the unbound path (type resolution and serializer lookup on each call). The
+ * content type of the response is dispatched through the cached media-type table, also with a charset parameter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBenchmark {
+
+    private final static Type NOTE_LIST_TYPE = new TypeReference<List<Note>>() {
+    }.getType();
+
+    private ObjectMapper json;
+    private ObjectMapper xml;
+
+    private RestMethodCodec noteCodec;
+    private RestMethodCodec noteListCodec;
+    private RestMethodCodec weatherForecastCodec;
+
+    private Note note;
+    private byte[] noteJson;
+    private byte[] noteListJson;
+    private byte[] weatherForecastXml;
+
+    @Setup
+    public void setup() throws Exception {
+        json = ObjectMappers.json();
+        xml = ObjectMappers.xml();
+        RestAdapter restAdapter = new RestAdapter(HttpClient.newHttpClient(), json, xml);
+        noteCodec = restAdapter.bind(Note.class);
+        noteListCodec = restAdapter.bind(NOTE_LIST_TYPE);
+        weatherForecastCodec = restAdapter.bind(WeatherForecast.class);
+
+        List<Note> notes = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Note note = new Note("Note number " + i);
+            note.setId(1000L + i);
+            note.setCreated(OffsetDateTime.now());
+            note.setUpdated(OffsetDateTime.now());
+            notes.add(note);
+        }
+        note = notes.get(0);
+        noteJson = json.writeValueAsBytes(note);
+        noteListJson = json.writeValueAsBytes(notes);
+
+        WeatherForecast weatherForecast = new WeatherForecast();
+        weatherForecast.setLocation("Winterthur");
+        for (int i = 0; i < 5; i++) {
+            WeatherForecastDay day = new WeatherForecastDay();
+            day.setLocalDate(LocalDate.now().plusDays(i));
+            day.setCondition(Condition.values()[i]);
+            day.setTemperature(new Temperature(10 + i, Temperature.Unit.CELSIUS));
+            weatherForecast.add(day);
+        }
+        weatherForecastXml = xml.writeValueAsBytes(weatherForecast);
+    }
+
+    @Benchmark
+    public byte[] serializeJsonUnbound() throws Exception {
+        return json.writeValueAsBytes(note);
+    }
+
+    @Benchmark
+    public byte[] serializeJsonBound() throws Exception {
+        return noteCodec.serialize(note, APPLICATION_JSON);
+    }
+
+    @Benchmark
+    public Note deserializeJsonUnbound() throws Exception {
+        return json.readValue(noteJson, json.getTypeFactory().constructType(Note.class));
+    }
+
+    @Benchmark
+    public Note deserializeJsonBound() throws Exception {
+        return noteCodec.<Note>reader(APPLICATION_JSON).read(noteJson);
+    }
+
+    @Benchmark
+    public Note deserializeJsonBoundWithCharset() throws Exception {
+        return noteCodec.<Note>reader("application/json; charset=UTF-8").read(noteJson);
+    }
+
+    @Benchmark
+    public List<Note> deserializeJsonListUnbound() throws Exception {
+        return json.readValue(noteListJson, json.getTypeFactory().constructType(NOTE_LIST_TYPE));
+    }
+
+    @Benchmark
+    public List<Note> deserializeJsonListBound() throws Exception {
+        return noteListCodec.<List<Note>>reader(APPLICATION_JSON).read(noteListJson);
+    }
+
+    @Benchmark
+    public WeatherForecast deserializeXmlUnbound() throws Exception {
+        return xml.readValue(weatherForecastXml, xml.getTypeFactory().constructType(WeatherForecast.class));
+    }
+
+    @Benchmark
+    public WeatherForecast deserializeXmlBound() throws Exception {
+        return weatherForecastCodec.<WeatherForecast>reader(APPLICATION_XML).read(weatherForecastXml);
+    }
+}
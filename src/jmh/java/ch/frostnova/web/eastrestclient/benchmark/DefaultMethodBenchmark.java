@@ -0,0 +1,78 @@
+package ch.frostnova.web.eastrestclient.benchmark;
+
+import ch.frostnova.web.eastrestclient.RestClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.net.http.HttpClient;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dispatch of <code>default</code> interface methods on a rest client proxy: the cached method handles of the rest
+ * client interface compared to resolving the method handle on each call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DefaultMethodBenchmark {
+
+    private GreetingClient restClient;
+    private GreetingClient uncachedLookupProxy;
+
+    @Setup
+    public void setup() {
+        restClient = RestClient.builder()
+                .httpClient(HttpClient.newHttpClient())
+                .generatedImplementations(false)
+                .build()
+                .create("http://localhost", GreetingClient.class);
+
+        InvocationHandler uncachedLookupHandler = (proxy, method, arguments) -> MethodHandles.lookup()
+                .findSpecial(GreetingClient.class, method.getName(),
+                        MethodType.methodType(method.getReturnType(), method.getParameterTypes()),
+                        GreetingClient.class)
+                .bindTo(proxy)
+                .invokeWithArguments(arguments);
+        uncachedLookupProxy = (GreetingClient) Proxy.newProxyInstance(GreetingClient.class.getClassLoader(),
+                new Class[]{GreetingClient.class}, uncachedLookupHandler);
+    }
+
+    @Benchmark
+    public String cachedMethodHandle() {
+        return restClient.greeting("World");
+    }
+
+    @Benchmark
+    public String uncachedLookup() {
+        return uncachedLookupProxy.greeting("World");
+    }
+
+    public interface GreetingClient {
+
+        @GET
+        @Path("hello/{name}")
+        String hello(@PathParam("name") String name);
+
+        default String greeting(String name) {
+            return "Hello " + name;
+        }
+    }
+}
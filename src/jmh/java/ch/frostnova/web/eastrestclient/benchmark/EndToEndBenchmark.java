@@ -0,0 +1,149 @@
+package ch.frostnova.web.eastrestclient.benchmark;
+
+import ch.frostnova.web.eastrestclient.RestClient;
+import ch.frostnova.web.eastrestclient.converter.ObjectMappers;
+import ch.frostnova.web.eastrestclient.http.WireLog;
+import ch.frostnova.web.eastrestclient.notes.api.Note;
+import ch.frostnova.web.eastrestclient.notes.api.NotesClient;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end rest calls (dispatch, binding, serialization, HTTP exchange and deserialization) against a minimal HTTP
+ * server on the loopback interface, which responds with precomputed bodies (so the server side costs as little as
+ * possible). Wire logging is off.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EndToEndBenchmark {
+
+    private HttpServer server;
+    private NotesClient generatedClient;
+    private NotesClient proxyClient;
+    private Note note;
+
+    @Setup
+    public void setup() throws Exception {
+        ObjectMapper json = ObjectMappers.json();
+        List<Note> notes = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Note note = new Note("Note number " + i);
+            note.setId(1000L + i);
+            note.setCreated(OffsetDateTime.now());
+            note.setUpdated(OffsetDateTime.now());
+            notes.add(note);
+        }
+        note = notes.get(0);
+        byte[] noteJson = json.writeValueAsBytes(note);
+        byte[] noteListJson = json.writeValueAsBytes(notes);
+
+        // without TCP_NODELAY, the response headers and body are sent in separate segments, and each exchange waits
+        // for the delayed ACK (~40 ms)
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/api/notes", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            String method = exchange.getRequestMethod();
+            if (method.equals("GET") && path.equals("/api/notes")) {
+                respond(exchange, 200, noteListJson);
+            } else if (method.equals("GET")) {
+                respond(exchange, 200, noteJson);
+            } else if (method.equals("POST")) {
+                respond(exchange, 201, noteJson);
+            } else {
+                respond(exchange, 204, null);
+            }
+        });
+        server.start();
+
+        String baseURL = String.format("http://localhost:%d/", server.getAddress().getPort());
+        generatedClient = restClient(true).create(baseURL, NotesClient.class);
+        proxyClient = restClient(false).create(baseURL, NotesClient.class);
+    }
+
+    private static RestClient restClient(boolean generatedImplementations) {
+        return RestClient.builder()
+                .httpClient(HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build())
+                .wireLog(WireLog.off())
+                .generatedImplementations(generatedImplementations)
+                .build();
+    }
+
+    private static void respond(HttpExchange exchange, int statusCode, byte[] body) throws IOException {
+        try (InputStream requestBody = exchange.getRequestBody()) {
+            requestBody.readAllBytes();
+        }
+        if (body == null) {
+            exchange.sendResponseHeaders(statusCode, -1);
+            exchange.close();
+            return;
+        }
+        exchange.getResponseHeaders().set("content-type", "application/json");
+        exchange.sendResponseHeaders(statusCode, body.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(body);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Benchmark
+    public Note get() {
+        return generatedClient.get(1000L);
+    }
+
+    @Benchmark
+    public Note getWithProxy() {
+        return proxyClient.get(1000L);
+    }
+
+    @Benchmark
+    public Note getAsync() throws Exception {
+        return generatedClient.getAsync(1000L).get();
+    }
+
+    @Benchmark
+    public Note create() {
+        return generatedClient.create(note);
+    }
+
+    @Benchmark
+    public List<Note> list() {
+        return generatedClient.list();
+    }
+
+    @Benchmark
+    public void delete() {
+        generatedClient.delete(1000L);
+    }
+}
@@ -0,0 +1,139 @@
+package ch.frostnova.web.eastrestclient.benchmark;
+
+import ch.frostnova.web.eastrestclient.RestClient;
+import ch.frostnova.web.eastrestclient.converter.ObjectMappers;
+import ch.frostnova.web.eastrestclient.http.WireLog;
+import ch.frostnova.web.eastrestclient.notes.api.Note;
+import ch.frostnova.web.eastrestclient.notes.api.NotesClient;
+import ch.frostnova.web.eastrestclient.util.VirtualThreads;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Scaling of blocking rest calls with the number of concurrent calls, on platform threads (cached thread pool, one
+ * thread per concurrent call) versus virtual threads (one per call, Java 21+ only). Each operation performs
+ * <code>calls</code> concurrent blocking calls against an HTTP server on the loopback interface, which responds after
+ * a fixed latency (without blocking a server thread), and waits until all completed.<p>
+ * Many concurrent calls need as many connections (file descriptors), raise the limit (<code>ulimit -n</code>) when
+ * running with 10'000 calls or more (e.g. <code>-Pjmh="-p calls=10000 ExecutorScalingBenchmark"</code>).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExecutorScalingBenchmark {
+
+    private final static long LATENCY_MILLIS = 20;
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    @Param({"100", "1000"})
+    public int calls;
+
+    private HttpServer server;
+    private ScheduledExecutorService responder;
+    private ExecutorService platformThreads;
+    private Executor executor;
+    private NotesClient notesClient;
+
+    @Setup
+    public void setup() throws Exception {
+        Note note = new Note("Aloha");
+        note.setId(1000L);
+        byte[] noteJson = ObjectMappers.json().writeValueAsBytes(note);
+
+        // respond after the latency from a scheduler, so the server does not need a thread per pending request
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        responder = Executors.newScheduledThreadPool(4);
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), calls);
+        server.createContext("/api/notes", exchange -> responder.schedule(() -> respond(exchange, noteJson),
+                LATENCY_MILLIS, TimeUnit.MILLISECONDS));
+        server.setExecutor(Executors.newFixedThreadPool(4));
+        server.start();
+
+        RestClient.Builder builder = RestClient.builder()
+                .wireLog(WireLog.off());
+        if (threads.equals("virtual")) {
+            executor = VirtualThreads.executor();
+            builder.virtualThreads();
+        } else {
+            platformThreads = Executors.newCachedThreadPool();
+            executor = platformThreads;
+            builder.executor(platformThreads);
+        }
+        notesClient = builder.build().create(String.format("http://localhost:%d/", server.getAddress().getPort()),
+                NotesClient.class);
+    }
+
+    private static void respond(HttpExchange exchange, byte[] body) {
+        try (InputStream requestBody = exchange.getRequestBody()) {
+            requestBody.readAllBytes();
+            exchange.getResponseHeaders().set("content-type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream responseBody = exchange.getResponseBody()) {
+                responseBody.write(body);
+            }
+        } catch (IOException ex) {
+            exchange.close();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop(0);
+        ((ExecutorService) server.getExecutor()).shutdownNow();
+        responder.shutdownNow();
+        if (platformThreads != null) {
+            platformThreads.shutdownNow();
+        }
+    }
+
+    @Benchmark
+    public void concurrentCalls() throws Exception {
+        CountDownLatch completed = new CountDownLatch(calls);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        for (int i = 0; i < calls; i++) {
+            executor.execute(() -> {
+                try {
+                    notesClient.get(1000L);
+                } catch (Exception ex) {
+                    failure.compareAndSet(null, ex);
+                } finally {
+                    completed.countDown();
+                }
+            });
+        }
+        completed.await();
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package ch.frostnova.web.eastrestclient.benchmark;
+
+import ch.frostnova.web.eastrestclient.converter.ObjectMappers;
+import ch.frostnova.web.eastrestclient.http.BodyCodecs;
+import ch.frostnova.web.eastrestclient.http.Compression;
+import ch.frostnova.web.eastrestclient.http.RestAdapter;
+import ch.frostnova.web.eastrestclient.http.RestMethodCodec;
+import ch.frostnova.web.eastrestclient.http.WireLog;
+import ch.frostnova.web.eastrestclient.metrics.RestClientMetrics;
+import ch.frostnova.web.eastrestclient.notes.api.Note;
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Type;
+import java.net.http.HttpClient;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static ch.frostnova.web.eastrestclient.http.MediaTypes.APPLICATION_CBOR;
+import static ch.frostnova.web.eastrestclient.http.MediaTypes.APPLICATION_MSGPACK;
+import static ch.frostnova.web.eastrestclient.http.MediaTypes.APPLICATION_SMILE;
+
+/**
+ * Encoding and decoding of a list of notes with the bound codec of a rest method, in JSON and the binary formats
+ * (CBOR, Smile and MessagePack). The encoded size per format is printed on setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormatBenchmark {
+
+    private final static Type NOTE_LIST_TYPE = new TypeReference<List<Note>>() {
+    }.getType();
+
+    @Param({"application/json", APPLICATION_CBOR, APPLICATION_SMILE, APPLICATION_MSGPACK})
+    public String mediaType;
+
+    private RestMethodCodec noteListCodec;
+    private List<Note> notes;
+    private byte[] encoded;
+
+    @Setup
+    public void setup() throws Exception {
+        BodyCodecs codecs = BodyCodecs.of(ObjectMappers.json(), ObjectMappers.xml(),
+                Map.of(APPLICATION_CBOR, ObjectMappers.cbor(),
+                        APPLICATION_SMILE, ObjectMappers.smile(),
+                        APPLICATION_MSGPACK, ObjectMappers.msgpack()));
+        RestAdapter restAdapter = new RestAdapter(HttpClient.newHttpClient(), codecs, null, WireLog.off(),
+                RestClientMetrics.NONE, List.of(), null, null, null, Compression.defaults());
+        noteListCodec = restAdapter.bind(NOTE_LIST_TYPE);
+
+        notes = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Note note = new Note("Note number " + i);
+            note.setId(1000L + i);
+            note.setCreated(OffsetDateTime.now());
+            note.setUpdated(OffsetDateTime.now());
+            notes.add(note);
+        }
+        encoded = noteListCodec.serialize(notes, mediaType);
+        System.out.printf("%n%s: %d bytes%n", mediaType, encoded.length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws Exception {
+        return noteListCodec.serialize(notes, mediaType);
+    }
+
+    @Benchmark
+    public List<Note> decode() throws Exception {
+        return noteListCodec.<List<Note>>reader(mediaType).read(encoded);
+    }
+}
@@ -0,0 +1,76 @@
+package ch.frostnova.web.eastrestclient.benchmark;
+
+import ch.frostnova.web.eastrestclient.RestClient;
+import ch.frostnova.web.eastrestclient.converter.ObjectMappers;
+import ch.frostnova.web.eastrestclient.http.RequestMethod;
+import ch.frostnova.web.eastrestclient.http.RestAdapter;
+import ch.frostnova.web.eastrestclient.http.RestMethodCodec;
+import ch.frostnova.web.eastrestclient.weather.api.WeatherClient;
+import ch.frostnova.web.eastrestclient.weather.api.WeatherForecast;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Field;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client side of a rest call (dispatch, uri and header binding), without the HTTP exchange: the implementation
+ * generated by the annotation processor compared to the dynamic proxy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeneratedClientBenchmark {
+
+    private WeatherClient generatedClient;
+    private WeatherClient proxyClient;
+
+    @Setup
+    public void setup(Blackhole blackhole) throws Exception {
+        RestAdapter restAdapter = new RestAdapter(HttpClient.newHttpClient(), ObjectMappers.json(), ObjectMappers.xml()) {
+            @Override
+            public <B, T> T invoke(RequestMethod method, URI uri, Map<String, String> headers,
+                                   String contentType, B body, RestMethodCodec codec) {
+                blackhole.consume(uri);
+                blackhole.consume(headers);
+                return null;
+            }
+        };
+        generatedClient = restClient(restAdapter, true);
+        proxyClient = restClient(restAdapter, false);
+    }
+
+    private static WeatherClient restClient(RestAdapter restAdapter, boolean generatedImplementations) throws Exception {
+        RestClient restClient = RestClient.builder().generatedImplementations(generatedImplementations).build();
+        // swap in the rest adapter without HTTP exchange
+        Field restAdapterField = RestClient.class.getDeclaredField("restAdapter");
+        restAdapterField.setAccessible(true);
+        restAdapterField.set(restClient, restAdapter);
+        return restClient.create("http://localhost:8080/", WeatherClient.class);
+    }
+
+    @Benchmark
+    public WeatherForecast generated() {
+        return generatedClient.getForecast("secret", "Zürich");
+    }
+
+    @Benchmark
+    public WeatherForecast proxy() {
+        return proxyClient.getForecast("secret", "Zürich");
+    }
+}
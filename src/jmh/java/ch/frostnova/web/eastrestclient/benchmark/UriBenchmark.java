@@ -0,0 +1,86 @@
+package ch.frostnova.web.eastrestclient.benchmark;
+
+import ch.frostnova.web.eastrestclient.converter.ObjectMappers;
+import ch.frostnova.web.eastrestclient.http.RequestMethod;
+import ch.frostnova.web.eastrestclient.http.RestAdapter;
+import ch.frostnova.web.eastrestclient.http.RestMethodAdapter;
+import ch.frostnova.web.eastrestclient.http.RestMethodCodec;
+import ch.frostnova.web.eastrestclient.http.UriTemplate;
+import ch.frostnova.web.eastrestclient.notes.api.NotesClient;
+import ch.frostnova.web.eastrestclient.weather.api.WeatherClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * URI building of a rest method (without dispatch and HTTP exchange): rendering the uri template alone, and binding
+ * all arguments of a rest method (path, query and header parameters) to the request URI in
+ * {@link RestMethodAdapter#invoke(RestAdapter, String, Object[])}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UriBenchmark {
+
+    private final static String BASE_URL = "http://localhost:8080/";
+
+    private RestAdapter restAdapter;
+    private RestMethodAdapter getNote;
+    private RestMethodAdapter getForecast;
+    private UriTemplate uriTemplate;
+    private String[] pathParameters;
+    private Object[] getNoteArguments;
+    private Object[] getForecastArguments;
+
+    @Setup
+    public void setup(Blackhole blackhole) throws Exception {
+        restAdapter = new RestAdapter(HttpClient.newHttpClient(), ObjectMappers.json(), ObjectMappers.xml()) {
+            @Override
+            public <B, T> T invoke(RequestMethod method, URI uri, Map<String, String> headers,
+                                   String contentType, B body, RestMethodCodec codec) {
+                blackhole.consume(uri);
+                blackhole.consume(headers);
+                return null;
+            }
+        };
+        getNote = new RestMethodAdapter(NotesClient.class.getMethod("get", long.class));
+        getForecast = new RestMethodAdapter(WeatherClient.class.getMethod("getForecast", String.class, String.class));
+        uriTemplate = UriTemplate.of("api/notes", "{id}/attachments/{name}");
+        pathParameters = new String[]{"1000", "Grüezi mitenand.txt"};
+        getNoteArguments = new Object[]{1000L};
+        getForecastArguments = new Object[]{"secret", "Zürich"};
+    }
+
+    @Benchmark
+    public String renderTemplate() {
+        StringBuilder builder = new StringBuilder(64);
+        uriTemplate.render(builder, pathParameters);
+        return builder.toString();
+    }
+
+    @Benchmark
+    public Object pathParam() throws Throwable {
+        return getNote.invoke(restAdapter, BASE_URL, getNoteArguments);
+    }
+
+    @Benchmark
+    public Object queryAndHeaderParam() throws Throwable {
+        return getForecast.invoke(restAdapter, BASE_URL, getForecastArguments);
+    }
+}
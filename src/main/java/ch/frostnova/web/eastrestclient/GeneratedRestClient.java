@@ -0,0 +1,121 @@
+package ch.frostnova.web.eastrestclient;
+
+import ch.frostnova.web.eastrestclient.http.RestAdapter;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.Optional;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Base class for rest client implementations generated at build time by the rest client annotation processor
+ * (<code>easy-rest-client-processor</code>). For a rest client interface <code>com.example.NotesClient</code>, the
+ * generated implementation is <code>com.example.NotesClient_RestClient</code> (nested interfaces: the names of the
+ * enclosing classes are joined with <code>_</code>).<p>
+ * When a generated implementation is found (in the class loader of the interface), the {@link RestClient} prefers it
+ * over a dynamic proxy.
+ */
+public abstract class GeneratedRestClient {
+
+    private final static String GENERATED_CLASS_SUFFIX = "_RestClient";
+
+    private final static ClassValue<Optional<Constructor<?>>> implementations = new ClassValue<>() {
+        @Override
+        protected Optional<Constructor<?>> computeValue(Class<?> type) {
+            return findImplementation(type);
+        }
+    };
+
+    protected final RestAdapter restAdapter;
+    private final String baseURL;
+
+    protected GeneratedRestClient(RestAdapter restAdapter, String baseURL) {
+        this.restAdapter = requireNonNull(restAdapter, "restAdapter is required");
+        requireNonNull(baseURL, "baseURL is required");
+
+        int end = baseURL.length();
+        while (end > 0 && baseURL.charAt(end - 1) == '/') {
+            end--;
+        }
+        this.baseURL = baseURL.substring(0, end);
+    }
+
+    /**
+     * Name of the generated implementation class for a rest client interface.
+     *
+     * @param binaryName binary name of the interface (such as returned by {@link Class#getName()})
+     * @return class name of the generated implementation
+     */
+    public static String generatedClassName(String binaryName) {
+        return binaryName.replace('$', '_') + GENERATED_CLASS_SUFFIX;
+    }
+
+    /**
+     * Create an instance of the generated implementation for a rest client interface, if there is one.
+     *
+     * @param restClientInterface rest client interface
+     * @param restAdapter         rest adapter
+     * @param baseURL             base URL
+     * @param <T>                 rest client interface type
+     * @return instance, or null if there's no generated implementation for that interface
+     */
+    static <T> T newInstance(Class<T> restClientInterface, RestAdapter restAdapter, String baseURL) {
+        Optional<Constructor<?>> implementation = implementations.get(restClientInterface);
+        if (implementation.isEmpty()) {
+            return null;
+        }
+        try {
+            return restClientInterface.cast(implementation.get().newInstance(restAdapter, baseURL));
+        } catch (InvocationTargetException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new UndeclaredThrowableException(cause);
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("could not create generated rest client for " + restClientInterface.getName(), ex);
+        }
+    }
+
+    private static Optional<Constructor<?>> findImplementation(Class<?> restClientInterface) {
+        try {
+            Class<?> type = Class.forName(generatedClassName(restClientInterface.getName()), false, restClientInterface.getClassLoader());
+            if (!restClientInterface.isAssignableFrom(type) || !GeneratedRestClient.class.isAssignableFrom(type)) {
+                return Optional.empty();
+            }
+            return Optional.of(type.getConstructor(RestAdapter.class, String.class));
+        } catch (ClassNotFoundException | NoSuchMethodException ex) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Create a buffer for the request URI, initialized with the base URL (without trailing slashes).
+     *
+     * @param pathLength expected length of the path and query
+     * @return buffer
+     */
+    protected final StringBuilder newUriBuilder(int pathLength) {
+        return new StringBuilder(baseURL.length() + pathLength).append(baseURL);
+    }
+
+    /**
+     * String value of a path parameter, which is required.
+     *
+     * @param value    value
+     * @param name     name of the path parameter
+     * @param template uri template
+     * @return string value
+     */
+    protected static String pathParam(Object value, String name, String template) {
+        if (value == null) {
+            throw new IllegalArgumentException(String.format("no value for path parameter '%s' in '%s'", name, template));
+        }
+        return String.valueOf(value);
+    }
+}
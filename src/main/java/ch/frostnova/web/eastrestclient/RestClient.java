@@ -1,16 +1,381 @@
 package ch.frostnova.web.eastrestclient;
 
+import ch.frostnova.web.eastrestclient.converter.ObjectMappers;
+import ch.frostnova.web.eastrestclient.http.BodyCodec;
+import ch.frostnova.web.eastrestclient.http.BodyCodecs;
+import ch.frostnova.web.eastrestclient.http.Compression;
+import ch.frostnova.web.eastrestclient.http.ConcurrencyLimiter;
+import ch.frostnova.web.eastrestclient.http.HedgingPolicy;
+import ch.frostnova.web.eastrestclient.http.ResponseCache;
+import ch.frostnova.web.eastrestclient.http.RestAdapter;
+import ch.frostnova.web.eastrestclient.http.WireLog;
+import ch.frostnova.web.eastrestclient.metrics.ExchangeTimingListener;
+import ch.frostnova.web.eastrestclient.metrics.RestClientMetrics;
+import ch.frostnova.web.eastrestclient.util.VirtualThreads;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import static ch.frostnova.web.eastrestclient.http.MediaTypes.APPLICATION_CBOR;
+import static ch.frostnova.web.eastrestclient.http.MediaTypes.APPLICATION_MSGPACK;
+import static ch.frostnova.web.eastrestclient.http.MediaTypes.APPLICATION_SMILE;
+import static java.util.Objects.requireNonNull;
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+import static javax.ws.rs.core.MediaType.APPLICATION_XML;
 
 /**
- * Rest client builder, creates instances for JAX-RS-annotated rest client interfaces.
+ * Rest client builder, creates instances for JAX-RS-annotated rest client interfaces.<p>
+ * A rest client (see {@link #builder()}) owns the resources shared by all the rest client instances it creates: the
+ * HTTP client, the body codecs and object mappers (and with them, the bound readers and writers of the rest methods),
+ * and the executor. Rest clients are thread-safe, and should be created once and then be reused.<p>
+ * Rest client instances are implemented by the classes generated at build time by the rest client annotation processor
+ * (see {@link GeneratedRestClient}) when available, otherwise by dynamic proxies.
  *
  * @author pwalser@frostnova.ch
  * @since 2021-12-18
  */
 public class RestClient {
 
+    private final RestAdapter restAdapter;
+    private final boolean generatedImplementations;
+
+    private RestClient(RestAdapter restAdapter, boolean generatedImplementations) {
+        this.restAdapter = restAdapter;
+        this.generatedImplementations = generatedImplementations;
+    }
+
+    /**
+     * Create a rest client instance, using the default object mappers (shared by all rest clients using defaults).
+     *
+     * @param httpClient          http client, required
+     * @param baseURL             base URL, required
+     * @param restClientInterface rest client interface, required
+     * @param <T>                 rest client interface type
+     * @return rest client instance
+     */
     public static <T> T build(HttpClient httpClient, String baseURL, Class<T> restClientInterface) {
-        return RestClientInvocationHandler.create(httpClient, baseURL, restClientInterface);
+        return builder().httpClient(requireNonNull(httpClient, "httpClient is required")).build().create(baseURL, restClientInterface);
+    }
+
+    /**
+     * Create a builder for a rest client.
+     *
+     * @return builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Create a rest client instance.
+     *
+     * @param baseURL             base URL, required
+     * @param restClientInterface rest client interface, required
+     * @param <T>                 rest client interface type
+     * @return rest client instance
+     */
+    public <T> T create(String baseURL, Class<T> restClientInterface) {
+        requireNonNull(baseURL, "baseURL is required");
+        requireNonNull(restClientInterface, "restClientInterface is required");
+
+        if (generatedImplementations) {
+            T generated = GeneratedRestClient.newInstance(restClientInterface, restAdapter, baseURL);
+            if (generated != null) {
+                return generated;
+            }
+        }
+        return RestClientInvocationHandler.create(restAdapter, baseURL, restClientInterface);
+    }
+
+    public static class Builder {
+
+        private HttpClient httpClient;
+        private ObjectMapper json;
+        private ObjectMapper xml;
+        private ObjectMapper cbor;
+        private ObjectMapper smile;
+        private ObjectMapper msgpack;
+        private final Map<String, BodyCodec> codecs = new LinkedHashMap<>();
+        private Executor executor;
+        private WireLog wireLog = WireLog.defaults();
+        private RestClientMetrics metrics = RestClientMetrics.NONE;
+        private final List<ExchangeTimingListener> timingListeners = new ArrayList<>();
+        private ResponseCache responseCache;
+        private HedgingPolicy hedgingPolicy;
+        private ConcurrencyLimiter concurrencyLimiter;
+        private Compression compression = Compression.defaults();
+        private boolean generatedImplementations = true;
+
+        private Builder() {
+
+        }
+
+        /**
+         * HTTP client to use. Optional, if not set, a new HTTP client (using the executor, if set) will be created.
+         *
+         * @param httpClient http client
+         * @return builder
+         */
+        public Builder httpClient(HttpClient httpClient) {
+            this.httpClient = httpClient;
+            return this;
+        }
+
+        /**
+         * Object mapper for JSON. Optional, if not set, a default object mapper shared by all rest clients is used.
+         *
+         * @param json object mapper for JSON
+         * @return builder
+         */
+        public Builder json(ObjectMapper json) {
+            this.json = json;
+            return this;
+        }
+
+        /**
+         * Object mapper for XML. Optional, if not set, a default object mapper shared by all rest clients is used.
+         *
+         * @param xml object mapper for XML
+         * @return builder
+         */
+        public Builder xml(ObjectMapper xml) {
+            this.xml = xml;
+            return this;
+        }
+
+        /**
+         * Object mapper for CBOR (<code>application/cbor</code>). Optional, if not set, a default object mapper shared
+         * by all rest clients is used.
+         *
+         * @param cbor object mapper for CBOR (with a CBOR factory)
+         * @return builder
+         */
+        public Builder cbor(ObjectMapper cbor) {
+            this.cbor = cbor;
+            return this;
+        }
+
+        /**
+         * Object mapper for Smile (<code>application/x-jackson-smile</code>). Optional, if not set, a default object
+         * mapper shared by all rest clients is used.
+         *
+         * @param smile object mapper for Smile (with a Smile factory)
+         * @return builder
+         */
+        public Builder smile(ObjectMapper smile) {
+            this.smile = smile;
+            return this;
+        }
+
+        /**
+         * Object mapper for MessagePack (<code>application/x-msgpack</code>). Optional, if not set, a default object
+         * mapper shared by all rest clients is used.
+         *
+         * @param msgpack object mapper for MessagePack (with a MessagePack factory)
+         * @return builder
+         */
+        public Builder msgpack(ObjectMapper msgpack) {
+            this.msgpack = msgpack;
+            return this;
+        }
+
+        /**
+         * Register a codec for request and response bodies of a media type (see {@link BodyCodecs}), e.g. for a
+         * custom format, or to replace the codec of a supported format. Optional, by default, JSON, XML and the binary
+         * formats are supported with the object mappers of this builder.
+         *
+         * @param mediaType media type (type and subtype, without wildcards)
+         * @param codec     codec
+         * @return builder
+         */
+        public Builder codec(String mediaType, BodyCodec codec) {
+            codecs.put(requireNonNull(mediaType, "mediaType is required"), requireNonNull(codec, "codec is required"));
+            return this;
+        }
+
+        /**
+         * Executor for asynchronous calls (processing of responses), and for the HTTP client if none was provided.
+         * Optional, if not set, responses of asynchronous calls are processed by the executor of the HTTP client.
+         *
+         * @param executor executor
+         * @return builder
+         */
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Use virtual threads (one per task) as {@link #executor(Executor) executor} when running on Java 21+ (see
+         * {@link VirtualThreads}): the HTTP client (if none was provided) and the processing of responses of
+         * asynchronous calls then run on virtual threads. On older Java versions, this has no effect. Blocking calls
+         * run on the calling thread, and do not pin it to its carrier thread when called from a virtual thread.
+         *
+         * @return builder
+         */
+        public Builder virtualThreads() {
+            if (VirtualThreads.isAvailable()) {
+                this.executor = VirtualThreads.executor();
+            }
+            return this;
+        }
+
+        /**
+         * Wire log configuration: which HTTP exchanges are logged, and in how much detail. Optional, default is
+         * {@link WireLog#defaults()}.
+         *
+         * @param wireLog wire log configuration
+         * @return builder
+         */
+        public Builder wireLog(WireLog wireLog) {
+            this.wireLog = requireNonNull(wireLog, "wireLog is required");
+            return this;
+        }
+
+        /**
+         * Metrics of the rest methods (such as {@link ch.frostnova.web.eastrestclient.metrics.DefaultRestClientMetrics}).
+         * Optional, default is {@link RestClientMetrics#NONE}.
+         *
+         * @param metrics metrics
+         * @return builder
+         */
+        public Builder metrics(RestClientMetrics metrics) {
+            this.metrics = requireNonNull(metrics, "metrics is required");
+            return this;
+        }
+
+        /**
+         * Add a listener for the timing of each HTTP exchange (phases and byte counts, see
+         * {@link ch.frostnova.web.eastrestclient.metrics.ExchangeTiming}). Optional, exchanges are only timed if
+         * there are listeners.
+         *
+         * @param timingListener listener
+         * @return builder
+         */
+        public Builder timingListener(ExchangeTimingListener timingListener) {
+            timingListeners.add(requireNonNull(timingListener, "timingListener is required"));
+            return this;
+        }
+
+        /**
+         * Cache for the responses of <code>GET</code> requests, following the caching headers of the responses (see
+         * {@link ResponseCache}). Optional, default is none (responses are not cached).
+         *
+         * @param responseCache response cache
+         * @return builder
+         */
+        public Builder responseCache(ResponseCache responseCache) {
+            this.responseCache = responseCache;
+            return this;
+        }
+
+        /**
+         * Hedging policy for idempotent requests: requests which did not complete within the hedge delay are sent
+         * again, the first successful response wins (see {@link HedgingPolicy}). Optional, default is none (requests
+         * are not hedged).
+         *
+         * @param hedgingPolicy hedging policy
+         * @return builder
+         */
+        public Builder hedging(HedgingPolicy hedgingPolicy) {
+            this.hedgingPolicy = hedgingPolicy;
+            return this;
+        }
+
+        /**
+         * Adaptive concurrency limit per upstream: calls exceeding the (learned) limit of requests in flight wait in a
+         * queue, or are rejected (see {@link ConcurrencyLimiter}). Optional, default is none (requests in flight are
+         * not limited).
+         *
+         * @param concurrencyLimiter concurrency limiter
+         * @return builder
+         */
+        public Builder concurrencyLimiter(ConcurrencyLimiter concurrencyLimiter) {
+            this.concurrencyLimiter = concurrencyLimiter;
+            return this;
+        }
+
+        /**
+         * Compression of requests and responses: whether compressed responses are requested, and which request bodies
+         * are compressed (see {@link Compression}). Compressed responses are always decompressed. Optional, default is
+         * {@link Compression#defaults()} (compressed responses are requested, requests are not compressed).
+         *
+         * @param compression compression
+         * @return builder
+         */
+        public Builder compression(Compression compression) {
+            this.compression = requireNonNull(compression, "compression is required");
+            return this;
+        }
+
+        /**
+         * Whether to use the rest client implementations generated by the annotation processor (if available for an
+         * interface). Optional, default is true.
+         *
+         * @param generatedImplementations use generated implementations
+         * @return builder
+         */
+        public Builder generatedImplementations(boolean generatedImplementations) {
+            this.generatedImplementations = generatedImplementations;
+            return this;
+        }
+
+        public RestClient build() {
+            HttpClient httpClient = this.httpClient;
+            if (httpClient == null) {
+                HttpClient.Builder httpClientBuilder = HttpClient.newBuilder();
+                if (executor != null) {
+                    httpClientBuilder.executor(executor);
+                }
+                httpClient = httpClientBuilder.build();
+            }
+            return new RestClient(new RestAdapter(httpClient,
+                    bodyCodecs(),
+                    executor,
+                    wireLog,
+                    metrics,
+                    timingListeners,
+                    responseCache,
+                    hedgingPolicy,
+                    concurrencyLimiter,
+                    compression), generatedImplementations);
+        }
+
+        /**
+         * Body codecs of the configured object mappers and codecs, or the default codecs if none were configured
+         * (shared by all rest clients using the defaults, so codecs bound to one are bound to all of them).
+         */
+        private BodyCodecs bodyCodecs() {
+            if (json == null && xml == null && cbor == null && smile == null && msgpack == null && codecs.isEmpty()) {
+                return DefaultObjectMappers.CODECS;
+            }
+            BodyCodecs.Builder bodyCodecs = BodyCodecs.builder()
+                    .mapper(APPLICATION_JSON, json != null ? json : DefaultObjectMappers.JSON)
+                    .mapper(APPLICATION_XML, xml != null ? xml : DefaultObjectMappers.XML)
+                    .mapper(APPLICATION_CBOR, cbor != null ? cbor : DefaultObjectMappers.CBOR)
+                    .mapper(APPLICATION_SMILE, smile != null ? smile : DefaultObjectMappers.SMILE)
+                    .mapper(APPLICATION_MSGPACK, msgpack != null ? msgpack : DefaultObjectMappers.MSGPACK);
+            codecs.forEach(bodyCodecs::codec);
+            return bodyCodecs.build();
+        }
+    }
+
+    /**
+     * Default object mappers and body codecs, created once (on first use) and shared by all rest clients, so their
+     * caches stay warm.
+     */
+    private static class DefaultObjectMappers {
+        private final static ObjectMapper JSON = ObjectMappers.json();
+        private final static ObjectMapper XML = ObjectMappers.xml();
+        private final static ObjectMapper CBOR = ObjectMappers.cbor();
+        private final static ObjectMapper SMILE = ObjectMappers.smile();
+        private final static ObjectMapper MSGPACK = ObjectMappers.msgpack();
+        private final static BodyCodecs CODECS = BodyCodecs.of(JSON, XML, Map.of(
+                APPLICATION_CBOR, CBOR, APPLICATION_SMILE, SMILE, APPLICATION_MSGPACK, MSGPACK));
     }
 }
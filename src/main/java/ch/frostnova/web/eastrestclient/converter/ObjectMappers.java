@@ -3,9 +3,12 @@ package ch.frostnova.web.eastrestclient.converter;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.introspect.JacksonAnnotationIntrospector;
 import com.fasterxml.jackson.databind.util.StdDateFormat;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import com.fasterxml.jackson.dataformat.xml.JacksonXmlModule;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.msgpack.jackson.dataformat.MessagePackMapper;
 
 import static com.fasterxml.jackson.annotation.JsonInclude.Include.NON_EMPTY;
 import static com.fasterxml.jackson.databind.DeserializationFeature.ACCEPT_EMPTY_STRING_AS_NULL_OBJECT;
@@ -15,7 +18,8 @@ import static com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS
 import static com.fasterxml.jackson.databind.SerializationFeature.WRITE_SINGLE_ELEM_ARRAYS_UNWRAPPED;
 
 /**
- * Object mappers. Currently, only supports JSON, but other formats such as YAML and XML could be added here as well.
+ * Object mappers for the supported formats: JSON and XML (text), and CBOR, Smile and MessagePack (binary). All are
+ * configured alike, so a type is mapped to the same properties in each format.
  */
 public final class ObjectMappers {
 
@@ -33,6 +37,18 @@ public final class ObjectMappers {
         return configure(new XmlMapper(xmlModule));
     }
 
+    public static ObjectMapper cbor() {
+        return configure(new CBORMapper());
+    }
+
+    public static ObjectMapper smile() {
+        return configure(new SmileMapper());
+    }
+
+    public static ObjectMapper msgpack() {
+        return configure(new MessagePackMapper());
+    }
+
     private static ObjectMapper configure(ObjectMapper mapper) {
         return mapper
                 .setAnnotationIntrospector(new JacksonAnnotationIntrospector())
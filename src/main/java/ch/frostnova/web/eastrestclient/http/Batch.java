@@ -0,0 +1,65 @@
+package ch.frostnova.web.eastrestclient.http;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Batch the calls of a single-item rest method into calls of a bulk method: concurrent calls are collected for a
+ * short time window (or until the batch is full), then a single request is sent through the bulk method with the ids
+ * of all collected calls, and the results are handed back to the waiting callers.<p>
+ * The single-item method has exactly one parameter (the id), and returns the item (or a future of it). The bulk method
+ * is a method of the same interface with one parameter, a <code>List</code>, <code>Set</code> or
+ * <code>Collection</code> of ids (e.g. a repeated query parameter, or the body), and returns a list of the items (or a
+ * future of it).
+ * <pre>
+ * &#64;GET
+ * &#64;Path("/{id}")
+ * &#64;Batch(value = "getAll", key = "id")
+ * Note get(&#64;PathParam("id") long id);
+ *
+ * &#64;GET
+ * List&lt;Note&gt; getAll(&#64;QueryParam("id") List&lt;Long&gt; ids);
+ * </pre>
+ * Identical ids in a batch are requested once, and share the result. Calls whose id is missing in the bulk response
+ * fail with a {@link java.util.NoSuchElementException}, a failed bulk request fails all calls of the batch.<p>
+ * Batching is performed by the dynamic proxies, the annotation processor does not generate implementations for
+ * interfaces with batched methods.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Batch {
+
+    /**
+     * Name of the bulk method (declared by the same interface).
+     *
+     * @return bulk method name
+     */
+    String value();
+
+    /**
+     * Property of the items holding their id (getter, record component or field), used to match the items of the
+     * bulk response to the calls. If not set, the bulk response must contain the items in the order of the requested
+     * ids.
+     *
+     * @return property name, default is none (match by position)
+     */
+    String key() default "";
+
+    /**
+     * Maximum number of ids per bulk request, a full batch is sent immediately.
+     *
+     * @return maximum batch size, default is 100
+     */
+    int maxSize() default 100;
+
+    /**
+     * Maximum time to collect calls for a batch, starting with its first call.
+     *
+     * @return maximum delay in milliseconds, default is 5
+     */
+    long maxDelayMillis() default 5;
+}
@@ -0,0 +1,85 @@
+package ch.frostnova.web.eastrestclient.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.util.Iterator;
+
+/**
+ * Codec for request and response bodies in a media type, registered by media type in the {@link BodyCodecs} of a rest
+ * client (similar to the <code>MessageBodyReader</code> and <code>MessageBodyWriter</code> of JAX-RS).<p>
+ * Unlike JAX-RS providers, which are selected and asked for each body, a codec creates a dedicated reader or writer
+ * per type up front: readers are created when a rest method is bound (for the media types it produces) or on its first
+ * response in another media type, writers when the runtime type of the request body changes. Readers and writers should
+ * therefore do all their type resolution and lookups when created, and are used by concurrent calls (they must be
+ * thread-safe).
+ *
+ * @see JacksonBodyCodec
+ */
+public interface BodyCodec {
+
+    /**
+     * Create a reader for a type.
+     *
+     * @param type type to read (return type of the rest method, or element type for streamed results)
+     * @param <T>  type
+     * @return reader
+     */
+    <T> Reader<T> reader(Type type);
+
+    /**
+     * Create a writer for a body type.
+     *
+     * @param type runtime type of the body
+     * @return writer
+     */
+    Writer writer(Class<?> type);
+
+    /**
+     * Reader of a body, for one type.
+     *
+     * @param <T> type
+     */
+    @FunctionalInterface
+    interface Reader<T> {
+
+        /**
+         * Read a body.
+         *
+         * @param body body, not empty
+         * @return value
+         * @throws IOException if the body could not be read
+         */
+        T read(byte[] body) throws IOException;
+
+        /**
+         * Read the elements of a body which is an array of elements (streamed results), preferably incrementally while
+         * iterating. The reader takes ownership of the input stream: it has to be closed once all elements were read,
+         * or when the returned iterator (if {@link java.io.Closeable}) is closed.
+         *
+         * @param body body
+         * @return elements
+         * @throws IOException if the body could not be read
+         */
+        default Iterator<T> readElements(InputStream body) throws IOException {
+            body.close();
+            throw new UnsupportedOperationException("streamed results are not supported by " + getClass().getName());
+        }
+    }
+
+    /**
+     * Writer of a body, for one type.
+     */
+    @FunctionalInterface
+    interface Writer {
+
+        /**
+         * Write a body.
+         *
+         * @param body body, not null
+         * @return serialized body
+         * @throws IOException if the body could not be written
+         */
+        byte[] write(Object body) throws IOException;
+    }
+}
@@ -0,0 +1,123 @@
+package ch.frostnova.web.eastrestclient.http;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.Objects.requireNonNull;
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+import static javax.ws.rs.core.MediaType.APPLICATION_XML;
+
+/**
+ * Registry of the {@link BodyCodec}s of a rest client, by media type (see
+ * {@link ch.frostnova.web.eastrestclient.RestClient.Builder#codec(String, BodyCodec)}).<p>
+ * Content types are matched by their essence (type and subtype, case-insensitive), ignoring parameters such as
+ * <code>charset</code>. Content types with a structured syntax suffix fall back to the codec of the suffix format if
+ * they have no codec of their own, e.g. <code>application/problem+json</code> is read with the codec of
+ * <code>application/json</code>.<p>
+ * Rest methods look up their codecs when bound (for their <code>@Consumes</code> and <code>@Produces</code> media
+ * types), and remember the codecs of other response content types on first use, so calls do not search the registry.
+ */
+public final class BodyCodecs {
+
+    private final Map<String, BodyCodec> codecs;
+
+    private BodyCodecs(Builder builder) {
+        codecs = Map.copyOf(builder.codecs);
+    }
+
+    /**
+     * Codecs for JSON and XML and the binary formats, using the given object mappers (see {@link JacksonBodyCodec}).
+     *
+     * @param json          object mapper for JSON, required
+     * @param xml           object mapper for XML, required
+     * @param binaryMappers object mappers for binary formats by media type (see {@link MediaTypes}), required
+     * @return codecs
+     */
+    public static BodyCodecs of(ObjectMapper json, ObjectMapper xml, Map<String, ObjectMapper> binaryMappers) {
+        Builder builder = builder()
+                .mapper(APPLICATION_JSON, requireNonNull(json, "json is required"))
+                .mapper(APPLICATION_XML, requireNonNull(xml, "xml is required"));
+        requireNonNull(binaryMappers, "binaryMappers is required").forEach(builder::mapper);
+        return builder.build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Registered media types.
+     *
+     * @return media types (essence, in lower case)
+     */
+    public Set<String> mediaTypes() {
+        return codecs.keySet();
+    }
+
+    /**
+     * Look up the codec for a content type.
+     *
+     * @param contentType content type, optional
+     * @return codec, or null if none is registered for the content type
+     */
+    public BodyCodec codec(String contentType) {
+        return codec(ContentType.of(contentType));
+    }
+
+    BodyCodec codec(ContentType contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        BodyCodec codec = codecs.get(contentType.essence());
+        if (codec == null && contentType.suffix() != null) {
+            codec = codecs.get("application/" + contentType.suffix());
+        }
+        return codec;
+    }
+
+    public static class Builder {
+
+        private final Map<String, BodyCodec> codecs = new HashMap<>();
+
+        private Builder() {
+
+        }
+
+        /**
+         * Register a codec for a media type, replacing the codec registered before for the media type (if any).
+         *
+         * @param mediaType media type (type and subtype, without wildcards; parameters are ignored), required
+         * @param codec     codec, required
+         * @return builder
+         */
+        public Builder codec(String mediaType, BodyCodec codec) {
+            requireNonNull(mediaType, "mediaType is required");
+            requireNonNull(codec, "codec is required");
+            String essence = ContentType.of(mediaType).essence();
+            int slash = essence.indexOf('/');
+            if (slash <= 0 || slash == essence.length() - 1 || essence.indexOf('*') >= 0) {
+                throw new IllegalArgumentException("invalid media type: " + mediaType);
+            }
+            codecs.put(essence, codec);
+            return this;
+        }
+
+        /**
+         * Register a codec for a media type using a Jackson object mapper (see {@link JacksonBodyCodec}).
+         *
+         * @param mediaType media type, required
+         * @param mapper    object mapper, required
+         * @return builder
+         */
+        public Builder mapper(String mediaType, ObjectMapper mapper) {
+            return codec(mediaType, new JacksonBodyCodec(mapper));
+        }
+
+        public BodyCodecs build() {
+            return new BodyCodecs(this);
+        }
+    }
+}
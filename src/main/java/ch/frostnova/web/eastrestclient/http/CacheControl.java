@@ -0,0 +1,149 @@
+package ch.frostnova.web.eastrestclient.http;
+
+import java.net.http.HttpHeaders;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Caching directives of a response: <code>Cache-Control</code> (<code>no-store</code>, <code>no-cache</code>,
+ * <code>max-age</code>, <code>stale-while-revalidate</code>), with <code>Expires</code>, <code>Date</code> and
+ * <code>Age</code> for the freshness lifetime. Unknown directives are ignored.
+ */
+final class CacheControl {
+
+    private final boolean noStore;
+    private final boolean noCache;
+    private final long maxAge;
+    private final long staleWhileRevalidate;
+
+    private CacheControl(boolean noStore, boolean noCache, long maxAge, long staleWhileRevalidate) {
+        this.noStore = noStore;
+        this.noCache = noCache;
+        this.maxAge = maxAge;
+        this.staleWhileRevalidate = staleWhileRevalidate;
+    }
+
+    /**
+     * Parse the <code>Cache-Control</code> headers.
+     *
+     * @param headers response headers
+     * @return cache control
+     */
+    static CacheControl of(HttpHeaders headers) {
+        boolean noStore = false;
+        boolean noCache = false;
+        long maxAge = -1;
+        long staleWhileRevalidate = 0;
+        for (String value : headers.allValues("cache-control")) {
+            for (String directive : value.split(",")) {
+                int separator = directive.indexOf('=');
+                String name = (separator >= 0 ? directive.substring(0, separator) : directive).trim().toLowerCase(Locale.ROOT);
+                String argument = separator >= 0 ? unquote(directive.substring(separator + 1).trim()) : null;
+                if (name.equals("no-store")) {
+                    noStore = true;
+                } else if (name.equals("no-cache")) {
+                    noCache = true;
+                } else if (name.equals("max-age")) {
+                    maxAge = seconds(argument, 0);
+                } else if (name.equals("stale-while-revalidate")) {
+                    staleWhileRevalidate = seconds(argument, 0);
+                }
+            }
+        }
+        return new CacheControl(noStore, noCache, maxAge, staleWhileRevalidate);
+    }
+
+    boolean isNoStore() {
+        return noStore;
+    }
+
+    /**
+     * Check if the headers state a freshness lifetime (<code>Cache-Control</code> or <code>Expires</code>).
+     *
+     * @param headers response headers
+     * @return true if stated
+     */
+    static boolean hasFreshnessInformation(HttpHeaders headers) {
+        return headers.firstValue("cache-control").isPresent() || headers.firstValue("expires").isPresent();
+    }
+
+    /**
+     * Freshness lifetime of the response from now on: <code>max-age</code> (or else <code>Expires</code> relative to
+     * <code>Date</code>) minus the <code>Age</code> of the response. Zero for <code>no-cache</code>, or without
+     * explicit freshness information (no heuristic freshness).
+     *
+     * @param headers response headers
+     * @param now     current time (epoch millis)
+     * @return freshness lifetime in milliseconds, not negative
+     */
+    long freshnessLifetime(HttpHeaders headers, long now) {
+        if (noCache) {
+            return 0;
+        }
+        long age = seconds(headers.firstValue("age").orElse(null), 0) * 1000;
+        if (maxAge >= 0) {
+            return Math.max(0, maxAge * 1000 - age);
+        }
+        String expires = headers.firstValue("expires").orElse(null);
+        if (expires == null) {
+            return 0;
+        }
+        long date = headers.firstValue("date").map(CacheControl::httpDate).filter(d -> d > 0).orElse(now);
+        return Math.max(0, httpDate(expires) - date - age);
+    }
+
+    /**
+     * Duration for which a stale response may still be served while it is revalidated in the background.
+     *
+     * @return duration in milliseconds
+     */
+    long staleWhileRevalidate() {
+        return staleWhileRevalidate * 1000;
+    }
+
+    /**
+     * Header names of the <code>Vary</code> headers (lower case).
+     *
+     * @param headers response headers
+     * @return header names, containing <code>*</code> if the response varies on anything
+     */
+    static List<String> vary(HttpHeaders headers) {
+        return headers.allValues("vary").stream()
+                .flatMap(value -> List.of(value.split(",")).stream())
+                .map(name -> name.trim().toLowerCase(Locale.ROOT))
+                .filter(name -> !name.isEmpty())
+                .distinct()
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    private static long seconds(String value, long defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Math.max(0, Long.parseLong(value.trim()));
+        } catch (NumberFormatException ex) {
+            return defaultValue;
+        }
+    }
+
+    private static String unquote(String value) {
+        return value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")
+                ? value.substring(1, value.length() - 1)
+                : value;
+    }
+
+    private static long httpDate(String value) {
+        try {
+            return ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeParseException ex) {
+            // invalid dates (such as "0") are in the past
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package ch.frostnova.web.eastrestclient.http;
+
+import java.lang.reflect.Type;
+import java.net.http.HttpHeaders;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Response in the {@link ResponseCache}: either the response body, or the deserialized result (and its type), with
+ * the validators and freshness of the response. Immutable (except for the revalidation flag), revalidation replaces
+ * the entry.
+ */
+final class CachedResponse {
+
+    private final String key;
+    private final Map<String, String> varyValues;
+    private final String contentType;
+    private final byte[] body;
+    private final Object value;
+    private final Type valueType;
+    private final String etag;
+    private final String lastModified;
+    private final long freshnessLifetime;
+    private final long staleWhileRevalidate;
+    private final long freshUntil;
+    private final long size;
+    private final AtomicBoolean revalidating = new AtomicBoolean();
+
+    CachedResponse(String key, Map<String, String> varyValues, String contentType, byte[] body, Object value,
+                   Type valueType, String etag, String lastModified, long freshnessLifetime,
+                   long staleWhileRevalidate, long freshUntil, long size) {
+        this.key = key;
+        this.varyValues = varyValues;
+        this.contentType = contentType;
+        this.body = body;
+        this.value = value;
+        this.valueType = valueType;
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.freshnessLifetime = freshnessLifetime;
+        this.staleWhileRevalidate = staleWhileRevalidate;
+        this.freshUntil = freshUntil;
+        this.size = size;
+    }
+
+    /**
+     * Create the entry for a response to a revalidation (<code>304 Not Modified</code>), with the validators and
+     * freshness of the revalidation response (the ones of this entry if not stated).
+     *
+     * @param headers headers of the revalidation response
+     * @param now     current time (epoch millis)
+     * @return revalidated entry
+     */
+    CachedResponse revalidated(HttpHeaders headers, long now) {
+        long freshnessLifetime = this.freshnessLifetime;
+        long staleWhileRevalidate = this.staleWhileRevalidate;
+        if (CacheControl.hasFreshnessInformation(headers)) {
+            CacheControl cacheControl = CacheControl.of(headers);
+            freshnessLifetime = cacheControl.freshnessLifetime(headers, now);
+            staleWhileRevalidate = cacheControl.staleWhileRevalidate();
+        }
+        return new CachedResponse(key, varyValues, contentType, body, value, valueType,
+                headers.firstValue("etag").orElse(etag), headers.firstValue("last-modified").orElse(lastModified),
+                freshnessLifetime, staleWhileRevalidate, now + freshnessLifetime, size);
+    }
+
+    String key() {
+        return key;
+    }
+
+    long size() {
+        return size;
+    }
+
+    String contentType() {
+        return contentType;
+    }
+
+    Map<String, String> varyValues() {
+        return varyValues;
+    }
+
+    String etag() {
+        return etag;
+    }
+
+    String lastModified() {
+        return lastModified;
+    }
+
+    long freshnessLifetime() {
+        return freshnessLifetime;
+    }
+
+    long staleWhileRevalidate() {
+        return staleWhileRevalidate;
+    }
+
+    /**
+     * End of the freshness of the response.
+     *
+     * @return time (epoch millis)
+     */
+    long freshUntil() {
+        return freshUntil;
+    }
+
+    /**
+     * Response body, null if the deserialized result is cached instead.
+     *
+     * @return body
+     */
+    byte[] body() {
+        return body;
+    }
+
+    /**
+     * Deserialized result, only if cached instead of the body.
+     *
+     * @return deserialized result
+     */
+    Object value() {
+        return value;
+    }
+
+    /**
+     * Check if the cached response can be used for a request.
+     *
+     * @param requestHeaders request headers
+     * @param returnType     return type of the rest method
+     * @return true if the values of the headers the response varies on match, and (if the deserialized result is
+     * cached) the result has the return type
+     */
+    boolean matches(Map<String, String> requestHeaders, Type returnType) {
+        if (body == null && !valueType.equals(returnType)) {
+            return false;
+        }
+        for (Map.Entry<String, String> vary : varyValues.entrySet()) {
+            if (!Objects.equals(vary.getValue(), headerValue(requestHeaders, vary.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    boolean isFresh(long now) {
+        return now < freshUntil;
+    }
+
+    /**
+     * Check if the response is stale, but may still be served while it is revalidated in the background.
+     *
+     * @param now current time (epoch millis)
+     * @return true if stale, but within <code>stale-while-revalidate</code>
+     */
+    boolean isStaleWhileRevalidate(long now) {
+        return now >= freshUntil && now < freshUntil + staleWhileRevalidate && hasValidators();
+    }
+
+    boolean hasValidators() {
+        return etag != null || lastModified != null;
+    }
+
+    /**
+     * Add the conditional headers (<code>If-None-Match</code>, <code>If-Modified-Since</code>) to revalidate the
+     * response.
+     *
+     * @param requestHeaders request headers
+     */
+    void addConditions(Map<String, String> requestHeaders) {
+        if (etag != null) {
+            requestHeaders.put("if-none-match", etag);
+        }
+        if (lastModified != null) {
+            requestHeaders.put("if-modified-since", lastModified);
+        }
+    }
+
+    /**
+     * Start a background revalidation, unless one is already in progress.
+     *
+     * @return true if started
+     */
+    boolean startRevalidation() {
+        return revalidating.compareAndSet(false, true);
+    }
+
+    void revalidationFailed() {
+        revalidating.set(false);
+    }
+
+    static String headerValue(Map<String, String> headers, String name) {
+        String value = headers.get(name);
+        if (value != null) {
+            return value;
+        }
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            if (header.getKey().equalsIgnoreCase(name)) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,30 @@
+package ch.frostnova.web.eastrestclient.http;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Coalesce identical concurrent requests of a rest method (single-flight): while a request is in flight, identical
+ * requests (same request method, URI and request headers) issued by other callers do not perform an exchange of their
+ * own, but wait for the one in flight and share its result (or failure).<p>
+ * Applies to the <code>@GET</code> methods of the annotated interface, or to the annotated method (a method
+ * annotation overrides the one of the interface, <code>@Coalesce(false)</code> opts a method out). Only blocking and
+ * asynchronous calls are coalesced, streamed results (stream, iterator) and other request methods never are.<p>
+ * The shared result is the <i>same</i> instance for all callers, so it should be treated as immutable. Only the
+ * caller performing the exchange is recorded in the metrics and wire log.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface Coalesce {
+
+    /**
+     * Whether to coalesce identical concurrent requests.
+     *
+     * @return true to coalesce (default), false to opt a method out of the coalescing declared on its interface
+     */
+    boolean value() default true;
+}
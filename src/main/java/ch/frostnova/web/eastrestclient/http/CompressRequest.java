@@ -0,0 +1,30 @@
+package ch.frostnova.web.eastrestclient.http;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Compress the request bodies of a rest method with gzip (<code>Content-Encoding: gzip</code>) if they are at least
+ * the given size (in bytes, as encoded). Smaller bodies are sent uncompressed, as compression does not pay off for
+ * them.<p>
+ * Applies to the methods with a body of the annotated interface, or to the annotated method (a method annotation
+ * overrides the one of the interface). Methods without annotation use the request compression of the rest client
+ * (see {@link Compression.Builder#requestThreshold(int)}). The server has to accept compressed request bodies.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface CompressRequest {
+
+    int DEFAULT_THRESHOLD = 1024;
+
+    /**
+     * Minimum size of the request body to compress.
+     *
+     * @return threshold in bytes, default is {@value #DEFAULT_THRESHOLD}
+     */
+    int value() default DEFAULT_THRESHOLD;
+}
@@ -0,0 +1,190 @@
+package ch.frostnova.web.eastrestclient.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compression of the HTTP exchanges of a rest client (see
+ * {@link ch.frostnova.web.eastrestclient.RestClient.Builder#compression(Compression)}):
+ * <ul>
+ * <li>responses: compressed responses are requested (<code>Accept-Encoding: gzip, deflate</code>), and decompressed
+ * while they are received (streaming, before they are decoded as JSON or XML)</li>
+ * <li>requests: request bodies of at least a given size are compressed with gzip (opt-in, per client or per method
+ * with {@link CompressRequest})</li>
+ * </ul>
+ * Compressed responses are decompressed even if they were not requested. The bytes saved by compression are available
+ * with {@link #stats()}. The default requests compressed responses, and does not compress requests.
+ */
+public final class Compression {
+
+    public final static String ACCEPT_ENCODING = "gzip, deflate";
+
+    private final boolean acceptEncoding;
+    private final int requestThreshold;
+    private final int level;
+
+    private final LongAdder compressedResponses = new LongAdder();
+    private final LongAdder responseBytes = new LongAdder();
+    private final LongAdder decodedResponseBytes = new LongAdder();
+    private final LongAdder compressedRequests = new LongAdder();
+    private final LongAdder requestBytes = new LongAdder();
+    private final LongAdder uncompressedRequestBytes = new LongAdder();
+
+    private Compression(Builder builder) {
+        acceptEncoding = builder.acceptEncoding;
+        requestThreshold = builder.requestThreshold;
+        level = builder.level;
+    }
+
+    /**
+     * Default compression: compressed responses are requested, requests are not compressed (unless annotated with
+     * {@link CompressRequest}).
+     *
+     * @return compression
+     */
+    public static Compression defaults() {
+        return builder().build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public boolean isAcceptEncoding() {
+        return acceptEncoding;
+    }
+
+    /**
+     * Minimum size of request bodies to compress (for methods not annotated with {@link CompressRequest}).
+     *
+     * @return threshold in bytes, -1 if requests are not compressed
+     */
+    public int getRequestThreshold() {
+        return requestThreshold;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Snapshot of the statistics (compressed exchanges, bytes saved).
+     *
+     * @return statistics
+     */
+    public CompressionStats stats() {
+        return new CompressionStats(compressedResponses.sum(), responseBytes.sum(), decodedResponseBytes.sum(),
+                compressedRequests.sum(), requestBytes.sum(), uncompressedRequestBytes.sum());
+    }
+
+    /**
+     * Check if a request body is compressed.
+     *
+     * @param body      serialized request body, optional
+     * @param threshold threshold declared on the rest method, -1 if none (the threshold of the client applies)
+     * @return true if the body is to be compressed
+     */
+    boolean compresses(byte[] body, int threshold) {
+        if (threshold < 0) {
+            threshold = requestThreshold;
+        }
+        return body != null && threshold >= 0 && body.length > 0 && body.length >= threshold;
+    }
+
+    /**
+     * Compress a request body with gzip.
+     *
+     * @param plain request body
+     * @return compressed body
+     */
+    byte[] compress(byte[] plain) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, plain.length / 4));
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer) {
+            {
+                def.setLevel(level);
+            }
+        }) {
+            out.write(plain);
+        } catch (IOException ex) {
+            // not thrown when writing to memory
+            throw new IllegalStateException(ex);
+        }
+        byte[] compressed = buffer.toByteArray();
+        compressedRequests.increment();
+        uncompressedRequestBytes.add(plain.length);
+        requestBytes.add(compressed.length);
+        return compressed;
+    }
+
+    /**
+     * Record a decompressed response.
+     *
+     * @param encodedBytes size of the compressed body
+     * @param decodedBytes size after decompression
+     */
+    void decoded(long encodedBytes, long decodedBytes) {
+        compressedResponses.increment();
+        responseBytes.add(encodedBytes);
+        decodedResponseBytes.add(decodedBytes);
+    }
+
+    public static class Builder {
+
+        private boolean acceptEncoding = true;
+        private int requestThreshold = -1;
+        private int level = Deflater.DEFAULT_COMPRESSION;
+
+        private Builder() {
+
+        }
+
+        /**
+         * Whether to request compressed responses (<code>Accept-Encoding: gzip, deflate</code>, unless the request
+         * already has an <code>Accept-Encoding</code> header). Optional, default is true.
+         *
+         * @param acceptEncoding request compressed responses
+         * @return builder
+         */
+        public Builder acceptEncoding(boolean acceptEncoding) {
+            this.acceptEncoding = acceptEncoding;
+            return this;
+        }
+
+        /**
+         * Compress request bodies of at least the given size (encoded) with gzip, for all rest methods not
+         * annotated with {@link CompressRequest}. Optional, default is none (requests are not compressed).
+         *
+         * @param requestThreshold threshold in bytes, not negative
+         * @return builder
+         */
+        public Builder requestThreshold(int requestThreshold) {
+            if (requestThreshold < 0) {
+                throw new IllegalArgumentException("requestThreshold must not be negative");
+            }
+            this.requestThreshold = requestThreshold;
+            return this;
+        }
+
+        /**
+         * Compression level for request bodies, from 1 (fastest) to 9 (smallest). Optional, default is the default
+         * level of the deflater (6).
+         *
+         * @param level compression level
+         * @return builder
+         */
+        public Builder level(int level) {
+            if (level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION) {
+                throw new IllegalArgumentException("level must be between 1 and 9");
+            }
+            this.level = level;
+            return this;
+        }
+
+        public Compression build() {
+            return new Compression(this);
+        }
+    }
+}
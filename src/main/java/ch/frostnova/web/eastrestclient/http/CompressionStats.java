@@ -0,0 +1,96 @@
+package ch.frostnova.web.eastrestclient.http;
+
+/**
+ * Snapshot of the statistics of a {@link Compression}: compressed responses received and compressed requests sent,
+ * with their size before and after compression.
+ */
+public final class CompressionStats {
+
+    private final long compressedResponses;
+    private final long responseBytes;
+    private final long decodedResponseBytes;
+    private final long compressedRequests;
+    private final long requestBytes;
+    private final long uncompressedRequestBytes;
+
+    CompressionStats(long compressedResponses, long responseBytes, long decodedResponseBytes,
+                     long compressedRequests, long requestBytes, long uncompressedRequestBytes) {
+        this.compressedResponses = compressedResponses;
+        this.responseBytes = responseBytes;
+        this.decodedResponseBytes = decodedResponseBytes;
+        this.compressedRequests = compressedRequests;
+        this.requestBytes = requestBytes;
+        this.uncompressedRequestBytes = uncompressedRequestBytes;
+    }
+
+    /**
+     * Number of compressed responses received (gzip or deflate).
+     *
+     * @return compressed responses
+     */
+    public long getCompressedResponses() {
+        return compressedResponses;
+    }
+
+    /**
+     * Size of the compressed response bodies received.
+     *
+     * @return bytes received
+     */
+    public long getResponseBytes() {
+        return responseBytes;
+    }
+
+    /**
+     * Size of the compressed response bodies after decompression.
+     *
+     * @return decompressed bytes
+     */
+    public long getDecodedResponseBytes() {
+        return decodedResponseBytes;
+    }
+
+    /**
+     * Number of requests sent with a compressed body.
+     *
+     * @return compressed requests
+     */
+    public long getCompressedRequests() {
+        return compressedRequests;
+    }
+
+    /**
+     * Size of the compressed request bodies sent.
+     *
+     * @return bytes sent
+     */
+    public long getRequestBytes() {
+        return requestBytes;
+    }
+
+    /**
+     * Size of the compressed request bodies before compression.
+     *
+     * @return uncompressed bytes
+     */
+    public long getUncompressedRequestBytes() {
+        return uncompressedRequestBytes;
+    }
+
+    /**
+     * Bytes saved by compression (not transferred), in both directions.
+     *
+     * @return bytes saved
+     */
+    public long getBytesSaved() {
+        return (decodedResponseBytes - responseBytes) + (uncompressedRequestBytes - requestBytes);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CompressionStats[compressedResponses=%d, responseBytes=%d, decodedResponseBytes=%d, "
+                        + "compressedRequests=%d, requestBytes=%d, uncompressedRequestBytes=%d, bytesSaved=%d]",
+                compressedResponses, responseBytes, decodedResponseBytes,
+                compressedRequests, requestBytes, uncompressedRequestBytes, getBytesSaved());
+    }
+}
@@ -0,0 +1,35 @@
+package ch.frostnova.web.eastrestclient.http;
+
+/**
+ * Thrown when a call is rejected by the {@link ConcurrencyLimiter}: the concurrency limit of the upstream is reached,
+ * and the queue is full, or the call waited for longer than the maximum wait time. The request was not sent.
+ */
+public class ConcurrencyLimitExceededException extends RuntimeException {
+
+    private final String upstream;
+    private final int limit;
+
+    public ConcurrencyLimitExceededException(String message, String upstream, int limit) {
+        super(message);
+        this.upstream = upstream;
+        this.limit = limit;
+    }
+
+    /**
+     * Upstream (scheme and authority of the request URI) whose limit was exceeded.
+     *
+     * @return upstream, e.g. <code>https://api.example.com:8443</code>
+     */
+    public String getUpstream() {
+        return upstream;
+    }
+
+    /**
+     * Concurrency limit at the time of the rejection.
+     *
+     * @return limit
+     */
+    public int getLimit() {
+        return limit;
+    }
+}
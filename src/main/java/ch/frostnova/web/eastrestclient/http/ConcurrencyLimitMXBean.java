@@ -0,0 +1,19 @@
+package ch.frostnova.web.eastrestclient.http;
+
+/**
+ * JMX view of the concurrency limit of an upstream (see {@link ConcurrencyLimiter.Builder#jmx(String)}).
+ */
+public interface ConcurrencyLimitMXBean {
+
+    String getUpstream();
+
+    int getLimit();
+
+    int getInFlight();
+
+    int getQueued();
+
+    long getRejected();
+
+    long getMinRttMicros();
+}
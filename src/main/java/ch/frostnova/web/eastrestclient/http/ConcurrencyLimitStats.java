@@ -0,0 +1,83 @@
+package ch.frostnova.web.eastrestclient.http;
+
+/**
+ * Snapshot of the concurrency limit of an upstream, see {@link ConcurrencyLimiter#stats()}.
+ */
+public final class ConcurrencyLimitStats {
+
+    private final String upstream;
+    private final int limit;
+    private final int inFlight;
+    private final int queued;
+    private final long rejected;
+    private final long minRttMicros;
+
+    ConcurrencyLimitStats(String upstream, int limit, int inFlight, int queued, long rejected, long minRttMicros) {
+        this.upstream = upstream;
+        this.limit = limit;
+        this.inFlight = inFlight;
+        this.queued = queued;
+        this.rejected = rejected;
+        this.minRttMicros = minRttMicros;
+    }
+
+    /**
+     * Upstream: scheme and authority of the request URIs.
+     *
+     * @return upstream
+     */
+    public String getUpstream() {
+        return upstream;
+    }
+
+    /**
+     * Current (learned) concurrency limit.
+     *
+     * @return limit
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Number of requests in flight.
+     *
+     * @return requests in flight
+     */
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Number of calls waiting for a permit (queue depth).
+     *
+     * @return queued calls
+     */
+    public int getQueued() {
+        return queued;
+    }
+
+    /**
+     * Number of rejected calls (queue full, or waited too long).
+     *
+     * @return rejected calls
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Round trip time without load (minimum observed), which the limit is learned against.
+     *
+     * @return minimum round trip time in microseconds, 0 if not measured yet
+     */
+    public long getMinRttMicros() {
+        return minRttMicros;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ConcurrencyLimitStats[upstream=%s, limit=%d, inFlight=%d, queued=%d, rejected=%d, minRttMicros=%d]",
+                upstream, limit, inFlight, queued, rejected, minRttMicros);
+    }
+}
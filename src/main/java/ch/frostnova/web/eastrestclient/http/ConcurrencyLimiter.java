@@ -0,0 +1,539 @@
+package ch.frostnova.web.eastrestclient.http;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import static ch.frostnova.web.eastrestclient.metrics.DefaultRestClientMetrics.JMX_DOMAIN;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Adaptive client-side concurrency limit per upstream (opt-in, see
+ * {@link ch.frostnova.web.eastrestclient.RestClient.Builder#concurrencyLimiter(ConcurrencyLimiter)}), to protect
+ * overloaded servers (and the client itself) from piling up requests: the number of requests in flight to an upstream
+ * (scheme and authority of the request URI) is limited, calls exceeding the limit wait in a queue, or are rejected with
+ * a {@link ConcurrencyLimitExceededException} if the queue is full or they waited too long.<p>
+ * The limit is learned from the observed round trip times (Vegas algorithm): the queue built up at the server is
+ * estimated as <code>limit × (1 - minRtt / rtt)</code>. The limit is increased while this queue is small, and
+ * decreased when it grows; it is cut multiplicatively when requests fail (no response, or status 429/503). The limit
+ * is only increased when it is actually used, and stays within the configured minimum and maximum.<p>
+ * The current limit, requests in flight and queue depth are available with {@link #stats()}, and optionally exposed
+ * over JMX (see {@link Builder#jmx(String)}). A limiter can be shared by several rest clients, the limits are then
+ * shared as well.
+ */
+public final class ConcurrencyLimiter implements AutoCloseable {
+
+    private final static Logger logger = LoggerFactory.getLogger(ConcurrencyLimiter.class);
+
+    public final static int DEFAULT_INITIAL_LIMIT = 20;
+    public final static int DEFAULT_MIN_LIMIT = 1;
+    public final static int DEFAULT_MAX_LIMIT = 200;
+    public final static int DEFAULT_MAX_QUEUE = 100;
+    public final static Duration DEFAULT_MAX_WAIT = Duration.ofSeconds(1);
+
+    /**
+     * Factor the limit is multiplied with when a request failed.
+     */
+    private final static double BACKOFF_RATIO = 0.9;
+    /**
+     * Number of round trip times after which the minimum round trip time is measured again, so the limit adapts when
+     * the latency of the upstream changes permanently.
+     */
+    private final static int PROBE_INTERVAL = 1000;
+
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueue;
+    private final long maxWaitNanos;
+    private final String jmxClientName;
+    private final ConcurrentHashMap<String, Limit> limits = new ConcurrentHashMap<>();
+
+    private ConcurrencyLimiter(Builder builder) {
+        initialLimit = builder.initialLimit;
+        minLimit = builder.minLimit;
+        maxLimit = builder.maxLimit;
+        maxQueue = builder.maxQueue;
+        maxWaitNanos = builder.maxWait.toNanos();
+        jmxClientName = builder.jmxClientName;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public int getMaxQueue() {
+        return maxQueue;
+    }
+
+    public Duration getMaxWait() {
+        return Duration.ofNanos(maxWaitNanos);
+    }
+
+    /**
+     * Snapshots of the concurrency limits of all upstreams called so far.
+     *
+     * @return snapshots by upstream (sorted by upstream)
+     */
+    public Map<String, ConcurrencyLimitStats> stats() {
+        Map<String, ConcurrencyLimitStats> result = new TreeMap<>();
+        limits.forEach((upstream, limit) -> result.put(upstream, limit.stats()));
+        return result;
+    }
+
+    /**
+     * Unregister the MXBeans (if exposed over JMX). The limits are still applied afterwards.
+     */
+    @Override
+    public void close() {
+        if (jmxClientName == null) {
+            return;
+        }
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        for (String upstream : limits.keySet()) {
+            try {
+                ObjectName objectName = objectName(upstream);
+                if (mBeanServer.isRegistered(objectName)) {
+                    mBeanServer.unregisterMBean(objectName);
+                }
+            } catch (JMException ex) {
+                logger.warn("could not unregister MXBean for upstream {}: {}", upstream, ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Acquire a permit to send a request to the upstream of the given URI, waiting in the queue if the limit is
+     * reached. The permit has to be released once the response (headers) was received.
+     *
+     * @param uri request URI
+     * @return permit
+     * @throws ConcurrencyLimitExceededException if the queue is full, or the call waited too long
+     * @throws InterruptedException              if interrupted while waiting
+     */
+    Permit acquire(URI uri) throws InterruptedException {
+        CompletableFuture<Permit> waiter = limit(uri).acquire();
+        try {
+            return waiter.get();
+        } catch (InterruptedException ex) {
+            if (!waiter.cancel(false) && !waiter.isCompletedExceptionally()) {
+                waiter.join().cancelled();
+            }
+            throw ex;
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    /**
+     * Send a request asynchronously once a permit for the upstream was acquired (without blocking while waiting in
+     * the queue), and release the permit when the response was received. Cancelling the returned future cancels the
+     * request (or removes it from the queue).
+     *
+     * @param uri      request URI
+     * @param exchange starts the exchange
+     * @return response, or failed with {@link ConcurrencyLimitExceededException} if rejected
+     */
+    <T> CompletableFuture<HttpResponse<T>> sendAsync(URI uri, Supplier<CompletableFuture<HttpResponse<T>>> exchange) {
+        CompletableFuture<Permit> waiter = limit(uri).acquire();
+        CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+        waiter.whenComplete((permit, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error);
+                return;
+            }
+            if (result.isDone()) {
+                permit.cancelled();
+                return;
+            }
+            CompletableFuture<HttpResponse<T>> sent;
+            try {
+                sent = exchange.get();
+            } catch (RuntimeException ex) {
+                permit.cancelled();
+                result.completeExceptionally(ex);
+                return;
+            }
+            sent.whenComplete((response, failure) -> {
+                if (failure == null) {
+                    permit.completed(response.statusCode());
+                    result.complete(response);
+                } else {
+                    if (sent.isCancelled() || failure instanceof CancellationException) {
+                        permit.cancelled();
+                    } else {
+                        permit.failed();
+                    }
+                    result.completeExceptionally(failure);
+                }
+            });
+            result.whenComplete((response, failure) -> {
+                if (result.isCancelled()) {
+                    sent.cancel(true);
+                }
+            });
+        });
+        result.whenComplete((response, error) -> {
+            if (result.isCancelled()) {
+                waiter.cancel(false);
+            }
+        });
+        return result;
+    }
+
+    private Limit limit(URI uri) {
+        String upstream = uri.getScheme() + "://" + uri.getRawAuthority();
+        Limit limit = limits.get(upstream);
+        return limit != null ? limit : limits.computeIfAbsent(upstream, this::createLimit);
+    }
+
+    private Limit createLimit(String upstream) {
+        Limit limit = new Limit(upstream);
+        if (jmxClientName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(limit, objectName(upstream));
+            } catch (JMException ex) {
+                logger.warn("could not register MXBean for upstream {}: {}", upstream, ex.getMessage());
+            }
+        }
+        return limit;
+    }
+
+    private ObjectName objectName(String upstream) throws JMException {
+        return new ObjectName(String.format("%s:type=ConcurrencyLimit,client=%s,upstream=%s", JMX_DOMAIN,
+                ObjectName.quote(jmxClientName), ObjectName.quote(upstream)));
+    }
+
+    /**
+     * Permit to send a request, has to be released exactly once (further releases are ignored).
+     */
+    final static class Permit {
+
+        private final Limit limit;
+        private final long start = System.nanoTime();
+        private final int inFlight;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(Limit limit, int inFlight) {
+            this.limit = limit;
+            this.inFlight = inFlight;
+        }
+
+        /**
+         * Release the permit after the response (headers) was received. Responses with status 429 (too many requests)
+         * or 503 (service unavailable) are signs of overload, and reduce the limit.
+         *
+         * @param statusCode status code of the response
+         */
+        void completed(int statusCode) {
+            if (released.compareAndSet(false, true)) {
+                boolean overloaded = statusCode == 429 || statusCode == 503;
+                limit.release(this, System.nanoTime() - start, overloaded);
+            }
+        }
+
+        /**
+         * Release the permit after the request failed without response (e.g. timeout, connection refused), which
+         * reduces the limit.
+         */
+        void failed() {
+            if (released.compareAndSet(false, true)) {
+                limit.release(this, System.nanoTime() - start, true);
+            }
+        }
+
+        /**
+         * Release the permit of a request which was cancelled (or not sent at all), without adapting the limit.
+         */
+        void cancelled() {
+            if (released.compareAndSet(false, true)) {
+                limit.release(this, -1, false);
+            }
+        }
+    }
+
+    /**
+     * Concurrency limit of an upstream, with the requests in flight and the queue of waiting calls. The state is
+     * guarded by the monitor of the limit, the waiting calls are completed outside of it.
+     */
+    private final class Limit implements ConcurrencyLimitMXBean {
+
+        private final String upstream;
+        private final ArrayDeque<CompletableFuture<Permit>> waiters = new ArrayDeque<>();
+        private final LongAdder rejected = new LongAdder();
+
+        private double limit = initialLimit;
+        private int inFlight;
+        private long minRttNanos;
+        private long samples;
+
+        Limit(String upstream) {
+            this.upstream = upstream;
+        }
+
+        CompletableFuture<Permit> acquire() {
+            CompletableFuture<Permit> waiter;
+            synchronized (this) {
+                if (waiters.isEmpty() && inFlight < (int) limit) {
+                    inFlight++;
+                    return CompletableFuture.completedFuture(new Permit(this, inFlight));
+                }
+                if (waiters.size() >= maxQueue) {
+                    rejected.increment();
+                    return CompletableFuture.failedFuture(rejection("the queue is full"));
+                }
+                waiter = new CompletableFuture<>();
+                waiters.add(waiter);
+            }
+            waiter.whenComplete((permit, error) -> {
+                if (error != null) {
+                    synchronized (this) {
+                        waiters.remove(waiter);
+                    }
+                }
+            });
+            CompletableFuture.delayedExecutor(maxWaitNanos, TimeUnit.NANOSECONDS).execute(() -> {
+                synchronized (this) {
+                    if (!waiters.remove(waiter)) {
+                        // granted or cancelled in the meantime
+                        return;
+                    }
+                }
+                rejected.increment();
+                waiter.completeExceptionally(rejection("waited for longer than " + Duration.ofNanos(maxWaitNanos)));
+            });
+            return waiter;
+        }
+
+        private ConcurrencyLimitExceededException rejection(String reason) {
+            int currentLimit = getLimit();
+            return new ConcurrencyLimitExceededException(String.format("concurrency limit of %d reached for %s, %s",
+                    currentLimit, upstream, reason), upstream, currentLimit);
+        }
+
+        void release(Permit permit, long rttNanos, boolean dropped) {
+            List<CompletableFuture<Permit>> granted = new ArrayList<>();
+            List<Permit> permits = new ArrayList<>();
+            synchronized (this) {
+                inFlight--;
+                if (rttNanos >= 0) {
+                    update(rttNanos, dropped, permit.inFlight);
+                }
+                while (inFlight < (int) limit && !waiters.isEmpty()) {
+                    inFlight++;
+                    granted.add(waiters.poll());
+                    permits.add(new Permit(this, inFlight));
+                }
+            }
+            for (int i = 0; i < granted.size(); i++) {
+                if (!granted.get(i).complete(permits.get(i))) {
+                    // cancelled or timed out in the meantime
+                    permits.get(i).cancelled();
+                }
+            }
+        }
+
+        private void update(long rttNanos, boolean dropped, int inFlightAtStart) {
+            if (dropped) {
+                limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+                return;
+            }
+            samples++;
+            if (minRttNanos == 0 || rttNanos < minRttNanos || samples % PROBE_INTERVAL == 0) {
+                minRttNanos = Math.max(1, rttNanos);
+            }
+            if (inFlightAtStart * 2 < limit) {
+                // the limit is not used, no evidence that it could be increased
+                return;
+            }
+            double log = Math.max(1, Math.log10(limit));
+            double alpha = 3 * log;
+            double beta = 6 * log;
+            double queue = Math.ceil(limit * (1 - (double) minRttNanos / rttNanos));
+            if (queue <= log) {
+                limit += beta;
+            } else if (queue < alpha) {
+                limit += log;
+            } else if (queue > beta) {
+                limit -= log;
+            }
+            limit = Math.max(minLimit, Math.min(maxLimit, limit));
+        }
+
+        synchronized ConcurrencyLimitStats stats() {
+            return new ConcurrencyLimitStats(upstream, (int) limit, inFlight, waiters.size(), rejected.sum(),
+                    TimeUnit.NANOSECONDS.toMicros(minRttNanos));
+        }
+
+        @Override
+        public String getUpstream() {
+            return upstream;
+        }
+
+        @Override
+        public synchronized int getLimit() {
+            return (int) limit;
+        }
+
+        @Override
+        public synchronized int getInFlight() {
+            return inFlight;
+        }
+
+        @Override
+        public synchronized int getQueued() {
+            return waiters.size();
+        }
+
+        @Override
+        public long getRejected() {
+            return rejected.sum();
+        }
+
+        @Override
+        public synchronized long getMinRttMicros() {
+            return TimeUnit.NANOSECONDS.toMicros(minRttNanos);
+        }
+    }
+
+    public static class Builder {
+
+        private int initialLimit = DEFAULT_INITIAL_LIMIT;
+        private int minLimit = DEFAULT_MIN_LIMIT;
+        private int maxLimit = DEFAULT_MAX_LIMIT;
+        private int maxQueue = DEFAULT_MAX_QUEUE;
+        private Duration maxWait = DEFAULT_MAX_WAIT;
+        private String jmxClientName;
+
+        private Builder() {
+
+        }
+
+        /**
+         * Initial concurrency limit of each upstream, before it is learned. Optional, default is
+         * {@value #DEFAULT_INITIAL_LIMIT}.
+         *
+         * @param initialLimit initial limit, at least 1
+         * @return builder
+         */
+        public Builder initialLimit(int initialLimit) {
+            this.initialLimit = positive(initialLimit, "initialLimit");
+            return this;
+        }
+
+        /**
+         * Lower bound of the concurrency limit. Optional, default is {@value #DEFAULT_MIN_LIMIT}.
+         *
+         * @param minLimit minimum limit, at least 1
+         * @return builder
+         */
+        public Builder minLimit(int minLimit) {
+            this.minLimit = positive(minLimit, "minLimit");
+            return this;
+        }
+
+        /**
+         * Upper bound of the concurrency limit. Optional, default is {@value #DEFAULT_MAX_LIMIT}.
+         *
+         * @param maxLimit maximum limit, at least 1
+         * @return builder
+         */
+        public Builder maxLimit(int maxLimit) {
+            this.maxLimit = positive(maxLimit, "maxLimit");
+            return this;
+        }
+
+        /**
+         * Maximum number of calls waiting for a permit per upstream, further calls are rejected immediately (0: no
+         * queue, calls exceeding the limit are rejected right away). Optional, default is
+         * {@value #DEFAULT_MAX_QUEUE}.
+         *
+         * @param maxQueue maximum queue size, not negative
+         * @return builder
+         */
+        public Builder maxQueue(int maxQueue) {
+            if (maxQueue < 0) {
+                throw new IllegalArgumentException("maxQueue must not be negative");
+            }
+            this.maxQueue = maxQueue;
+            return this;
+        }
+
+        /**
+         * Maximum time a call waits in the queue for a permit, before it is rejected. Optional, default is 1 second.
+         *
+         * @param maxWait maximum wait time
+         * @return builder
+         */
+        public Builder maxWait(Duration maxWait) {
+            requireNonNull(maxWait, "maxWait is required");
+            if (maxWait.isNegative()) {
+                throw new IllegalArgumentException("maxWait must not be negative");
+            }
+            this.maxWait = maxWait;
+            return this;
+        }
+
+        /**
+         * Expose the limits over JMX (platform MBean server), with an MXBean for each upstream named
+         * <code>ch.frostnova.easy-rest-client:type=ConcurrencyLimit,client=&lt;clientName&gt;,upstream=&lt;upstream&gt;</code>.
+         * The MXBeans are registered when an upstream is called first, and unregistered on
+         * {@link ConcurrencyLimiter#close()}. Optional, default is not exposed.
+         *
+         * @param clientName name of the rest client
+         * @return builder
+         */
+        public Builder jmx(String clientName) {
+            this.jmxClientName = requireNonNull(clientName, "clientName is required");
+            return this;
+        }
+
+        private static int positive(int value, String name) {
+            if (value < 1) {
+                throw new IllegalArgumentException(name + " must be at least 1");
+            }
+            return value;
+        }
+
+        public ConcurrencyLimiter build() {
+            if (minLimit > maxLimit) {
+                throw new IllegalStateException("minLimit must not be greater than maxLimit");
+            }
+            if (initialLimit < minLimit || initialLimit > maxLimit) {
+                throw new IllegalStateException("initialLimit must be between minLimit and maxLimit");
+            }
+            return new ConcurrencyLimiter(this);
+        }
+    }
+}
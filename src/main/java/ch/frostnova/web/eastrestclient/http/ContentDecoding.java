@@ -0,0 +1,350 @@
+package ch.frostnova.web.eastrestclient.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Decoding of compressed response bodies (<code>Content-Encoding: gzip</code> or <code>deflate</code>) while they are
+ * received: the body subscriber inflates each chunk of the body as it arrives, and passes the decompressed chunks on
+ * to the actual body subscriber (byte array, input stream). Responses without (or with another) content encoding are
+ * passed through unchanged.
+ */
+final class ContentDecoding {
+
+    private final static int CHUNK_SIZE = 8192;
+
+    private ContentDecoding() {
+
+    }
+
+    /**
+     * Body handler for byte arrays, decompressing compressed responses.
+     *
+     * @param compression compression recording the statistics
+     * @return body handler
+     */
+    static HttpResponse.BodyHandler<byte[]> ofByteArray(Compression compression) {
+        return handler(info -> HttpResponse.BodySubscribers.ofByteArray(), compression);
+    }
+
+    /**
+     * Body handler for input streams (streamed responses), decompressing compressed responses.
+     *
+     * @param compression compression recording the statistics
+     * @return body handler
+     */
+    static HttpResponse.BodyHandler<InputStream> ofInputStream(Compression compression) {
+        return handler(info -> HttpResponse.BodySubscribers.ofInputStream(), compression);
+    }
+
+    private static <T> HttpResponse.BodyHandler<T> handler(
+            Function<HttpResponse.ResponseInfo, HttpResponse.BodySubscriber<T>> downstream, Compression compression) {
+        return info -> {
+            String encoding = info.headers().firstValue("content-encoding").map(e -> e.trim().toLowerCase(Locale.ROOT)).orElse(null);
+            if ("gzip".equals(encoding) || "x-gzip".equals(encoding)) {
+                return new DecodingSubscriber<>(downstream.apply(info), new Decoder(true), compression);
+            }
+            if ("deflate".equals(encoding)) {
+                return new DecodingSubscriber<>(downstream.apply(info), new Decoder(false), compression);
+            }
+            return downstream.apply(info);
+        };
+    }
+
+    /**
+     * Body subscriber decompressing the body, and passing the decompressed chunks to the downstream subscriber.
+     */
+    private final static class DecodingSubscriber<T> implements HttpResponse.BodySubscriber<T> {
+
+        private final HttpResponse.BodySubscriber<T> downstream;
+        private final Decoder decoder;
+        private final Compression compression;
+        private Flow.Subscription subscription;
+        private boolean failed;
+
+        DecodingSubscriber(HttpResponse.BodySubscriber<T> downstream, Decoder decoder, Compression compression) {
+            this.downstream = downstream;
+            this.decoder = decoder;
+            this.compression = compression;
+        }
+
+        @Override
+        public CompletionStage<T> getBody() {
+            return downstream.getBody();
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            // each chunk received is passed on as one (decompressed) chunk, so the demand can be passed through
+            downstream.onSubscribe(subscription);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> item) {
+            if (failed) {
+                return;
+            }
+            List<ByteBuffer> decoded;
+            try {
+                decoded = decoder.decode(item);
+            } catch (IOException ex) {
+                failed = true;
+                decoder.end();
+                subscription.cancel();
+                downstream.onError(ex);
+                return;
+            }
+            if (decoded.isEmpty()) {
+                // nothing decompressed yet (e.g. only header bytes), keep the demand of the downstream subscriber
+                subscription.request(1);
+            } else {
+                downstream.onNext(decoded);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            decoder.end();
+            if (!failed) {
+                downstream.onError(throwable);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            if (failed) {
+                return;
+            }
+            try {
+                decoder.finish();
+            } catch (IOException ex) {
+                downstream.onError(ex);
+                return;
+            } finally {
+                decoder.end();
+            }
+            if (decoder.encodedBytes > 0) {
+                compression.decoded(decoder.encodedBytes, decoder.decodedBytes);
+            }
+            downstream.onComplete();
+        }
+    }
+
+    /**
+     * Incremental decoder for gzip (RFC 1952: header, deflate data, trailer with CRC-32 and size) and deflate (zlib
+     * format as specified by RFC 7230, or raw deflate data as sent by some servers).
+     */
+    private final static class Decoder {
+
+        private final static int HEADER = 0;
+        private final static int DATA = 1;
+        private final static int TRAILER = 2;
+        private final static int DONE = 3;
+
+        private final boolean gzip;
+        private final CRC32 crc = new CRC32();
+        private Inflater inflater;
+        private int state = HEADER;
+        /**
+         * Header or trailer bytes received so far (may be split over several chunks).
+         */
+        private byte[] pending = new byte[0];
+        private long encodedBytes;
+        private long decodedBytes;
+
+        Decoder(boolean gzip) {
+            this.gzip = gzip;
+        }
+
+        List<ByteBuffer> decode(List<ByteBuffer> buffers) throws IOException {
+            List<ByteBuffer> decoded = new ArrayList<>(buffers.size() + 1);
+            for (ByteBuffer buffer : buffers) {
+                byte[] bytes = new byte[buffer.remaining()];
+                buffer.get(bytes);
+                encodedBytes += bytes.length;
+                decode(bytes, 0, bytes.length, decoded);
+            }
+            return decoded;
+        }
+
+        private void decode(byte[] bytes, int offset, int length, List<ByteBuffer> decoded) throws IOException {
+            while (length > 0) {
+                if (state == HEADER) {
+                    append(bytes, offset, length);
+                    offset = 0;
+                    length = 0;
+                    int headerLength = gzip ? gzipHeaderLength(pending) : zlibHeaderLength(pending);
+                    if (headerLength < 0) {
+                        return;
+                    }
+                    bytes = pending;
+                    offset = headerLength;
+                    length = pending.length - headerLength;
+                    pending = new byte[0];
+                    state = DATA;
+                } else if (state == DATA) {
+                    inflater.setInput(bytes, offset, length);
+                    inflate(decoded);
+                    int remaining = inflater.getRemaining();
+                    offset += length - remaining;
+                    length = remaining;
+                    if (inflater.finished()) {
+                        state = gzip ? TRAILER : DONE;
+                    }
+                } else if (state == TRAILER) {
+                    int trailerBytes = Math.min(length, 8 - pending.length);
+                    append(bytes, offset, trailerBytes);
+                    offset += trailerBytes;
+                    length -= trailerBytes;
+                    if (pending.length == 8) {
+                        checkTrailer();
+                        state = DONE;
+                    }
+                } else {
+                    // ignore trailing data (e.g. padding)
+                    return;
+                }
+            }
+        }
+
+        private void inflate(List<ByteBuffer> decoded) throws IOException {
+            try {
+                // inflate until no more output (the inflater may hold output even when all input was consumed)
+                while (!inflater.finished()) {
+                    byte[] chunk = new byte[CHUNK_SIZE];
+                    int count = inflater.inflate(chunk);
+                    if (count == 0) {
+                        if (inflater.needsDictionary()) {
+                            throw new ZipException("deflate data with preset dictionary is not supported");
+                        }
+                        return;
+                    }
+                    if (gzip) {
+                        crc.update(chunk, 0, count);
+                    }
+                    decodedBytes += count;
+                    decoded.add(ByteBuffer.wrap(chunk, 0, count));
+                }
+            } catch (DataFormatException ex) {
+                throw new ZipException("invalid " + (gzip ? "gzip" : "deflate") + " data: " + ex.getMessage());
+            }
+        }
+
+        private void append(byte[] bytes, int offset, int length) {
+            byte[] appended = new byte[pending.length + length];
+            System.arraycopy(pending, 0, appended, 0, pending.length);
+            System.arraycopy(bytes, offset, appended, pending.length, length);
+            pending = appended;
+        }
+
+        /**
+         * Length of the gzip header (magic, method, flags and optional fields), and creates the inflater.
+         *
+         * @return header length, or -1 if more bytes are needed
+         */
+        private int gzipHeaderLength(byte[] header) throws ZipException {
+            if (header.length < 10) {
+                return -1;
+            }
+            if ((header[0] & 0xff) != 0x1f || (header[1] & 0xff) != 0x8b) {
+                throw new ZipException("not in gzip format");
+            }
+            if (header[2] != 8) {
+                throw new ZipException("unsupported compression method: " + header[2]);
+            }
+            int flags = header[3] & 0xff;
+            int position = 10;
+            if ((flags & 0x04) != 0) {
+                // FEXTRA
+                if (header.length < position + 2) {
+                    return -1;
+                }
+                position += 2 + ((header[position] & 0xff) | (header[position + 1] & 0xff) << 8);
+            }
+            if ((flags & 0x08) != 0) {
+                // FNAME
+                position = skipZeroTerminated(header, position);
+            }
+            if ((flags & 0x10) != 0 && position >= 0) {
+                // FCOMMENT
+                position = skipZeroTerminated(header, position);
+            }
+            if ((flags & 0x02) != 0 && position >= 0) {
+                // FHCRC
+                position += 2;
+            }
+            if (position < 0 || position > header.length) {
+                return -1;
+            }
+            inflater = new Inflater(true);
+            return position;
+        }
+
+        private static int skipZeroTerminated(byte[] bytes, int position) {
+            for (int i = position; i < bytes.length; i++) {
+                if (bytes[i] == 0) {
+                    return i + 1;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Detects zlib or raw deflate data (the zlib header is part of the deflate data), and creates the inflater.
+         *
+         * @return 0, or -1 if more bytes are needed
+         */
+        private int zlibHeaderLength(byte[] header) {
+            if (header.length < 2) {
+                return -1;
+            }
+            int cmf = header[0] & 0xff;
+            int flg = header[1] & 0xff;
+            boolean zlib = (cmf & 0x0f) == 8 && (cmf << 8 | flg) % 31 == 0;
+            inflater = new Inflater(!zlib);
+            return 0;
+        }
+
+        private void checkTrailer() throws ZipException {
+            long expectedCrc = readInt(pending, 0);
+            long expectedSize = readInt(pending, 4);
+            if (expectedCrc != crc.getValue()) {
+                throw new ZipException("corrupt gzip data: CRC mismatch");
+            }
+            if (expectedSize != (decodedBytes & 0xffffffffL)) {
+                throw new ZipException("corrupt gzip data: size mismatch");
+            }
+        }
+
+        private static long readInt(byte[] bytes, int offset) {
+            return (bytes[offset] & 0xffL) | (bytes[offset + 1] & 0xffL) << 8
+                    | (bytes[offset + 2] & 0xffL) << 16 | (bytes[offset + 3] & 0xffL) << 24;
+        }
+
+        void finish() throws IOException {
+            // an empty body (e.g. 204 no content) is not compressed, even if a content encoding is declared
+            if (state != DONE && encodedBytes > 0) {
+                throw new ZipException("unexpected end of " + (gzip ? "gzip" : "deflate") + " data");
+            }
+        }
+
+        void end() {
+            if (inflater != null) {
+                inflater.end();
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package ch.frostnova.web.eastrestclient.http;
+
+import java.nio.charset.Charset;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Parsed content type (media type with parameters, e.g. <code>application/json; charset=UTF-8</code>): the essence
+ * (type and subtype, in lower case), the structured syntax suffix (e.g. <code>json</code> for
+ * <code>application/problem+json</code>) and the charset.<p>
+ * Parsed content types are cached by their header value: servers only ever send a handful of distinct values, so
+ * after the first responses, a content type is looked up instead of parsed. The cache is bounded, values beyond
+ * {@link #MAX_CACHED} distinct ones are parsed on each use.
+ */
+final class ContentType {
+
+    final static int MAX_CACHED = 256;
+
+    private final static Map<String, ContentType> PARSED = new ConcurrentHashMap<>();
+
+    private final String essence;
+    private final String suffix;
+    private final Charset charset;
+    private final boolean binary;
+
+    private ContentType(String essence, Charset charset) {
+        this.essence = essence;
+        int plus = essence.lastIndexOf('+');
+        this.suffix = plus > essence.indexOf('/') ? essence.substring(plus + 1) : null;
+        this.charset = charset;
+        this.binary = isBinary(essence, suffix);
+    }
+
+    /**
+     * Parse a content type, or look it up if it was parsed before.
+     *
+     * @param value content type, optional
+     * @return parsed content type, or null if the value was null
+     */
+    static ContentType of(String value) {
+        if (value == null) {
+            return null;
+        }
+        ContentType contentType = PARSED.get(value);
+        if (contentType == null) {
+            contentType = parse(value);
+            if (PARSED.size() < MAX_CACHED) {
+                PARSED.put(value, contentType);
+            }
+        }
+        return contentType;
+    }
+
+    private static ContentType parse(String value) {
+        int parameters = value.indexOf(';');
+        String essence = (parameters >= 0 ? value.substring(0, parameters) : value).trim().toLowerCase(Locale.ROOT);
+        Charset charset = null;
+        while (parameters >= 0) {
+            int next = value.indexOf(';', parameters + 1);
+            String parameter = (next >= 0 ? value.substring(parameters + 1, next) : value.substring(parameters + 1)).trim();
+            if (parameter.regionMatches(true, 0, "charset=", 0, 8)) {
+                try {
+                    charset = Charset.forName(parameter.substring(8).replace("\"", "").trim());
+                } catch (IllegalArgumentException ex) {
+                    // unknown or illegal charset: fall back to the default
+                }
+            }
+            parameters = next;
+        }
+        return new ContentType(essence, charset);
+    }
+
+    private static boolean isBinary(String essence, String suffix) {
+        return essence.equals(MediaTypes.APPLICATION_CBOR) || "cbor".equals(suffix)
+                || essence.equals(MediaTypes.APPLICATION_SMILE)
+                || essence.equals(MediaTypes.APPLICATION_MSGPACK) || essence.equals("application/msgpack") || essence.equals("application/vnd.msgpack")
+                || essence.equals("application/octet-stream")
+                || essence.startsWith("image/") || essence.startsWith("audio/") || essence.startsWith("video/");
+    }
+
+    /**
+     * Type and subtype, in lower case and without parameters, e.g. <code>application/json</code>.
+     *
+     * @return essence
+     */
+    String essence() {
+        return essence;
+    }
+
+    /**
+     * Structured syntax suffix of the subtype, e.g. <code>json</code> for <code>application/problem+json</code>.
+     *
+     * @return suffix, or null if none
+     */
+    String suffix() {
+        return suffix;
+    }
+
+    /**
+     * Charset (<code>charset</code> parameter).
+     *
+     * @param defaultCharset charset to use if none or an unknown one was declared
+     * @return charset
+     */
+    Charset charset(Charset defaultCharset) {
+        return charset != null ? charset : defaultCharset;
+    }
+
+    /**
+     * Whether this content type denotes binary content (binary formats, octet streams, images, audio and video).
+     *
+     * @return true if binary
+     */
+    boolean isBinary() {
+        return binary;
+    }
+
+    @Override
+    public String toString() {
+        return charset != null ? essence + "; charset=" + charset.name() : essence;
+    }
+}
@@ -0,0 +1,169 @@
+package ch.frostnova.web.eastrestclient.http;
+
+import ch.frostnova.web.eastrestclient.metrics.ExchangeTiming;
+import ch.frostnova.web.eastrestclient.metrics.ExchangeTimingListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.http.HttpResponse;
+
+/**
+ * Measures the phases of an HTTP exchange (see {@link ExchangeTiming}), notifies the listeners once the exchange is
+ * completed, and emits the JDK Flight Recorder events ({@link RestExchangeEvent}, {@link RestSerializationEvent} and
+ * {@link RestDeserializationEvent}). Only created when there are listeners or any of the events is enabled, the rest
+ * adapter passes null otherwise.
+ */
+final class ExchangeTimer {
+
+    private final static Logger logger = LoggerFactory.getLogger(ExchangeTimer.class);
+
+    private final static int ENCODED = 0;
+    private final static int RECEIVED = 1;
+    private final static int CHECKED = 2;
+    private final static int DECODED = 3;
+
+    private final ExchangeTimingListener[] listeners;
+    private final RestMethodCodec codec;
+    private final RequestMethod requestMethod;
+    private final URI uri;
+    private final long start = System.nanoTime();
+    private final long[] marks = new long[4];
+    private long requestBytes;
+    private long responseBytes = -1;
+    private String responseContentType;
+
+    private final RestExchangeEvent exchangeEvent;
+    private final RestSerializationEvent serializationEvent;
+    private RestDeserializationEvent deserializationEvent;
+
+    private ExchangeTimer(ExchangeTimingListener[] listeners, RestMethodCodec codec, RequestMethod requestMethod, URI uri,
+                          boolean exchangeEventEnabled, boolean serializationEventEnabled) {
+        this.listeners = listeners;
+        this.codec = codec;
+        this.requestMethod = requestMethod;
+        this.uri = uri;
+        exchangeEvent = exchangeEventEnabled ? new RestExchangeEvent() : null;
+        serializationEvent = serializationEventEnabled ? new RestSerializationEvent() : null;
+        if (exchangeEvent != null) {
+            exchangeEvent.begin();
+        }
+        if (serializationEvent != null) {
+            serializationEvent.begin();
+        }
+    }
+
+    /**
+     * Start timing an exchange (before the request body is serialized).
+     *
+     * @param listeners     timing listeners
+     * @param codec         codec of the rest method
+     * @param requestMethod request method
+     * @param uri           request uri
+     * @return timer, or null if there are no listeners and no events are enabled
+     */
+    static ExchangeTimer start(ExchangeTimingListener[] listeners, RestMethodCodec codec, RequestMethod requestMethod, URI uri) {
+        boolean exchangeEventEnabled = RestExchangeEvent.PROBE.isEnabled();
+        boolean serializationEventEnabled = RestSerializationEvent.PROBE.isEnabled();
+        if (listeners.length == 0 && !exchangeEventEnabled && !serializationEventEnabled
+                && !RestDeserializationEvent.PROBE.isEnabled()) {
+            return null;
+        }
+        return new ExchangeTimer(listeners, codec, requestMethod, uri, exchangeEventEnabled, serializationEventEnabled);
+    }
+
+    void encoded(byte[] serializedBody) {
+        marks[ENCODED] = System.nanoTime();
+        requestBytes = serializedBody != null ? serializedBody.length : 0;
+        if (serializationEvent != null) {
+            serializationEvent.end();
+            if (serializationEvent.shouldCommit()) {
+                serializationEvent.restClient = restClient();
+                serializationEvent.method = codec.signature();
+                serializationEvent.requestBytes = requestBytes;
+                serializationEvent.commit();
+            }
+        }
+    }
+
+    void received(HttpResponse<?> response, byte[] body) {
+        marks[RECEIVED] = System.nanoTime();
+        responseBytes = response.headers().firstValueAsLong("content-length").orElse(body != null ? body.length : -1);
+        if (RestDeserializationEvent.PROBE.isEnabled()) {
+            responseContentType = response.headers().firstValue("content-type").orElse(null);
+        }
+    }
+
+    void checked() {
+        marks[CHECKED] = System.nanoTime();
+        if (RestDeserializationEvent.PROBE.isEnabled()) {
+            deserializationEvent = new RestDeserializationEvent();
+            deserializationEvent.begin();
+        }
+    }
+
+    void decoded() {
+        marks[DECODED] = System.nanoTime();
+        if (deserializationEvent != null) {
+            deserializationEvent.end();
+            if (deserializationEvent.shouldCommit()) {
+                deserializationEvent.restClient = restClient();
+                deserializationEvent.method = codec.signature();
+                deserializationEvent.contentType = responseContentType;
+                deserializationEvent.responseBytes = responseBytes;
+                deserializationEvent.commit();
+            }
+        }
+    }
+
+    /**
+     * Complete the exchange, notify the listeners and commit the exchange event. Phases which were not reached are
+     * zero, the phase in which the exchange failed lasts until now.
+     *
+     * @param statusCode status code of the response, 0 if none
+     */
+    void completed(int statusCode) {
+        if (exchangeEvent != null) {
+            exchangeEvent.end();
+            if (exchangeEvent.shouldCommit()) {
+                exchangeEvent.restClient = restClient();
+                exchangeEvent.method = codec.signature();
+                exchangeEvent.httpMethod = requestMethod.name();
+                exchangeEvent.uriTemplate = codec.uriTemplate();
+                exchangeEvent.uri = uri.toString();
+                exchangeEvent.statusCode = statusCode;
+                exchangeEvent.requestBytes = requestBytes;
+                exchangeEvent.responseBytes = responseBytes;
+                exchangeEvent.commit();
+            }
+        }
+        if (listeners.length == 0) {
+            return;
+        }
+        long end = System.nanoTime();
+        long[] phases = new long[marks.length];
+        long previous = start;
+        for (int i = 0; i < marks.length; i++) {
+            long mark = marks[i] != 0 ? marks[i] : end;
+            phases[i] = mark - previous;
+            previous = mark;
+            if (marks[i] == 0) {
+                break;
+            }
+        }
+        ExchangeTiming timing = new ExchangeTiming(codec.name(), requestMethod, uri, statusCode,
+                phases[ENCODED], phases[RECEIVED], phases[CHECKED], phases[DECODED], requestBytes, responseBytes);
+        for (ExchangeTimingListener listener : listeners) {
+            try {
+                listener.exchangeCompleted(timing);
+            } catch (RuntimeException ex) {
+                logger.warn("exchange timing listener failed: {}", ex.toString());
+            }
+        }
+    }
+
+    private String restClient() {
+        Class<?> restClientInterface = codec.restClientInterface();
+        return restClientInterface != null ? restClientInterface.getName() : null;
+    }
+}
@@ -0,0 +1,412 @@
+package ch.frostnova.web.eastrestclient.http;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Hedging of idempotent requests (opt-in, see
+ * {@link ch.frostnova.web.eastrestclient.RestClient.Builder#hedging(HedgingPolicy)}), to cut the tail latency caused
+ * by occasional slow servers: if the response to a request has not been received within the hedge delay, the same
+ * request is sent again. The first successful response (no server error) wins, the other request is cancelled.<p>
+ * The hedge delay is either fixed, or learned per rest method as percentile of its recent response times (e.g. the
+ * 95th percentile, so only the slowest 5% of the calls are hedged). The extra load is capped by a budget: each call
+ * earns a fraction of a hedge ({@link Builder#maxExtraLoad(double)}), and a hedge is only sent if a whole one has been
+ * earned.<p>
+ * Only <code>GET</code>, <code>PUT</code> and <code>DELETE</code> requests can be hedged (<code>POST</code> is not
+ * idempotent). Streamed results are not hedged. A policy can be shared by several rest clients.
+ */
+public final class HedgingPolicy {
+
+    public final static double DEFAULT_MAX_EXTRA_LOAD = 0.1;
+    public final static Duration DEFAULT_MIN_DELAY = Duration.ofMillis(1);
+
+    /**
+     * Number of response times kept per rest method to learn the hedge delay.
+     */
+    private final static int SAMPLES = 256;
+    /**
+     * Number of response times required before the learned hedge delay is used.
+     */
+    private final static int MIN_SAMPLES = 32;
+    /**
+     * Number of response times recorded before the learned hedge delay is updated.
+     */
+    private final static int UPDATE_INTERVAL = 16;
+    /**
+     * Budget granularity: one hedge is worth this many budget units.
+     */
+    private final static long HEDGE_COST = 1_000_000;
+
+    private final long delayNanos;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final double maxExtraLoad;
+    private final Set<RequestMethod> requestMethods;
+
+    private final long budgetPerCall;
+    private final long maxBudget;
+    private final AtomicLong budget = new AtomicLong();
+    private final ConcurrentHashMap<RestMethodCodec, ResponseTimes> responseTimes = new ConcurrentHashMap<>();
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    private final LongAdder suppressed = new LongAdder();
+
+    private HedgingPolicy(Builder builder) {
+        delayNanos = builder.delay != null ? builder.delay.toNanos() : -1;
+        percentile = builder.percentile;
+        minDelayNanos = builder.minDelay.toNanos();
+        maxExtraLoad = builder.maxExtraLoad;
+        requestMethods = Collections.unmodifiableSet(builder.requestMethods);
+        budgetPerCall = Math.round(maxExtraLoad * HEDGE_COST);
+        // allow short bursts of hedges (when a server becomes slow), but not more than 10 hedges at once
+        maxBudget = Math.max(HEDGE_COST, Math.min(10 * HEDGE_COST, 100 * budgetPerCall));
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Fixed hedge delay (also used until enough response times were recorded to learn it).
+     *
+     * @return fixed hedge delay, or null if none
+     */
+    public Duration getDelay() {
+        return delayNanos >= 0 ? Duration.ofNanos(delayNanos) : null;
+    }
+
+    /**
+     * Percentile of the response times used as hedge delay.
+     *
+     * @return percentile (0..1), 0 if the hedge delay is not learned
+     */
+    public double getPercentile() {
+        return percentile;
+    }
+
+    public double getMaxExtraLoad() {
+        return maxExtraLoad;
+    }
+
+    public Set<RequestMethod> getRequestMethods() {
+        return requestMethods;
+    }
+
+    /**
+     * Snapshot of the statistics (how often hedges were sent, and won).
+     *
+     * @return statistics
+     */
+    public HedgingStats stats() {
+        return new HedgingStats(calls.sum(), hedges.sum(), hedgeWins.sum(), suppressed.sum());
+    }
+
+    /**
+     * Check if requests with the given method are hedged.
+     *
+     * @param requestMethod request method
+     * @return true if hedged
+     */
+    boolean appliesTo(RequestMethod requestMethod) {
+        return requestMethods.contains(requestMethod);
+    }
+
+    /**
+     * Send a request asynchronously, and hedge it if it did not complete within the hedge delay of the rest method.
+     * Cancelling the returned future cancels the request(s) in flight.
+     *
+     * @param httpClient  http client
+     * @param request     request
+     * @param bodyHandler body handler of the response
+     * @param codec       codec of the rest method
+     * @return response (of the winning request)
+     */
+    <T> CompletableFuture<HttpResponse<T>> send(HttpClient httpClient, HttpRequest request,
+                                                 HttpResponse.BodyHandler<T> bodyHandler, RestMethodCodec codec) {
+        calls.increment();
+        earnBudget();
+        ResponseTimes times = percentile > 0 ? responseTimes.computeIfAbsent(codec, c -> new ResponseTimes()) : null;
+        long delay = times != null ? times.delayNanos() : -1;
+        if (delay < 0) {
+            delay = delayNanos;
+        }
+        return new HedgedExchange<>(httpClient, request, bodyHandler, times).start(delay);
+    }
+
+    private void earnBudget() {
+        long current;
+        do {
+            current = budget.get();
+            if (current >= maxBudget) {
+                return;
+            }
+        } while (!budget.compareAndSet(current, Math.min(maxBudget, current + budgetPerCall)));
+    }
+
+    private boolean spendBudget() {
+        long current;
+        do {
+            current = budget.get();
+            if (current < HEDGE_COST) {
+                return false;
+            }
+        } while (!budget.compareAndSet(current, current - HEDGE_COST));
+        return true;
+    }
+
+    /**
+     * Recent response times of a rest method (ring buffer), and the hedge delay learned from them.
+     */
+    private final class ResponseTimes {
+
+        private final long[] samples = new long[SAMPLES];
+        private long count;
+        private int next;
+        private volatile long delayNanos = -1;
+
+        synchronized void record(long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % SAMPLES;
+            count++;
+            if (count >= MIN_SAMPLES && count % UPDATE_INTERVAL == 0) {
+                long[] sorted = Arrays.copyOf(samples, (int) Math.min(count, SAMPLES));
+                Arrays.sort(sorted);
+                int index = Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1);
+                delayNanos = Math.max(minDelayNanos, sorted[Math.max(0, index)]);
+            }
+        }
+
+        /**
+         * Learned hedge delay.
+         *
+         * @return delay, or -1 if not enough response times were recorded yet
+         */
+        long delayNanos() {
+            return delayNanos;
+        }
+    }
+
+    /**
+     * Exchange of a request, and its hedged request (if sent).
+     */
+    private final class HedgedExchange<T> {
+
+        private final HttpClient httpClient;
+        private final HttpRequest request;
+        private final HttpResponse.BodyHandler<T> bodyHandler;
+        private final ResponseTimes times;
+        private final long start = System.nanoTime();
+        private final CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+
+        private CompletableFuture<HttpResponse<T>> primary;
+        private CompletableFuture<HttpResponse<T>> hedge;
+        private int pending;
+        private boolean decided;
+
+        HedgedExchange(HttpClient httpClient, HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler,
+                       ResponseTimes times) {
+            this.httpClient = httpClient;
+            this.request = request;
+            this.bodyHandler = bodyHandler;
+            this.times = times;
+        }
+
+        CompletableFuture<HttpResponse<T>> start(long delayNanos) {
+            synchronized (this) {
+                pending++;
+            }
+            CompletableFuture<HttpResponse<T>> primary = httpClient.sendAsync(request, bodyHandler);
+            synchronized (this) {
+                this.primary = primary;
+            }
+            primary.whenComplete((response, error) -> completed(false, response, error));
+            if (delayNanos >= 0 && !result.isDone()) {
+                CompletableFuture.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS).execute(this::hedge);
+            }
+            result.whenComplete((response, error) -> {
+                if (result.isCancelled()) {
+                    cancel(primary);
+                    cancel(hedgeExchange());
+                }
+            });
+            return result;
+        }
+
+        private synchronized CompletableFuture<HttpResponse<T>> hedgeExchange() {
+            return hedge;
+        }
+
+        private void hedge() {
+            synchronized (this) {
+                if (decided || result.isDone()) {
+                    return;
+                }
+                if (!spendBudget()) {
+                    suppressed.increment();
+                    return;
+                }
+                pending++;
+            }
+            hedges.increment();
+            CompletableFuture<HttpResponse<T>> hedge = httpClient.sendAsync(request, bodyHandler);
+            synchronized (this) {
+                this.hedge = hedge;
+            }
+            hedge.whenComplete((response, error) -> completed(true, response, error));
+            if (result.isDone()) {
+                cancel(hedge);
+            }
+        }
+
+        private void completed(boolean hedged, HttpResponse<T> response, Throwable error) {
+            boolean success = error == null && response.statusCode() < 500;
+            CompletableFuture<HttpResponse<T>> other;
+            synchronized (this) {
+                pending--;
+                if (decided || result.isDone() || (!success && pending > 0)) {
+                    // lost, or failed while the other request may still succeed
+                    return;
+                }
+                decided = true;
+                other = hedged ? primary : hedge;
+            }
+            if (success) {
+                if (hedged) {
+                    hedgeWins.increment();
+                }
+                if (times != null) {
+                    times.record(System.nanoTime() - start);
+                }
+            }
+            cancel(other);
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(response);
+            }
+        }
+
+        private void cancel(CompletableFuture<HttpResponse<T>> exchange) {
+            if (exchange != null) {
+                exchange.cancel(true);
+            }
+        }
+    }
+
+    public static class Builder {
+
+        private Duration delay;
+        private double percentile;
+        private Duration minDelay = DEFAULT_MIN_DELAY;
+        private double maxExtraLoad = DEFAULT_MAX_EXTRA_LOAD;
+        private Set<RequestMethod> requestMethods = EnumSet.of(RequestMethod.GET, RequestMethod.PUT, RequestMethod.DELETE);
+
+        private Builder() {
+
+        }
+
+        /**
+         * Fixed hedge delay: requests are hedged if they did not complete within this delay. If a
+         * {@link #percentile(double) percentile} is set too, this delay is used until the hedge delay has been
+         * learned. Optional, default is none (but either a delay or a percentile is required).
+         *
+         * @param delay hedge delay
+         * @return builder
+         */
+        public Builder delay(Duration delay) {
+            requireNonNull(delay, "delay is required");
+            if (delay.isNegative()) {
+                throw new IllegalArgumentException("delay must not be negative");
+            }
+            this.delay = delay;
+            return this;
+        }
+
+        /**
+         * Learn the hedge delay per rest method, as percentile of its recent response times (e.g. 0.95: requests
+         * slower than 95% of the recent requests are hedged). Until enough response times were recorded, the fixed
+         * {@link #delay(Duration) delay} is used (if set, else requests are not hedged). Optional, default is none
+         * (but either a delay or a percentile is required).
+         *
+         * @param percentile percentile, greater than 0 and less than 1
+         * @return builder
+         */
+        public Builder percentile(double percentile) {
+            if (!(percentile > 0 && percentile < 1)) {
+                throw new IllegalArgumentException("percentile must be greater than 0 and less than 1");
+            }
+            this.percentile = percentile;
+            return this;
+        }
+
+        /**
+         * Lower bound of the learned hedge delay. Optional, default is 1 ms.
+         *
+         * @param minDelay minimum hedge delay
+         * @return builder
+         */
+        public Builder minDelay(Duration minDelay) {
+            requireNonNull(minDelay, "minDelay is required");
+            if (minDelay.isNegative()) {
+                throw new IllegalArgumentException("minDelay must not be negative");
+            }
+            this.minDelay = minDelay;
+            return this;
+        }
+
+        /**
+         * Maximum extra load generated by hedging, as ratio of hedged requests to calls (each call earns this
+         * fraction of a hedge). Optional, default is {@value #DEFAULT_MAX_EXTRA_LOAD} (at most 10% more requests).
+         *
+         * @param maxExtraLoad maximum extra load, from 0 to 1
+         * @return builder
+         */
+        public Builder maxExtraLoad(double maxExtraLoad) {
+            if (!(maxExtraLoad >= 0 && maxExtraLoad <= 1)) {
+                throw new IllegalArgumentException("maxExtraLoad must be between 0 and 1");
+            }
+            this.maxExtraLoad = maxExtraLoad;
+            return this;
+        }
+
+        /**
+         * Request methods to hedge. Optional, default is <code>GET</code>, <code>PUT</code> and <code>DELETE</code>.
+         *
+         * @param requestMethods request methods, must be idempotent (not <code>POST</code>)
+         * @return builder
+         */
+        public Builder requestMethods(RequestMethod... requestMethods) {
+            Set<RequestMethod> methods = EnumSet.noneOf(RequestMethod.class);
+            for (RequestMethod requestMethod : requestMethods) {
+                if (requireNonNull(requestMethod, "requestMethod is required") == RequestMethod.POST) {
+                    throw new IllegalArgumentException("POST requests are not idempotent, and cannot be hedged");
+                }
+                methods.add(requestMethod);
+            }
+            this.requestMethods = methods;
+            return this;
+        }
+
+        public HedgingPolicy build() {
+            if (delay == null && percentile == 0) {
+                throw new IllegalStateException("either a delay or a percentile is required");
+            }
+            return new HedgingPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package ch.frostnova.web.eastrestclient.http;
+
+/**
+ * Snapshot of the statistics of a {@link HedgingPolicy}.
+ */
+public final class HedgingStats {
+
+    private final long calls;
+    private final long hedges;
+    private final long hedgeWins;
+    private final long suppressed;
+
+    HedgingStats(long calls, long hedges, long hedgeWins, long suppressed) {
+        this.calls = calls;
+        this.hedges = hedges;
+        this.hedgeWins = hedgeWins;
+        this.suppressed = suppressed;
+    }
+
+    /**
+     * Number of calls the policy applied to (calls with a hedged request method).
+     *
+     * @return calls
+     */
+    public long getCalls() {
+        return calls;
+    }
+
+    /**
+     * Number of hedged requests sent (calls which did not complete within the hedge delay).
+     *
+     * @return hedges
+     */
+    public long getHedges() {
+        return hedges;
+    }
+
+    /**
+     * Number of hedged requests whose response was used (completed successfully before the original request).
+     *
+     * @return hedge wins
+     */
+    public long getHedgeWins() {
+        return hedgeWins;
+    }
+
+    /**
+     * Number of hedged requests not sent because the extra load budget was exhausted.
+     *
+     * @return suppressed hedges
+     */
+    public long getSuppressed() {
+        return suppressed;
+    }
+
+    /**
+     * Ratio of hedged requests to calls, which is the extra load generated by hedging.
+     *
+     * @return hedge rate (0..1), 0 if there were no calls
+     */
+    public double getHedgeRate() {
+        return calls > 0 ? (double) hedges / calls : 0;
+    }
+
+    /**
+     * Ratio of hedged requests which won to all hedged requests.
+     *
+     * @return win rate (0..1), 0 if there were no hedges
+     */
+    public double getWinRate() {
+        return hedges > 0 ? (double) hedgeWins / hedges : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("HedgingStats[calls=%d, hedges=%d, hedgeWins=%d, suppressed=%d]",
+                calls, hedges, hedgeWins, suppressed);
+    }
+}
@@ -42,15 +42,27 @@ public final class HttpErrorHandler {
 
     }
 
+    public static boolean isError(HttpResponse<?> httpResponse) {
+        int statusCodeCategory = httpResponse.statusCode() / 100;
+        return statusCodeCategory == 4 || statusCodeCategory == 5;
+    }
+
     public static void checkResponse(HttpResponse<?> httpResponse) {
+        checkResponse(httpResponse, String.valueOf(httpResponse.body()));
+    }
+
+    /**
+     * Check the response, using the given message (response body) for the exception in case of an error. Used for
+     * responses whose body is not a string (such as streamed responses).
+     */
+    public static void checkResponse(HttpResponse<?> httpResponse, String message) {
         int statusCode = httpResponse.statusCode();
         int statusCodeCategory = statusCode / 100;
 
         if (statusCodeCategory == 4 || statusCodeCategory == 5) {
             Response response = new ResponseAdapter(httpResponse);
             Response.Status status = Response.Status.fromStatusCode(statusCode);
-            String message = String.valueOf(httpResponse.body());
-            if (message.isBlank()) message = null;
+            if (message != null && message.isBlank()) message = null;
 
             if (statusCodeCategory == 4) {
                 if (status == BAD_REQUEST) {
@@ -0,0 +1,109 @@
+package ch.frostnova.web.eastrestclient.http;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Body codec using a Jackson object mapper (JSON, XML, and the binary formats, see {@link MediaTypes}). The readers
+ * resolve the type and look up the deserializer once, the writers the serializer.<p>
+ * Streamed results are parsed incrementally (elements of the root-level array), except for XML, where the whole list
+ * is read instead.
+ */
+public final class JacksonBodyCodec implements BodyCodec {
+
+    private final ObjectMapper mapper;
+    private final boolean incremental;
+
+    /**
+     * Create a codec for an object mapper.
+     *
+     * @param mapper object mapper, required
+     */
+    public JacksonBodyCodec(ObjectMapper mapper) {
+        this.mapper = requireNonNull(mapper, "mapper is required");
+        this.incremental = !(mapper instanceof XmlMapper);
+    }
+
+    /**
+     * Object mapper of this codec.
+     *
+     * @return object mapper
+     */
+    public ObjectMapper getMapper() {
+        return mapper;
+    }
+
+    @Override
+    public <T> Reader<T> reader(Type type) {
+        JavaType javaType = mapper.getTypeFactory().constructType(type);
+        return incremental ? new IncrementalReader<>(mapper.readerFor(javaType)) : new ListReader<>(javaType);
+    }
+
+    @Override
+    public Writer writer(Class<?> type) {
+        ObjectWriter writer = mapper.writerFor(type);
+        return writer::writeValueAsBytes;
+    }
+
+    private static class IncrementalReader<T> implements Reader<T> {
+        private final ObjectReader reader;
+
+        IncrementalReader(ObjectReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public T read(byte[] body) throws IOException {
+            return reader.readValue(body);
+        }
+
+        @Override
+        public Iterator<T> readElements(InputStream body) throws IOException {
+            return reader.readValues(body);
+        }
+    }
+
+    /**
+     * Reader which reads streamed results as list, the list reader is created on first use.
+     */
+    private class ListReader<T> implements Reader<T> {
+        private final JavaType type;
+        private final ObjectReader reader;
+        private volatile ObjectReader listReader;
+
+        ListReader(JavaType type) {
+            this.type = type;
+            this.reader = mapper.readerFor(type);
+        }
+
+        @Override
+        public T read(byte[] body) throws IOException {
+            return reader.readValue(body);
+        }
+
+        @Override
+        public Iterator<T> readElements(InputStream body) throws IOException {
+            ObjectReader listReader = this.listReader;
+            if (listReader == null) {
+                listReader = mapper.readerFor(mapper.getTypeFactory().constructCollectionType(List.class, type));
+                this.listReader = listReader;
+            }
+            try (body) {
+                List<T> elements = listReader.readValue(body);
+                return elements != null ? elements.iterator() : Collections.emptyIterator();
+            }
+        }
+    }
+}
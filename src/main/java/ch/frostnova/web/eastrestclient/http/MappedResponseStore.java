@@ -0,0 +1,472 @@
+package ch.frostnova.web.eastrestclient.http;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Persistent tier of the {@link ResponseCache}: cached responses (body and validators) in a memory-mapped file, so they
+ * survive restarts of the JVM. The file has a fixed size, and consists of
+ * <ul>
+ * <li>a header (positions and counts)</li>
+ * <li>the index: an open-addressing hash table (linear probing) of key hash and record position, also in the mapped
+ * file (so it is neither on the heap nor rebuilt on startup)</li>
+ * <li>the records, in a circular log: new records are appended at the head, the oldest records are evicted at the
+ * tail when space (or an index slot) is needed. Replaced records stay in the log until they are evicted.</li>
+ * </ul>
+ * Each record has a checksum, and records which are truncated, corrupt or do not match the key are ignored (and
+ * removed from the index). A file with an invalid header (or a different size) is reinitialized.<p>
+ * Not thread-safe, the response cache synchronizes the access.
+ */
+final class MappedResponseStore {
+
+    private final static Logger logger = LoggerFactory.getLogger(MappedResponseStore.class);
+
+    private final static int MAGIC = 0x45524331; // "ERC1"
+    private final static int VERSION = 1;
+
+    private final static int HEADER_SIZE = 64;
+    private final static int MAGIC_OFFSET = 0;
+    private final static int VERSION_OFFSET = 4;
+    private final static int SLOTS_OFFSET = 8;
+    private final static int SIZE_OFFSET = 16;
+    private final static int HEAD_OFFSET = 24;
+    private final static int TAIL_OFFSET = 32;
+    private final static int RECORDS_OFFSET = 40;
+    private final static int ENTRIES_OFFSET = 48;
+
+    private final static int SLOT_SIZE = 16;
+    private final static int RECORD_HEADER_SIZE = 8;
+    private final static int WRAP = -1;
+
+    final static long MIN_SIZE = 64 * 1024;
+    final static long MAX_SIZE = Integer.MAX_VALUE;
+
+    private final Path file;
+    private final MappedByteBuffer buffer;
+    private final int slots;
+    private final int dataStart;
+    private final int dataEnd;
+
+    private int head;
+    private int tail;
+    private int records;
+    private int entries;
+
+    private MappedResponseStore(Path file, MappedByteBuffer buffer, int size) {
+        this.file = file;
+        this.buffer = buffer;
+        slots = indexSlots(size);
+        dataStart = HEADER_SIZE + slots * SLOT_SIZE;
+        dataEnd = size;
+    }
+
+    /**
+     * Open (or create) the store.
+     *
+     * @param file file
+     * @param size size of the file in bytes ({@link #MIN_SIZE} to {@link #MAX_SIZE})
+     * @return store
+     * @throws IOException if the file could not be opened or mapped
+     */
+    static MappedResponseStore open(Path file, long size) throws IOException {
+        if (size < MIN_SIZE || size > MAX_SIZE) {
+            throw new IllegalArgumentException("size must be between " + MIN_SIZE + " and " + MAX_SIZE + " bytes");
+        }
+        MappedByteBuffer buffer;
+        long existingSize;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            existingSize = channel.size();
+            if (existingSize > size) {
+                channel.truncate(size);
+            }
+            // the mapping extends the file if it is smaller (new, truncated or resized)
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        MappedResponseStore store = new MappedResponseStore(file, buffer, (int) size);
+        if (existingSize != size || !store.readHeader()) {
+            if (existingSize > 0) {
+                logger.warn("response cache file {} is invalid or was truncated or resized, reinitializing", file);
+            }
+            store.clear();
+        }
+        return store;
+    }
+
+    private static int indexSlots(int size) {
+        // one slot per 1 KB of the file, rounded up to a power of two
+        int slots = Integer.highestOneBit(Math.max(64, size / 1024) - 1) << 1;
+        return Math.min(slots, 1 << 20);
+    }
+
+    private boolean readHeader() {
+        if (buffer.getInt(MAGIC_OFFSET) != MAGIC || buffer.getInt(VERSION_OFFSET) != VERSION
+                || buffer.getInt(SLOTS_OFFSET) != slots || buffer.getLong(SIZE_OFFSET) != dataEnd) {
+            return false;
+        }
+        long head = buffer.getLong(HEAD_OFFSET);
+        long tail = buffer.getLong(TAIL_OFFSET);
+        long records = buffer.getLong(RECORDS_OFFSET);
+        long entries = buffer.getLong(ENTRIES_OFFSET);
+        if (head < dataStart || head > dataEnd || tail < dataStart || tail > dataEnd
+                || records < 0 || entries < 0 || entries > records || entries > slots) {
+            return false;
+        }
+        this.head = (int) head;
+        this.tail = (int) tail;
+        this.records = (int) records;
+        this.entries = (int) entries;
+        return true;
+    }
+
+    private void writeHeader() {
+        buffer.putInt(MAGIC_OFFSET, MAGIC);
+        buffer.putInt(VERSION_OFFSET, VERSION);
+        buffer.putInt(SLOTS_OFFSET, slots);
+        buffer.putLong(SIZE_OFFSET, dataEnd);
+        buffer.putLong(HEAD_OFFSET, head);
+        buffer.putLong(TAIL_OFFSET, tail);
+        buffer.putLong(RECORDS_OFFSET, records);
+        buffer.putLong(ENTRIES_OFFSET, entries);
+    }
+
+    /**
+     * Remove all entries.
+     */
+    void clear() {
+        for (int position = HEADER_SIZE; position < dataStart; position += 8) {
+            buffer.putLong(position, 0);
+        }
+        head = dataStart;
+        tail = dataStart;
+        records = 0;
+        entries = 0;
+        writeHeader();
+    }
+
+    /**
+     * Number of entries (records referenced by the index).
+     *
+     * @return entries
+     */
+    int entries() {
+        return entries;
+    }
+
+    /**
+     * Look up the cached response for a key.
+     *
+     * @param key key
+     * @return cached response (with body), or null if not found
+     */
+    CachedResponse get(String key) {
+        long hash = hash(key);
+        int slot = findSlot(hash);
+        if (slot < 0) {
+            return null;
+        }
+        int position = (int) buffer.getLong(slotPosition(slot) + 8);
+        CachedResponse cached = readRecord(position, key);
+        if (cached == null) {
+            logger.debug("invalid record for {} in response cache file {}, removed", key, file);
+            removeSlot(slot);
+            entries--;
+            writeHeader();
+        }
+        return cached;
+    }
+
+    /**
+     * Store a response (replacing a previous response for the key). Responses larger than a quarter of the file are
+     * not stored.
+     *
+     * @param key    key
+     * @param cached cached response
+     * @param body   body of the response
+     */
+    void put(String key, CachedResponse cached, byte[] body) {
+        byte[] record = encode(key, cached, body);
+        if (record.length > (dataEnd - dataStart) / 4) {
+            remove(key);
+            return;
+        }
+        long hash = hash(key);
+        int slot = findSlot(hash);
+        while (slot < 0 && entries >= slots * 3 / 4 && records > 0) {
+            evictTail();
+        }
+        int position = allocate(record.length);
+        buffer.duplicate().position(position).put(record);
+        slot = findSlot(hash);
+        if (slot < 0) {
+            slot = emptySlot(hash);
+            entries++;
+        }
+        buffer.putLong(slotPosition(slot), hash);
+        buffer.putLong(slotPosition(slot) + 8, position);
+        records++;
+        writeHeader();
+    }
+
+    /**
+     * Remove the response for a key.
+     *
+     * @param key key
+     */
+    void remove(String key) {
+        int slot = findSlot(hash(key));
+        if (slot >= 0) {
+            removeSlot(slot);
+            entries--;
+            writeHeader();
+        }
+    }
+
+    /**
+     * Write the changes to the file.
+     */
+    void flush() {
+        buffer.force();
+    }
+
+    /**
+     * Allocate space for a record at the head of the log, evicting records at the tail as needed.
+     *
+     * @param length record length
+     * @return position of the record
+     */
+    private int allocate(int length) {
+        while (true) {
+            if (records == 0) {
+                head = dataStart;
+                tail = dataStart;
+            }
+            if (records == 0 || head > tail) {
+                if (dataEnd - head >= length) {
+                    return advanceHead(length);
+                }
+                // no space left at the end: wrap around
+                if (dataEnd - head >= RECORD_HEADER_SIZE) {
+                    buffer.putInt(head, WRAP);
+                }
+                head = dataStart;
+            } else if (tail - head >= length) {
+                return advanceHead(length);
+            } else {
+                evictTail();
+            }
+        }
+    }
+
+    private int advanceHead(int length) {
+        int position = head;
+        head += length;
+        return position;
+    }
+
+    /**
+     * Evict the oldest record (removing its index slot, unless the key was stored again since).
+     */
+    private void evictTail() {
+        if (dataEnd - tail < RECORD_HEADER_SIZE || buffer.getInt(tail) == WRAP) {
+            tail = dataStart;
+        }
+        int length = buffer.getInt(tail);
+        if (length < RECORD_HEADER_SIZE + 8 || length > dataEnd - tail) {
+            logger.warn("corrupt record in response cache file {}, clearing", file);
+            clear();
+            return;
+        }
+        long hash = buffer.getLong(tail + RECORD_HEADER_SIZE);
+        int slot = findSlot(hash);
+        if (slot >= 0 && buffer.getLong(slotPosition(slot) + 8) == tail) {
+            removeSlot(slot);
+            entries--;
+        }
+        tail += length;
+        records--;
+        if (tail == dataEnd) {
+            tail = dataStart;
+        }
+    }
+
+    private int slotPosition(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    private int findSlot(long hash) {
+        int mask = slots - 1;
+        for (int slot = (int) hash & mask; ; slot = (slot + 1) & mask) {
+            long slotHash = buffer.getLong(slotPosition(slot));
+            if (slotHash == 0) {
+                return -1;
+            }
+            if (slotHash == hash) {
+                return slot;
+            }
+        }
+    }
+
+    private int emptySlot(long hash) {
+        int mask = slots - 1;
+        int slot = (int) hash & mask;
+        while (buffer.getLong(slotPosition(slot)) != 0) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Remove a slot from the index, shifting back the following slots of the probe sequence (no tombstones).
+     */
+    private void removeSlot(int slot) {
+        int mask = slots - 1;
+        int free = slot;
+        for (int next = (free + 1) & mask; ; next = (next + 1) & mask) {
+            long hash = buffer.getLong(slotPosition(next));
+            if (hash == 0) {
+                break;
+            }
+            int home = (int) hash & mask;
+            // move the slot to the free one if its home is not within (free, next]
+            boolean movable = free <= next ? (home <= free || home > next) : (home <= free && home > next);
+            if (movable) {
+                buffer.putLong(slotPosition(free), hash);
+                buffer.putLong(slotPosition(free) + 8, buffer.getLong(slotPosition(next) + 8));
+                free = next;
+            }
+        }
+        buffer.putLong(slotPosition(free), 0);
+        buffer.putLong(slotPosition(free) + 8, 0);
+    }
+
+    private static long hash(String key) {
+        // FNV-1a (64 bit), 0 marks empty slots
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash != 0 ? hash : 1;
+    }
+
+    /**
+     * Record: length, checksum (of the rest of the record), key hash, freshness (until, lifetime,
+     * stale-while-revalidate), key, content type, validators, vary header values, body.
+     */
+    private static byte[] encode(String key, CachedResponse cached, byte[] body) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256 + body.length);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0);
+            out.writeInt(0);
+            out.writeLong(hash(key));
+            out.writeLong(cached.freshUntil());
+            out.writeLong(cached.freshnessLifetime());
+            out.writeLong(cached.staleWhileRevalidate());
+            writeString(out, key);
+            writeString(out, cached.contentType());
+            writeString(out, cached.etag());
+            writeString(out, cached.lastModified());
+            out.writeInt(cached.varyValues().size());
+            for (Map.Entry<String, String> vary : cached.varyValues().entrySet()) {
+                writeString(out, vary.getKey());
+                writeString(out, vary.getValue());
+            }
+            out.writeInt(body.length);
+            out.write(body);
+            byte[] record = bytes.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(record, RECORD_HEADER_SIZE, record.length - RECORD_HEADER_SIZE);
+            ByteBuffer.wrap(record).putInt(0, record.length).putInt(4, (int) crc.getValue());
+            return record;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private CachedResponse readRecord(int position, String key) {
+        if (position < dataStart || position > dataEnd - RECORD_HEADER_SIZE) {
+            return null;
+        }
+        int length = buffer.getInt(position);
+        if (length < RECORD_HEADER_SIZE + 8 || length > dataEnd - position) {
+            return null;
+        }
+        ByteBuffer record = buffer.duplicate();
+        record.position(position + RECORD_HEADER_SIZE).limit(position + length);
+        CRC32 crc = new CRC32();
+        crc.update(record.duplicate());
+        if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+            return null;
+        }
+        try {
+            record.getLong();
+            long freshUntil = record.getLong();
+            long freshnessLifetime = record.getLong();
+            long staleWhileRevalidate = record.getLong();
+            if (!key.equals(readString(record))) {
+                return null;
+            }
+            String contentType = readString(record);
+            String etag = readString(record);
+            String lastModified = readString(record);
+            int varyCount = record.getInt();
+            Map<String, String> varyValues = varyCount == 0 ? Collections.emptyMap() : new TreeMap<>();
+            for (int i = 0; i < varyCount; i++) {
+                varyValues.put(readString(record), readString(record));
+            }
+            int bodyStart = record.position();
+            byte[] body = readBytes(record);
+            int size = record.position() - bodyStart - 4;
+            String uri = key.substring(key.indexOf(' ') + 1);
+            return new CachedResponse(uri, varyValues, contentType, body, null, null, etag, lastModified,
+                    freshnessLifetime, staleWhileRevalidate, freshUntil, size);
+        } catch (BufferUnderflowException | IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    private static String readString(ByteBuffer record) {
+        byte[] bytes = readBytes(record);
+        return bytes != null ? new String(bytes, StandardCharsets.UTF_8) : null;
+    }
+
+    private static byte[] readBytes(ByteBuffer record) {
+        int length = record.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > record.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        record.get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,59 @@
+package ch.frostnova.web.eastrestclient.http;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Media types of the binary formats (in addition to the ones declared by {@link javax.ws.rs.core.MediaType}), to be
+ * used in <code>@Consumes</code> and <code>@Produces</code>:
+ * <ul>
+ * <li>{@link #APPLICATION_CBOR}: CBOR (RFC 8949)</li>
+ * <li>{@link #APPLICATION_SMILE}: Smile (binary JSON of Jackson)</li>
+ * <li>{@link #APPLICATION_MSGPACK}: MessagePack</li>
+ * </ul>
+ * Bodies in binary formats are encoded and decoded as bytes (never as strings), and are not logged in the wire log
+ * (only their size).
+ */
+public final class MediaTypes {
+
+    public final static String APPLICATION_CBOR = "application/cbor";
+    public final static String APPLICATION_SMILE = "application/x-jackson-smile";
+    public final static String APPLICATION_MSGPACK = "application/x-msgpack";
+
+    private MediaTypes() {
+
+    }
+
+    /**
+     * Check if a content type denotes binary content (binary formats, octet streams, images, audio and video).
+     *
+     * @param contentType content type, optional
+     * @return true if binary, false if text or unknown
+     */
+    static boolean isBinary(String contentType) {
+        ContentType parsed = ContentType.of(contentType);
+        return parsed != null && parsed.isBinary();
+    }
+
+    /**
+     * Charset of a content type (<code>charset</code> parameter).
+     *
+     * @param contentType content type, optional
+     * @return charset, UTF-8 if none or unknown
+     */
+    static Charset charset(String contentType) {
+        ContentType parsed = ContentType.of(contentType);
+        return parsed != null ? parsed.charset(StandardCharsets.UTF_8) : StandardCharsets.UTF_8;
+    }
+
+    /**
+     * Decode a text body in the charset of its content type.
+     *
+     * @param body        body, optional
+     * @param contentType content type, optional
+     * @return text, or null if the body was null
+     */
+    static String text(byte[] body, String contentType) {
+        return body != null ? new String(body, charset(contentType)) : null;
+    }
+}
@@ -0,0 +1,329 @@
+package ch.frostnova.web.eastrestclient.http;
+
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Batches calls of single-item rest methods into calls of their bulk methods (see {@link Batch}). Calls are collected
+ * in a window per bulk method and base url, which is sent when it is full, or when its delay expired (on a shared
+ * scheduler thread). The bulk request is sent asynchronously, so the scheduler thread is never blocked by an
+ * exchange.
+ */
+final class RequestBatcher {
+
+    private final ConcurrentHashMap<WindowKey, Window> windows = new ConcurrentHashMap<>();
+
+    /**
+     * Add a call to the open window of its bulk method (opening a new window if there is none).
+     *
+     * @param restAdapter rest adapter performing the bulk request
+     * @param binding     batch binding of the single-item method
+     * @param baseUrl     base url of the rest client
+     * @param id          id of the requested item, required
+     * @return future result of the call (shared by the calls for the same id in the window)
+     */
+    CompletableFuture<Object> submit(RestAdapter restAdapter, Binding binding, String baseUrl, Object id) {
+        WindowKey key = new WindowKey(binding, baseUrl);
+        while (true) {
+            Window window = windows.get(key);
+            if (window == null) {
+                Window created = new Window(restAdapter, binding, baseUrl, key);
+                window = windows.putIfAbsent(key, created);
+                if (window == null) {
+                    window = created;
+                    created.schedule();
+                }
+            }
+            CompletableFuture<Object> result = window.add(id);
+            if (result != null) {
+                return result;
+            }
+            // window was closed concurrently: remove it (if not removed already) and open a new one
+            windows.remove(key, window);
+        }
+    }
+
+    /**
+     * Batch binding of a single-item method: its bulk method and the batching parameters.
+     */
+    static final class Binding {
+
+        private final RestMethodAdapter bulkMethod;
+        private final boolean set;
+        private final String key;
+        private final int maxSize;
+        private final long maxDelayMillis;
+
+        private volatile KeyAccessor keyAccessor;
+
+        /**
+         * Create a batch binding.
+         *
+         * @param bulkMethod     bulk method adapter
+         * @param set            whether the bulk method takes a set of ids (else a list)
+         * @param key            property of the items holding their id, empty to match by position
+         * @param maxSize        maximum number of ids per bulk request
+         * @param maxDelayMillis maximum time to collect calls for a batch
+         */
+        Binding(RestMethodAdapter bulkMethod, boolean set, String key, int maxSize, long maxDelayMillis) {
+            if (maxSize < 1) {
+                throw new IllegalArgumentException("maxSize must be at least 1, but was " + maxSize);
+            }
+            if (maxDelayMillis < 0) {
+                throw new IllegalArgumentException("maxDelayMillis must not be negative, but was " + maxDelayMillis);
+            }
+            this.bulkMethod = bulkMethod;
+            this.set = set;
+            this.key = key;
+            this.maxSize = maxSize;
+            this.maxDelayMillis = maxDelayMillis;
+        }
+
+        RestMethodAdapter bulkMethod() {
+            return bulkMethod;
+        }
+
+        /**
+         * Id of an item of the bulk response, as string (so numeric ids of different types match).
+         */
+        private String keyOf(Object item) {
+            KeyAccessor accessor = keyAccessor;
+            if (accessor == null || accessor.type != item.getClass()) {
+                accessor = new KeyAccessor(item.getClass(), accessor(item.getClass(), key));
+                keyAccessor = accessor;
+            }
+            return String.valueOf(accessor.accessor.apply(item));
+        }
+
+        private static Function<Object, Object> accessor(Class<?> type, String property) {
+            String suffix = Character.toUpperCase(property.charAt(0)) + property.substring(1);
+            for (String name : List.of("get" + suffix, "is" + suffix, property)) {
+                try {
+                    Method method = type.getMethod(name);
+                    if (method.getReturnType() != void.class) {
+                        method.trySetAccessible();
+                        return item -> {
+                            try {
+                                return method.invoke(item);
+                            } catch (IllegalAccessException | InvocationTargetException ex) {
+                                throw new IllegalStateException(String.format("could not read property '%s' of %s", property, type.getName()), ex);
+                            }
+                        };
+                    }
+                } catch (NoSuchMethodException ignored) {
+                    // try next accessor
+                }
+            }
+            for (Class<?> declaringType = type; declaringType != null; declaringType = declaringType.getSuperclass()) {
+                try {
+                    Field field = declaringType.getDeclaredField(property);
+                    field.trySetAccessible();
+                    return item -> {
+                        try {
+                            return field.get(item);
+                        } catch (IllegalAccessException ex) {
+                            throw new IllegalStateException(String.format("could not read property '%s' of %s", property, type.getName()), ex);
+                        }
+                    };
+                } catch (NoSuchFieldException ignored) {
+                    // try super class
+                }
+            }
+            throw new IllegalStateException(String.format("no property '%s' found on %s", property, type.getName()));
+        }
+    }
+
+    private static class KeyAccessor {
+        private final Class<?> type;
+        private final Function<Object, Object> accessor;
+
+        KeyAccessor(Class<?> type, Function<Object, Object> accessor) {
+            this.type = type;
+            this.accessor = accessor;
+        }
+    }
+
+    /**
+     * Calls collected for a bulk request.
+     */
+    private final class Window {
+
+        private final RestAdapter restAdapter;
+        private final Binding binding;
+        private final String baseUrl;
+        private final WindowKey key;
+        private final Map<Object, CompletableFuture<Object>> calls = new LinkedHashMap<>();
+
+        private boolean closed;
+        private ScheduledFuture<?> timeout;
+
+        Window(RestAdapter restAdapter, Binding binding, String baseUrl, WindowKey key) {
+            this.restAdapter = restAdapter;
+            this.binding = binding;
+            this.baseUrl = baseUrl;
+            this.key = key;
+        }
+
+        void schedule() {
+            ScheduledFuture<?> timeout = Scheduler.INSTANCE.schedule(this::expired, binding.maxDelayMillis, TimeUnit.MILLISECONDS);
+            synchronized (this) {
+                this.timeout = timeout;
+            }
+        }
+
+        /**
+         * Add a call.
+         *
+         * @return future result of the call, or null if the window is closed
+         */
+        CompletableFuture<Object> add(Object id) {
+            CompletableFuture<Object> result;
+            ScheduledFuture<?> timeout;
+            synchronized (this) {
+                if (closed) {
+                    return null;
+                }
+                result = calls.computeIfAbsent(id, i -> new CompletableFuture<>());
+                if (calls.size() < binding.maxSize) {
+                    return result;
+                }
+                closed = true;
+                timeout = this.timeout;
+            }
+            if (timeout != null) {
+                timeout.cancel(false);
+            }
+            send();
+            return result;
+        }
+
+        private void expired() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+            }
+            send();
+        }
+
+        private void send() {
+            windows.remove(key, this);
+            Collection<Object> ids = binding.set ? new LinkedHashSet<>(calls.keySet()) : new ArrayList<>(calls.keySet());
+            binding.bulkMethod.invokeAsync(restAdapter, baseUrl, new Object[]{ids})
+                    .whenComplete(this::completed);
+        }
+
+        private void completed(Object response, Throwable error) {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                Throwable failure = cause instanceof UncheckedIOException ? cause.getCause() : cause;
+                calls.values().forEach(call -> call.completeExceptionally(failure));
+                return;
+            }
+            try {
+                List<?> items = items(response);
+                if (binding.key.isEmpty()) {
+                    if (items.size() != calls.size()) {
+                        throw new IllegalStateException(String.format("bulk response of %s has %d items for %d ids",
+                                binding.bulkMethod.getName(), items.size(), calls.size()));
+                    }
+                    int index = 0;
+                    for (CompletableFuture<Object> call : calls.values()) {
+                        call.complete(items.get(index++));
+                    }
+                    return;
+                }
+                Map<String, Object> itemsById = new HashMap<>();
+                for (Object item : items) {
+                    if (item != null) {
+                        itemsById.put(binding.keyOf(item), item);
+                    }
+                }
+                for (Map.Entry<Object, CompletableFuture<Object>> call : calls.entrySet()) {
+                    Object item = itemsById.get(String.valueOf(call.getKey()));
+                    if (item != null) {
+                        call.getValue().complete(item);
+                    } else {
+                        call.getValue().completeExceptionally(new NoSuchElementException(String.format(
+                                "no item with %s %s in the bulk response of %s", binding.key, call.getKey(), binding.bulkMethod.getName())));
+                    }
+                }
+            } catch (RuntimeException ex) {
+                calls.values().forEach(call -> call.completeExceptionally(ex));
+            }
+        }
+
+        private List<?> items(Object response) {
+            if (response == null) {
+                return List.of();
+            }
+            if (response instanceof List) {
+                return (List<?>) response;
+            }
+            if (response instanceof Collection) {
+                return new ArrayList<>((Collection<?>) response);
+            }
+            if (response instanceof Object[]) {
+                return Arrays.asList((Object[]) response);
+            }
+            throw new IllegalStateException(String.format("bulk response of %s is not a list: %s",
+                    binding.bulkMethod.getName(), response.getClass().getName()));
+        }
+    }
+
+    private static final class WindowKey {
+
+        private final Binding binding;
+        private final String baseUrl;
+
+        WindowKey(Binding binding, String baseUrl) {
+            this.binding = binding;
+            this.baseUrl = baseUrl;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof WindowKey)) {
+                return false;
+            }
+            WindowKey other = (WindowKey) obj;
+            return binding == other.binding && baseUrl.equals(other.baseUrl);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(binding) + baseUrl.hashCode();
+        }
+    }
+
+    /**
+     * Scheduler for the window timeouts, created on first use (a single daemon thread, shared by all batchers).
+     */
+    private static class Scheduler {
+        private final static ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rest-client-batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,390 @@
+package ch.frostnova.web.eastrestclient.http;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * In-memory cache for the responses of <code>GET</code> requests (opt-in, see
+ * {@link ch.frostnova.web.eastrestclient.RestClient.Builder#responseCache(ResponseCache)}), following the HTTP caching
+ * rules of a private cache:
+ * <ul>
+ * <li>only <code>200 OK</code> responses are cached, not with <code>Cache-Control: no-store</code> or
+ * <code>Vary: *</code></li>
+ * <li>responses are fresh for <code>max-age</code> (or until <code>Expires</code>), minus their <code>Age</code>, and
+ * served from the cache without exchange while fresh</li>
+ * <li>stale responses (and <code>no-cache</code> responses) with an <code>ETag</code> or <code>Last-Modified</code>
+ * header are revalidated with <code>If-None-Match</code> / <code>If-Modified-Since</code>, a <code>304 Not
+ * Modified</code> response is a hit</li>
+ * <li>within <code>stale-while-revalidate</code>, stale responses are served from the cache, and revalidated in the
+ * background</li>
+ * <li>a cached response is only used for requests with the same values of the headers it varies on
+ * (<code>Vary</code>), one variant is kept per URI</li>
+ * <li>the cache is bounded by the number of entries and the size of the bodies, the least recently used entries
+ * are evicted</li>
+ * </ul>
+ * Either the response body is cached (deserialized on each hit), or the deserialized result (hits skip
+ * deserialization, but share the result, which then must not be modified), see {@link Storage}.<p>
+ * Optionally, the responses (bodies and validators) are also persisted in a memory-mapped file (see
+ * {@link Builder#persistent(Path, long)}), from which they are loaded when not in memory, so they survive restarts
+ * of the JVM: a restarted client serves the responses which are still fresh, and revalidates the others instead of
+ * fetching them again. The file is bounded by its size, the oldest responses are evicted.<p>
+ * A cache can be shared by several rest clients. Close the cache to write the persisted responses to the file.
+ */
+public final class ResponseCache implements AutoCloseable {
+
+    public final static int DEFAULT_MAX_ENTRIES = 1000;
+    public final static long DEFAULT_MAX_BYTES = 16 * 1024 * 1024;
+    public final static long DEFAULT_PERSISTENT_SIZE = 64 * 1024 * 1024;
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final Storage storage;
+    private final Clock clock;
+    private final MappedResponseStore persistentStore;
+
+    private final LinkedHashMap<String, CachedResponse> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder revalidatedHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private ResponseCache(Builder builder) {
+        maxEntries = builder.maxEntries;
+        maxBytes = builder.maxBytes;
+        storage = builder.storage;
+        clock = builder.clock;
+        if (builder.persistentFile != null) {
+            try {
+                persistentStore = MappedResponseStore.open(builder.persistentFile, builder.persistentSize);
+            } catch (IOException ex) {
+                throw new UncheckedIOException("could not open response cache file " + builder.persistentFile, ex);
+            }
+        } else {
+            persistentStore = null;
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public Storage getStorage() {
+        return storage;
+    }
+
+    /**
+     * Snapshot of the statistics (hits, misses, evictions) and the current size of the cache.
+     *
+     * @return statistics
+     */
+    public ResponseCacheStats stats() {
+        int entryCount;
+        long byteCount;
+        synchronized (entries) {
+            entryCount = entries.size();
+            byteCount = bytes;
+        }
+        return new ResponseCacheStats(hits.sum(), staleHits.sum(), revalidatedHits.sum(), misses.sum(),
+                evictions.sum(), entryCount, byteCount);
+    }
+
+    /**
+     * Remove all entries (also the persisted ones).
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            bytes = 0;
+            if (persistentStore != null) {
+                persistentStore.clear();
+            }
+        }
+    }
+
+    /**
+     * Write the persisted responses to the file (if persistent). The cache can still be used afterwards.
+     */
+    @Override
+    public void close() {
+        synchronized (entries) {
+            if (persistentStore != null) {
+                persistentStore.flush();
+            }
+        }
+    }
+
+    long now() {
+        return clock.millis();
+    }
+
+    /**
+     * Look up the cached response for a request.
+     *
+     * @param uri            request uri
+     * @param requestHeaders request headers
+     * @param returnType     return type of the rest method
+     * @return cached response (fresh or not), or null if none matches
+     */
+    CachedResponse lookup(URI uri, Map<String, String> requestHeaders, Type returnType) {
+        String key = uri.toString();
+        CachedResponse cached;
+        synchronized (entries) {
+            cached = entries.get(key);
+            if (cached == null && persistentStore != null) {
+                cached = persistentStore.get(persistentKey(key));
+                if (cached != null) {
+                    put(cached, null);
+                }
+            }
+        }
+        return cached != null && cached.matches(requestHeaders, returnType) ? cached : null;
+    }
+
+    /**
+     * Store a response, if it is cacheable.
+     *
+     * @param uri            request uri
+     * @param requestHeaders request headers
+     * @param response       response
+     * @param result         deserialized result
+     * @param returnType     return type of the rest method
+     */
+    void store(URI uri, Map<String, String> requestHeaders, HttpResponse<byte[]> response, Object result, Type returnType) {
+        byte[] body = response.body();
+        if (response.statusCode() != 200 || body == null) {
+            return;
+        }
+        String key = uri.toString();
+        HttpHeaders headers = response.headers();
+        CacheControl cacheControl = CacheControl.of(headers);
+        List<String> vary = CacheControl.vary(headers);
+        if (cacheControl.isNoStore() || vary.contains("*") || (storage == Storage.DECODED && result == null)) {
+            remove(key);
+            return;
+        }
+        long now = now();
+        long freshnessLifetime = cacheControl.freshnessLifetime(headers, now);
+        String etag = headers.firstValue("etag").orElse(null);
+        String lastModified = headers.firstValue("last-modified").orElse(null);
+        long size = body.length;
+        if ((freshnessLifetime == 0 && etag == null && lastModified == null) || size > maxBytes) {
+            remove(key);
+            return;
+        }
+        Map<String, String> varyValues = vary.isEmpty() ? Collections.emptyMap() : new TreeMap<>();
+        for (String name : vary) {
+            varyValues.put(name.toLowerCase(Locale.ROOT), CachedResponse.headerValue(requestHeaders, name));
+        }
+        String contentType = headers.firstValue("content-type").orElse(null);
+        put(storage == Storage.DECODED
+                ? new CachedResponse(key, varyValues, contentType, null, result, returnType, etag, lastModified,
+                freshnessLifetime, cacheControl.staleWhileRevalidate(), now + freshnessLifetime, size)
+                : new CachedResponse(key, varyValues, contentType, body, null, null, etag, lastModified,
+                freshnessLifetime, cacheControl.staleWhileRevalidate(), now + freshnessLifetime, size), body);
+    }
+
+    /**
+     * Update a cached response after it was revalidated (<code>304 Not Modified</code>).
+     *
+     * @param cached   cached response
+     * @param response revalidation response
+     * @return revalidated response
+     */
+    CachedResponse revalidated(CachedResponse cached, HttpResponse<?> response) {
+        CachedResponse revalidated = cached.revalidated(response.headers(), now());
+        // the persisted response can only be updated if the body is cached (else it is revalidated again when loaded)
+        put(revalidated, revalidated.body());
+        return revalidated;
+    }
+
+    void recordHit() {
+        hits.increment();
+    }
+
+    void recordStaleHit() {
+        hits.increment();
+        staleHits.increment();
+    }
+
+    void recordRevalidatedHit() {
+        hits.increment();
+        revalidatedHits.increment();
+    }
+
+    void recordMiss() {
+        misses.increment();
+    }
+
+    /**
+     * Put a response into the cache.
+     *
+     * @param cached response
+     * @param body   body to persist the response, or null to not persist it
+     */
+    private void put(CachedResponse cached, byte[] body) {
+        synchronized (entries) {
+            if (persistentStore != null && body != null) {
+                persistentStore.put(persistentKey(cached.key()), cached, body);
+            }
+            CachedResponse previous = entries.put(cached.key(), cached);
+            bytes += cached.size() - (previous != null ? previous.size() : 0);
+            Iterator<CachedResponse> iterator = entries.values().iterator();
+            while ((entries.size() > maxEntries || bytes > maxBytes) && iterator.hasNext()) {
+                CachedResponse eldest = iterator.next();
+                iterator.remove();
+                bytes -= eldest.size();
+                evictions.increment();
+            }
+        }
+    }
+
+    private void remove(String key) {
+        synchronized (entries) {
+            CachedResponse previous = entries.remove(key);
+            if (previous != null) {
+                bytes -= previous.size();
+            }
+            if (persistentStore != null) {
+                persistentStore.remove(persistentKey(key));
+            }
+        }
+    }
+
+    /**
+     * Key of a response in the persistent store: request method and uri.
+     */
+    private static String persistentKey(String uri) {
+        return "GET " + uri;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ResponseCache[maxEntries=%d, maxBytes=%d, storage=%s]",
+                maxEntries, maxBytes, storage.name().toLowerCase(Locale.ROOT));
+    }
+
+    public enum Storage {
+        /**
+         * Cache the response body, which is deserialized on each hit.
+         */
+        BODY,
+        /**
+         * Cache the deserialized result, which is returned on each hit (shared, must not be modified).
+         */
+        DECODED
+    }
+
+    public static class Builder {
+
+        private int maxEntries = DEFAULT_MAX_ENTRIES;
+        private long maxBytes = DEFAULT_MAX_BYTES;
+        private Storage storage = Storage.BODY;
+        private Clock clock = Clock.systemUTC();
+        private Path persistentFile;
+        private long persistentSize = DEFAULT_PERSISTENT_SIZE;
+
+        private Builder() {
+
+        }
+
+        /**
+         * Maximum number of cached responses. Optional, default is {@value #DEFAULT_MAX_ENTRIES}.
+         *
+         * @param maxEntries maximum number of entries, must be positive
+         * @return builder
+         */
+        public Builder maxEntries(int maxEntries) {
+            if (maxEntries < 1) {
+                throw new IllegalArgumentException("maxEntries must be positive");
+            }
+            this.maxEntries = maxEntries;
+            return this;
+        }
+
+        /**
+         * Maximum total size of the cached responses (size of the bodies, also when the deserialized results are
+         * cached). Optional, default is {@value #DEFAULT_MAX_BYTES} (16 MB).
+         *
+         * @param maxBytes maximum size in bytes, must be positive
+         * @return builder
+         */
+        public Builder maxBytes(long maxBytes) {
+            if (maxBytes < 1) {
+                throw new IllegalArgumentException("maxBytes must be positive");
+            }
+            this.maxBytes = maxBytes;
+            return this;
+        }
+
+        /**
+         * What to cache of a response. Optional, default is {@link Storage#BODY}.
+         *
+         * @param storage storage
+         * @return builder
+         */
+        public Builder storage(Storage storage) {
+            this.storage = requireNonNull(storage, "storage is required");
+            return this;
+        }
+
+        /**
+         * Clock for the freshness of the responses. Optional, default is the system clock.
+         *
+         * @param clock clock
+         * @return builder
+         */
+        public Builder clock(Clock clock) {
+            this.clock = requireNonNull(clock, "clock is required");
+            return this;
+        }
+
+        /**
+         * Persist the responses in a memory-mapped file, so they survive restarts. The file is created if it does not
+         * exist, an invalid file (such as a truncated file, or one of a different size) is reinitialized. Responses
+         * larger than a quarter of the file are not persisted. Optional, default is none (in-memory only).
+         *
+         * @param file file
+         * @param size size of the file in bytes, from 64 KB to 2 GB (default is {@value #DEFAULT_PERSISTENT_SIZE},
+         *             64 MB)
+         * @return builder
+         */
+        public Builder persistent(Path file, long size) {
+            if (size < MappedResponseStore.MIN_SIZE || size > MappedResponseStore.MAX_SIZE) {
+                throw new IllegalArgumentException("size must be between 64 KB and 2 GB");
+            }
+            this.persistentFile = requireNonNull(file, "file is required");
+            this.persistentSize = size;
+            return this;
+        }
+
+        public ResponseCache build() {
+            return new ResponseCache(this);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package ch.frostnova.web.eastrestclient.http;
+
+/**
+ * Snapshot of the statistics of a {@link ResponseCache}.
+ */
+public final class ResponseCacheStats {
+
+    private final long hits;
+    private final long staleHits;
+    private final long revalidatedHits;
+    private final long misses;
+    private final long evictions;
+    private final int entries;
+    private final long bytes;
+
+    ResponseCacheStats(long hits, long staleHits, long revalidatedHits, long misses, long evictions, int entries,
+                       long bytes) {
+        this.hits = hits;
+        this.staleHits = staleHits;
+        this.revalidatedHits = revalidatedHits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.entries = entries;
+        this.bytes = bytes;
+    }
+
+    /**
+     * Number of requests served from the cache: fresh, stale (while revalidating) and revalidated responses.
+     *
+     * @return hits
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Number of stale responses served while they were revalidated in the background.
+     *
+     * @return stale hits
+     */
+    public long getStaleHits() {
+        return staleHits;
+    }
+
+    /**
+     * Number of cached responses which were revalidated (<code>304 Not Modified</code>).
+     *
+     * @return revalidated hits
+     */
+    public long getRevalidatedHits() {
+        return revalidatedHits;
+    }
+
+    /**
+     * Number of cacheable requests (<code>GET</code>) not served from the cache.
+     *
+     * @return misses
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Number of entries evicted to stay within the bounds of the cache.
+     *
+     * @return evictions
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Current number of entries.
+     *
+     * @return entries
+     */
+    public int getEntries() {
+        return entries;
+    }
+
+    /**
+     * Current size of the entries (bodies).
+     *
+     * @return size in bytes
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Ratio of hits to all cacheable requests.
+     *
+     * @return hit rate (0..1), 0 if there were no requests
+     */
+    public double getHitRate() {
+        long requests = hits + misses;
+        return requests > 0 ? (double) hits / requests : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ResponseCacheStats[hits=%d, staleHits=%d, revalidatedHits=%d, misses=%d, evictions=%d, entries=%d, bytes=%d]",
+                hits, staleHits, revalidatedHits, misses, evictions, entries, bytes);
+    }
+}
@@ -1,133 +1,709 @@
 package ch.frostnova.web.eastrestclient.http;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JavaType;
+import ch.frostnova.web.eastrestclient.metrics.ExchangeTimingListener;
+import ch.frostnova.web.eastrestclient.metrics.MethodMetrics;
+import ch.frostnova.web.eastrestclient.metrics.RestClientMetrics;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.ws.rs.Consumes;
-import javax.ws.rs.Produces;
-import javax.ws.rs.core.Response;
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Type;
 import java.net.URI;
 import java.net.http.HttpClient;
-import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
-import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import java.util.Optional;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static java.util.Objects.requireNonNull;
-import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
-import static javax.ws.rs.core.MediaType.APPLICATION_XML;
 
 public class RestAdapter {
 
-    private final static AtomicInteger requestSequence = new AtomicInteger();
-
     private final static Logger logger = LoggerFactory.getLogger(RestAdapter.class);
 
     private final HttpClient httpClient;
-    private final ObjectMapper json;
-    private final ObjectMapper xml;
+    private final BodyCodecs codecs;
+    private final Executor executor;
+    private final WireLogger wireLogger;
+    private final RestClientMetrics metrics;
+    private final ExchangeTimingListener[] timingListeners;
+    private final ResponseCache responseCache;
+    private final HedgingPolicy hedgingPolicy;
+    private final ConcurrencyLimiter concurrencyLimiter;
+    private final Compression compression;
+    private final HttpResponse.BodyHandler<byte[]> byteArrayBodyHandler;
+    private final HttpResponse.BodyHandler<InputStream> inputStreamBodyHandler;
+    private final Map<RestMethodAdapter, RestMethodCodec> boundCodecs = new ConcurrentHashMap<>();
+    private final SingleFlight singleFlight = new SingleFlight();
+    private final RequestBatcher batcher = new RequestBatcher();
 
+    /**
+     * Create a rest adapter for JSON and XML, with the defaults for all other options (see
+     * {@link ch.frostnova.web.eastrestclient.RestClient#builder()} to configure them).
+     *
+     * @param httpClient http client, required
+     * @param json       object mapper for JSON, required
+     * @param xml        object mapper for XML, required
+     */
     public RestAdapter(HttpClient httpClient, ObjectMapper json, ObjectMapper xml) {
+        this(httpClient, BodyCodecs.of(json, xml, Map.of()), null, WireLog.defaults(), RestClientMetrics.NONE,
+                List.of(), null, null, null, Compression.defaults());
+    }
+
+    /**
+     * Create a rest adapter with all options, as configured by
+     * {@link ch.frostnova.web.eastrestclient.RestClient.Builder}.
+     *
+     * @param httpClient         http client, required
+     * @param codecs             codecs for request and response bodies by media type, required (bodies in other
+     *                           media types are sent and received as is)
+     * @param executor           executor to process the responses of asynchronous calls, optional (if not set, the
+     *                           responses are processed by the executor of the http client).
+     * @param wireLog            wire log configuration, required
+     * @param metrics            metrics of the rest methods, required
+     * @param timingListeners    listeners for the timing of each exchange, required (exchanges are only timed if there
+     *                           are listeners)
+     * @param responseCache      cache for the responses of <code>GET</code> requests, optional (if not set, responses
+     *                           are not cached)
+     * @param hedgingPolicy      hedging policy for idempotent requests, optional (if not set, requests are not hedged)
+     * @param concurrencyLimiter adaptive concurrency limit per upstream, optional (if not set, the requests in flight
+     *                           are not limited)
+     * @param compression        compression of requests and responses, required
+     */
+    public RestAdapter(HttpClient httpClient, BodyCodecs codecs, Executor executor, WireLog wireLog,
+                       RestClientMetrics metrics, List<ExchangeTimingListener> timingListeners,
+                       ResponseCache responseCache, HedgingPolicy hedgingPolicy,
+                       ConcurrencyLimiter concurrencyLimiter, Compression compression) {
         this.httpClient = requireNonNull(httpClient);
-        this.json = requireNonNull(json);
-        this.xml = requireNonNull(xml);
+        this.codecs = requireNonNull(codecs);
+        this.executor = executor;
+        this.wireLogger = new WireLogger(requireNonNull(wireLog));
+        this.metrics = requireNonNull(metrics);
+        this.timingListeners = requireNonNull(timingListeners).toArray(new ExchangeTimingListener[0]);
+        this.responseCache = responseCache;
+        this.hedgingPolicy = hedgingPolicy;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.compression = requireNonNull(compression);
+        this.byteArrayBodyHandler = ContentDecoding.ofByteArray(compression);
+        this.inputStreamBodyHandler = ContentDecoding.ofInputStream(compression);
     }
 
-    private <B> String serializeBody(B body, String contentType) throws JsonProcessingException {
-        if (body == null) {
-            return null;
+    /**
+     * Bind a codec (readers and writers) for a rest method to the body codecs of this adapter. The calls using this
+     * codec are not recorded in the metrics.
+     *
+     * @param returnType return type of the method (element type for streamed results)
+     * @return codec
+     */
+    public RestMethodCodec bind(Type returnType) {
+        return new RestMethodCodec(codecs, returnType, null, null, null, MethodMetrics.NONE, false, -1,
+                null, null);
+    }
+
+    /**
+     * Bind a codec (readers and writers) for a rest method to the body codecs and the metrics of this adapter.
+     *
+     * @param binding rest method, required
+     * @return codec
+     */
+    public RestMethodCodec bind(RestMethodBinding binding) {
+        requireNonNull(binding, "binding is required");
+        Class<?> restClientInterface = binding.restClientInterface();
+        MethodMetrics methodMetrics = requireNonNull(metrics.method(restClientInterface.getSimpleName() + "." + binding.signature()));
+        return new RestMethodCodec(codecs, binding.returnType(), restClientInterface, binding.signature(),
+                binding.uriTemplate(), methodMetrics, binding.isCoalesce() && !binding.isElements(),
+                binding.compressThreshold(), binding.contentType(), binding.accept());
+    }
+
+    /**
+     * Codec of a rest method, bound to this adapter on first use. The method adapters are shared by all rest clients
+     * (see {@link RestClientInterface}), so the codecs are held by the adapter they are bound to: rest clients with
+     * different codecs or metrics do not replace each other's bindings.
+     *
+     * @param methodAdapter method adapter
+     * @return codec
+     */
+    RestMethodCodec codec(RestMethodAdapter methodAdapter) {
+        RestMethodCodec codec = boundCodecs.get(methodAdapter);
+        if (codec == null) {
+            codec = boundCodecs.computeIfAbsent(methodAdapter, adapter -> adapter.bind(this));
         }
-        if (APPLICATION_JSON.equals(contentType)) {
-            return json.writeValueAsString(body);
+        return codec;
+    }
+
+    /**
+     * Batcher of the batched rest methods (see {@link Batch}) called through this adapter.
+     *
+     * @return batcher
+     */
+    RequestBatcher batcher() {
+        return batcher;
+    }
+
+    /**
+     * Perform a blocking HTTP exchange, and convert the response to the given return type. If the codec coalesces
+     * calls, an identical <code>GET</code> call already in flight is joined instead (see {@link Coalesce}).
+     */
+    public <B, T> T invoke(RequestMethod method, URI uri, Map<String, String> headers,
+                           String contentType, B body, RestMethodCodec codec) throws IOException, InterruptedException {
+
+        if (codec.isCoalesced() && method == RequestMethod.GET) {
+            return singleFlight.invoke(new SingleFlight.Key(codec, method, uri, headers),
+                    () -> exchange(method, uri, headers, contentType, body, codec));
         }
-        if (APPLICATION_XML.equals(contentType)) {
-            return xml.writeValueAsString(body);
+        return exchange(method, uri, headers, contentType, body, codec);
+    }
+
+    private <B, T> T exchange(RequestMethod method, URI uri, Map<String, String> headers,
+                              String contentType, B body, RestMethodCodec codec) throws IOException, InterruptedException {
+
+        MethodMetrics methodMetrics = codec.methodMetrics();
+        long start = methodMetrics.callStarted();
+        CachedResponse cached = lookup(method, uri, headers, codec);
+        if (cached != null && serveFromCache(cached, uri, headers, codec)) {
+            int statusCode = 0;
+            try {
+                T result = cachedResult(cached, codec);
+                statusCode = 200;
+                return result;
+            } finally {
+                methodMetrics.callCompleted(start, statusCode);
+            }
+        }
+        ExchangeTimer timer = ExchangeTimer.start(timingListeners, codec, method, uri);
+        int statusCode = 0;
+        try {
+            byte[] serializedBody = codec.serialize(body, contentType);
+            HttpRequest request = createRequest(method, uri, headers, contentType, serializedBody, codec);
+            WireLogger.Exchange exchangeLog = wireLogger.request(request, serializedBody);
+            if (timer != null) {
+                timer.encoded(serializedBody);
+            }
+            HttpResponse<byte[]> response = send(method, request, codec);
+            statusCode = response.statusCode();
+            return handleResponse(exchangeLog, timer, response, codec, method, uri, headers, cached);
+        } finally {
+            methodMetrics.callCompleted(start, statusCode);
+            if (timer != null) {
+                timer.completed(statusCode);
+            }
         }
-        return String.valueOf(body);
     }
 
-    public <B, T> T invoke(RequestMethod method, URI uri, Map<String, String> headers,
-                           Consumes consumes, Produces produces,
-                           B body, Type returnType) throws IOException, InterruptedException {
+    /**
+     * Perform a non-blocking HTTP exchange. The response is checked and converted to the given return type in a
+     * dependent stage, so no thread is blocked while the request is in flight.<p>
+     * Cancelling the returned future will also cancel the underlying exchange (which aborts the request on JDK 16+,
+     * on older JDKs only the result is discarded).<p>
+     * If the codec coalesces calls, an identical <code>GET</code> call already in flight is joined instead (see
+     * {@link Coalesce}).
+     */
+    public <B, T> CompletableFuture<T> invokeAsync(RequestMethod method, URI uri, Map<String, String> headers,
+                                                   String contentType, B body, RestMethodCodec codec) {
+
+        if (codec.isCoalesced() && method == RequestMethod.GET) {
+            return singleFlight.invokeAsync(new SingleFlight.Key(codec, method, uri, headers),
+                    () -> exchangeAsync(method, uri, headers, contentType, body, codec));
+        }
+        return exchangeAsync(method, uri, headers, contentType, body, codec);
+    }
+
+    private <B, T> CompletableFuture<T> exchangeAsync(RequestMethod method, URI uri, Map<String, String> headers,
+                                                      String contentType, B body, RestMethodCodec codec) {
+
+        MethodMetrics methodMetrics = codec.methodMetrics();
+        long start = methodMetrics.callStarted();
+        CachedResponse cached = lookup(method, uri, headers, codec);
+        if (cached != null && serveFromCache(cached, uri, headers, codec)) {
+            try {
+                T result = cachedResult(cached, codec);
+                methodMetrics.callCompleted(start, 200);
+                return CompletableFuture.completedFuture(result);
+            } catch (IOException | RuntimeException ex) {
+                methodMetrics.callCompleted(start, 0);
+                return CompletableFuture.failedFuture(ex);
+            }
+        }
+        ExchangeTimer timer = ExchangeTimer.start(timingListeners, codec, method, uri);
+        byte[] serializedBody;
+        try {
+            serializedBody = codec.serialize(body, contentType);
+        } catch (IOException ex) {
+            methodMetrics.callCompleted(start, 0);
+            if (timer != null) {
+                timer.completed(0);
+            }
+            return CompletableFuture.failedFuture(ex);
+        }
+        HttpRequest request = createRequest(method, uri, headers, contentType, serializedBody, codec);
+        WireLogger.Exchange exchangeLog = wireLogger.request(request, serializedBody);
+        if (timer != null) {
+            timer.encoded(serializedBody);
+        }
+        CompletableFuture<HttpResponse<byte[]>> exchange = concurrencyLimiter != null
+                ? concurrencyLimiter.sendAsync(uri, () -> sendAsync(method, request, codec))
+                : sendAsync(method, request, codec);
+        Function<HttpResponse<byte[]>, T> responseHandler = response -> {
+            try {
+                return handleResponse(exchangeLog, timer, response, codec, method, uri, headers, cached);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        };
+        CompletableFuture<T> result = executor != null
+                ? exchange.thenApplyAsync(responseHandler, executor)
+                : exchange.thenApply(responseHandler);
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                exchange.cancel(true);
+            }
+            int statusCode = statusCode(exchange);
+            methodMetrics.callCompleted(start, statusCode);
+            if (timer != null) {
+                timer.completed(statusCode);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Send a request asynchronously, hedged if the hedging policy applies to it.
+     */
+    private CompletableFuture<HttpResponse<byte[]>> sendAsync(RequestMethod method, HttpRequest request,
+                                                              RestMethodCodec codec) {
+        return hedgingPolicy != null && hedgingPolicy.appliesTo(method)
+                ? hedgingPolicy.send(httpClient, request, byteArrayBodyHandler, codec)
+                : httpClient.sendAsync(request, byteArrayBodyHandler);
+    }
+
+    /**
+     * Send a request (blocking) within the concurrency limit of its upstream (if limited).
+     */
+    private <T> HttpResponse<T> send(HttpRequest request, BlockingExchange<T> exchange) throws IOException, InterruptedException {
+        if (concurrencyLimiter == null) {
+            return exchange.send();
+        }
+        ConcurrencyLimiter.Permit permit = concurrencyLimiter.acquire(request.uri());
+        try {
+            HttpResponse<T> response = exchange.send();
+            permit.completed(response.statusCode());
+            return response;
+        } catch (IOException ex) {
+            permit.failed();
+            throw ex;
+        } catch (InterruptedException | RuntimeException | Error ex) {
+            permit.cancelled();
+            throw ex;
+        }
+    }
 
-        int sequenceId = requestSequence.incrementAndGet();
+    /**
+     * Send a request (blocking), hedged if the hedging policy applies to it.
+     */
+    private HttpResponse<byte[]> send(RequestMethod method, HttpRequest request, RestMethodCodec codec)
+            throws IOException, InterruptedException {
 
-        logger.info("{} > {} {}", sequenceId, method, uri);
+        return send(request, () -> sendHedged(method, request, codec));
+    }
+
+    private HttpResponse<byte[]> sendHedged(RequestMethod method, HttpRequest request, RestMethodCodec codec)
+            throws IOException, InterruptedException {
 
-        String consumesContentType = Optional.ofNullable(consumes).map(Consumes::value).map(Arrays::stream).flatMap(Stream::findFirst).orElse(null);
-        String serializedBody = serializeBody(body, consumesContentType);
+        if (hedgingPolicy == null || !hedgingPolicy.appliesTo(method)) {
+            return httpClient.send(request, byteArrayBodyHandler);
+        }
+        CompletableFuture<HttpResponse<byte[]>> exchange = hedgingPolicy.send(httpClient, request,
+                byteArrayBodyHandler, codec);
+        try {
+            return exchange.get();
+        } catch (InterruptedException ex) {
+            exchange.cancel(true);
+            throw ex;
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private static int statusCode(CompletableFuture<? extends HttpResponse<?>> exchange) {
+        if (exchange.isDone() && !exchange.isCompletedExceptionally()) {
+            return exchange.join().statusCode();
+        }
+        return 0;
+    }
+
+    /**
+     * Perform an HTTP exchange whose response is an array of elements, and return the elements as lazy stream. The
+     * response body is parsed incrementally while the stream is consumed, closing the stream closes the connection.
+     */
+    public <B, T> Stream<T> invokeStream(RequestMethod method, URI uri, Map<String, String> headers,
+                                         String contentType, B body, RestMethodCodec codec) throws IOException, InterruptedException {
+
+        Iterator<T> iterator = invokeIterator(method, uri, headers, contentType, body, codec);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+                .onClose(() -> close(iterator));
+    }
+
+    /**
+     * Perform an HTTP exchange whose response is an array of elements, and return the elements as lazy iterator. The
+     * response body is parsed incrementally while iterating, the connection is closed once the iterator is exhausted
+     * (or when it is closed explicitly, the returned iterator is {@link Closeable}).
+     */
+    public <B, T> Iterator<T> invokeIterator(RequestMethod method, URI uri, Map<String, String> headers,
+                                             String contentType, B body, RestMethodCodec codec) throws IOException, InterruptedException {
+
+        MethodMetrics methodMetrics = codec.methodMetrics();
+        long start = methodMetrics.callStarted();
+        ExchangeTimer timer = ExchangeTimer.start(timingListeners, codec, method, uri);
+        int statusCode = 0;
+        HttpResponse<InputStream> response;
+        InputStream inputStream;
+        WireLogger.Exchange exchangeLog;
+        try {
+            byte[] serializedBody = codec.serialize(body, contentType);
+            HttpRequest request = createRequest(method, uri, headers, contentType, serializedBody, codec);
+            exchangeLog = wireLogger.request(request, serializedBody);
+            if (timer != null) {
+                timer.encoded(serializedBody);
+            }
+            response = send(request, () -> httpClient.send(request, inputStreamBodyHandler));
+            statusCode = response.statusCode();
+            if (timer != null) {
+                timer.received(response, null);
+            }
+
+            inputStream = response.body();
+            if (HttpErrorHandler.isError(response)) {
+                byte[] message;
+                try (inputStream) {
+                    message = inputStream.readAllBytes();
+                }
+                if (exchangeLog != null) {
+                    exchangeLog.response(response.statusCode(), response.headers(), message);
+                }
+                HttpErrorHandler.checkResponse(response, MediaTypes.text(message, contentType(response)));
+            }
+            if (timer != null) {
+                timer.checked();
+            }
+        } finally {
+            // the call is complete once the response headers were received, the body is consumed lazily
+            methodMetrics.callCompleted(start, statusCode);
+            if (timer != null) {
+                timer.completed(statusCode);
+            }
+        }
+        if (exchangeLog != null) {
+            // the body is streamed, and not logged
+            exchangeLog.response(response.statusCode(), response.headers(), null);
+        }
+
+        String responseContentType = contentType(response);
+        if (responseContentType == null) {
+            inputStream.close();
+            return Collections.emptyIterator();
+        }
+        BodyCodec.Reader<T> reader = codec.reader(responseContentType);
+        if (reader != null) {
+            return reader.readElements(inputStream);
+        }
+        inputStream.close();
+        throw new UnsupportedOperationException("unknown or unsupported media type: " + responseContentType + ", " + codec.getReturnType());
+    }
 
-        if (serializedBody != null) {
-            logger.info("{} > {}", sequenceId, serializedBody);
+    private static void close(Iterator<?> iterator) {
+        if (iterator instanceof Closeable) {
+            try {
+                ((Closeable) iterator).close();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
         }
-        if (consumesContentType != null) {
-            headers.put("content-type", consumesContentType);
+    }
+
+    private HttpRequest createRequest(RequestMethod method, URI uri, Map<String, String> headers,
+                                      String contentType, byte[] serializedBody, RestMethodCodec codec) {
+
+        if (contentType != null) {
+            headers.put("content-type", contentType);
         }
 
         HttpRequest.Builder requestBuilder = HttpRequest.newBuilder().uri(uri);
         headers.forEach(requestBuilder::header);
-        headers.forEach((key, value) -> logger.info("{} > {}: {}", sequenceId, key, value));
+        if (codec != null && codec.accept() != null && !containsHeader(headers, "accept")) {
+            requestBuilder.header("accept", codec.accept());
+        }
+        if (compression.isAcceptEncoding() && !containsHeader(headers, "accept-encoding")) {
+            requestBuilder.header("accept-encoding", Compression.ACCEPT_ENCODING);
+        }
 
+        if (method == RequestMethod.POST || method == RequestMethod.PUT) {
+            HttpRequest.BodyPublisher body;
+            if (codec != null && compression.compresses(serializedBody, codec.compressThreshold())) {
+                requestBuilder.header("content-encoding", "gzip");
+                body = HttpRequest.BodyPublishers.ofByteArray(compression.compress(serializedBody));
+            } else if (serializedBody != null) {
+                body = HttpRequest.BodyPublishers.ofByteArray(serializedBody);
+            } else {
+                body = HttpRequest.BodyPublishers.noBody();
+            }
+            requestBuilder.method(method.name(), body);
+        }
         if (method == RequestMethod.GET) {
             requestBuilder.GET();
         }
-        if (method == RequestMethod.POST) {
-            requestBuilder.POST(HttpRequest.BodyPublishers.ofString(serializedBody));
-        }
-        if (method == RequestMethod.PUT) {
-            requestBuilder.PUT(HttpRequest.BodyPublishers.ofString(serializedBody));
-        }
         if (method == RequestMethod.DELETE) {
             requestBuilder.DELETE();
         }
+        return requestBuilder.build();
+    }
+
+    private static boolean containsHeader(Map<String, String> headers, String name) {
+        for (String header : headers.keySet()) {
+            if (header.equalsIgnoreCase(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Look up the cached response of a request (only <code>GET</code> requests are cached).
+     *
+     * @return cached response, or null if none (or not cached)
+     */
+    private CachedResponse lookup(RequestMethod method, URI uri, Map<String, String> headers, RestMethodCodec codec) {
+        if (responseCache == null || method != RequestMethod.GET) {
+            return null;
+        }
+        CachedResponse cached = responseCache.lookup(uri, headers, codec.getReturnType());
+        if (cached == null) {
+            responseCache.recordMiss();
+        }
+        return cached;
+    }
+
+    /**
+     * Check if the request can be served from the cached response: if it is fresh, or stale but within
+     * <code>stale-while-revalidate</code> (then it is revalidated in the background). Otherwise, the conditional
+     * headers to revalidate the cached response are added to the request.
+     *
+     * @return true if served from the cache
+     */
+    private boolean serveFromCache(CachedResponse cached, URI uri, Map<String, String> headers, RestMethodCodec codec) {
+        long now = responseCache.now();
+        if (cached.isFresh(now)) {
+            responseCache.recordHit();
+            return true;
+        }
+        if (cached.isStaleWhileRevalidate(now)) {
+            responseCache.recordStaleHit();
+            revalidateInBackground(cached, uri, headers, codec);
+            return true;
+        }
+        if (cached.hasValidators()) {
+            cached.addConditions(headers);
+        } else {
+            responseCache.recordMiss();
+        }
+        return false;
+    }
+
+    /**
+     * Revalidate a stale cached response in the background. The conditional request is sent like the request of the
+     * rest method (with its <code>Accept</code> header, within the concurrency limit, hedged, logged, and recorded in
+     * the metrics and timing listeners), only its response is stored in the cache instead of returned.
+     */
+    private void revalidateInBackground(CachedResponse cached, URI uri, Map<String, String> headers, RestMethodCodec codec) {
+        if (!cached.startRevalidation()) {
+            return;
+        }
+        Map<String, String> conditionalHeaders = new HashMap<>(headers);
+        cached.addConditions(conditionalHeaders);
+        MethodMetrics methodMetrics = codec.methodMetrics();
+        long start = methodMetrics.callStarted();
+        ExchangeTimer timer = ExchangeTimer.start(timingListeners, codec, RequestMethod.GET, uri);
+        HttpRequest request = createRequest(RequestMethod.GET, uri, conditionalHeaders, null, null, codec);
+        WireLogger.Exchange exchangeLog = wireLogger.request(request, null);
+        if (timer != null) {
+            timer.encoded(null);
+        }
+        CompletableFuture<HttpResponse<byte[]>> exchange = concurrencyLimiter != null
+                ? concurrencyLimiter.sendAsync(uri, () -> sendAsync(RequestMethod.GET, request, codec))
+                : sendAsync(RequestMethod.GET, request, codec);
+        exchange.thenAccept(response -> {
+            if (timer != null) {
+                timer.received(response, response.body());
+            }
+            if (exchangeLog != null) {
+                exchangeLog.response(response.statusCode(), response.headers(), response.body());
+            }
+            if (timer != null) {
+                timer.checked();
+            }
+            if (response.statusCode() == 304) {
+                responseCache.revalidated(cached, response);
+            } else if (response.statusCode() == 200) {
+                Object result = null;
+                if (responseCache.getStorage() == ResponseCache.Storage.DECODED) {
+                    try {
+                        result = decode(response, response.body(), codec);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                    if (timer != null) {
+                        timer.decoded();
+                    }
+                }
+                responseCache.store(uri, conditionalHeaders, response, result, codec.getReturnType());
+            } else {
+                cached.revalidationFailed();
+            }
+        }).whenComplete((value, error) -> {
+            int statusCode = statusCode(exchange);
+            methodMetrics.callCompleted(start, statusCode);
+            if (timer != null) {
+                timer.completed(statusCode);
+            }
+            if (error != null) {
+                cached.revalidationFailed();
+                logger.debug("background revalidation of {} failed: {}", uri, error.toString());
+            }
+        });
+    }
+
+    private <T> T cachedResult(CachedResponse cached, RestMethodCodec codec) throws IOException {
+        if (cached.body() != null) {
+            return decode(cached.contentType(), cached.body(), codec);
+        }
+        return (T) cached.value();
+    }
+
+    private <T> T handleResponse(WireLogger.Exchange exchangeLog, ExchangeTimer timer, HttpResponse<byte[]> response,
+                                 RestMethodCodec codec, RequestMethod method, URI uri, Map<String, String> headers,
+                                 CachedResponse cached) throws IOException {
+
+        if (cached != null && cached.hasValidators()) {
+            if (response.statusCode() == 304) {
+                return handleNotModified(exchangeLog, timer, response, codec, cached);
+            }
+            responseCache.recordMiss();
+        }
+        T result = handleResponse(exchangeLog, timer, response, codec);
+        if (responseCache != null && method == RequestMethod.GET) {
+            responseCache.store(uri, headers, response, result, codec.getReturnType());
+        }
+        return result;
+    }
 
-        HttpRequest request = requestBuilder.build();
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    private <T> T handleNotModified(WireLogger.Exchange exchangeLog, ExchangeTimer timer, HttpResponse<byte[]> response,
+                                    RestMethodCodec codec, CachedResponse cached) throws IOException {
 
-        logger.info("{} < {} {}", sequenceId, response.statusCode(), Response.Status.fromStatusCode(response.statusCode()));
-        HttpHeaders responseHeaders = response.headers();
-        if (responseHeaders != null) {
-            responseHeaders.map().forEach((key, values) -> {
-                logger.info("{} < {}: {}", sequenceId, key, String.join(";", values));
-            });
+        if (timer != null) {
+            timer.received(response, response.body());
         }
+        if (exchangeLog != null) {
+            exchangeLog.response(response.statusCode(), response.headers(), response.body());
+        }
+        responseCache.recordRevalidatedHit();
+        CachedResponse revalidated = responseCache.revalidated(cached, response);
+        if (timer != null) {
+            timer.checked();
+        }
+        T result = cachedResult(revalidated, codec);
+        if (timer != null) {
+            timer.decoded();
+        }
+        return result;
+    }
 
-        String plain = response.body();
-        if (plain != null && plain.length() > 0) {
-            logger.info("{} < {}", sequenceId, plain);
+    private <T> T handleResponse(WireLogger.Exchange exchangeLog, ExchangeTimer timer, HttpResponse<byte[]> response,
+                                 RestMethodCodec codec) throws IOException {
+
+        byte[] body = response.body();
+        if (timer != null) {
+            timer.received(response, body);
+        }
+        if (exchangeLog != null) {
+            exchangeLog.response(response.statusCode(), response.headers(), body);
+        }
+        if (HttpErrorHandler.isError(response)) {
+            HttpErrorHandler.checkResponse(response, MediaTypes.text(body, contentType(response)));
         }
-        HttpErrorHandler.checkResponse(response);
-        if (plain == null || plain.length() == 0) {
+        if (timer != null) {
+            timer.checked();
+        }
+        T result = decode(response, body, codec);
+        if (timer != null) {
+            timer.decoded();
+        }
+        return result;
+    }
+
+    private <T> T decode(HttpResponse<byte[]> response, byte[] body, RestMethodCodec codec) throws IOException {
+        return decode(contentType(response), body, codec);
+    }
+
+    private <T> T decode(String contentType, byte[] body, RestMethodCodec codec) throws IOException {
+        if (body == null || body.length == 0) {
             return null;
         }
 
-        if (Void.class.equals(returnType)) {
+        Type returnType = codec.getReturnType();
+        if (Void.class.equals(returnType) || void.class.equals(returnType)) {
             return null;
         }
         if (String.class.equals(returnType)) {
-            return (T) plain;
+            return (T) MediaTypes.text(body, contentType);
         }
-        String contentType = Optional.ofNullable(responseHeaders)
-                .flatMap(h -> h.firstValue("content-type"))
-                .orElseThrow(() -> new UnsupportedOperationException("undisclosed content-type"));
-
-        if (APPLICATION_JSON.equals(contentType)) {
-            JavaType javaType = json.getTypeFactory().constructType(returnType);
-            return json.readValue(plain, javaType);
+        if (byte[].class.equals(returnType)) {
+            return (T) body;
         }
-        if (APPLICATION_XML.equals(contentType)) {
-            JavaType javaType = xml.getTypeFactory().constructType(returnType);
-            return xml.readValue(plain, javaType);
+        if (contentType == null) {
+            throw new UnsupportedOperationException("undisclosed content-type");
         }
-        throw new UnsupportedOperationException("unknown or unsupported media type: " + produces + ", " + returnType);
+        BodyCodec.Reader<T> reader = codec.reader(contentType);
+        if (reader != null) {
+            return reader.read(body);
+        }
+        throw new UnsupportedOperationException("unknown or unsupported media type: " + contentType + ", " + returnType);
+    }
+
+    private static String contentType(HttpResponse<?> response) {
+        return response.headers() != null ? response.headers().firstValue("content-type").orElse(null) : null;
+    }
+
+    /**
+     * Blocking HTTP exchange.
+     */
+    @FunctionalInterface
+    private interface BlockingExchange<T> {
+
+        HttpResponse<T> send() throws IOException, InterruptedException;
     }
 }
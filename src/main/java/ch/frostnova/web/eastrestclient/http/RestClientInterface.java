@@ -1,7 +1,12 @@
 package ch.frostnova.web.eastrestclient.http;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.NoSuchElementException;
@@ -11,19 +16,139 @@ import static java.util.Objects.requireNonNull;
 
 public class RestClientInterface<T> {
 
+    /**
+     * Registry of the bound rest client interfaces. The bindings are stored with the interface class (using a
+     * {@link ClassValue}), so the registry does not pin class loaders (of redeployed applications), and lookups are
+     * lock-free.
+     */
+    private final static ClassValue<LazyBinding<?>> registry = new ClassValue<>() {
+        @Override
+        protected LazyBinding<?> computeValue(Class<?> type) {
+            return new LazyBinding<>(type);
+        }
+    };
+
+    private final static Object[] NO_ARGUMENTS = new Object[0];
+    private final static MethodType DEFAULT_METHOD_INVOKER_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+
+    private final Class<T> interfaceClass;
     private final Map<Method, RestMethodAdapter> methodAdapters = new HashMap<>();
+    private final Map<Method, MethodHandle> defaultMethods = new HashMap<>();
 
     public RestClientInterface(Class<T> interfaceClass) {
-        requireNonNull(interfaceClass);
+        this.interfaceClass = requireNonNull(interfaceClass);
         for (Method method : interfaceClass.getDeclaredMethods()) {
             // ignore default and static interface methods
             if (!method.isDefault() && !Modifier.isStatic(method.getModifiers())) {
                 methodAdapters.put(method, new RestMethodAdapter(method));
             }
         }
+        // default methods (including inherited ones) are invoked on the proxy
+        for (Method method : interfaceClass.getMethods()) {
+            if (method.isDefault()) {
+                defaultMethods.put(method, defaultMethodInvoker(method));
+            }
+        }
+    }
+
+    /**
+     * Resolve a method handle invoking the default method (as <code>super</code> call on the proxy instance), adapted
+     * to an exact <code>(Object proxy, Object[] arguments) -> Object</code> type. A private lookup in the interface is
+     * required to call the default method, which works for interfaces in the unnamed module, or in named modules that
+     * open their package (to the module of the rest client).
+     */
+    private static MethodHandle defaultMethodInvoker(Method method) {
+        Class<?> declaringInterface = method.getDeclaringClass();
+        try {
+            RestClientInterface.class.getModule().addReads(declaringInterface.getModule());
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(declaringInterface, MethodHandles.lookup());
+            MethodHandle methodHandle = lookup.findSpecial(declaringInterface, method.getName(),
+                    MethodType.methodType(method.getReturnType(), method.getParameterTypes()),
+                    declaringInterface);
+            return methodHandle
+                    .asFixedArity()
+                    .asSpreader(Object[].class, method.getParameterCount())
+                    .asType(DEFAULT_METHOD_INVOKER_TYPE);
+        } catch (IllegalAccessException | NoSuchMethodException ex) {
+            throw new UnsupportedOperationException(String.format("default method %s is not accessible, the package %s needs to be opened to %s",
+                    method, declaringInterface.getPackageName(), RestClientInterface.class.getModule()), ex);
+        }
+    }
+
+    /**
+     * Get the bound rest client interface for the given interface class. Each interface is bound exactly once, also
+     * when requested concurrently.
+     *
+     * @param interfaceClass rest client interface class, required
+     * @param <T>            interface type
+     * @return bound rest client interface
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> RestClientInterface<T> of(Class<T> interfaceClass) {
+        return (RestClientInterface<T>) registry.get(requireNonNull(interfaceClass)).get();
+    }
+
+    public Class<T> getInterfaceClass() {
+        return interfaceClass;
+    }
+
+    /**
+     * Bound rest methods of this interface (the abstract interface methods).
+     *
+     * @return rest method adapters (unmodifiable)
+     */
+    public Collection<RestMethodAdapter> getMethodAdapters() {
+        return Collections.unmodifiableCollection(methodAdapters.values());
     }
 
     public RestMethodAdapter get(Method method) {
         return Optional.ofNullable(methodAdapters.get(method)).orElseThrow(() -> new NoSuchElementException("Unknown method: " + method));
     }
+
+    /**
+     * Invoke a default method of the interface on the given instance (proxy).
+     *
+     * @param proxy     instance
+     * @param method    default method
+     * @param arguments arguments (may be null for methods without arguments)
+     * @return result
+     * @throws Throwable any error thrown by the default method
+     */
+    public Object invokeDefault(Object proxy, Method method, Object[] arguments) throws Throwable {
+        MethodHandle methodHandle = defaultMethods.get(method);
+        if (methodHandle == null) {
+            throw new NoSuchElementException("Unknown default method: " + method);
+        }
+        Object[] methodArguments = arguments != null ? arguments : NO_ARGUMENTS;
+        return (Object) methodHandle.invokeExact(proxy, methodArguments);
+    }
+
+    /**
+     * Binding of a rest client interface, created on first access. {@link ClassValue} may compute a value more than
+     * once under contention (publishing only one of them), so the (expensive) binding is deferred to the published
+     * value. A failed binding is not cached, and will be retried on next access.
+     */
+    private static class LazyBinding<T> {
+
+        private final Class<T> interfaceClass;
+        private volatile RestClientInterface<T> restClientInterface;
+
+        LazyBinding(Class<T> interfaceClass) {
+            this.interfaceClass = interfaceClass;
+        }
+
+        RestClientInterface<T> get() {
+            RestClientInterface<T> result = restClientInterface;
+            if (result == null) {
+                synchronized (this) {
+                    result = restClientInterface;
+                    if (result == null) {
+                        result = new RestClientInterface<>(interfaceClass);
+                        restClientInterface = result;
+                    }
+                }
+            }
+            return result;
+        }
+    }
 }
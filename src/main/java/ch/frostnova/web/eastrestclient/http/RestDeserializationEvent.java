@@ -0,0 +1,46 @@
+package ch.frostnova.web.eastrestclient.http;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder event for the deserialization of the response body of a rest method. For blocking calls, its
+ * stack trace attributes the deserialization (and the allocations sampled in the same thread and time span) to the
+ * caller of the rest method. Responses of asynchronous calls are deserialized in a dependent stage on the thread of
+ * the HTTP client or executor, whose stack trace does not show the caller: the rest method is identified by the
+ * <code>restClient</code> and <code>method</code> fields instead.
+ */
+@Name(RestDeserializationEvent.NAME)
+@Label("REST Deserialization")
+@Description("Deserialization of the response body of a rest client method")
+@Category({"Easy Rest Client"})
+@StackTrace
+final class RestDeserializationEvent extends Event {
+
+    final static String NAME = "ch.frostnova.easyrestclient.RestDeserialization";
+
+    /**
+     * Instance to check if the event is enabled (in any running recording).
+     */
+    final static RestDeserializationEvent PROBE = new RestDeserializationEvent();
+
+    @Label("Rest Client")
+    @Description("Interface declaring the rest method")
+    String restClient;
+
+    @Label("Method")
+    @Description("Rest method (name and parameter types)")
+    String method;
+
+    @Label("Content Type")
+    String contentType;
+
+    @Label("Response Size")
+    @DataAmount
+    long responseBytes;
+}
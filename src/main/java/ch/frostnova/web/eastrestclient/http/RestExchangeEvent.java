@@ -0,0 +1,59 @@
+package ch.frostnova.web.eastrestclient.http;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder event for an HTTP exchange of a rest method, from the call until the response was processed
+ * (for streamed results: until the response headers were received). Committed by the thread completing the exchange
+ * (for asynchronous calls: the thread completing the future).
+ */
+@Name(RestExchangeEvent.NAME)
+@Label("REST Exchange")
+@Description("HTTP exchange of a rest client method")
+@Category({"Easy Rest Client"})
+@StackTrace
+final class RestExchangeEvent extends Event {
+
+    final static String NAME = "ch.frostnova.easyrestclient.RestExchange";
+
+    /**
+     * Instance to check if the event is enabled (in any running recording).
+     */
+    final static RestExchangeEvent PROBE = new RestExchangeEvent();
+
+    @Label("Rest Client")
+    @Description("Interface declaring the rest method")
+    String restClient;
+
+    @Label("Method")
+    @Description("Rest method (name and parameter types)")
+    String method;
+
+    @Label("HTTP Method")
+    String httpMethod;
+
+    @Label("URI Template")
+    String uriTemplate;
+
+    @Label("URI")
+    String uri;
+
+    @Label("Status Code")
+    @Description("HTTP status code of the response, 0 if no response was received")
+    int statusCode;
+
+    @Label("Request Size")
+    @DataAmount
+    long requestBytes;
+
+    @Label("Response Size")
+    @Description("Size of the response body, -1 if unknown (streamed)")
+    @DataAmount
+    long responseBytes;
+}
@@ -1,6 +1,6 @@
 package ch.frostnova.web.eastrestclient.http;
 
-import ch.frostnova.web.eastrestclient.util.StringUtil;
+import ch.frostnova.web.eastrestclient.util.PercentEncoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -18,13 +18,20 @@ import javax.ws.rs.QueryParam;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
+import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
 import java.util.stream.Stream;
 
 import static ch.frostnova.web.eastrestclient.util.StringUtil.urlEncode;
@@ -35,16 +42,51 @@ public class RestMethodAdapter {
     private Logger logger = LoggerFactory.getLogger(RestMethodAdapter.class);
 
     private final Method method;
+    private final String signature;
+    private final String name;
     private final Type returnType;
+    private final ResultType resultType;
     private final RequestMethod requestMethod;
+    private final UriTemplate uriTemplate;
+    private final Consumes consumes;
+    private final Produces produces;
+    private final String accept;
+    private final String contentType;
     private final RestMethodArgument[] arguments;
+    private final boolean coalesce;
+    private final int compressThreshold;
+    private final RequestBatcher.Binding batch;
 
     public RestMethodAdapter(Method method) {
         this.method = method;
-        returnType = method.getGenericReturnType();
+        signature = String.format("%s(%s)", method.getName(),
+                Arrays.stream(method.getParameterTypes()).map(Class::getSimpleName).collect(joining(",")));
+        name = method.getDeclaringClass().getSimpleName() + "." + signature;
+        resultType = ResultType.of(method.getReturnType());
+        returnType = resultType == ResultType.VALUE ? method.getGenericReturnType() : typeArgument(method.getGenericReturnType());
 
         requestMethod = determineRequestMethod(method);
 
+        Path classUriPath = method.getDeclaringClass().getAnnotation(Path.class);
+        Path methodUriPath = method.getAnnotation(Path.class);
+        uriTemplate = UriTemplate.of(
+                Optional.ofNullable(classUriPath).map(Path::value).orElse(null),
+                Optional.ofNullable(methodUriPath).map(Path::value).orElse(null));
+
+        consumes = method.getAnnotation(Consumes.class);
+        produces = method.getAnnotation(Produces.class);
+        contentType = Optional.ofNullable(consumes).map(Consumes::value).map(Arrays::stream).flatMap(Stream::findFirst).orElse(null);
+        accept = Optional.ofNullable(produces)
+                .or(() -> Optional.ofNullable(method.getDeclaringClass().getAnnotation(Produces.class)))
+                .map(Produces::value).filter(values -> values.length > 0).map(values -> String.join(", ", values))
+                .orElse(null);
+        coalesce = requestMethod == RequestMethod.GET && Optional.ofNullable(method.getAnnotation(Coalesce.class))
+                .or(() -> Optional.ofNullable(method.getDeclaringClass().getAnnotation(Coalesce.class)))
+                .map(Coalesce::value).orElse(false);
+        compressThreshold = Optional.ofNullable(method.getAnnotation(CompressRequest.class))
+                .or(() -> Optional.ofNullable(method.getDeclaringClass().getAnnotation(CompressRequest.class)))
+                .map(CompressRequest::value).orElse(-1);
+
         Parameter[] parameters = method.getParameters();
         Annotation[][] parameterAnnotations = method.getParameterAnnotations();
 
@@ -52,11 +94,70 @@ public class RestMethodAdapter {
         for (int i = 0; i < parameters.length; i++) {
             arguments[i] = toArgument(i, parameterAnnotations[i]);
         }
+        for (int i = 0; i < uriTemplate.getVariableCount(); i++) {
+            String variable = uriTemplate.getVariable(i);
+            if (Arrays.stream(arguments).noneMatch(a -> a.getType() == RestMethodArgumentType.PATH_PARAM && variable.equals(a.getName()))) {
+                throw new UnsupportedOperationException(String.format("no @PathParam for path variable '%s' on method %s", variable, method));
+            }
+        }
+        batch = Optional.ofNullable(method.getAnnotation(Batch.class)).map(this::batchBinding).orElse(null);
         logger.debug("bound @{} {}.{}({}) -> {}", requestMethod,
                 method.getDeclaringClass().getSimpleName(), method.getName(),
                 Arrays.stream(arguments).map(String::valueOf).collect(joining(", ")), method.getGenericReturnType());
     }
 
+    public Method getMethod() {
+        return method;
+    }
+
+    /**
+     * Name of the method, used for the metrics: simple name of the interface, method name and simple names of the
+     * parameter types (e.g. <code>NotesClient.get(long)</code>).
+     *
+     * @return name
+     */
+    public String getName() {
+        return name;
+    }
+
+    public RequestMethod getRequestMethod() {
+        return requestMethod;
+    }
+
+    public UriTemplate getUriTemplate() {
+        return uriTemplate;
+    }
+
+    /**
+     * Return type of the method. For asynchronous calls (future) and streamed results (stream or iterator), this is
+     * the type of the result or element, respectively.
+     *
+     * @return return type
+     */
+    public Type getReturnType() {
+        return returnType;
+    }
+
+    public Consumes getConsumes() {
+        return consumes;
+    }
+
+    public Produces getProduces() {
+        return produces;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("@%s %s %s.%s", requestMethod, uriTemplate, method.getDeclaringClass().getSimpleName(), method.getName());
+    }
+
+    private static Type typeArgument(Type parameterizedType) {
+        if (parameterizedType instanceof ParameterizedType) {
+            return ((ParameterizedType) parameterizedType).getActualTypeArguments()[0];
+        }
+        return Object.class;
+    }
+
     private RequestMethod determineRequestMethod(Method method) {
         GET getRequest = method.getAnnotation(GET.class);
         POST postRequest = method.getAnnotation(POST.class);
@@ -85,6 +186,29 @@ public class RestMethodAdapter {
         throw new UnsupportedOperationException(String.format("unsupported request method on method %s, only GET,POST,PUT,DELETE are supported", method));
     }
 
+    /**
+     * Bind the bulk method of a batched method (see {@link Batch}).
+     */
+    private RequestBatcher.Binding batchBinding(Batch batch) {
+        if (arguments.length != 1 || (resultType != ResultType.VALUE && resultType != ResultType.ASYNC) || method.getReturnType() == void.class) {
+            throw new UnsupportedOperationException(String.format("@Batch requires a single parameter (the id) and a (future) result on method %s", method));
+        }
+        Method bulkMethod = Arrays.stream(method.getDeclaringClass().getMethods())
+                .filter(m -> m.getName().equals(batch.value()) && m.getParameterCount() == 1)
+                .findFirst()
+                .orElseThrow(() -> new UnsupportedOperationException(String.format("no bulk method '%s' with a single parameter found for @Batch on method %s", batch.value(), method)));
+        Class<?> idsType = bulkMethod.getParameterTypes()[0];
+        boolean set = !idsType.isAssignableFrom(ArrayList.class);
+        if (set && !idsType.isAssignableFrom(LinkedHashSet.class)) {
+            throw new UnsupportedOperationException(String.format("bulk method %s must take a List, Set or Collection of ids", bulkMethod));
+        }
+        ResultType bulkResultType = ResultType.of(bulkMethod.getReturnType());
+        if (bulkMethod.isAnnotationPresent(Batch.class) || (bulkResultType != ResultType.VALUE && bulkResultType != ResultType.ASYNC)) {
+            throw new UnsupportedOperationException(String.format("bulk method %s must return a (future) list, and must not be batched itself", bulkMethod));
+        }
+        return new RequestBatcher.Binding(new RestMethodAdapter(bulkMethod), set, batch.key(), batch.maxSize(), batch.maxDelayMillis());
+    }
+
     private RestMethodArgument toArgument(int index, Annotation[] annotations) {
         Optional<HeaderParam> headerParam = getAnnotation(HeaderParam.class, annotations);
         Optional<PathParam> pathParam = getAnnotation(PathParam.class, annotations);
@@ -96,18 +220,23 @@ public class RestMethodAdapter {
             throw new UnsupportedOperationException("more than one param annotation on argument " + index + " on method " + method);
         }
         if (headerParam.isPresent()) {
-            return new RestMethodArgument(RestMethodArgumentType.HEADER_PARAM, headerParam.get().value());
+            return new RestMethodArgument(RestMethodArgumentType.HEADER_PARAM, headerParam.get().value(), -1);
         }
         if (pathParam.isPresent()) {
-            return new RestMethodArgument(RestMethodArgumentType.PATH_PARAM, pathParam.get().value());
+            String name = pathParam.get().value();
+            int variableIndex = uriTemplate.indexOf(name);
+            if (variableIndex < 0) {
+                throw new UnsupportedOperationException(String.format("@PathParam(\"%s\") on argument %d is not part of path '%s' on method %s", name, index, uriTemplate, method));
+            }
+            return new RestMethodArgument(RestMethodArgumentType.PATH_PARAM, name, variableIndex);
         }
         if (queryParam.isPresent()) {
-            return new RestMethodArgument(RestMethodArgumentType.QUERY_PARAM, queryParam.get().value());
+            return new RestMethodArgument(RestMethodArgumentType.QUERY_PARAM, queryParam.get().value(), -1);
         }
         if (formParam.isPresent()) {
-            return new RestMethodArgument(RestMethodArgumentType.FORM_PARAM, formParam.get().value());
+            return new RestMethodArgument(RestMethodArgumentType.FORM_PARAM, formParam.get().value(), -1);
         }
-        return new RestMethodArgument(RestMethodArgumentType.BODY, null);
+        return new RestMethodArgument(RestMethodArgumentType.BODY, null, -1);
     }
 
     private <T> Optional<T> getAnnotation(Class<T> type, Annotation[] annotations) {
@@ -118,11 +247,48 @@ public class RestMethodAdapter {
     }
 
     public Object invoke(RestAdapter restAdapter, String baseUrl, Object[] methodCallArguments) throws Throwable {
+        if (batch != null && methodCallArguments[0] != null) {
+            return invokeBatched(restAdapter, baseUrl, methodCallArguments[0]);
+        }
+        return invoke(restAdapter, baseUrl, methodCallArguments, resultType);
+    }
+
+    /**
+     * Invoke the method asynchronously, regardless of its declared result type (used for the bulk requests of
+     * batched methods).
+     *
+     * @return future result
+     */
+    @SuppressWarnings("unchecked")
+    CompletableFuture<Object> invokeAsync(RestAdapter restAdapter, String baseUrl, Object[] methodCallArguments) {
+        try {
+            return (CompletableFuture<Object>) invoke(restAdapter, baseUrl, methodCallArguments, ResultType.ASYNC);
+        } catch (Throwable ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+
+    private Object invokeBatched(RestAdapter restAdapter, String baseUrl, Object id) throws Throwable {
+        CompletableFuture<Object> result = restAdapter.batcher().submit(restAdapter, batch, baseUrl, id);
+        if (resultType == ResultType.ASYNC) {
+            // calls for the same id share the result, cancelling a copy does not affect the other calls
+            return result.copy();
+        }
+        try {
+            return result.get();
+        } catch (ExecutionException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    private Object invoke(RestAdapter restAdapter, String baseUrl, Object[] methodCallArguments, ResultType resultType) throws Throwable {
         Map<String, String> requestHeaders = new HashMap<>();
-        Map<String, String> pathParameters = new HashMap<>();
-        Map<String, String> queryParameters = new HashMap<>();
+        String[] pathParameters = new String[uriTemplate.getVariableCount()];
         Object body = null;
 
+        StringBuilder uriBuilder = new StringBuilder(baseUrl.length() + uriTemplate.length() + 32 * arguments.length);
+        appendBaseUrl(baseUrl, uriBuilder);
+
         if (methodCallArguments != null) {
             for (int i = 0; i < methodCallArguments.length; i++) {
                 RestMethodArgument argument = arguments[i];
@@ -132,10 +298,8 @@ public class RestMethodAdapter {
                         requestHeaders.put(argument.getName(), String.valueOf(value));
                     }
                     if (argument.getType() == RestMethodArgumentType.PATH_PARAM) {
-                        pathParameters.put(argument.getName(), String.valueOf(value));
-                    }
-                    if (argument.getType() == RestMethodArgumentType.QUERY_PARAM) {
-                        queryParameters.put(argument.getName(), String.valueOf(value));
+                        // TODO: String conversion of parameters: non-trivial types, collections, ...
+                        pathParameters[argument.getVariableIndex()] = String.valueOf(value);
                     }
                     if (argument.getType() == RestMethodArgumentType.FORM_PARAM) {
                         // TODO
@@ -147,37 +311,93 @@ public class RestMethodAdapter {
             }
         }
 
-        Path classUriPath = method.getDeclaringClass().getAnnotation(Path.class);
-        Path methodUriPath = method.getAnnotation(Path.class);
-
-        Consumes consumes = method.getAnnotation(Consumes.class);
-        Produces produces = method.getAnnotation(Produces.class);
-
-        String uriString = Stream.of(baseUrl,
-                        Optional.ofNullable(classUriPath).map(Path::value).orElse(null),
-                        Optional.ofNullable(methodUriPath).map(Path::value).orElse(null)
-                )
-                .filter(Objects::nonNull)
-                .map(StringUtil::removeLeadingAndTrailingSlashes)
-                .collect(joining("/"));
+        if (uriTemplate.length() > 0) {
+            uriBuilder.append('/');
+            uriTemplate.render(uriBuilder, pathParameters);
+        }
 
-        // replace path parameters
-        // TODO: String conversion of parameters: non-trivial types, collections, ...
-        for (String param : pathParameters.keySet()) {
-            uriString = uriString.replace("{" + param + "}", urlEncode(pathParameters.get(param)));
+        if (methodCallArguments != null) {
+            char separator = '?';
+            for (int i = 0; i < methodCallArguments.length; i++) {
+                RestMethodArgument argument = arguments[i];
+                Object value = methodCallArguments[i];
+                if (value != null && argument.getType() == RestMethodArgumentType.QUERY_PARAM) {
+                    if (value instanceof Iterable) {
+                        // collections are sent as repeated query parameter (same as JAX-RS binds them)
+                        for (Object element : (Iterable<?>) value) {
+                            if (element != null) {
+                                uriBuilder.append(separator).append(argument.getEncodedName()).append('=');
+                                PercentEncoder.encodeQueryParam(String.valueOf(element), uriBuilder);
+                                separator = '&';
+                            }
+                        }
+                    } else {
+                        uriBuilder.append(separator).append(argument.getEncodedName()).append('=');
+                        PercentEncoder.encodeQueryParam(String.valueOf(value), uriBuilder);
+                        separator = '&';
+                    }
+                }
+            }
         }
 
-        if (!queryParameters.isEmpty()) {
-            uriString = uriString + "?" + queryParameters.entrySet().stream()
-                    .map(e -> urlEncode(e.getKey()) + "=" + urlEncode(e.getValue()))
-                    .collect(joining("&"));
+        URI uri = URI.create(uriBuilder.toString());
+        RestMethodCodec codec = restAdapter.codec(this);
+        if (resultType == ResultType.ASYNC) {
+            return restAdapter.invokeAsync(requestMethod, uri, requestHeaders, contentType, body, codec);
+        }
+        if (resultType == ResultType.STREAM) {
+            return restAdapter.invokeStream(requestMethod, uri, requestHeaders, contentType, body, codec);
         }
+        if (resultType == ResultType.ITERATOR) {
+            return restAdapter.invokeIterator(requestMethod, uri, requestHeaders, contentType, body, codec);
+        }
+        return restAdapter.invoke(requestMethod, uri, requestHeaders, contentType, body, codec);
+    }
 
-        // TODO: check if exactly one request type is present, otherwise throw an exception.
-        // TODO: check if the path is present, otherwise throw an exception.
-        // TODO: also consider path as class annotation (counts as base plus optional method path)
+    /**
+     * Bind the codec for this method to a rest adapter. Method adapters are shared by all rest clients, the bound
+     * codecs are held by each rest adapter (see {@link RestAdapter#codec(RestMethodAdapter)}).
+     */
+    RestMethodCodec bind(RestAdapter restAdapter) {
+        return restAdapter.bind(RestMethodBinding.builder(method.getDeclaringClass(), signature, uriTemplate.toString(), returnType)
+                .elements(resultType == ResultType.STREAM || resultType == ResultType.ITERATOR)
+                .coalesce(coalesce)
+                .compressThreshold(compressThreshold)
+                .contentType(contentType)
+                .accept(accept)
+                .build());
+    }
 
-        return restAdapter.invoke(requestMethod, new URI(uriString), requestHeaders, consumes, produces, body, returnType);
+    private static void appendBaseUrl(String baseUrl, StringBuilder target) {
+        int end = baseUrl.length();
+        while (end > 0 && baseUrl.charAt(end - 1) == '/') {
+            end--;
+        }
+        target.append(baseUrl, 0, end);
+    }
+
+    /**
+     * How the result of a method is delivered: as plain value, as future (async), or lazily as stream or iterator
+     * of elements.
+     */
+    private enum ResultType {
+        VALUE,
+        ASYNC,
+        STREAM,
+        ITERATOR;
+
+        static ResultType of(Class<?> returnType) {
+            if (returnType == CompletableFuture.class || returnType == CompletionStage.class) {
+                return ASYNC;
+            }
+            if (returnType == Stream.class) {
+                return STREAM;
+            }
+            if (returnType == Iterator.class) {
+                return ITERATOR;
+            }
+            return VALUE;
+        }
     }
 
     private enum RestMethodArgumentType {
@@ -202,10 +422,14 @@ public class RestMethodAdapter {
     private static class RestMethodArgument {
         private final RestMethodArgumentType type;
         private final String name;
+        private final String encodedName;
+        private final int variableIndex;
 
-        public RestMethodArgument(RestMethodArgumentType type, String name) {
+        public RestMethodArgument(RestMethodArgumentType type, String name, int variableIndex) {
             this.type = type;
             this.name = name;
+            this.encodedName = urlEncode(name);
+            this.variableIndex = variableIndex;
         }
 
         public RestMethodArgumentType getType() {
@@ -216,6 +440,14 @@ public class RestMethodAdapter {
             return name;
         }
 
+        public String getEncodedName() {
+            return encodedName;
+        }
+
+        public int getVariableIndex() {
+            return variableIndex;
+        }
+
         @Override
         public String toString() {
             return name != null ? String.format("%s(\"%s\")", type, name) : type.toString();
@@ -0,0 +1,171 @@
+package ch.frostnova.web.eastrestclient.http;
+
+import java.lang.reflect.Type;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Declaration of a rest method, from which a rest adapter binds the codec of the method (see
+ * {@link RestAdapter#bind(RestMethodBinding)}): the method (for the metrics), its return type and media types, and
+ * whether its calls are coalesced or its request bodies compressed. Created by the dynamic proxies from the
+ * annotations of the method, and by the implementations generated by the annotation processor.
+ */
+public final class RestMethodBinding {
+
+    private final Class<?> restClientInterface;
+    private final String signature;
+    private final String uriTemplate;
+    private final Type returnType;
+    private final boolean elements;
+    private final boolean coalesce;
+    private final int compressThreshold;
+    private final String contentType;
+    private final String accept;
+
+    private RestMethodBinding(Builder builder) {
+        restClientInterface = builder.restClientInterface;
+        signature = builder.signature;
+        uriTemplate = builder.uriTemplate;
+        returnType = builder.returnType;
+        elements = builder.elements;
+        coalesce = builder.coalesce;
+        compressThreshold = builder.compressThreshold;
+        contentType = builder.contentType;
+        accept = builder.accept;
+    }
+
+    /**
+     * Create a builder for the binding of a rest method. The method is named by the simple name of the interface and
+     * the signature for the metrics (see {@link ch.frostnova.web.eastrestclient.metrics.RestClientMetrics}), e.g.
+     * <code>NotesClient.get(long)</code>.
+     *
+     * @param restClientInterface interface declaring the rest method, required
+     * @param signature           method name and simple names of the erased parameter types, e.g.
+     *                            <code>get(long)</code>, required
+     * @param uriTemplate         uri template of the method, required
+     * @param returnType          return type of the method (element type for streamed results), required
+     * @return builder
+     */
+    public static Builder builder(Class<?> restClientInterface, String signature, String uriTemplate, Type returnType) {
+        return new Builder(restClientInterface, signature, uriTemplate, returnType);
+    }
+
+    Class<?> restClientInterface() {
+        return restClientInterface;
+    }
+
+    String signature() {
+        return signature;
+    }
+
+    String uriTemplate() {
+        return uriTemplate;
+    }
+
+    Type returnType() {
+        return returnType;
+    }
+
+    boolean isElements() {
+        return elements;
+    }
+
+    boolean isCoalesce() {
+        return coalesce;
+    }
+
+    int compressThreshold() {
+        return compressThreshold;
+    }
+
+    String contentType() {
+        return contentType;
+    }
+
+    String accept() {
+        return accept;
+    }
+
+    public static class Builder {
+
+        private final Class<?> restClientInterface;
+        private final String signature;
+        private final String uriTemplate;
+        private final Type returnType;
+        private boolean elements;
+        private boolean coalesce;
+        private int compressThreshold = -1;
+        private String contentType;
+        private String accept;
+
+        private Builder(Class<?> restClientInterface, String signature, String uriTemplate, Type returnType) {
+            this.restClientInterface = requireNonNull(restClientInterface, "restClientInterface is required");
+            this.signature = requireNonNull(signature, "signature is required");
+            this.uriTemplate = requireNonNull(uriTemplate, "uriTemplate is required");
+            this.returnType = requireNonNull(returnType, "returnType is required");
+        }
+
+        /**
+         * Whether the result is streamed as elements (stream or iterator). Optional, default is false.
+         *
+         * @param elements streamed as elements
+         * @return builder
+         */
+        public Builder elements(boolean elements) {
+            this.elements = elements;
+            return this;
+        }
+
+        /**
+         * Whether to coalesce identical concurrent <code>GET</code> calls (see {@link Coalesce}), ignored for streamed
+         * results. Optional, default is false.
+         *
+         * @param coalesce coalesce calls
+         * @return builder
+         */
+        public Builder coalesce(boolean coalesce) {
+            this.coalesce = coalesce;
+            return this;
+        }
+
+        /**
+         * Minimum size of request bodies to compress (see {@link CompressRequest}). Optional, default is -1 (the
+         * request compression of the client applies).
+         *
+         * @param compressThreshold threshold in bytes, -1 for the request compression of the client
+         * @return builder
+         */
+        public Builder compressThreshold(int compressThreshold) {
+            this.compressThreshold = compressThreshold;
+            return this;
+        }
+
+        /**
+         * Content type of the request (<code>@Consumes</code>), whose codec is looked up once. Optional, default is
+         * none.
+         *
+         * @param contentType content type
+         * @return builder
+         */
+        public Builder contentType(String contentType) {
+            this.contentType = contentType;
+            return this;
+        }
+
+        /**
+         * Accepted media types of the response (<code>@Produces</code>, joined with a comma), sent as
+         * <code>Accept</code> header and whose codecs are looked up once. Optional, default is none.
+         *
+         * @param accept accepted media types
+         * @return builder
+         */
+        public Builder accept(String accept) {
+            this.accept = accept;
+            return this;
+        }
+
+        public RestMethodBinding build() {
+            return new RestMethodBinding(this);
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package ch.frostnova.web.eastrestclient.http;
+
+import ch.frostnova.web.eastrestclient.metrics.MethodMetrics;
+import ch.frostnova.web.eastrestclient.metrics.RestClientMetrics;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Readers and writers of a rest method, bound to the {@link BodyCodecs} of a rest client. The codecs of the media
+ * types the method consumes and produces (<code>@Consumes</code>, <code>@Produces</code>) are looked up, and their
+ * readers created when the method is bound (instead of negotiating the codec, resolving the type and looking up the
+ * deserializer on each call). The codecs of other response content types are looked up on first use, and then
+ * remembered as well.<p>
+ * Writers are created for the <i>runtime</i> type of the body (so subtypes of the declared body type are serialized
+ * with all their properties), and cached for the last seen body type (which usually never changes).<p>
+ * The codec also holds the metrics recorder of the rest method, whether its calls are coalesced (see
+ * {@link Coalesce}), the threshold to compress its request bodies (see {@link CompressRequest}), and the media types
+ * it accepts (<code>@Produces</code>).
+ */
+public final class RestMethodCodec {
+
+    private final BodyCodecs codecs;
+    private final Type returnType;
+    private final Class<?> restClientInterface;
+    private final String signature;
+    private final String uriTemplate;
+    private final String name;
+    private final MethodMetrics methodMetrics;
+    private final boolean coalesce;
+    private final int compressThreshold;
+    private final String contentType;
+    private final String accept;
+    private final Format requestFormat;
+    private final Map<String, Format> formats = new ConcurrentHashMap<>();
+
+    RestMethodCodec(BodyCodecs codecs, Type returnType, Class<?> restClientInterface, String signature,
+                    String uriTemplate, MethodMetrics methodMetrics, boolean coalesce,
+                    int compressThreshold, String contentType, String accept) {
+        this.restClientInterface = restClientInterface;
+        this.signature = signature;
+        this.uriTemplate = uriTemplate;
+        this.name = restClientInterface != null ? restClientInterface.getSimpleName() + "." + signature : null;
+        this.codecs = requireNonNull(codecs);
+        this.returnType = requireNonNull(returnType);
+        this.methodMetrics = requireNonNull(methodMetrics);
+        this.coalesce = coalesce;
+        this.compressThreshold = compressThreshold;
+        this.contentType = contentType;
+        this.accept = accept;
+
+        requestFormat = format(ContentType.of(contentType));
+        if (accept != null) {
+            for (String mediaType : accept.split(",")) {
+                Format format = format(ContentType.of(mediaType));
+                if (format != null) {
+                    format.reader();
+                }
+            }
+        }
+    }
+
+    /**
+     * Interface declaring the rest method.
+     *
+     * @return interface, null if bound without rest method
+     */
+    Class<?> restClientInterface() {
+        return restClientInterface;
+    }
+
+    /**
+     * Signature of the rest method (method name and simple names of the erased parameter types).
+     *
+     * @return signature, null if bound without rest method
+     */
+    String signature() {
+        return signature;
+    }
+
+    /**
+     * Uri template of the rest method.
+     *
+     * @return uri template, null if bound without rest method
+     */
+    String uriTemplate() {
+        return uriTemplate;
+    }
+
+    /**
+     * Name of the rest method (see {@link RestClientMetrics}).
+     *
+     * @return name, null if bound without name
+     */
+    String name() {
+        return name;
+    }
+
+    /**
+     * Metrics recorder of the rest method.
+     *
+     * @return metrics recorder
+     */
+    MethodMetrics methodMetrics() {
+        return methodMetrics;
+    }
+
+    /**
+     * Whether identical concurrent calls are coalesced (see {@link Coalesce}).
+     *
+     * @return true if coalesced
+     */
+    boolean isCoalesced() {
+        return coalesce;
+    }
+
+    /**
+     * Minimum size of request bodies to compress (see {@link CompressRequest}).
+     *
+     * @return threshold in bytes, -1 if the request compression of the client applies
+     */
+    int compressThreshold() {
+        return compressThreshold;
+    }
+
+    /**
+     * Content type of the request (<code>@Consumes</code> of the rest method).
+     *
+     * @return content type, null if not declared
+     */
+    String contentType() {
+        return contentType;
+    }
+
+    /**
+     * Accepted media types of the response (<code>@Produces</code> of the rest method).
+     *
+     * @return value of the <code>Accept</code> header, null if not declared
+     */
+    String accept() {
+        return accept;
+    }
+
+    /**
+     * Return type (or element type for streamed results).
+     *
+     * @return return type
+     */
+    public Type getReturnType() {
+        return returnType;
+    }
+
+    /**
+     * Reader for the return type.
+     *
+     * @param contentType content type of the response
+     * @param <T>         return type
+     * @return reader, or null if the content type is not supported
+     */
+    public <T> BodyCodec.Reader<T> reader(String contentType) {
+        Format format = format(ContentType.of(contentType));
+        return format != null ? (BodyCodec.Reader<T>) format.reader() : null;
+    }
+
+    /**
+     * Serialize the body. Bodies of content types without codec are sent as is (byte arrays), or as text (encoded in
+     * the charset of the content type, UTF-8 by default).
+     *
+     * @param body        body, optional
+     * @param contentType content type of the request
+     * @return serialized body, or null if the body was null
+     * @throws IOException if the body could not be serialized
+     */
+    public byte[] serialize(Object body, String contentType) throws IOException {
+        if (body == null) {
+            return null;
+        }
+        Format format = contentType != null && contentType.equals(this.contentType)
+                ? requestFormat
+                : format(ContentType.of(contentType));
+        if (format != null) {
+            return format.writer(body.getClass()).write(body);
+        }
+        if (body instanceof byte[]) {
+            return (byte[]) body;
+        }
+        return String.valueOf(body).getBytes(MediaTypes.charset(contentType));
+    }
+
+    /**
+     * Format of a content type: the codec registered for it, with the reader and last writer of this method.
+     *
+     * @return format, or null if no codec is registered for the content type
+     */
+    private Format format(ContentType contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        Format format = formats.get(contentType.essence());
+        if (format == null) {
+            BodyCodec codec = codecs.codec(contentType);
+            if (codec == null) {
+                return null;
+            }
+            format = formats.computeIfAbsent(contentType.essence(), essence -> new Format(codec));
+        }
+        return format;
+    }
+
+    /**
+     * Codec of a media type: the reader for the return type, and the writer for the last seen body type, created on
+     * first use.
+     */
+    private class Format {
+        private final BodyCodec codec;
+        private volatile BodyCodec.Reader<?> reader;
+        private volatile BodyWriter writer;
+
+        Format(BodyCodec codec) {
+            this.codec = codec;
+        }
+
+        BodyCodec.Reader<?> reader() {
+            BodyCodec.Reader<?> reader = this.reader;
+            if (reader == null) {
+                reader = requireNonNull(codec.reader(returnType), "reader is required");
+                this.reader = reader;
+            }
+            return reader;
+        }
+
+        BodyCodec.Writer writer(Class<?> bodyType) {
+            BodyWriter writer = this.writer;
+            if (writer == null || writer.type != bodyType) {
+                writer = new BodyWriter(bodyType, requireNonNull(codec.writer(bodyType), "writer is required"));
+                this.writer = writer;
+            }
+            return writer.writer;
+        }
+    }
+
+    private static class BodyWriter {
+        private final Class<?> type;
+        private final BodyCodec.Writer writer;
+
+        BodyWriter(Class<?> type, BodyCodec.Writer writer) {
+            this.type = type;
+            this.writer = writer;
+        }
+    }
+}
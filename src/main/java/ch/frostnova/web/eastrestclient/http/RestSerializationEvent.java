@@ -0,0 +1,39 @@
+package ch.frostnova.web.eastrestclient.http;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder event for the serialization of the request body of a rest method (and creation of the request).
+ */
+@Name(RestSerializationEvent.NAME)
+@Label("REST Serialization")
+@Description("Serialization of the request body of a rest client method")
+@Category({"Easy Rest Client"})
+@StackTrace
+final class RestSerializationEvent extends Event {
+
+    final static String NAME = "ch.frostnova.easyrestclient.RestSerialization";
+
+    /**
+     * Instance to check if the event is enabled (in any running recording).
+     */
+    final static RestSerializationEvent PROBE = new RestSerializationEvent();
+
+    @Label("Rest Client")
+    @Description("Interface declaring the rest method")
+    String restClient;
+
+    @Label("Method")
+    @Description("Rest method (name and parameter types)")
+    String method;
+
+    @Label("Request Size")
+    @DataAmount
+    long requestBytes;
+}
@@ -0,0 +1,158 @@
+package ch.frostnova.web.eastrestclient.http;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces identical concurrent calls (see {@link Coalesce}): the first caller (leader) performs the call, callers
+ * with the same key arriving while it is in flight (followers) wait for and share its result. The flight is removed
+ * once the call completed, so later calls perform a call of their own.<p>
+ * If the leader is interrupted, its followers do not fail with the leader's interruption, but retry (one of them
+ * becoming the new leader).
+ */
+final class SingleFlight {
+
+    private final ConcurrentHashMap<Key, CompletableFuture<Object>> flights = new ConcurrentHashMap<>();
+
+    /**
+     * Perform a blocking call, or wait for the identical call in flight.
+     *
+     * @param key  key of the call
+     * @param call call
+     * @return result of the call (shared with the other callers)
+     * @throws IOException          if the call failed
+     * @throws InterruptedException if interrupted while performing or waiting for the call
+     */
+    @SuppressWarnings("unchecked")
+    <T> T invoke(Key key, BlockingCall<T> call) throws IOException, InterruptedException {
+        while (true) {
+            CompletableFuture<Object> flight = new CompletableFuture<>();
+            CompletableFuture<Object> leader = flights.putIfAbsent(key, flight);
+            if (leader == null) {
+                T result;
+                try {
+                    result = call.call();
+                } catch (Throwable ex) {
+                    flights.remove(key, flight);
+                    flight.completeExceptionally(ex);
+                    throw ex;
+                }
+                flights.remove(key, flight);
+                flight.complete(result);
+                return result;
+            }
+            try {
+                return (T) leader.get();
+            } catch (ExecutionException ex) {
+                Throwable cause = ex.getCause();
+                if (cause instanceof InterruptedException) {
+                    continue;
+                }
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new IllegalStateException(cause);
+            }
+        }
+    }
+
+    /**
+     * Perform an asynchronous call, or join the identical call in flight. Followers get a dependent future of the
+     * leader's result, so cancelling it does not affect the exchange in flight (but cancelling the leader's future
+     * cancels the exchange, and fails its followers).
+     *
+     * @param key  key of the call
+     * @param call call
+     * @return future result of the call (shared with the other callers)
+     */
+    @SuppressWarnings("unchecked")
+    <T> CompletableFuture<T> invokeAsync(Key key, Supplier<CompletableFuture<T>> call) {
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> leader = flights.putIfAbsent(key, flight);
+        if (leader != null) {
+            return leader.thenApply(value -> (T) value);
+        }
+        CompletableFuture<T> result;
+        try {
+            result = call.get();
+        } catch (RuntimeException | Error ex) {
+            flights.remove(key, flight);
+            flight.completeExceptionally(ex);
+            throw ex;
+        }
+        result.whenComplete((value, error) -> {
+            flights.remove(key, flight);
+            if (error != null) {
+                flight.completeExceptionally(error);
+            } else {
+                flight.complete(value);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Number of calls currently in flight.
+     *
+     * @return number of calls in flight
+     */
+    int inFlight() {
+        return flights.size();
+    }
+
+    @FunctionalInterface
+    interface BlockingCall<T> {
+        T call() throws IOException, InterruptedException;
+    }
+
+    /**
+     * Key of a call: calls are identical if they are made through the same codec (same rest method, and thus the
+     * same result type), with the same request method, URI and request headers.
+     */
+    static final class Key {
+
+        private final RestMethodCodec codec;
+        private final RequestMethod method;
+        private final URI uri;
+        private final Map<String, String> headers;
+        private final int hash;
+
+        Key(RestMethodCodec codec, RequestMethod method, URI uri, Map<String, String> headers) {
+            this.codec = codec;
+            this.method = method;
+            this.uri = uri;
+            this.headers = headers.isEmpty() ? Map.of() : Map.copyOf(headers);
+            this.hash = 31 * (31 * (31 * System.identityHashCode(codec) + method.hashCode()) + uri.hashCode())
+                    + this.headers.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return hash == other.hash && codec == other.codec && method == other.method && uri.equals(other.uri)
+                    && headers.equals(other.headers);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
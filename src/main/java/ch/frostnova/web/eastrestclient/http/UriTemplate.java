@@ -0,0 +1,158 @@
+package ch.frostnova.web.eastrestclient.http;
+
+import ch.frostnova.web.eastrestclient.util.PercentEncoder;
+import ch.frostnova.web.eastrestclient.util.StringUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * URI template for a rest method, composed from the <code>@Path</code> values (on class and method). The template is
+ * parsed once into literal and variable segments (JAX-RS syntax: <code>{name}</code> or <code>{name: regex}</code>),
+ * and then rendered per call with the path parameter values.
+ */
+public final class UriTemplate {
+
+    private final String template;
+    private final String[] literals;
+    private final int[] placeholders;
+    private final String[] variables;
+
+    private UriTemplate(String template) {
+        this.template = template;
+
+        List<String> literalList = new ArrayList<>();
+        List<Integer> placeholderList = new ArrayList<>();
+        List<String> variableList = new ArrayList<>();
+
+        int literalStart = 0;
+        int index = 0;
+        while (index < template.length()) {
+            if (template.charAt(index) != '{') {
+                index++;
+                continue;
+            }
+            int end = findClosingBrace(template, index);
+            String variable = template.substring(index + 1, end);
+            int regexSeparator = variable.indexOf(':');
+            if (regexSeparator >= 0) {
+                variable = variable.substring(0, regexSeparator);
+            }
+            variable = variable.trim();
+            if (!variableList.contains(variable)) {
+                variableList.add(variable);
+            }
+            literalList.add(template.substring(literalStart, index));
+            placeholderList.add(variableList.indexOf(variable));
+            index = end + 1;
+            literalStart = index;
+        }
+        literalList.add(template.substring(literalStart));
+
+        literals = literalList.toArray(new String[0]);
+        placeholders = placeholderList.stream().mapToInt(Integer::intValue).toArray();
+        variables = variableList.toArray(new String[0]);
+    }
+
+    private static int findClosingBrace(String template, int openingBrace) {
+        int depth = 0;
+        for (int i = openingBrace; i < template.length(); i++) {
+            char c = template.charAt(i);
+            if (c == '{') {
+                depth++;
+            } else if (c == '}' && --depth == 0) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("unterminated variable in uri template: " + template);
+    }
+
+    /**
+     * Create a template by joining the given paths (null or empty paths are ignored, leading and trailing slashes are
+     * removed).
+     *
+     * @param paths paths, such as the <code>@Path</code> values of the class and method
+     * @return template
+     */
+    public static UriTemplate of(String... paths) {
+        StringBuilder builder = new StringBuilder();
+        for (String path : paths) {
+            String part = StringUtil.removeLeadingAndTrailingSlashes(path);
+            if (part != null && !part.isEmpty()) {
+                if (builder.length() > 0) {
+                    builder.append('/');
+                }
+                builder.append(part);
+            }
+        }
+        return new UriTemplate(builder.toString());
+    }
+
+    /**
+     * Index of a variable, as used for the values when rendering the template.
+     *
+     * @param name variable name
+     * @return index, or -1 if no such variable is defined in the template
+     */
+    public int indexOf(String name) {
+        for (int i = 0; i < variables.length; i++) {
+            if (variables[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public int getVariableCount() {
+        return variables.length;
+    }
+
+    public String getVariable(int index) {
+        return variables[index];
+    }
+
+    /**
+     * Render the template, appending it to the target. Variable values are percent-encoded as path segments.
+     *
+     * @param target target to append to
+     * @param values variable values, by variable index (see {@link #indexOf(String)})
+     */
+    public void render(StringBuilder target, String[] values) {
+        for (int i = 0; i < placeholders.length; i++) {
+            target.append(literals[i]);
+            String value = values[placeholders[i]];
+            if (value == null) {
+                throw new IllegalArgumentException(String.format("no value for path parameter '%s' in '%s'", variables[placeholders[i]], template));
+            }
+            PercentEncoder.encodePathSegment(value, target);
+        }
+        target.append(literals[placeholders.length]);
+    }
+
+    /**
+     * Length of the template (without the variables), can be used to presize a buffer for rendering.
+     *
+     * @return length
+     */
+    public int length() {
+        return template.length();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return Objects.equals(template, ((UriTemplate) o).template);
+    }
+
+    @Override
+    public int hashCode() {
+        return template.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return template;
+    }
+}
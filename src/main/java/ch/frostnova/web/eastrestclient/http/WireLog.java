@@ -0,0 +1,207 @@
+package ch.frostnova.web.eastrestclient.http;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Configuration of the wire log: which HTTP exchanges are logged (at level <code>INFO</code>, logger
+ * {@link RestAdapter}), and in how much detail. Nothing is formatted unless the logger is enabled and the exchange is
+ * selected for logging.
+ * <ul>
+ * <li>mode: {@link Mode#OFF off}, {@link Mode#HEADERS headers only}, or {@link Mode#BODIES headers and bodies}</li>
+ * <li>bodies are truncated to a maximum length</li>
+ * <li>sampling: only every n-th exchange is logged</li>
+ * <li>slow exchanges only: an exchange is only logged (request and response, after the response was received) when it
+ * took at least a given duration</li>
+ * <li>values of sensitive headers (such as <code>Authorization</code> or <code>api-key</code>) are redacted</li>
+ * </ul>
+ * The default logs headers and bodies (truncated to {@value #DEFAULT_MAX_BODY_LENGTH} characters) of all exchanges,
+ * with the {@link #DEFAULT_REDACTED_HEADERS default sensitive headers} redacted.
+ */
+public final class WireLog {
+
+    public final static int DEFAULT_MAX_BODY_LENGTH = 1024;
+
+    public final static Set<String> DEFAULT_REDACTED_HEADERS = Collections.unmodifiableSet(headerNames(
+            "authorization", "proxy-authorization", "cookie", "set-cookie", "api-key", "x-api-key"));
+
+    private final static WireLog DEFAULT = builder().build();
+    private final static WireLog OFF = builder().mode(Mode.OFF).build();
+
+    private final Mode mode;
+    private final int maxBodyLength;
+    private final int sampleRate;
+    private final Duration slowThreshold;
+    private final Set<String> redactedHeaders;
+
+    private WireLog(Builder builder) {
+        mode = builder.mode;
+        maxBodyLength = builder.maxBodyLength;
+        sampleRate = builder.sampleRate;
+        slowThreshold = builder.slowThreshold;
+        redactedHeaders = Collections.unmodifiableSet(headerNames(builder.redactedHeaders.toArray(new String[0])));
+    }
+
+    public static WireLog defaults() {
+        return DEFAULT;
+    }
+
+    public static WireLog off() {
+        return OFF;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private static Set<String> headerNames(String... names) {
+        Set<String> headerNames = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        headerNames.addAll(Arrays.asList(names));
+        return headerNames;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public int getMaxBodyLength() {
+        return maxBodyLength;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public Duration getSlowThreshold() {
+        return slowThreshold;
+    }
+
+    /**
+     * Check if the value of a header is redacted in the log.
+     *
+     * @param name header name (case-insensitive)
+     * @return true if redacted
+     */
+    public boolean isRedacted(String name) {
+        return redactedHeaders.contains(name);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("WireLog[mode=%s, maxBodyLength=%d, sampleRate=%d, slowThreshold=%s]",
+                mode.name().toLowerCase(Locale.ROOT), maxBodyLength, sampleRate, slowThreshold);
+    }
+
+    public enum Mode {
+        /**
+         * No wire logging.
+         */
+        OFF,
+        /**
+         * Request line, response status and headers.
+         */
+        HEADERS,
+        /**
+         * Request line, response status, headers and (truncated) bodies.
+         */
+        BODIES
+    }
+
+    public static class Builder {
+
+        private Mode mode = Mode.BODIES;
+        private int maxBodyLength = DEFAULT_MAX_BODY_LENGTH;
+        private int sampleRate = 1;
+        private Duration slowThreshold;
+        private Set<String> redactedHeaders = headerNames(DEFAULT_REDACTED_HEADERS.toArray(new String[0]));
+
+        private Builder() {
+
+        }
+
+        /**
+         * What to log. Optional, default is {@link Mode#BODIES}.
+         *
+         * @param mode mode
+         * @return builder
+         */
+        public Builder mode(Mode mode) {
+            this.mode = requireNonNull(mode, "mode is required");
+            return this;
+        }
+
+        /**
+         * Maximum number of characters of a body to log, longer bodies are truncated. Optional, default is
+         * {@value #DEFAULT_MAX_BODY_LENGTH}.
+         *
+         * @param maxBodyLength maximum body length, must not be negative
+         * @return builder
+         */
+        public Builder maxBodyLength(int maxBodyLength) {
+            if (maxBodyLength < 0) {
+                throw new IllegalArgumentException("maxBodyLength must not be negative");
+            }
+            this.maxBodyLength = maxBodyLength;
+            return this;
+        }
+
+        /**
+         * Log only every n-th exchange (1 in n). Optional, default is 1 (log all exchanges).
+         *
+         * @param sampleRate sample rate n, must be positive
+         * @return builder
+         */
+        public Builder sampleRate(int sampleRate) {
+            if (sampleRate < 1) {
+                throw new IllegalArgumentException("sampleRate must be positive");
+            }
+            this.sampleRate = sampleRate;
+            return this;
+        }
+
+        /**
+         * Log only exchanges which took at least the given duration (until the response headers and, if not
+         * streamed, the body were received). Request and response are then logged together once the response was
+         * received. Optional, default is none (log all exchanges, the request before it is sent).
+         *
+         * @param slowThreshold threshold, or null for none
+         * @return builder
+         */
+        public Builder slowThreshold(Duration slowThreshold) {
+            this.slowThreshold = slowThreshold;
+            return this;
+        }
+
+        /**
+         * Additional headers whose values are redacted.
+         *
+         * @param headerNames header names (case-insensitive)
+         * @return builder
+         */
+        public Builder redactHeaders(String... headerNames) {
+            redactedHeaders.addAll(Arrays.asList(headerNames));
+            return this;
+        }
+
+        /**
+         * Headers whose values are redacted, replacing the default headers.
+         *
+         * @param headerNames header names (case-insensitive)
+         * @return builder
+         */
+        public Builder redactedHeaders(String... headerNames) {
+            redactedHeaders = headerNames(headerNames);
+            return this;
+        }
+
+        public WireLog build() {
+            return new WireLog(this);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package ch.frostnova.web.eastrestclient.http;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.ws.rs.core.Response;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Wire logger of a rest adapter, logs the HTTP exchanges as configured by the {@link WireLog}. Exchanges are
+ * correlated by an id composed of the client id (per rest adapter) and the exchange sequence number of that client
+ * (e.g. <code>2-17</code>), and the direction is indicated as outbound (<code>&gt;</code>) or inbound
+ * (<code>&lt;</code>).<p>
+ * Requests are logged as sent, with all the headers of the built request (including the ones added by the rest
+ * adapter, such as <code>Accept-Encoding</code>), and compressed bodies with their size on the wire and encoding.<p>
+ * When logging is disabled (or the exchange is not sampled), {@link #request(HttpRequest, byte[])} returns null, and
+ * nothing is allocated or formatted. Bodies are only decoded (in the charset of their content type) when they are
+ * logged, bodies in binary formats (see {@link MediaTypes}) are logged with their size only.
+ */
+final class WireLogger {
+
+    private final static Logger logger = LoggerFactory.getLogger(RestAdapter.class);
+
+    private final static AtomicInteger clientSequence = new AtomicInteger();
+
+    private final static String REDACTED = "<redacted>";
+
+    private final WireLog wireLog;
+    private final int clientId;
+    private final AtomicLong exchangeSequence = new AtomicLong();
+
+    WireLogger(WireLog wireLog) {
+        this.wireLog = requireNonNull(wireLog);
+        clientId = clientSequence.incrementAndGet();
+    }
+
+    /**
+     * Log a request (unless only slow exchanges are logged, then the request is logged with the response).
+     *
+     * @param request request, as sent
+     * @param body    serialized body (before compression), optional
+     * @return exchange to log the response with, or null if the exchange is not logged
+     */
+    Exchange request(HttpRequest request, byte[] body) {
+        if (wireLog.getMode() == WireLog.Mode.OFF || !logger.isInfoEnabled()) {
+            return null;
+        }
+        long sequence = exchangeSequence.incrementAndGet();
+        if ((sequence - 1) % wireLog.getSampleRate() != 0) {
+            return null;
+        }
+        Exchange exchange = new Exchange(clientId + "-" + sequence, request, body);
+        if (wireLog.getSlowThreshold() == null) {
+            exchange.logRequest();
+        }
+        return exchange;
+    }
+
+    private String redact(String header, String value) {
+        return wireLog.isRedacted(header) ? REDACTED : value;
+    }
+
+    private String format(byte[] body, String contentType) {
+        if (MediaTypes.isBinary(contentType)) {
+            return "(" + body.length + " bytes " + contentType + ")";
+        }
+        return truncate(MediaTypes.text(body, contentType));
+    }
+
+    private void logHeaders(String id, String direction, HttpHeaders headers) {
+        for (Map.Entry<String, List<String>> header : headers.map().entrySet()) {
+            logger.info("{} {} {}: {}", id, direction, header.getKey(), redact(header.getKey(), String.join(";", header.getValue())));
+        }
+    }
+
+    private String truncate(String body) {
+        int maxBodyLength = wireLog.getMaxBodyLength();
+        if (body.length() <= maxBodyLength) {
+            return body;
+        }
+        return body.substring(0, maxBodyLength) + "... (" + body.length() + " characters)";
+    }
+
+    final class Exchange {
+
+        private final String id;
+        private final HttpRequest request;
+        private final byte[] body;
+        private final long start = System.nanoTime();
+
+        private Exchange(String id, HttpRequest request, byte[] body) {
+            this.id = id;
+            this.request = request;
+            this.body = body;
+        }
+
+        private void logRequest() {
+            logger.info("{} > {} {}", id, request.method(), request.uri());
+            HttpHeaders headers = request.headers();
+            logHeaders(id, ">", headers);
+            if (wireLog.getMode() == WireLog.Mode.BODIES && body != null) {
+                String formatted = format(body, headers.firstValue("content-type").orElse(null));
+                String encoding = headers.firstValue("content-encoding").orElse(null);
+                if (encoding != null) {
+                    long sentBytes = request.bodyPublisher().map(HttpRequest.BodyPublisher::contentLength).orElse(-1L);
+                    logger.info("{} > ({} bytes {}) {}", id, sentBytes, encoding, formatted);
+                } else {
+                    logger.info("{} > {}", id, formatted);
+                }
+            }
+        }
+
+        /**
+         * Log the response (and the request, if only slow exchanges are logged and this exchange was slow).
+         *
+         * @param statusCode status code
+         * @param headers    response headers, optional
+         * @param body       response body, optional
+         */
+        void response(int statusCode, HttpHeaders headers, byte[] body) {
+            long elapsedNanos = System.nanoTime() - start;
+            if (wireLog.getSlowThreshold() != null) {
+                if (elapsedNanos < wireLog.getSlowThreshold().toNanos()) {
+                    return;
+                }
+                logRequest();
+            }
+            logger.info("{} < {} {} ({} ms)", id, statusCode, Response.Status.fromStatusCode(statusCode), TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+            if (headers != null) {
+                logHeaders(id, "<", headers);
+            }
+            if (wireLog.getMode() == WireLog.Mode.BODIES && body != null && body.length > 0) {
+                String contentType = headers != null ? headers.firstValue("content-type").orElse(null) : null;
+                logger.info("{} < {}", id, format(body, contentType));
+            }
+        }
+    }
+}
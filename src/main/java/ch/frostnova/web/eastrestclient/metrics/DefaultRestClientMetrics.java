@@ -0,0 +1,248 @@
+package ch.frostnova.web.eastrestclient.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Default metrics of a rest client, records for each rest method:
+ * <ul>
+ * <li>number of calls, and number of calls in flight</li>
+ * <li>number of completed calls by status class (1xx to 5xx), and failures without response</li>
+ * <li>latency histogram (p50, p99, p999, max and mean latency)</li>
+ * </ul>
+ * All counters are lock-free and striped ({@link LongAdder}, striped histogram buckets), so recording does not contend
+ * between threads and does not allocate. The metrics can be read with {@link #snapshot(String)}, and optionally be
+ * exposed as MXBeans (see {@link #withJmx(String)}).
+ */
+public final class DefaultRestClientMetrics implements RestClientMetrics, AutoCloseable {
+
+    private final static Logger logger = LoggerFactory.getLogger(DefaultRestClientMetrics.class);
+
+    /**
+     * JMX domain of the MXBeans.
+     */
+    public final static String JMX_DOMAIN = "ch.frostnova.easy-rest-client";
+
+    private final ConcurrentMap<String, DefaultMethodMetrics> methods = new ConcurrentHashMap<>();
+    private final String jmxClientName;
+
+    private DefaultRestClientMetrics(String jmxClientName) {
+        this.jmxClientName = jmxClientName;
+    }
+
+    /**
+     * Create metrics which are not exposed over JMX.
+     *
+     * @return metrics
+     */
+    public static DefaultRestClientMetrics create() {
+        return new DefaultRestClientMetrics(null);
+    }
+
+    /**
+     * Create metrics which are exposed over JMX (platform MBean server), with an MXBean for each rest method named
+     * <code>ch.frostnova.easy-rest-client:type=RestMethod,client=&lt;clientName&gt;,method=&lt;method&gt;</code>.
+     * The MXBeans are registered when the rest methods are bound, and unregistered on {@link #close()}.
+     *
+     * @param clientName name of the rest client, required
+     * @return metrics
+     */
+    public static DefaultRestClientMetrics withJmx(String clientName) {
+        return new DefaultRestClientMetrics(requireNonNull(clientName, "clientName is required"));
+    }
+
+    @Override
+    public MethodMetrics method(String name) {
+        requireNonNull(name, "name is required");
+        return methods.computeIfAbsent(name, this::createMethodMetrics);
+    }
+
+    private DefaultMethodMetrics createMethodMetrics(String name) {
+        DefaultMethodMetrics methodMetrics = new DefaultMethodMetrics(name);
+        if (jmxClientName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(methodMetrics, objectName(name));
+            } catch (JMException ex) {
+                logger.warn("could not register MXBean for rest method {}: {}", name, ex.getMessage());
+            }
+        }
+        return methodMetrics;
+    }
+
+    private ObjectName objectName(String method) throws JMException {
+        return new ObjectName(String.format("%s:type=RestMethod,client=%s,method=%s", JMX_DOMAIN,
+                ObjectName.quote(jmxClientName), ObjectName.quote(method)));
+    }
+
+    /**
+     * Snapshot of the metrics of a rest method.
+     *
+     * @param name name of the rest method
+     * @return snapshot, empty if the method was not bound yet
+     */
+    public Optional<MethodMetricsSnapshot> snapshot(String name) {
+        return Optional.ofNullable(methods.get(name)).map(DefaultMethodMetrics::snapshot);
+    }
+
+    /**
+     * Snapshots of the metrics of all rest methods.
+     *
+     * @return snapshots by method name (sorted by name)
+     */
+    public Map<String, MethodMetricsSnapshot> snapshots() {
+        Map<String, MethodMetricsSnapshot> result = new TreeMap<>();
+        methods.forEach((name, methodMetrics) -> result.put(name, methodMetrics.snapshot()));
+        return result;
+    }
+
+    /**
+     * Unregister the MXBeans (if exposed over JMX). The metrics are still recorded afterwards.
+     */
+    @Override
+    public void close() {
+        if (jmxClientName == null) {
+            return;
+        }
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        for (String name : methods.keySet()) {
+            try {
+                ObjectName objectName = objectName(name);
+                if (mBeanServer.isRegistered(objectName)) {
+                    mBeanServer.unregisterMBean(objectName);
+                }
+            } catch (JMException ex) {
+                logger.warn("could not unregister MXBean for rest method {}: {}", name, ex.getMessage());
+            }
+        }
+    }
+
+    private static class DefaultMethodMetrics implements MethodMetrics, RestMethodMetricsMXBean {
+
+        private final String name;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder inFlight = new LongAdder();
+        private final LongAdder[] statusClasses = new LongAdder[6];
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private final LongAdder latencySum = new LongAdder();
+        private final LongAccumulator maxLatency = new LongAccumulator(Math::max, 0);
+
+        DefaultMethodMetrics(String name) {
+            this.name = name;
+            for (int i = 0; i < statusClasses.length; i++) {
+                statusClasses[i] = new LongAdder();
+            }
+        }
+
+        @Override
+        public long callStarted() {
+            calls.increment();
+            inFlight.increment();
+            return System.nanoTime();
+        }
+
+        @Override
+        public void callCompleted(long start, int statusCode) {
+            long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+            inFlight.decrement();
+            int statusClass = statusCode / 100;
+            statusClasses[statusClass >= 1 && statusClass <= 5 ? statusClass : 0].increment();
+            latencies.record(micros);
+            latencySum.add(micros);
+            maxLatency.accumulate(micros);
+        }
+
+        MethodMetricsSnapshot snapshot() {
+            long[] statusClassCounts = new long[statusClasses.length];
+            for (int i = 0; i < statusClasses.length; i++) {
+                statusClassCounts[i] = statusClasses[i].sum();
+            }
+            return new MethodMetricsSnapshot(name, calls.sum(), inFlight.sum(), statusClassCounts,
+                    latencies.snapshot(), latencySum.sum(), maxLatency.get());
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public long getCalls() {
+            return calls.sum();
+        }
+
+        @Override
+        public long getInFlight() {
+            return inFlight.sum();
+        }
+
+        @Override
+        public long getStatus1xx() {
+            return statusClasses[1].sum();
+        }
+
+        @Override
+        public long getStatus2xx() {
+            return statusClasses[2].sum();
+        }
+
+        @Override
+        public long getStatus3xx() {
+            return statusClasses[3].sum();
+        }
+
+        @Override
+        public long getStatus4xx() {
+            return statusClasses[4].sum();
+        }
+
+        @Override
+        public long getStatus5xx() {
+            return statusClasses[5].sum();
+        }
+
+        @Override
+        public long getFailures() {
+            return statusClasses[0].sum();
+        }
+
+        @Override
+        public long getLatencyP50Micros() {
+            return LatencyHistogram.valueAtPercentile(latencies.snapshot(), 50);
+        }
+
+        @Override
+        public long getLatencyP99Micros() {
+            return LatencyHistogram.valueAtPercentile(latencies.snapshot(), 99);
+        }
+
+        @Override
+        public long getLatencyP999Micros() {
+            return LatencyHistogram.valueAtPercentile(latencies.snapshot(), 99.9);
+        }
+
+        @Override
+        public long getLatencyMaxMicros() {
+            return maxLatency.get();
+        }
+
+        @Override
+        public long getLatencyMeanMicros() {
+            return snapshot().getMeanLatency().toNanos() / 1000;
+        }
+    }
+}
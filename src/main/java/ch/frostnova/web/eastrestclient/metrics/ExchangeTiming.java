@@ -0,0 +1,119 @@
+package ch.frostnova.web.eastrestclient.metrics;
+
+import ch.frostnova.web.eastrestclient.http.RequestMethod;
+
+import java.net.URI;
+
+/**
+ * Timing of an HTTP exchange of a rest method, split into phases (in nanoseconds):
+ * <ol>
+ * <li><b>encode</b>: serialization of the request body, and creation (and logging) of the request</li>
+ * <li><b>network</b>: sending the request and receiving the response (for asynchronous calls: until the response is
+ * processed, including the hand-off to the executor; for streamed results: until the response headers were
+ * received)</li>
+ * <li><b>check</b>: logging and checking the response status (mapping errors to exceptions)</li>
+ * <li><b>decode</b>: deserialization of the response body (zero for streamed results, which are decoded lazily)</li>
+ * </ol>
+ * If the exchange failed in a phase, that phase lasts until the failure, and the following phases are zero.
+ */
+public final class ExchangeTiming {
+
+    private final String name;
+    private final RequestMethod requestMethod;
+    private final URI uri;
+    private final int statusCode;
+    private final long encodeNanos;
+    private final long networkNanos;
+    private final long checkNanos;
+    private final long decodeNanos;
+    private final long requestBytes;
+    private final long responseBytes;
+
+    public ExchangeTiming(String name, RequestMethod requestMethod, URI uri, int statusCode,
+                          long encodeNanos, long networkNanos, long checkNanos, long decodeNanos,
+                          long requestBytes, long responseBytes) {
+        this.name = name;
+        this.requestMethod = requestMethod;
+        this.uri = uri;
+        this.statusCode = statusCode;
+        this.encodeNanos = encodeNanos;
+        this.networkNanos = networkNanos;
+        this.checkNanos = checkNanos;
+        this.decodeNanos = decodeNanos;
+        this.requestBytes = requestBytes;
+        this.responseBytes = responseBytes;
+    }
+
+    /**
+     * Name of the rest method (see {@link RestClientMetrics}).
+     *
+     * @return name, null if the method was bound without name
+     */
+    public String getName() {
+        return name;
+    }
+
+    public RequestMethod getRequestMethod() {
+        return requestMethod;
+    }
+
+    public URI getUri() {
+        return uri;
+    }
+
+    /**
+     * HTTP status code of the response.
+     *
+     * @return status code, 0 if no response was received
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public long getEncodeNanos() {
+        return encodeNanos;
+    }
+
+    public long getNetworkNanos() {
+        return networkNanos;
+    }
+
+    public long getCheckNanos() {
+        return checkNanos;
+    }
+
+    public long getDecodeNanos() {
+        return decodeNanos;
+    }
+
+    public long getTotalNanos() {
+        return encodeNanos + networkNanos + checkNanos + decodeNanos;
+    }
+
+    /**
+     * Size of the request body as encoded by the body codec of its content type (e.g. JSON or CBOR), before
+     * compression.
+     *
+     * @return number of bytes, 0 if there was no body
+     */
+    public long getRequestBytes() {
+        return requestBytes;
+    }
+
+    /**
+     * Size of the response body (as given by the <code>Content-Length</code> header, otherwise the number of bytes
+     * received, after decompression).
+     *
+     * @return number of bytes, -1 if unknown (streamed results, or no response)
+     */
+    public long getResponseBytes() {
+        return responseBytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s %s -> %d: encode=%d ns, network=%d ns, check=%d ns, decode=%d ns, " +
+                        "request=%d bytes, response=%d bytes", name, requestMethod, uri, statusCode,
+                encodeNanos, networkNanos, checkNanos, decodeNanos, requestBytes, responseBytes);
+    }
+}
@@ -0,0 +1,13 @@
+package ch.frostnova.web.eastrestclient.metrics;
+
+/**
+ * Listener for the {@link ExchangeTiming timing} of each HTTP exchange. Called on the thread completing the exchange
+ * (for asynchronous calls: the thread completing the future), so implementations should be fast and must be
+ * thread-safe. Exceptions thrown by listeners are logged and otherwise ignored.<p>
+ * When no listener is registered, the timing of the exchanges is not measured at all.
+ */
+@FunctionalInterface
+public interface ExchangeTimingListener {
+
+    void exchangeCompleted(ExchangeTiming timing);
+}
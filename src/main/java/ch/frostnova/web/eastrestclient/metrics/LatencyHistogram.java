@@ -0,0 +1,97 @@
+package ch.frostnova.web.eastrestclient.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with log-linear buckets (in microseconds): each power of two is split into
+ * {@value #SUB_BUCKETS} linear sub-buckets, so the relative error of a recorded value is at most 12.5%. Values up to
+ * 2<sup>36</sup> µs (about 19 hours) are recorded, larger values are clamped.<p>
+ * The counts are striped by thread (one row of buckets per stripe), so concurrent recorders rarely contend on the same
+ * cache line. Recording is a single atomic increment, snapshots merge the stripes.
+ */
+final class LatencyHistogram {
+
+    private final static int SUB_BUCKET_BITS = 3;
+    private final static int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private final static long MAX_VALUE = (1L << 36) - 1;
+    final static int BUCKETS = bucketIndex(MAX_VALUE) + 1;
+
+    private final static int STRIPES = Math.min(16, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1));
+
+    private final AtomicLongArray counts = new AtomicLongArray(STRIPES * BUCKETS);
+
+    /**
+     * Record a value.
+     *
+     * @param micros value in microseconds, negative values are recorded as 0
+     */
+    void record(long micros) {
+        int stripe = (int) Thread.currentThread().getId() & (STRIPES - 1);
+        counts.incrementAndGet(stripe * BUCKETS + bucketIndex(Math.max(0, Math.min(micros, MAX_VALUE))));
+    }
+
+    /**
+     * Counts per bucket, merged over all stripes.
+     *
+     * @return counts
+     */
+    long[] snapshot() {
+        long[] result = new long[BUCKETS];
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            for (int i = 0; i < BUCKETS; i++) {
+                result[i] += counts.get(stripe * BUCKETS + i);
+            }
+        }
+        return result;
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Highest value recorded in the given bucket.
+     *
+     * @param index bucket index
+     * @return highest value
+     */
+    static long highestValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     * Value at the given percentile (highest value of the bucket containing it).
+     *
+     * @param counts     counts per bucket
+     * @param percentile percentile (0..100)
+     * @return value, or 0 if no values were recorded
+     */
+    static long valueAtPercentile(long[] counts, double percentile) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * Math.min(100, Math.max(0, percentile)) / 100));
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            if (cumulative >= rank) {
+                return highestValue(i);
+            }
+        }
+        return highestValue(counts.length - 1);
+    }
+}
@@ -0,0 +1,39 @@
+package ch.frostnova.web.eastrestclient.metrics;
+
+/**
+ * Metrics recorder of a rest method. Implementations must be thread-safe, and should not block or allocate, as they
+ * are called on each invocation of the rest method.<p>
+ * A call is completed once the response was received and processed (for streamed results: once the response headers
+ * were received), or when it failed.
+ */
+public interface MethodMetrics {
+
+    /**
+     * No metrics.
+     */
+    MethodMetrics NONE = new MethodMetrics() {
+        @Override
+        public long callStarted() {
+            return 0;
+        }
+
+        @Override
+        public void callCompleted(long start, int statusCode) {
+        }
+    };
+
+    /**
+     * Record the start of a call.
+     *
+     * @return start timestamp (as by {@link System#nanoTime()}), to be passed to {@link #callCompleted(long, int)}
+     */
+    long callStarted();
+
+    /**
+     * Record the completion of a call.
+     *
+     * @param start      start timestamp, as returned by {@link #callStarted()}
+     * @param statusCode HTTP status code of the response, or 0 if no response was received (I/O error, cancelled)
+     */
+    void callCompleted(long start, int statusCode);
+}
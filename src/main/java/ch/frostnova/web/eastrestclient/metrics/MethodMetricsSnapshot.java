@@ -0,0 +1,127 @@
+package ch.frostnova.web.eastrestclient.metrics;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Snapshot of the metrics of a rest method, as recorded by {@link DefaultRestClientMetrics}. Latencies are in
+ * microsecond resolution, and percentiles are accurate to 12.5%.
+ */
+public final class MethodMetricsSnapshot {
+
+    private final String name;
+    private final long calls;
+    private final long inFlight;
+    private final long[] statusClasses;
+    private final long[] latencies;
+    private final long latencySum;
+    private final long maxLatency;
+
+    MethodMetricsSnapshot(String name, long calls, long inFlight, long[] statusClasses, long[] latencies,
+                          long latencySum, long maxLatency) {
+        this.name = name;
+        this.calls = calls;
+        this.inFlight = inFlight;
+        this.statusClasses = statusClasses;
+        this.latencies = latencies;
+        this.latencySum = latencySum;
+        this.maxLatency = maxLatency;
+    }
+
+    /**
+     * Name of the rest method, e.g. <code>NotesClient.get(long)</code>.
+     *
+     * @return name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Number of calls started.
+     *
+     * @return calls
+     */
+    public long getCalls() {
+        return calls;
+    }
+
+    /**
+     * Number of calls in flight (started, but not completed yet).
+     *
+     * @return calls in flight
+     */
+    public long getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Number of completed calls (with or without response).
+     *
+     * @return completed calls
+     */
+    public long getCompleted() {
+        return Arrays.stream(statusClasses).sum();
+    }
+
+    /**
+     * Number of completed calls whose response had a status code of the given class.
+     *
+     * @param statusClass status class, 1 (1xx informational) to 5 (5xx server error)
+     * @return number of calls
+     */
+    public long getStatusClassCount(int statusClass) {
+        if (statusClass < 1 || statusClass > 5) {
+            throw new IllegalArgumentException("statusClass must be between 1 and 5");
+        }
+        return statusClasses[statusClass];
+    }
+
+    /**
+     * Number of calls which failed without a response (such as I/O errors or cancelled calls).
+     *
+     * @return failed calls
+     */
+    public long getFailures() {
+        return statusClasses[0];
+    }
+
+    /**
+     * Latency at the given percentile (upper bound of the histogram bucket).
+     *
+     * @param percentile percentile (0..100), e.g. 99.9
+     * @return latency, zero if no calls were completed
+     */
+    public Duration getLatency(double percentile) {
+        return Duration.ofNanos(LatencyHistogram.valueAtPercentile(latencies, percentile) * 1000);
+    }
+
+    public Duration getP50() {
+        return getLatency(50);
+    }
+
+    public Duration getP99() {
+        return getLatency(99);
+    }
+
+    public Duration getP999() {
+        return getLatency(99.9);
+    }
+
+    public Duration getMaxLatency() {
+        return Duration.ofNanos(maxLatency * 1000);
+    }
+
+    public Duration getMeanLatency() {
+        long completed = getCompleted();
+        return completed > 0 ? Duration.ofNanos(latencySum * 1000 / completed) : Duration.ZERO;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: calls=%d, inFlight=%d, 1xx=%d, 2xx=%d, 3xx=%d, 4xx=%d, 5xx=%d, failures=%d, " +
+                        "p50=%d µs, p99=%d µs, p999=%d µs, max=%d µs", name, calls, inFlight,
+                statusClasses[1], statusClasses[2], statusClasses[3], statusClasses[4], statusClasses[5], statusClasses[0],
+                getP50().toNanos() / 1000, getP99().toNanos() / 1000, getP999().toNanos() / 1000, maxLatency);
+    }
+}
@@ -0,0 +1,24 @@
+package ch.frostnova.web.eastrestclient.metrics;
+
+/**
+ * Metrics SPI of a rest client: provides the recorder for each rest method, which is then notified when a call starts
+ * and when it completes. See {@link DefaultRestClientMetrics} for the default implementation.<p>
+ * Rest methods are named by the simple name of the rest client interface, the method name and the simple names of the
+ * (erased) parameter types, e.g. <code>NotesClient.get(long)</code>.
+ */
+public interface RestClientMetrics {
+
+    /**
+     * No metrics (default).
+     */
+    RestClientMetrics NONE = name -> MethodMetrics.NONE;
+
+    /**
+     * Metrics recorder for a rest method. Called once when the method is bound (for each rest client instance), so
+     * implementations should return the same recorder for the same name.
+     *
+     * @param name name of the rest method
+     * @return recorder, required
+     */
+    MethodMetrics method(String name);
+}
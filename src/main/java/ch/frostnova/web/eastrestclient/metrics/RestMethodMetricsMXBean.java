@@ -0,0 +1,36 @@
+package ch.frostnova.web.eastrestclient.metrics;
+
+/**
+ * JMX view of the metrics of a rest method (see {@link DefaultRestClientMetrics#withJmx(String)}). Latencies are in
+ * microseconds.
+ */
+public interface RestMethodMetricsMXBean {
+
+    String getName();
+
+    long getCalls();
+
+    long getInFlight();
+
+    long getStatus1xx();
+
+    long getStatus2xx();
+
+    long getStatus3xx();
+
+    long getStatus4xx();
+
+    long getStatus5xx();
+
+    long getFailures();
+
+    long getLatencyP50Micros();
+
+    long getLatencyP99Micros();
+
+    long getLatencyP999Micros();
+
+    long getLatencyMaxMicros();
+
+    long getLatencyMeanMicros();
+}
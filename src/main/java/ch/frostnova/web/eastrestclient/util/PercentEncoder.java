@@ -0,0 +1,84 @@
+package ch.frostnova.web.eastrestclient.util;
+
+/**
+ * Table-driven UTF-8 percent-encoder, appending the encoded form of a value directly to a target
+ * {@link StringBuilder} (no intermediate strings or byte arrays are created).
+ * <ul>
+ * <li>{@link #encodePathSegment(CharSequence, StringBuilder)}: keeps the RFC 3986 <i>unreserved</i> characters
+ * (<code>A-Z a-z 0-9 - . _ ~</code>), encodes everything else (space as <code>%20</code>)</li>
+ * <li>{@link #encodeQueryParam(CharSequence, StringBuilder)}: <code>application/x-www-form-urlencoded</code>, same
+ * result as {@link java.net.URLEncoder} with UTF-8 (keeps <code>A-Z a-z 0-9 - . _ *</code>, space as <code>+</code>)</li>
+ * </ul>
+ */
+public final class PercentEncoder {
+
+    private final static char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private final static boolean[] PATH_SEGMENT_SAFE = safeCharacters("-._~");
+    private final static boolean[] QUERY_PARAM_SAFE = safeCharacters("-._*");
+
+    private PercentEncoder() {
+
+    }
+
+    private static boolean[] safeCharacters(String additionalSafeCharacters) {
+        boolean[] safe = new boolean[128];
+        for (char c = 'a'; c <= 'z'; c++) {
+            safe[c] = true;
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            safe[c] = true;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            safe[c] = true;
+        }
+        for (char c : additionalSafeCharacters.toCharArray()) {
+            safe[c] = true;
+        }
+        return safe;
+    }
+
+    public static void encodePathSegment(CharSequence value, StringBuilder target) {
+        encode(value, target, PATH_SEGMENT_SAFE, false);
+    }
+
+    public static void encodeQueryParam(CharSequence value, StringBuilder target) {
+        encode(value, target, QUERY_PARAM_SAFE, true);
+    }
+
+    private static void encode(CharSequence value, StringBuilder target, boolean[] safe, boolean spaceAsPlus) {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (safe[c]) {
+                    target.append(c);
+                } else if (c == ' ' && spaceAsPlus) {
+                    target.append('+');
+                } else {
+                    appendEncoded(c, target);
+                }
+            } else if (c < 0x800) {
+                appendEncoded(0xC0 | (c >> 6), target);
+                appendEncoded(0x80 | (c & 0x3F), target);
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                appendEncoded(0xF0 | (codePoint >> 18), target);
+                appendEncoded(0x80 | ((codePoint >> 12) & 0x3F), target);
+                appendEncoded(0x80 | ((codePoint >> 6) & 0x3F), target);
+                appendEncoded(0x80 | (codePoint & 0x3F), target);
+            } else if (Character.isSurrogate(c)) {
+                // unpaired surrogate: not encodable, replaced by '?' (same as the JDK encoders)
+                appendEncoded('?', target);
+            } else {
+                appendEncoded(0xE0 | (c >> 12), target);
+                appendEncoded(0x80 | ((c >> 6) & 0x3F), target);
+                appendEncoded(0x80 | (c & 0x3F), target);
+            }
+        }
+    }
+
+    private static void appendEncoded(int b, StringBuilder target) {
+        target.append('%').append(HEX[(b >> 4) & 0x0F]).append(HEX[b & 0x0F]);
+    }
+}
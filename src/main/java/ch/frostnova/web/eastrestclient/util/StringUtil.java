@@ -1,9 +1,5 @@
 package ch.frostnova.web.eastrestclient.util;
 
-import java.net.URLEncoder;
-
-import static java.nio.charset.StandardCharsets.ISO_8859_1;
-
 public final class StringUtil {
 
     private StringUtil() {
@@ -14,20 +10,24 @@ public final class StringUtil {
         if (value == null) {
             return null;
         }
-        return URLEncoder.encode(String.valueOf(value), ISO_8859_1);
+        String string = String.valueOf(value);
+        StringBuilder builder = new StringBuilder(string.length() + 16);
+        PercentEncoder.encodeQueryParam(string, builder);
+        return builder.toString();
     }
 
     public static String removeLeadingAndTrailingSlashes(String s) {
         if (s == null) {
             return null;
         }
-        StringBuilder stringBuilder = new StringBuilder(s);
-        while (stringBuilder.length() > 0 && stringBuilder.charAt(0) == '/') {
-            stringBuilder.deleteCharAt(0);
+        int start = 0;
+        int end = s.length();
+        while (start < end && s.charAt(start) == '/') {
+            start++;
         }
-        while (stringBuilder.length() > 0 && stringBuilder.charAt(stringBuilder.length() - 1) == '/') {
-            stringBuilder.deleteCharAt(stringBuilder.length() - 1);
+        while (end > start && s.charAt(end - 1) == '/') {
+            end--;
         }
-        return stringBuilder.toString();
+        return s.substring(start, end);
     }
 }
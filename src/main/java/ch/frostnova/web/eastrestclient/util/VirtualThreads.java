@@ -0,0 +1,64 @@
+package ch.frostnova.web.eastrestclient.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Virtual threads (Java 21+), for a client compiled for Java 11: the virtual thread factory is looked up reflectively
+ * at runtime, so the same classes run on Java 11 (where virtual threads are not available) and use virtual threads on
+ * Java 21+.
+ */
+public final class VirtualThreads {
+
+    private final static Logger logger = LoggerFactory.getLogger(VirtualThreads.class);
+
+    private final static String THREAD_NAME_PREFIX = "rest-client-virtual-";
+    private final static ThreadFactory threadFactory = createThreadFactory();
+    private final static Executor executor = threadFactory != null ? command -> threadFactory.newThread(command).start() : null;
+
+    private VirtualThreads() {
+
+    }
+
+    /**
+     * Check if virtual threads are available (Java 21+).
+     *
+     * @return true if available
+     */
+    public static boolean isAvailable() {
+        return threadFactory != null;
+    }
+
+    /**
+     * Executor which runs each task on a new virtual thread (no pooling, virtual threads are cheap to create and
+     * release their carrier thread while blocked).
+     *
+     * @return executor
+     * @throws UnsupportedOperationException if virtual threads are not available
+     */
+    public static Executor executor() {
+        if (executor == null) {
+            throw new UnsupportedOperationException("virtual threads require Java 21+, running on Java " + Runtime.version());
+        }
+        return executor;
+    }
+
+    private static ThreadFactory createThreadFactory() {
+        if (Runtime.version().feature() < 21) {
+            return null;
+        }
+        try {
+            // Thread.ofVirtual().name(THREAD_NAME_PREFIX, 0).factory(), the factory is thread-safe
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, THREAD_NAME_PREFIX, 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            logger.warn("virtual threads not available on Java {}: {}", Runtime.version(), ex.getMessage());
+            return null;
+        }
+    }
+}
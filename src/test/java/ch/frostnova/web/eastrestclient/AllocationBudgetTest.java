@@ -0,0 +1,158 @@
+package ch.frostnova.web.eastrestclient;
+
+import ch.frostnova.web.eastrestclient.converter.ObjectMappers;
+import ch.frostnova.web.eastrestclient.http.StubHttpClient;
+import ch.frostnova.web.eastrestclient.http.WireLog;
+import ch.frostnova.web.eastrestclient.notes.api.Note;
+import ch.frostnova.web.eastrestclient.notes.api.NotesClient;
+import ch.frostnova.web.eastrestclient.weather.api.Condition;
+import ch.frostnova.web.eastrestclient.weather.api.Temperature;
+import ch.frostnova.web.eastrestclient.weather.api.WeatherClient;
+import ch.frostnova.web.eastrestclient.weather.api.WeatherForecast;
+import ch.frostnova.web.eastrestclient.weather.api.WeatherForecastDay;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Supplier;
+
+import static ch.frostnova.web.eastrestclient.http.StubHttpClient.response;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Allocation regression test: measures the bytes allocated per call of representative rest methods, and fails when
+ * they exceed the budget checked in as <code>allocation-budget.properties</code> (bytes per call, by method name).<p>
+ * The calls are made against a {@link StubHttpClient}, which responds with precomputed bodies in the calling
+ * thread, so the per-thread allocation counter covers the whole call path of the client (binding, serialization,
+ * request, decoding of the body and deserialization) without the network and server side. Wire logging is off.<p>
+ * When a change reduces the allocations, lower the budget accordingly, the measured values are logged.
+ */
+public class AllocationBudgetTest {
+
+    private final static Logger logger = LoggerFactory.getLogger(AllocationBudgetTest.class);
+
+    private final static String BASE_URL = "http://localhost:8080/";
+    private final static int WARMUP_CALLS = 10_000;
+    private final static int MEASURED_CALLS = 2_000;
+    private final static int ROUNDS = 3;
+
+    private static com.sun.management.ThreadMXBean threadMXBean;
+    private static Properties budget;
+    private static NotesClient notesClient;
+    private static WeatherClient weatherClient;
+    private static Note note;
+
+    @BeforeAll
+    static void init() throws IOException {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean,
+                "allocation counters not available");
+        threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threadMXBean.isThreadAllocatedMemorySupported(), "allocation counters not supported");
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+
+        budget = new Properties();
+        try (InputStream in = AllocationBudgetTest.class.getResourceAsStream("/allocation-budget.properties")) {
+            budget.load(in);
+        }
+
+        List<Note> notes = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Note note = new Note("Note number " + i);
+            note.setId(1000L + i);
+            note.setCreated(OffsetDateTime.now());
+            note.setUpdated(OffsetDateTime.now());
+            notes.add(note);
+        }
+        note = notes.get(0);
+
+        WeatherForecast forecast = new WeatherForecast();
+        forecast.setLocation("Zürich");
+        for (int i = 0; i < 5; i++) {
+            WeatherForecastDay day = new WeatherForecastDay();
+            day.setLocalDate(LocalDate.now().plusDays(i));
+            day.setCondition(Condition.values()[i]);
+            day.setTemperature(new Temperature(12.5 + i, Temperature.Unit.CELSIUS));
+            forecast.add(day);
+        }
+
+        Map<String, StubHttpClient.Response> responses = Map.of(
+                "GET /api/notes", response(200, ObjectMappers.json().writeValueAsBytes(notes), "content-type", "application/json"),
+                "GET /api/notes/1000", response(200, ObjectMappers.json().writeValueAsBytes(note), "content-type", "application/json"),
+                "POST /api/notes", response(201, ObjectMappers.json().writeValueAsBytes(note), "content-type", "application/json"),
+                "GET /api/weather/forecast", response(200, ObjectMappers.xml().writeValueAsBytes(forecast), "content-type", "application/xml"));
+
+        RestClient restClient = RestClient.builder()
+                .httpClient(new StubHttpClient(request -> responses.get(request.method() + " " + request.uri().getPath())))
+                .wireLog(WireLog.off())
+                .build();
+        notesClient = restClient.create(BASE_URL, NotesClient.class);
+        weatherClient = restClient.create(BASE_URL, WeatherClient.class);
+    }
+
+    @Test
+    public void testGet() {
+        assertWithinBudget("NotesClient.get(long)", () -> notesClient.get(1000L));
+    }
+
+    @Test
+    public void testList() {
+        assertWithinBudget("NotesClient.list()", () -> notesClient.list());
+    }
+
+    @Test
+    public void testCreate() {
+        assertWithinBudget("NotesClient.create(Note)", () -> notesClient.create(note));
+    }
+
+    @Test
+    public void testGetForecast() {
+        assertWithinBudget("WeatherClient.getForecast(String,String)", () -> weatherClient.getForecast("secret", "Zürich"));
+    }
+
+    private static void assertWithinBudget(String method, Supplier<?> call) {
+        String value = budget.getProperty(method);
+        assertThat(value).as("allocation budget for %s", method).isNotNull();
+        long maxBytesPerCall = Long.parseLong(value.trim());
+
+        long bytesPerCall = measureBytesPerCall(call);
+        logger.info("{} allocates {} bytes per call (budget: {})", method, bytesPerCall, maxBytesPerCall);
+        assertThat(bytesPerCall)
+                .as("bytes allocated per call of %s", method)
+                .isLessThanOrEqualTo(maxBytesPerCall);
+    }
+
+    /**
+     * Measure the bytes allocated per call (after warmup, so the call path is compiled). The minimum of several
+     * rounds is taken, to not account for one-off allocations (class loading, compilation, lazy initialization).
+     */
+    private static long measureBytesPerCall(Supplier<?> call) {
+        long threadId = Thread.currentThread().getId();
+        Object result = null;
+        for (int i = 0; i < WARMUP_CALLS; i++) {
+            result = call.get();
+        }
+        assertThat(result).isNotNull();
+
+        long bytesPerCall = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < MEASURED_CALLS; i++) {
+                call.get();
+            }
+            long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+            bytesPerCall = Math.min(bytesPerCall, allocated / MEASURED_CALLS);
+        }
+        return bytesPerCall;
+    }
+}
@@ -62,10 +62,21 @@ public class HelloClientTest {
         assertThat(hello).isEqualTo("Hello World");
     }
 
+    @Test
+    public void shouldSayHelloWithSharedRestClient() {
+        RestClient restClient = RestClient.builder().httpClient(httpClient()).build();
+
+        HelloClient helloClient = restClient.create(baseUrl, HelloClient.class);
+        HelloClient anotherHelloClient = restClient.create(baseUrl, HelloClient.class);
+
+        assertThat(helloClient.hello("fr", "monde")).isEqualTo("Salut monde");
+        assertThat(anotherHelloClient.hello("it", "mondo")).isEqualTo("Ciao mondo");
+    }
+
     private HttpClient httpClient() {
         return HttpClient.newBuilder()
                 //   .sslContext(sslContext)
                 .connectTimeout(Duration.ofSeconds(1))
                 .build();
     }
-}
\ No newline at end of file
+}
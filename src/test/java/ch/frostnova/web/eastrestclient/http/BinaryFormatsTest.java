@@ -0,0 +1,208 @@
+package ch.frostnova.web.eastrestclient.http;
+
+import ch.frostnova.web.eastrestclient.RestClient;
+import ch.frostnova.web.eastrestclient.converter.ObjectMappers;
+import ch.frostnova.web.eastrestclient.notes.api.Note;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import java.io.ByteArrayOutputStream;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static ch.frostnova.web.eastrestclient.http.MediaTypes.APPLICATION_CBOR;
+import static ch.frostnova.web.eastrestclient.http.MediaTypes.APPLICATION_MSGPACK;
+import static ch.frostnova.web.eastrestclient.http.MediaTypes.APPLICATION_SMILE;
+import static ch.frostnova.web.eastrestclient.http.StubHttpClient.response;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BinaryFormatsTest {
+
+    private final static String BASE_URL = "http://localhost:8080/";
+
+    private final static Map<String, ObjectMapper> MAPPERS = Map.of(
+            APPLICATION_CBOR, ObjectMappers.cbor(),
+            APPLICATION_SMILE, ObjectMappers.smile(),
+            APPLICATION_MSGPACK, ObjectMappers.msgpack());
+
+    private final List<HttpRequest> requests = new ArrayList<>();
+
+    @Test
+    void shouldExchangeBinaryFormats() throws Exception {
+        for (boolean generated : new boolean[]{true, false}) {
+            requests.clear();
+            CborNotesClient cbor = client(CborNotesClient.class, generated, request -> echo(request, APPLICATION_CBOR));
+            SmileNotesClient smile = client(SmileNotesClient.class, generated, request -> echo(request, APPLICATION_SMILE));
+            MessagePackNotesClient msgpack = client(MessagePackNotesClient.class, generated, request -> echo(request, APPLICATION_MSGPACK));
+
+            assertThat(cbor.create(new Note("Aloha")).getText()).isEqualTo("Aloha");
+            assertThat(smile.create(new Note("Grüezi")).getText()).isEqualTo("Grüezi");
+            assertThat(msgpack.createAsync(new Note("Hoi")).get(1, TimeUnit.SECONDS).getText()).isEqualTo("Hoi");
+
+            assertThat(requests).extracting(request -> request.headers().firstValue("content-type").orElse(null))
+                    .containsExactly(APPLICATION_CBOR, APPLICATION_SMILE, APPLICATION_MSGPACK);
+            assertThat(requests).extracting(request -> request.headers().firstValue("accept").orElse(null))
+                    .containsExactly(APPLICATION_CBOR, APPLICATION_SMILE, APPLICATION_MSGPACK);
+            Note sent = MAPPERS.get(APPLICATION_CBOR).readValue(body(requests.get(0)), Note.class);
+            assertThat(sent.getText()).isEqualTo("Aloha");
+        }
+    }
+
+    @Test
+    void shouldStreamBinaryFormats() throws Exception {
+        List<Note> notes = List.of(note(1, "Aloha"), note(2, "Grüezi"), note(3, "Hoi"));
+        for (String mediaType : MAPPERS.keySet()) {
+            byte[] encoded = MAPPERS.get(mediaType).writeValueAsBytes(notes);
+            StreamClient client = client(StreamClient.class, true, request -> response(200, encoded,
+                    "content-type", mediaType));
+
+            assertThat(client.stream().map(Note::getText).collect(Collectors.toList()))
+                    .as(mediaType).containsExactly("Aloha", "Grüezi", "Hoi");
+            assertThat(client.list()).extracting(Note::getId).containsExactly(1L, 2L, 3L);
+        }
+    }
+
+    @Test
+    void shouldPassBytesThrough() {
+        byte[] bytes = {0, 1, 2, (byte) 0xff};
+        StreamClient client = client(StreamClient.class, true, request -> response(200, body(request),
+                "content-type", "application/octet-stream"));
+
+        assertThat(client.upload(bytes)).containsExactly(bytes);
+    }
+
+    @Test
+    void shouldDecodeTextInCharsetOfResponse() {
+        byte[] latin1 = "Grüezi".getBytes(StandardCharsets.ISO_8859_1);
+        StreamClient client = client(StreamClient.class, true, request -> response(200, latin1,
+                "content-type", "text/plain; charset=ISO-8859-1"));
+
+        assertThat(client.text(1)).isEqualTo("Grüezi");
+    }
+
+    @Path("api/notes")
+    @Produces(APPLICATION_CBOR)
+    public interface CborNotesClient {
+
+        @POST
+        @Consumes(APPLICATION_CBOR)
+        Note create(Note note);
+    }
+
+    @Path("api/notes")
+    public interface SmileNotesClient {
+
+        @POST
+        @Consumes(APPLICATION_SMILE)
+        @Produces(APPLICATION_SMILE)
+        Note create(Note note);
+    }
+
+    @Path("api/notes")
+    public interface MessagePackNotesClient {
+
+        @POST
+        @Consumes(APPLICATION_MSGPACK)
+        @Produces(APPLICATION_MSGPACK)
+        CompletableFuture<Note> createAsync(Note note);
+    }
+
+    @Path("api/notes")
+    public interface StreamClient {
+
+        @GET
+        Stream<Note> stream();
+
+        @GET
+        List<Note> list();
+
+        @POST
+        @Path("upload")
+        @Consumes("application/octet-stream")
+        @Produces("application/octet-stream")
+        byte[] upload(byte[] data);
+
+        @GET
+        @Path("{id}/text")
+        @Produces("text/plain")
+        String text(@PathParam("id") long id);
+    }
+
+    private <T> T client(Class<T> restClientInterface, boolean generated, Function<HttpRequest, StubHttpClient.Response> handler) {
+        return RestClient.builder()
+                .httpClient(new StubHttpClient(request -> {
+                    requests.add(request);
+                    return handler.apply(request);
+                }))
+                .wireLog(WireLog.off())
+                .generatedImplementations(generated)
+                .build()
+                .create(BASE_URL, restClientInterface);
+    }
+
+    /**
+     * Respond with the request body, assigning an id.
+     */
+    private static StubHttpClient.Response echo(HttpRequest request, String mediaType) {
+        try {
+            ObjectMapper mapper = MAPPERS.get(mediaType);
+            Note note = mapper.readValue(body(request), Note.class);
+            note.setId(1L);
+            return response(201, mapper.writeValueAsBytes(note), "content-type", mediaType);
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static Note note(long id, String text) {
+        Note note = new Note(text);
+        note.setId(id);
+        return note;
+    }
+
+    private static byte[] body(HttpRequest request) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        request.bodyPublisher().orElseThrow().subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(ByteBuffer item) {
+                byte[] bytes = new byte[item.remaining()];
+                item.get(bytes);
+                body.writeBytes(bytes);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                done.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                done.complete(null);
+            }
+        });
+        done.join();
+        return body.toByteArray();
+    }
+}
@@ -0,0 +1,273 @@
+package ch.frostnova.web.eastrestclient.http;
+
+import ch.frostnova.web.eastrestclient.RestClient;
+import ch.frostnova.web.eastrestclient.converter.ObjectMappers;
+import ch.frostnova.web.eastrestclient.notes.api.Note;
+import ch.frostnova.web.eastrestclient.notes.api.NotesClient;
+import org.junit.jupiter.api.Test;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static ch.frostnova.web.eastrestclient.http.StubHttpClient.response;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class BodyCodecsTest {
+
+    private final static String BASE_URL = "http://localhost:8080/";
+    private final static String NOTE_LINES = "text/x-note-lines";
+
+    private final List<HttpRequest> requests = new ArrayList<>();
+
+    @Test
+    void shouldParseContentTypes() {
+        ContentType contentType = ContentType.of("Application/Problem+JSON; Charset=\"ISO-8859-1\"");
+        assertThat(contentType.essence()).isEqualTo("application/problem+json");
+        assertThat(contentType.suffix()).isEqualTo("json");
+        assertThat(contentType.charset(StandardCharsets.UTF_8)).isEqualTo(StandardCharsets.ISO_8859_1);
+        assertThat(ContentType.of("Application/Problem+JSON; Charset=\"ISO-8859-1\"")).isSameAs(contentType);
+
+        assertThat(ContentType.of("application/json;charset=unknown").charset(StandardCharsets.UTF_8))
+                .isEqualTo(StandardCharsets.UTF_8);
+        assertThat(ContentType.of("application/cbor").isBinary()).isTrue();
+        assertThat(ContentType.of("application/vnd.example+cbor").isBinary()).isTrue();
+        assertThat(ContentType.of("text/plain").suffix()).isNull();
+        assertThat(ContentType.of(null)).isNull();
+    }
+
+    @Test
+    void shouldMatchContentTypesWithParameters() {
+        BodyCodecs codecs = BodyCodecs.of(ObjectMappers.json(), ObjectMappers.xml(), Map.of());
+        BodyCodec json = codecs.codec("application/json");
+
+        assertThat(codecs.codec("application/json;charset=UTF-8")).isSameAs(json);
+        assertThat(codecs.codec("APPLICATION/JSON; charset=utf-8")).isSameAs(json);
+        assertThat(codecs.codec("application/problem+json")).isSameAs(json);
+        assertThat(codecs.codec("application/xml; charset=UTF-8")).isSameAs(codecs.codec("application/xml"));
+        assertThat(codecs.codec("text/plain")).isNull();
+        assertThat(codecs.codec((String) null)).isNull();
+        assertThat(codecs.mediaTypes()).containsExactlyInAnyOrder("application/json", "application/xml");
+
+        String note = "{\"id\":1,\"text\":\"Grüezi\"}";
+        String notes = "[" + note + "," + note.replace("\"id\":1", "\"id\":2") + "]";
+        for (String contentType : List.of("application/json;charset=UTF-8", "Application/JSON; Charset=\"utf-8\"",
+                "application/vnd.notes+json")) {
+            NotesClient notesClient = client(NotesClient.class, true, request -> response(200,
+                    request.uri().getPath().endsWith("/1") ? note : notes, "content-type", contentType));
+
+            assertThat(notesClient.get(1).getText()).as(contentType).isEqualTo("Grüezi");
+            assertThat(notesClient.list()).extracting(Note::getId).containsExactly(1L, 2L);
+            assertThat(notesClient.stream().map(Note::getId).collect(Collectors.toList())).containsExactly(1L, 2L);
+        }
+    }
+
+    @Test
+    void shouldEncodeTextInCharsetOfRequest() throws Exception {
+        RestAdapter restAdapter = new RestAdapter(HttpClient.newHttpClient(), ObjectMappers.json(), ObjectMappers.xml());
+        RestMethodCodec codec = restAdapter.bind(String.class);
+
+        assertThat(codec.serialize("Grüezi", "text/plain; charset=ISO-8859-1"))
+                .isEqualTo("Grüezi".getBytes(StandardCharsets.ISO_8859_1));
+        assertThat(codec.serialize("Grüezi", "text/plain")).isEqualTo("Grüezi".getBytes(StandardCharsets.UTF_8));
+        assertThat(codec.serialize("Grüezi", "application/json; charset=UTF-8"))
+                .isEqualTo("\"Grüezi\"".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldUseCustomCodecs() {
+        for (boolean generated : new boolean[]{true, false}) {
+            requests.clear();
+            NoteLinesCodec codec = new NoteLinesCodec();
+            NoteLinesClient client = RestClient.builder()
+                    .httpClient(new StubHttpClient(request -> {
+                        requests.add(request);
+                        String body = request.bodyPublisher().map(publisher -> new String(body(request), StandardCharsets.UTF_8))
+                                .filter(text -> !text.isEmpty())
+                                .orElse("1:Aloha\n2:Grüezi\n3:Hoi");
+                        return response(200, body.getBytes(StandardCharsets.UTF_8), "content-type", NOTE_LINES + "; charset=UTF-8");
+                    }))
+                    .wireLog(WireLog.off())
+                    .codec(NOTE_LINES, codec)
+                    .generatedImplementations(generated)
+                    .build()
+                    .create(BASE_URL, NoteLinesClient.class);
+
+            Note note = new Note("Aloha");
+            note.setId(7L);
+            for (int i = 0; i < 3; i++) {
+                assertThat(client.create(note)).isEqualTo(note);
+                assertThat(client.stream().map(Note::getText).collect(Collectors.toList()))
+                        .containsExactly("Aloha", "Grüezi", "Hoi");
+            }
+            assertThat(requests.get(0).headers().firstValue("content-type")).hasValue(NOTE_LINES);
+            assertThat(requests.get(0).headers().firstValue("accept")).hasValue(NOTE_LINES);
+            assertThat(new String(body(requests.get(0)), StandardCharsets.UTF_8)).isEqualTo("7:Aloha");
+
+            // codecs are looked up and readers created once per bound method, writers once per body type
+            assertThat(codec.readers.get()).as("readers").isEqualTo(2);
+            assertThat(codec.writers.get()).as("writers").isEqualTo(1);
+        }
+    }
+
+    @Test
+    void shouldKeepBindingsPerClient() {
+        // proxies share the method adapters of the interface, but each rest client binds its own codecs once
+        NoteLinesCodec firstCodec = new NoteLinesCodec();
+        NoteLinesCodec secondCodec = new NoteLinesCodec();
+        NoteLinesClient first = noteLinesClient(firstCodec, false);
+        NoteLinesClient second = noteLinesClient(secondCodec, false);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(first.stream().count()).isEqualTo(3);
+            assertThat(second.stream().count()).isEqualTo(3);
+        }
+        assertThat(firstCodec.readers.get()).isEqualTo(1);
+        assertThat(secondCodec.readers.get()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRejectInvalidMediaTypes() {
+        BodyCodec codec = new NoteLinesCodec();
+        assertThatThrownBy(() -> BodyCodecs.builder().codec("application/*", codec))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BodyCodecs.builder().codec("notes", codec))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> RestClient.builder().codec(NOTE_LINES, null))
+                .isInstanceOf(NullPointerException.class);
+    }
+
+    @Path("api/notes")
+    @Produces(NOTE_LINES)
+    public interface NoteLinesClient {
+
+        @POST
+        @Consumes(NOTE_LINES)
+        Note create(Note note);
+
+        @GET
+        Stream<Note> stream();
+    }
+
+    /**
+     * Codec for notes as lines of <code>id:text</code>, counting the created readers and writers.
+     */
+    private static class NoteLinesCodec implements BodyCodec {
+
+        private final AtomicInteger readers = new AtomicInteger();
+        private final AtomicInteger writers = new AtomicInteger();
+
+        @Override
+        public <T> Reader<T> reader(Type type) {
+            readers.incrementAndGet();
+            if (type != Note.class) {
+                throw new IllegalArgumentException("unsupported type: " + type);
+            }
+            return new Reader<>() {
+                @Override
+                public T read(byte[] body) {
+                    return (T) parse(new String(body, StandardCharsets.UTF_8));
+                }
+
+                @Override
+                public Iterator<T> readElements(InputStream body) throws IOException {
+                    try (body) {
+                        return new String(body.readAllBytes(), StandardCharsets.UTF_8).lines()
+                                .map(line -> (T) parse(line))
+                                .iterator();
+                    }
+                }
+            };
+        }
+
+        @Override
+        public Writer writer(Class<?> type) {
+            writers.incrementAndGet();
+            return body -> {
+                Note note = (Note) body;
+                return (note.getId() + ":" + note.getText()).getBytes(StandardCharsets.UTF_8);
+            };
+        }
+
+        private static Note parse(String line) {
+            int colon = line.indexOf(':');
+            Note note = new Note(line.substring(colon + 1));
+            note.setId(Long.parseLong(line.substring(0, colon)));
+            return note;
+        }
+    }
+
+    private NoteLinesClient noteLinesClient(NoteLinesCodec codec, boolean generated) {
+        return RestClient.builder()
+                .httpClient(new StubHttpClient(request -> response(200, "1:Aloha\n2:Grüezi\n3:Hoi",
+                        "content-type", NOTE_LINES)))
+                .wireLog(WireLog.off())
+                .codec(NOTE_LINES, codec)
+                .generatedImplementations(generated)
+                .build()
+                .create(BASE_URL, NoteLinesClient.class);
+    }
+
+    private <T> T client(Class<T> restClientInterface, boolean generated, Function<HttpRequest, StubHttpClient.Response> handler) {
+        return RestClient.builder()
+                .httpClient(new StubHttpClient(request -> {
+                    requests.add(request);
+                    return handler.apply(request);
+                }))
+                .wireLog(WireLog.off())
+                .generatedImplementations(generated)
+                .build()
+                .create(BASE_URL, restClientInterface);
+    }
+
+    private static byte[] body(HttpRequest request) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        request.bodyPublisher().orElseThrow().subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(ByteBuffer item) {
+                byte[] bytes = new byte[item.remaining()];
+                item.get(bytes);
+                body.writeBytes(bytes);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                done.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                done.complete(null);
+            }
+        });
+        done.join();
+        return body.toByteArray();
+    }
+}
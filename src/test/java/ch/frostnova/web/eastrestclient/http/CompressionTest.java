@@ -0,0 +1,281 @@
+package ch.frostnova.web.eastrestclient.http;
+
+import ch.frostnova.web.eastrestclient.RestClient;
+import ch.frostnova.web.eastrestclient.notes.api.Note;
+import ch.frostnova.web.eastrestclient.notes.api.NotesClient;
+import org.junit.jupiter.api.Test;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import static ch.frostnova.web.eastrestclient.http.StubHttpClient.response;
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CompressionTest {
+
+    private final static String BASE_URL = "http://localhost:8080/";
+    private final static String NOTE = "{\"id\":1,\"text\":\"" + "Aloha ".repeat(200) + "\"}";
+
+    private final List<HttpRequest> requests = new ArrayList<>();
+
+    @Test
+    void shouldDecodeGzipResponses() throws Exception {
+        Compression compression = Compression.defaults();
+        NotesClient notesClient = notesClient(compression, request -> response(200, gzip(NOTE),
+                "content-type", "application/json", "content-encoding", "gzip"));
+
+        assertThat(notesClient.get(1).getText()).startsWith("Aloha Aloha");
+        assertThat(notesClient.getAsync(1).get(1, TimeUnit.SECONDS).getText()).startsWith("Aloha Aloha");
+        assertThat(requests.get(0).headers().firstValue("accept-encoding")).hasValue("gzip, deflate");
+
+        CompressionStats stats = compression.stats();
+        assertThat(stats.getCompressedResponses()).isEqualTo(2);
+        assertThat(stats.getDecodedResponseBytes()).isEqualTo(2L * NOTE.length());
+        assertThat(stats.getResponseBytes()).isEqualTo(2L * gzip(NOTE).length);
+        assertThat(stats.getBytesSaved()).isGreaterThan(2L * NOTE.length() * 9 / 10);
+    }
+
+    @Test
+    void shouldDecodeDeflateResponses() {
+        for (boolean raw : new boolean[]{false, true}) {
+            NotesClient notesClient = notesClient(Compression.defaults(), request -> response(200, deflate(NOTE, raw),
+                    "content-type", "application/json", "content-encoding", "deflate"));
+            assertThat(notesClient.get(1).getText()).startsWith("Aloha Aloha");
+        }
+    }
+
+    @Test
+    void shouldDecodeStreamedResponses() {
+        String notes = "[" + NOTE + "," + NOTE.replace("\"id\":1", "\"id\":2") + "]";
+        NotesClient notesClient = notesClient(Compression.defaults(), request -> response(200, gzip(notes),
+                "content-type", "application/json", "content-encoding", "gzip"));
+
+        assertThat(notesClient.stream().map(Note::getId).collect(Collectors.toList())).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void shouldPassUncompressedResponsesThrough() {
+        Compression compression = Compression.builder().acceptEncoding(false).build();
+        NotesClient notesClient = notesClient(compression, request -> response(200, NOTE,
+                "content-type", "application/json"));
+
+        assertThat(notesClient.get(1).getText()).startsWith("Aloha Aloha");
+        assertThat(requests.get(0).headers().firstValue("accept-encoding")).isEmpty();
+        assertThat(compression.stats().getCompressedResponses()).isZero();
+    }
+
+    @Test
+    void shouldDecodeResponsesSplitIntoChunks() {
+        // gzip header with file name (FNAME flag), split into single bytes
+        byte[] compressed = gzip(NOTE);
+        byte[] name = "note.json\0".getBytes(StandardCharsets.US_ASCII);
+        byte[] withName = new byte[compressed.length + name.length];
+        System.arraycopy(compressed, 0, withName, 0, 10);
+        withName[3] |= 0x08;
+        System.arraycopy(name, 0, withName, 10, name.length);
+        System.arraycopy(compressed, 10, withName, 10 + name.length, compressed.length - 10);
+
+        Compression compression = Compression.defaults();
+        List<ByteBuffer> chunks = new ArrayList<>();
+        for (byte b : withName) {
+            chunks.add(ByteBuffer.wrap(new byte[]{b}));
+        }
+        assertThat(decode(compression, "gzip", chunks).join()).isEqualTo(NOTE);
+        assertThat(compression.stats().getResponseBytes()).isEqualTo(withName.length);
+    }
+
+    @Test
+    void shouldFailOnCorruptResponses() {
+        byte[] compressed = gzip(NOTE);
+        compressed[compressed.length - 5] ^= 0x01;
+        assertThatThrownBy(() -> decode(Compression.defaults(), "gzip", List.of(ByteBuffer.wrap(compressed))).join())
+                .hasCauseInstanceOf(ZipException.class)
+                .hasMessageContaining("CRC mismatch");
+
+        byte[] truncated = Arrays.copyOf(gzip(NOTE), 20);
+        assertThatThrownBy(() -> decode(Compression.defaults(), "gzip", List.of(ByteBuffer.wrap(truncated))).join())
+                .hasCauseInstanceOf(ZipException.class)
+                .hasMessageContaining("unexpected end");
+    }
+
+    @Test
+    void shouldCompressLargeRequestBodies() {
+        Compression compression = Compression.builder().requestThreshold(100).build();
+        NotesClient notesClient = notesClient(compression, request -> response(201, NOTE,
+                "content-type", "application/json"));
+
+        notesClient.create(new Note("short"));
+        assertThat(requests.get(0).headers().firstValue("content-encoding")).isEmpty();
+        assertThat(body(requests.get(0))).contains("short");
+
+        notesClient.create(new Note("Aloha ".repeat(100)));
+        assertThat(requests.get(1).headers().firstValue("content-encoding")).hasValue("gzip");
+        assertThat(gunzip(bodyBytes(requests.get(1)))).contains("Aloha Aloha");
+
+        CompressionStats stats = compression.stats();
+        assertThat(stats.getCompressedRequests()).isEqualTo(1);
+        assertThat(stats.getUncompressedRequestBytes()).isGreaterThan(600);
+        assertThat(stats.getRequestBytes()).isLessThan(100);
+    }
+
+    @Test
+    void shouldCompressAnnotatedMethods() {
+        for (boolean generated : new boolean[]{true, false}) {
+            requests.clear();
+            UploadClient uploadClient = RestClient.builder()
+                    .httpClient(new StubHttpClient(request -> {
+                        requests.add(request);
+                        return response(204, (String) null);
+                    }))
+                    .wireLog(WireLog.off())
+                    .generatedImplementations(generated)
+                    .build()
+                    .create(BASE_URL, UploadClient.class);
+
+            uploadClient.upload(new Note("Aloha ".repeat(10)));
+            uploadClient.uploadLarge(new Note("Aloha ".repeat(10)));
+            assertThat(requests.get(0).headers().firstValue("content-encoding")).hasValue("gzip");
+            assertThat(requests.get(1).headers().firstValue("content-encoding")).isEmpty();
+        }
+    }
+
+    @Test
+    void shouldValidateConfiguration() {
+        assertThatThrownBy(() -> Compression.builder().requestThreshold(-1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Compression.builder().level(10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Path("api/uploads")
+    @CompressRequest(10)
+    public interface UploadClient {
+
+        @POST
+        @Consumes(APPLICATION_JSON)
+        void upload(Note note);
+
+        @POST
+        @Path("large")
+        @Consumes(APPLICATION_JSON)
+        @CompressRequest(1000)
+        void uploadLarge(Note note);
+    }
+
+    private NotesClient notesClient(Compression compression, Function<HttpRequest, StubHttpClient.Response> handler) {
+        return RestClient.builder()
+                .httpClient(new StubHttpClient(request -> {
+                    requests.add(request);
+                    return handler.apply(request);
+                }))
+                .wireLog(WireLog.off())
+                .compression(compression)
+                .build()
+                .create(BASE_URL, NotesClient.class);
+    }
+
+    private static CompletableFuture<String> decode(Compression compression, String encoding, List<ByteBuffer> chunks) {
+        HttpResponse.BodySubscriber<byte[]> subscriber = ContentDecoding.ofByteArray(compression)
+                .apply(response(200, (byte[]) null, "content-encoding", encoding));
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+        for (ByteBuffer chunk : chunks) {
+            subscriber.onNext(List.of(chunk));
+        }
+        subscriber.onComplete();
+        return subscriber.getBody().toCompletableFuture().thenApply(body -> new String(body, StandardCharsets.UTF_8));
+    }
+
+    private static byte[] gzip(String text) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static byte[] deflate(String text, boolean raw) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (DeflaterOutputStream out = new DeflaterOutputStream(buffer, new Deflater(Deflater.DEFAULT_COMPRESSION, raw))) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static String gunzip(byte[] compressed) {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static String body(HttpRequest request) {
+        return new String(bodyBytes(request), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bodyBytes(HttpRequest request) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        request.bodyPublisher().orElseThrow().subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(ByteBuffer item) {
+                byte[] bytes = new byte[item.remaining()];
+                item.get(bytes);
+                body.writeBytes(bytes);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                done.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                done.complete(null);
+            }
+        });
+        done.join();
+        return body.toByteArray();
+    }
+}
@@ -0,0 +1,189 @@
+package ch.frostnova.web.eastrestclient.http;
+
+import ch.frostnova.web.eastrestclient.RestClient;
+import ch.frostnova.web.eastrestclient.notes.api.Note;
+import ch.frostnova.web.eastrestclient.notes.api.NotesClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static ch.frostnova.web.eastrestclient.http.StubHttpClient.response;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ConcurrencyLimiterTest {
+
+    private final static String BASE_URL = "http://localhost:8080/";
+    private final static String UPSTREAM = "http://localhost:8080";
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private volatile long delay = 20;
+    private volatile int statusCode = 200;
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldLimitRequestsInFlight() throws Exception {
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.builder().initialLimit(2).maxLimit(2).build();
+        NotesClient notesClient = notesClient(limiter);
+        delay = 100;
+
+        List<CompletableFuture<Note>> results = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            results.add(notesClient.getAsync(1));
+        }
+        assertThat(limiter.stats().get(UPSTREAM).getQueued()).isEqualTo(4);
+        for (CompletableFuture<Note> result : results) {
+            assertThat(result.get(2, TimeUnit.SECONDS).getText()).isEqualTo("Aloha");
+        }
+        assertThat(maxInFlight).hasValue(2);
+
+        ConcurrencyLimitStats stats = limiter.stats().get(UPSTREAM);
+        assertThat(stats.getLimit()).isEqualTo(2);
+        assertThat(stats.getInFlight()).isZero();
+        assertThat(stats.getQueued()).isZero();
+        assertThat(stats.getRejected()).isZero();
+    }
+
+    @Test
+    void shouldRejectWhenQueueIsFull() {
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.builder().initialLimit(1).maxLimit(1).maxQueue(0).build();
+        NotesClient notesClient = notesClient(limiter);
+        delay = 500;
+
+        CompletableFuture<Note> pending = notesClient.getAsync(1);
+        assertThatThrownBy(() -> notesClient.get(1))
+                .isInstanceOf(ConcurrencyLimitExceededException.class)
+                .hasMessageContaining("queue is full")
+                .satisfies(ex -> {
+                    assertThat(((ConcurrencyLimitExceededException) ex).getUpstream()).isEqualTo(UPSTREAM);
+                    assertThat(((ConcurrencyLimitExceededException) ex).getLimit()).isEqualTo(1);
+                });
+        assertThat(notesClient.getAsync(1)).failsWithin(Duration.ofSeconds(1))
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(ConcurrencyLimitExceededException.class);
+        assertThat(pending.join().getText()).isEqualTo("Aloha");
+        assertThat(limiter.stats().get(UPSTREAM).getRejected()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldRejectAfterMaxWait() {
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.builder().initialLimit(1).maxLimit(1)
+                .maxWait(Duration.ofMillis(50)).build();
+        NotesClient notesClient = notesClient(limiter);
+        delay = 1000;
+
+        notesClient.getAsync(1);
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> notesClient.get(1))
+                .isInstanceOf(ConcurrencyLimitExceededException.class)
+                .hasMessageContaining("waited for longer than");
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(500));
+
+        ConcurrencyLimitStats stats = limiter.stats().get(UPSTREAM);
+        assertThat(stats.getQueued()).isZero();
+        assertThat(stats.getInFlight()).isEqualTo(1);
+        assertThat(stats.getRejected()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldIncreaseLimitUnderLoad() throws Exception {
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.builder().initialLimit(2).build();
+        NotesClient notesClient = notesClient(limiter);
+        delay = 5;
+
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            workers.add(executor.submit(() -> {
+                for (int j = 0; j < 20; j++) {
+                    notesClient.get(1);
+                }
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get(10, TimeUnit.SECONDS);
+        }
+        ConcurrencyLimitStats stats = limiter.stats().get(UPSTREAM);
+        assertThat(stats.getLimit()).isGreaterThan(2);
+        assertThat(stats.getMinRttMicros()).isGreaterThan(0);
+        assertThat(maxInFlight.get()).isGreaterThan(2);
+    }
+
+    @Test
+    void shouldDecreaseLimitOnOverload() {
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.builder().initialLimit(20).minLimit(5).build();
+        NotesClient notesClient = notesClient(limiter);
+        statusCode = 503;
+
+        for (int i = 0; i < 20; i++) {
+            assertThatThrownBy(() -> notesClient.get(1)).isNotInstanceOf(ConcurrencyLimitExceededException.class);
+        }
+        assertThat(limiter.stats().get(UPSTREAM).getLimit()).isEqualTo(5);
+    }
+
+    @Test
+    void shouldExposeLimitOverJmx() throws Exception {
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.builder().initialLimit(10).jmx("jmx-test").build();
+        NotesClient notesClient = notesClient(limiter);
+        notesClient.get(1);
+
+        ObjectName objectName = new ObjectName("ch.frostnova.easy-rest-client:type=ConcurrencyLimit,client=\"jmx-test\","
+                + "upstream=" + ObjectName.quote(UPSTREAM));
+        try {
+            assertThat(ManagementFactory.getPlatformMBeanServer().getAttribute(objectName, "Limit")).isEqualTo(10);
+            assertThat(ManagementFactory.getPlatformMBeanServer().getAttribute(objectName, "Queued")).isEqualTo(0);
+        } finally {
+            limiter.close();
+        }
+        assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(objectName)).isFalse();
+    }
+
+    @Test
+    void shouldValidateConfiguration() {
+        assertThatThrownBy(() -> ConcurrencyLimiter.builder().initialLimit(0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ConcurrencyLimiter.builder().maxQueue(-1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ConcurrencyLimiter.builder().minLimit(10).maxLimit(5).build())
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> ConcurrencyLimiter.builder().initialLimit(500).build())
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private NotesClient notesClient(ConcurrencyLimiter limiter) {
+        return RestClient.builder()
+                .httpClient(new StubHttpClient(request -> {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(delay);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        return null;
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                    return response(statusCode, "{\"id\":1,\"text\":\"Aloha\"}", "content-type", "application/json");
+                }, executor))
+                .wireLog(WireLog.off())
+                .concurrencyLimiter(limiter)
+                .build()
+                .create(BASE_URL, NotesClient.class);
+    }
+}
@@ -0,0 +1,151 @@
+package ch.frostnova.web.eastrestclient.http;
+
+import ch.frostnova.web.eastrestclient.RestClient;
+import ch.frostnova.web.eastrestclient.notes.api.Note;
+import ch.frostnova.web.eastrestclient.notes.api.NotesClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static ch.frostnova.web.eastrestclient.http.StubHttpClient.response;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class HedgingPolicyTest {
+
+    private final static String BASE_URL = "http://localhost:8080/";
+    private final static long SLOW = 2000;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final Map<Integer, Long> delays = new ConcurrentHashMap<>();
+    private volatile long defaultDelay;
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldHedgeSlowRequests() {
+        HedgingPolicy policy = HedgingPolicy.builder().delay(Duration.ofMillis(20)).maxExtraLoad(1).build();
+        NotesClient notesClient = notesClient(policy);
+        delays.put(1, SLOW);
+
+        long start = System.nanoTime();
+        assertThat(notesClient.get(1).getText()).isEqualTo("Response 2");
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(SLOW / 2));
+        assertThat(requests).hasValue(2);
+
+        HedgingStats stats = policy.stats();
+        assertThat(stats.getCalls()).isEqualTo(1);
+        assertThat(stats.getHedges()).isEqualTo(1);
+        assertThat(stats.getHedgeWins()).isEqualTo(1);
+        assertThat(stats.getWinRate()).isEqualTo(1.0);
+    }
+
+    @Test
+    void shouldHedgeSlowAsyncRequests() throws Exception {
+        HedgingPolicy policy = HedgingPolicy.builder().delay(Duration.ofMillis(20)).maxExtraLoad(1).build();
+        NotesClient notesClient = notesClient(policy);
+        delays.put(1, SLOW);
+
+        assertThat(notesClient.getAsync(1).get(SLOW / 2, TimeUnit.MILLISECONDS).getText()).isEqualTo("Response 2");
+        assertThat(policy.stats().getHedgeWins()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotHedgeFastRequests() {
+        HedgingPolicy policy = HedgingPolicy.builder().delay(Duration.ofMillis(500)).maxExtraLoad(1).build();
+        NotesClient notesClient = notesClient(policy);
+
+        for (int i = 1; i <= 5; i++) {
+            assertThat(notesClient.get(1).getText()).isEqualTo("Response " + i);
+        }
+        assertThat(requests).hasValue(5);
+        assertThat(policy.stats().getCalls()).isEqualTo(5);
+        assertThat(policy.stats().getHedges()).isZero();
+    }
+
+    @Test
+    void shouldNotHedgePostRequests() {
+        HedgingPolicy policy = HedgingPolicy.builder().delay(Duration.ofMillis(10)).maxExtraLoad(1).build();
+        NotesClient notesClient = notesClient(policy);
+        defaultDelay = 100;
+
+        notesClient.create(new Note("Aloha"));
+        assertThat(requests).hasValue(1);
+        assertThat(policy.stats().getCalls()).isZero();
+    }
+
+    @Test
+    void shouldCapExtraLoad() {
+        HedgingPolicy policy = HedgingPolicy.builder().delay(Duration.ofMillis(10)).maxExtraLoad(0.5).build();
+        NotesClient notesClient = notesClient(policy);
+        defaultDelay = 100;
+
+        for (int i = 0; i < 4; i++) {
+            notesClient.get(1);
+        }
+        HedgingStats stats = policy.stats();
+        assertThat(stats.getCalls()).isEqualTo(4);
+        assertThat(stats.getHedges()).isEqualTo(2);
+        assertThat(stats.getSuppressed()).isEqualTo(2);
+        assertThat(stats.getHedgeRate()).isEqualTo(0.5);
+        assertThat(requests).hasValue(6);
+    }
+
+    @Test
+    void shouldLearnHedgeDelay() {
+        HedgingPolicy policy = HedgingPolicy.builder().percentile(0.9).minDelay(Duration.ofMillis(20)).maxExtraLoad(1).build();
+        NotesClient notesClient = notesClient(policy);
+        // not hedged until the delay is learned (from 32 response times)
+        for (int i = 0; i < 32; i++) {
+            notesClient.get(1);
+        }
+        assertThat(policy.stats().getHedges()).isZero();
+
+        delays.put(33, SLOW);
+        assertThat(notesClient.get(1).getText()).isEqualTo("Response 34");
+        assertThat(policy.stats().getHedges()).isEqualTo(1);
+        assertThat(policy.stats().getHedgeWins()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldValidateConfiguration() {
+        assertThatThrownBy(() -> HedgingPolicy.builder().build())
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> HedgingPolicy.builder().requestMethods(RequestMethod.GET, RequestMethod.POST))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> HedgingPolicy.builder().percentile(1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> HedgingPolicy.builder().maxExtraLoad(1.5))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private NotesClient notesClient(HedgingPolicy policy) {
+        return RestClient.builder()
+                .httpClient(new StubHttpClient(request -> {
+                    int number = requests.incrementAndGet();
+                    try {
+                        Thread.sleep(delays.getOrDefault(number, defaultDelay));
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        return null;
+                    }
+                    return response(200, String.format("{\"id\":1,\"text\":\"Response %d\"}", number),
+                            "content-type", "application/json");
+                }, executor))
+                .wireLog(WireLog.off())
+                .hedging(policy)
+                .build()
+                .create(BASE_URL, NotesClient.class);
+    }
+}
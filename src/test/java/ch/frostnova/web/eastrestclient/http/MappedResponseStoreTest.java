@@ -0,0 +1,118 @@
+package ch.frostnova.web.eastrestclient.http;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MappedResponseStoreTest {
+
+    private final static int SIZE = 64 * 1024;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldStoreAndLoadResponses() throws Exception {
+        Path file = tempDir.resolve("responses.cache");
+        MappedResponseStore store = MappedResponseStore.open(file, SIZE);
+        store.put("GET http://localhost/api/notes/1", response("http://localhost/api/notes/1", Map.of("api-key", "secret")), utf8("{\"id\":1}"));
+        store.put("GET http://localhost/api/notes/2", response("http://localhost/api/notes/2", Collections.emptyMap()), utf8("{\"id\":2}"));
+        store.put("GET http://localhost/api/notes/1", response("http://localhost/api/notes/1", Collections.emptyMap()), utf8("{\"id\":1,\"text\":\"Grüezi\"}"));
+        store.flush();
+
+        MappedResponseStore reopened = MappedResponseStore.open(file, SIZE);
+        assertThat(reopened.entries()).isEqualTo(2);
+        CachedResponse cached = reopened.get("GET http://localhost/api/notes/1");
+        assertThat(cached.key()).isEqualTo("http://localhost/api/notes/1");
+        assertThat(cached.body()).asString(StandardCharsets.UTF_8).isEqualTo("{\"id\":1,\"text\":\"Grüezi\"}");
+        assertThat(cached.size()).isEqualTo(25);
+        assertThat(cached.contentType()).isEqualTo("application/json");
+        assertThat(cached.etag()).isEqualTo("\"v1\"");
+        assertThat(cached.lastModified()).isNull();
+        assertThat(cached.freshUntil()).isEqualTo(5000);
+        assertThat(cached.freshnessLifetime()).isEqualTo(1000);
+        assertThat(cached.staleWhileRevalidate()).isEqualTo(2000);
+        assertThat(cached.varyValues()).isEmpty();
+        assertThat(reopened.get("GET http://localhost/api/notes/3")).isNull();
+
+        reopened.remove("GET http://localhost/api/notes/1");
+        assertThat(reopened.get("GET http://localhost/api/notes/1")).isNull();
+        assertThat(reopened.get("GET http://localhost/api/notes/2").body()).asString(StandardCharsets.UTF_8).isEqualTo("{\"id\":2}");
+    }
+
+    @Test
+    void shouldEvictOldestResponses() throws Exception {
+        MappedResponseStore store = MappedResponseStore.open(tempDir.resolve("responses.cache"), SIZE);
+        String body = "x".repeat(1000);
+        for (int i = 0; i < 1000; i++) {
+            String uri = "http://localhost/api/notes/" + i;
+            store.put("GET " + uri, response(uri, Collections.emptyMap()), utf8(body));
+            // recent responses are kept, and each one is read back intact
+            assertThat(store.get("GET " + uri).body()).asString(StandardCharsets.UTF_8).isEqualTo(body);
+        }
+        assertThat(store.entries()).isBetween(40, 64);
+        assertThat(store.get("GET http://localhost/api/notes/0")).isNull();
+        assertThat(store.get("GET http://localhost/api/notes/999")).isNotNull();
+        for (int i = 1000 - store.entries(); i < 1000; i++) {
+            assertThat(store.get("GET http://localhost/api/notes/" + i)).isNotNull();
+        }
+
+        // responses larger than a quarter of the file are not stored
+        store.put("GET http://localhost/api/notes/999", response("http://localhost/api/notes/999", Collections.emptyMap()), utf8("x".repeat(SIZE / 4)));
+        assertThat(store.get("GET http://localhost/api/notes/999")).isNull();
+    }
+
+    @Test
+    void shouldRecoverFromTruncatedFile() throws Exception {
+        Path file = tempDir.resolve("responses.cache");
+        MappedResponseStore store = MappedResponseStore.open(file, SIZE);
+        store.put("GET http://localhost/api/notes/1", response("http://localhost/api/notes/1", Collections.emptyMap()), utf8("{\"id\":1}"));
+        store.flush();
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file.toFile(), "rw")) {
+            randomAccessFile.setLength(SIZE / 2);
+        }
+
+        MappedResponseStore reopened = MappedResponseStore.open(file, SIZE);
+        assertThat(Files.size(file)).isEqualTo(SIZE);
+        assertThat(reopened.entries()).isZero();
+        assertThat(reopened.get("GET http://localhost/api/notes/1")).isNull();
+        reopened.put("GET http://localhost/api/notes/1", response("http://localhost/api/notes/1", Collections.emptyMap()), utf8("{\"id\":1}"));
+        assertThat(reopened.get("GET http://localhost/api/notes/1").body()).asString(StandardCharsets.UTF_8).isEqualTo("{\"id\":1}");
+    }
+
+    @Test
+    void shouldIgnoreCorruptRecords() throws Exception {
+        Path file = tempDir.resolve("responses.cache");
+        MappedResponseStore store = MappedResponseStore.open(file, SIZE);
+        store.put("GET http://localhost/api/notes/1", response("http://localhost/api/notes/1", Collections.emptyMap()), utf8("{\"id\":1}"));
+        store.flush();
+
+        // flip the last byte of the record (part of the body)
+        byte[] bytes = Files.readAllBytes(file);
+        int position = new String(bytes, StandardCharsets.ISO_8859_1).indexOf("{\"id\":1}") + 7;
+        bytes[position] ^= 1;
+        Files.write(file, bytes);
+
+        MappedResponseStore reopened = MappedResponseStore.open(file, SIZE);
+        assertThat(reopened.entries()).isEqualTo(1);
+        assertThat(reopened.get("GET http://localhost/api/notes/1")).isNull();
+        assertThat(reopened.entries()).isZero();
+    }
+
+    private static CachedResponse response(String uri, Map<String, String> varyValues) {
+        return new CachedResponse(uri, varyValues, "application/json", null, null, null, "\"v1\"", null,
+                1000, 2000, 5000, 0);
+    }
+
+    private static byte[] utf8(String body) {
+        return body.getBytes(StandardCharsets.UTF_8);
+    }
+}
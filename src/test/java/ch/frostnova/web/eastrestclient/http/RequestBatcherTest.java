@@ -0,0 +1,206 @@
+package ch.frostnova.web.eastrestclient.http;
+
+import ch.frostnova.web.eastrestclient.RestClient;
+import ch.frostnova.web.eastrestclient.notes.api.Note;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.InternalServerErrorException;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.QueryParam;
+import java.net.http.HttpRequest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static ch.frostnova.web.eastrestclient.http.StubHttpClient.response;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class RequestBatcherTest {
+
+    private final static String BASE_URL = "http://localhost:8080/";
+
+    private final List<HttpRequest> requests = new CopyOnWriteArrayList<>();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private volatile int statusCode = 200;
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldBatchConcurrentCalls() throws Exception {
+        BatchedNotesClient client = client();
+        CompletableFuture<Note> first = client.getAsync(1);
+        CompletableFuture<Note> second = client.getAsync(2);
+        CompletableFuture<Note> again = client.getAsync(1);
+        assertThat(requests).isEmpty();
+
+        assertThat(first.get(10, TimeUnit.SECONDS).getText()).isEqualTo("Note 1");
+        assertThat(second.get(10, TimeUnit.SECONDS).getText()).isEqualTo("Note 2");
+        assertThat(again.get(10, TimeUnit.SECONDS)).isSameAs(first.get());
+        assertThat(requests).hasSize(1);
+        assertThat(requests.get(0).uri().toString()).isEqualTo("http://localhost:8080/api/notes?id=1&id=2");
+    }
+
+    @Test
+    void shouldSendFullBatchImmediately() throws Exception {
+        BatchedNotesClient client = client();
+        List<CompletableFuture<Note>> results = new ArrayList<>();
+        for (long id = 1; id <= 4; id++) {
+            results.add(client.getAsync(id));
+        }
+        // the stub client responds synchronously, the first (full) batch is completed already
+        assertThat(requests).hasSize(1);
+        assertThat(results.subList(0, 3)).allMatch(CompletableFuture::isDone);
+
+        assertThat(results.get(3).get(10, TimeUnit.SECONDS).getText()).isEqualTo("Note 4");
+        assertThat(requests).hasSize(2);
+        assertThat(requests.get(1).uri().getQuery()).isEqualTo("id=4");
+    }
+
+    @Test
+    void shouldBatchBlockingCalls() throws Exception {
+        BatchedNotesClient client = client();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Note>> results = new ArrayList<>();
+        for (long id = 1; id <= 8; id++) {
+            long noteId = id;
+            results.add(executor.submit(() -> {
+                start.await();
+                return client.get(noteId);
+            }));
+        }
+        start.countDown();
+
+        for (int i = 0; i < results.size(); i++) {
+            assertThat(results.get(i).get(10, TimeUnit.SECONDS).getText()).isEqualTo("Note " + (i + 1));
+        }
+        assertThat(requests.size()).isLessThan(results.size());
+    }
+
+    @Test
+    void shouldMatchItemsByPosition() throws Exception {
+        BatchedNotesClient client = client();
+        CompletableFuture<Note> first = client.getByPosition(2);
+        CompletableFuture<Note> second = client.getByPosition(1);
+
+        assertThat(first.get(10, TimeUnit.SECONDS).getText()).isEqualTo("Note 2");
+        assertThat(second.get(10, TimeUnit.SECONDS).getText()).isEqualTo("Note 1");
+        assertThat(requests).hasSize(1);
+    }
+
+    @Test
+    void shouldFailCallsWithoutItem() throws Exception {
+        BatchedNotesClient client = client();
+        CompletableFuture<Note> found = client.getAsync(1);
+        CompletableFuture<Note> missing = client.getAsync(404);
+
+        assertThat(found.get(10, TimeUnit.SECONDS).getText()).isEqualTo("Note 1");
+        assertThatThrownBy(() -> missing.get(10, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(NoSuchElementException.class)
+                .hasMessageContaining("no item with id 404 in the bulk response of BatchedNotesClient.getAll(List)");
+    }
+
+    @Test
+    void shouldFailAllCallsOnFailedBulkRequest() {
+        statusCode = 500;
+        BatchedNotesClient client = client();
+        CompletableFuture<Note> first = client.getAsync(1);
+        CompletableFuture<Note> second = client.getAsync(2);
+
+        for (CompletableFuture<Note> result : List.of(first, second)) {
+            assertThatThrownBy(() -> result.get(10, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(InternalServerErrorException.class);
+        }
+        assertThatThrownBy(() -> client.get(1)).isInstanceOf(InternalServerErrorException.class);
+    }
+
+    @Test
+    void shouldRejectInvalidBatchedMethods() {
+        assertThatThrownBy(() -> new RestMethodAdapter(InvalidBatchedClient.class.getMethod("get", long.class)))
+                .isInstanceOf(UnsupportedOperationException.class)
+                .hasMessageStartingWith("no bulk method 'missing' with a single parameter found for @Batch");
+        assertThatThrownBy(() -> new RestMethodAdapter(InvalidBatchedClient.class.getMethod("get", long.class, String.class)))
+                .isInstanceOf(UnsupportedOperationException.class)
+                .hasMessageStartingWith("@Batch requires a single parameter (the id)");
+    }
+
+    private BatchedNotesClient client() {
+        return RestClient.builder()
+                .httpClient(new StubHttpClient(request -> {
+                    requests.add(request);
+                    if (statusCode != 200) {
+                        return response(statusCode, (byte[]) null);
+                    }
+                    String notes = Stream.of(request.uri().getQuery().split("&"))
+                            .map(parameter -> parameter.substring(parameter.indexOf('=') + 1))
+                            .filter(id -> !id.equals("404"))
+                            .map(id -> String.format("{\"id\":%s,\"text\":\"Note %s\"}", id, id))
+                            .collect(Collectors.joining(",", "[", "]"));
+                    return response(200, notes, "content-type", "application/json");
+                }))
+                .wireLog(WireLog.off())
+                .build()
+                .create(BASE_URL, BatchedNotesClient.class);
+    }
+
+    @Path("api/notes")
+    public interface BatchedNotesClient {
+
+        @GET
+        @Path("/{id}")
+        @Batch(value = "getAll", key = "id", maxDelayMillis = 100)
+        Note get(@PathParam("id") long id);
+
+        @GET
+        @Path("/{id}")
+        @Batch(value = "getAll", key = "id", maxSize = 3, maxDelayMillis = 50)
+        CompletableFuture<Note> getAsync(@PathParam("id") long id);
+
+        @GET
+        @Path("/{id}")
+        @Batch(value = "getAllInOrder", maxDelayMillis = 50)
+        CompletableFuture<Note> getByPosition(@PathParam("id") long id);
+
+        @GET
+        List<Note> getAll(@QueryParam("id") List<Long> ids);
+
+        @GET
+        CompletableFuture<List<Note>> getAllInOrder(@QueryParam("id") Set<Long> ids);
+    }
+
+    public interface InvalidBatchedClient {
+
+        @GET
+        @Path("/{id}")
+        @Batch("missing")
+        Note get(@PathParam("id") long id);
+
+        @GET
+        @Path("/{id}")
+        @Batch("getAll")
+        Note get(@PathParam("id") long id, @QueryParam("q") String query);
+
+        @GET
+        List<Note> getAll(@QueryParam("id") List<Long> ids);
+    }
+}
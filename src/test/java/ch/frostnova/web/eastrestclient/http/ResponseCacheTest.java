@@ -0,0 +1,385 @@
+package ch.frostnova.web.eastrestclient.http;
+
+import ch.frostnova.web.eastrestclient.RestClient;
+import ch.frostnova.web.eastrestclient.metrics.DefaultRestClientMetrics;
+import ch.frostnova.web.eastrestclient.notes.api.Note;
+import ch.frostnova.web.eastrestclient.notes.api.NotesClient;
+import ch.frostnova.web.eastrestclient.weather.api.WeatherClient;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static ch.frostnova.web.eastrestclient.http.StubHttpClient.response;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ResponseCacheTest {
+
+    private final static String BASE_URL = "http://localhost:8080/";
+    private final static String NOTE = "{\"id\":1,\"text\":\"Aloha\"}";
+    private final static String UPDATED_NOTE = "{\"id\":1,\"text\":\"Aloha, updated\"}";
+
+    private final MutableClock clock = new MutableClock();
+    private final List<HttpRequest> requests = new ArrayList<>();
+
+    @Test
+    void shouldServeFreshResponsesFromCache() {
+        ResponseCache cache = ResponseCache.builder().clock(clock).build();
+        NotesClient notesClient = notesClient(cache, request -> response(200, NOTE,
+                "content-type", "application/json", "cache-control", "max-age=60"));
+
+        assertThat(notesClient.get(1).getText()).isEqualTo("Aloha");
+        assertThat(notesClient.get(1).getText()).isEqualTo("Aloha");
+        assertThat(requests).hasSize(1);
+
+        clock.advance(Duration.ofSeconds(61));
+        assertThat(notesClient.get(1).getText()).isEqualTo("Aloha");
+        assertThat(requests).hasSize(2);
+
+        ResponseCacheStats stats = cache.stats();
+        assertThat(stats.getHits()).isEqualTo(1);
+        assertThat(stats.getMisses()).isEqualTo(2);
+        assertThat(stats.getEntries()).isEqualTo(1);
+        assertThat(stats.getBytes()).isEqualTo(NOTE.length());
+        assertThat(stats.getHitRate()).isEqualTo(1.0 / 3);
+    }
+
+    @Test
+    void shouldServeFreshResponsesFromCacheAsync() throws Exception {
+        ResponseCache cache = ResponseCache.builder().clock(clock).build();
+        NotesClient notesClient = notesClient(cache, request -> response(200, NOTE,
+                "content-type", "application/json", "cache-control", "max-age=60"));
+
+        assertThat(notesClient.getAsync(1).get().getText()).isEqualTo("Aloha");
+        assertThat(notesClient.getAsync(1).get().getText()).isEqualTo("Aloha");
+        assertThat(notesClient.get(1).getText()).isEqualTo("Aloha");
+        assertThat(requests).hasSize(1);
+        assertThat(cache.stats().getHits()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldAccountForAgeAndExpires() {
+        ResponseCache cache = ResponseCache.builder().clock(clock).build();
+        NotesClient notesClient = notesClient(cache, request -> response(200, NOTE,
+                "content-type", "application/json", "cache-control", "max-age=60", "age", "50"));
+
+        notesClient.get(1);
+        clock.advance(Duration.ofSeconds(11));
+        notesClient.get(1);
+        assertThat(requests).hasSize(2);
+
+        HttpHeaders headers = StubHttpClient.response(200, (byte[]) null,
+                "date", "Sun, 18 Oct 2026 10:00:00 GMT", "expires", "Sun, 18 Oct 2026 10:05:00 GMT").headers();
+        assertThat(CacheControl.of(headers).freshnessLifetime(headers, 0)).isEqualTo(300_000);
+        HttpHeaders expired = StubHttpClient.response(200, (byte[]) null, "expires", "0").headers();
+        assertThat(CacheControl.of(expired).freshnessLifetime(expired, clock.millis())).isZero();
+    }
+
+    @Test
+    void shouldNotStoreNoStoreResponses() {
+        ResponseCache cache = ResponseCache.builder().clock(clock).build();
+        NotesClient notesClient = notesClient(cache, request -> response(200, NOTE,
+                "content-type", "application/json", "cache-control", "no-store, max-age=60", "etag", "\"v1\""));
+
+        notesClient.get(1);
+        notesClient.get(1);
+        assertThat(requests).hasSize(2);
+        assertThat(cache.stats().getEntries()).isZero();
+    }
+
+    @Test
+    void shouldRevalidateWithETag() {
+        ResponseCache cache = ResponseCache.builder().clock(clock).build();
+        NotesClient notesClient = notesClient(cache, request -> {
+            if ("\"v1\"".equals(request.headers().firstValue("if-none-match").orElse(null))) {
+                return response(304, (byte[]) null, "etag", "\"v1\"", "cache-control", "max-age=10");
+            }
+            return response(200, NOTE, "content-type", "application/json", "cache-control", "no-cache", "etag", "\"v1\"");
+        });
+
+        assertThat(notesClient.get(1).getText()).isEqualTo("Aloha");
+        assertThat(notesClient.get(1).getText()).isEqualTo("Aloha");
+        assertThat(requests).hasSize(2);
+        assertThat(requests.get(1).headers().firstValue("if-none-match")).contains("\"v1\"");
+
+        // the revalidation response made the entry fresh for 10 seconds
+        assertThat(notesClient.get(1).getText()).isEqualTo("Aloha");
+        assertThat(requests).hasSize(2);
+
+        ResponseCacheStats stats = cache.stats();
+        assertThat(stats.getHits()).isEqualTo(2);
+        assertThat(stats.getRevalidatedHits()).isEqualTo(1);
+        assertThat(stats.getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRevalidateWithLastModified() {
+        ResponseCache cache = ResponseCache.builder().clock(clock).build();
+        String lastModified = "Sun, 18 Oct 2026 10:00:00 GMT";
+        NotesClient notesClient = notesClient(cache, request -> {
+            if (lastModified.equals(request.headers().firstValue("if-modified-since").orElse(null))) {
+                return response(200, UPDATED_NOTE, "content-type", "application/json", "cache-control", "max-age=0",
+                        "last-modified", "Sun, 18 Oct 2026 11:00:00 GMT");
+            }
+            return response(200, NOTE, "content-type", "application/json", "cache-control", "max-age=0",
+                    "last-modified", lastModified);
+        });
+
+        assertThat(notesClient.get(1).getText()).isEqualTo("Aloha");
+        assertThat(notesClient.get(1).getText()).isEqualTo("Aloha, updated");
+        assertThat(requests.get(1).headers().firstValue("if-modified-since")).contains(lastModified);
+        assertThat(notesClient.get(1).getText()).isEqualTo("Aloha");
+        assertThat(requests.get(2).headers().firstValue("if-modified-since")).contains("Sun, 18 Oct 2026 11:00:00 GMT");
+        assertThat(cache.stats().getMisses()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldServeStaleWhileRevalidating() {
+        ResponseCache cache = ResponseCache.builder().clock(clock).build();
+        NotesClient notesClient = notesClient(cache, request -> {
+            if (request.headers().firstValue("if-none-match").isPresent()) {
+                return response(200, UPDATED_NOTE, "content-type", "application/json",
+                        "cache-control", "max-age=10, stale-while-revalidate=60", "etag", "\"v2\"");
+            }
+            return response(200, NOTE, "content-type", "application/json",
+                    "cache-control", "max-age=10, stale-while-revalidate=60", "etag", "\"v1\"");
+        });
+
+        assertThat(notesClient.get(1).getText()).isEqualTo("Aloha");
+        clock.advance(Duration.ofSeconds(20));
+
+        // stale response served, revalidated in the background (synchronously with the stub)
+        assertThat(notesClient.get(1).getText()).isEqualTo("Aloha");
+        assertThat(requests).hasSize(2);
+        assertThat(requests.get(1).headers().firstValue("if-none-match")).contains("\"v1\"");
+        assertThat(notesClient.get(1).getText()).isEqualTo("Aloha, updated");
+        assertThat(requests).hasSize(2);
+
+        // beyond stale-while-revalidate: revalidated by the exchange
+        clock.advance(Duration.ofSeconds(100));
+        assertThat(notesClient.get(1).getText()).isEqualTo("Aloha, updated");
+        assertThat(requests).hasSize(3);
+
+        ResponseCacheStats stats = cache.stats();
+        assertThat(stats.getStaleHits()).isEqualTo(1);
+        assertThat(stats.getHits()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldRevalidateInBackgroundLikeTheExchange() {
+        ResponseCache cache = ResponseCache.builder().clock(clock).build();
+        DefaultRestClientMetrics metrics = DefaultRestClientMetrics.create();
+        NegotiatingNotesClient notesClient = RestClient.builder()
+                .httpClient(new StubHttpClient(request -> {
+                    requests.add(request);
+                    return response(200, NOTE, "content-type", "application/json",
+                            "cache-control", "max-age=10, stale-while-revalidate=60", "etag", "\"v1\"");
+                }))
+                .wireLog(WireLog.off())
+                .responseCache(cache)
+                .metrics(metrics)
+                .build()
+                .create(BASE_URL, NegotiatingNotesClient.class);
+
+        assertThat(notesClient.get(1).getText()).isEqualTo("Aloha");
+        clock.advance(Duration.ofSeconds(20));
+        assertThat(notesClient.get(1).getText()).isEqualTo("Aloha");
+
+        // the background revalidation negotiates the same representation, and is recorded as call
+        assertThat(requests).hasSize(2);
+        assertThat(requests.get(1).headers().firstValue("if-none-match")).contains("\"v1\"");
+        assertThat(requests.get(1).headers().firstValue("accept")).contains("application/json");
+        assertThat(metrics.snapshot("NegotiatingNotesClient.get(long)").orElseThrow().getCalls()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldRespectVary() {
+        ResponseCache cache = ResponseCache.builder().clock(clock).build();
+        WeatherClient weatherClient = restClient(cache, request -> response(200,
+                "<WeatherForecast><location>" + request.headers().firstValue("api-key").orElse("") + "</location></WeatherForecast>",
+                "content-type", "application/xml", "cache-control", "max-age=60", "vary", "Api-Key"))
+                .create(BASE_URL, WeatherClient.class);
+
+        assertThat(weatherClient.getForecast("a", "Zürich").getLocation()).isEqualTo("a");
+        assertThat(weatherClient.getForecast("a", "Zürich").getLocation()).isEqualTo("a");
+        assertThat(weatherClient.getForecast("b", "Zürich").getLocation()).isEqualTo("b");
+        assertThat(weatherClient.getForecast("b", "Zürich").getLocation()).isEqualTo("b");
+        assertThat(weatherClient.getForecast("b", "Bern").getLocation()).isEqualTo("b");
+        assertThat(requests).hasSize(3);
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsed() {
+        ResponseCache cache = ResponseCache.builder().clock(clock).maxEntries(2).build();
+        NotesClient notesClient = notesClient(cache, request -> response(200, NOTE,
+                "content-type", "application/json", "cache-control", "max-age=60"));
+
+        notesClient.get(1);
+        notesClient.get(2);
+        notesClient.get(1);
+        notesClient.get(3);
+        assertThat(requests).hasSize(3);
+        notesClient.get(1);
+        notesClient.get(2);
+        assertThat(requests).hasSize(4);
+
+        ResponseCacheStats stats = cache.stats();
+        assertThat(stats.getEvictions()).isEqualTo(2);
+        assertThat(stats.getEntries()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldBoundSize() {
+        ResponseCache cache = ResponseCache.builder().clock(clock).maxBytes(2 * NOTE.length()).build();
+        NotesClient notesClient = notesClient(cache, request -> response(200, NOTE,
+                "content-type", "application/json", "cache-control", "max-age=60"));
+
+        notesClient.get(1);
+        notesClient.get(2);
+        notesClient.get(3);
+        ResponseCacheStats stats = cache.stats();
+        assertThat(stats.getEntries()).isEqualTo(2);
+        assertThat(stats.getBytes()).isEqualTo(2 * NOTE.length());
+        assertThat(stats.getEvictions()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldCacheDecodedResults() {
+        ResponseCache cache = ResponseCache.builder().clock(clock).storage(ResponseCache.Storage.DECODED).build();
+        NotesClient notesClient = notesClient(cache, request -> response(200, NOTE,
+                "content-type", "application/json", "cache-control", "max-age=60"));
+
+        Note note = notesClient.get(1);
+        assertThat(notesClient.get(1)).isSameAs(note);
+        assertThat(requests).hasSize(1);
+    }
+
+    @Test
+    void shouldOnlyCacheGetRequests() {
+        ResponseCache cache = ResponseCache.builder().clock(clock).build();
+        NotesClient notesClient = notesClient(cache, request -> response(201, NOTE,
+                "content-type", "application/json", "cache-control", "max-age=60"));
+
+        notesClient.create(new Note("Aloha"));
+        notesClient.create(new Note("Aloha"));
+        assertThat(requests).hasSize(2);
+        assertThat(cache.stats().getMisses()).isZero();
+        assertThat(cache.stats().getEntries()).isZero();
+    }
+
+    @Test
+    void shouldPersistResponses(@TempDir Path tempDir) {
+        Path file = tempDir.resolve("responses.cache");
+        Function<HttpRequest, StubHttpClient.Response> handler = request -> {
+            if ("\"v1\"".equals(request.headers().firstValue("if-none-match").orElse(null))) {
+                return response(304, (byte[]) null, "etag", "\"v1\"");
+            }
+            return response(200, NOTE, "content-type", "application/json", "cache-control", "max-age=60", "etag", "\"v1\"");
+        };
+
+        try (ResponseCache cache = ResponseCache.builder().clock(clock).persistent(file, 1024 * 1024).build()) {
+            notesClient(cache, handler).get(1);
+            notesClient(cache, handler).get(2);
+        }
+        assertThat(requests).hasSize(2);
+
+        // restarted: fresh responses are served from the file
+        try (ResponseCache cache = ResponseCache.builder().clock(clock).persistent(file, 1024 * 1024).build()) {
+            assertThat(notesClient(cache, handler).get(1).getText()).isEqualTo("Aloha");
+            assertThat(requests).hasSize(2);
+            assertThat(cache.stats().getHits()).isEqualTo(1);
+        }
+
+        // restarted later: stale responses are revalidated instead of fetched again
+        clock.advance(Duration.ofMinutes(5));
+        try (ResponseCache cache = ResponseCache.builder().clock(clock).persistent(file, 1024 * 1024).build()) {
+            assertThat(notesClient(cache, handler).get(2).getText()).isEqualTo("Aloha");
+            assertThat(requests).hasSize(3);
+            assertThat(requests.get(2).headers().firstValue("if-none-match")).contains("\"v1\"");
+            assertThat(cache.stats().getRevalidatedHits()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void shouldNotPersistNoStoreResponses(@TempDir Path tempDir) {
+        Path file = tempDir.resolve("responses.cache");
+        Function<HttpRequest, StubHttpClient.Response> handler = request -> response(200, NOTE,
+                "content-type", "application/json", "cache-control", "max-age=60", "etag", "\"v1\"");
+        try (ResponseCache cache = ResponseCache.builder().clock(clock).persistent(file, 1024 * 1024).build()) {
+            notesClient(cache, handler).get(1);
+        }
+        clock.advance(Duration.ofMinutes(5));
+        try (ResponseCache cache = ResponseCache.builder().clock(clock).persistent(file, 1024 * 1024).build()) {
+            // revalidated, and replaced by a no-store response: removed from the file as well
+            notesClient(cache, request -> response(200, NOTE, "content-type", "application/json",
+                    "cache-control", "no-store")).get(1);
+        }
+        try (ResponseCache cache = ResponseCache.builder().clock(clock).persistent(file, 1024 * 1024).build()) {
+            notesClient(cache, handler).get(1);
+        }
+        assertThat(requests).hasSize(3);
+        assertThat(requests.get(1).headers().firstValue("if-none-match")).contains("\"v1\"");
+        assertThat(requests.get(2).headers().firstValue("if-none-match")).isEmpty();
+    }
+
+    @javax.ws.rs.Path("api/notes")
+    public interface NegotiatingNotesClient {
+
+        @GET
+        @javax.ws.rs.Path("{id}")
+        @Produces("application/json")
+        Note get(@PathParam("id") long id);
+    }
+
+    private NotesClient notesClient(ResponseCache cache, Function<HttpRequest, StubHttpClient.Response> handler) {
+        return restClient(cache, handler).create(BASE_URL, NotesClient.class);
+    }
+
+    private RestClient restClient(ResponseCache cache, Function<HttpRequest, StubHttpClient.Response> handler) {
+        return RestClient.builder()
+                .httpClient(new StubHttpClient(request -> {
+                    requests.add(request);
+                    return handler.apply(request);
+                }))
+                .wireLog(WireLog.off())
+                .responseCache(cache)
+                .build();
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant instant = Instant.parse("2026-10-18T10:00:00Z");
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package ch.frostnova.web.eastrestclient.http;
+
+import ch.frostnova.web.eastrestclient.RestClient;
+import ch.frostnova.web.eastrestclient.notes.api.Note;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.ServerErrorException;
+import java.net.http.HttpRequest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static ch.frostnova.web.eastrestclient.http.StubHttpClient.response;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SingleFlightTest {
+
+    private final static String BASE_URL = "http://localhost:8080/";
+    private final static String NOTE = "{\"id\":1,\"text\":\"Aloha\"}";
+    private final static int FOLLOWERS = 8;
+
+    private final List<HttpRequest> requests = new CopyOnWriteArrayList<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final List<Thread> threads = new CopyOnWriteArrayList<>();
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable);
+        threads.add(thread);
+        return thread;
+    });
+
+    private volatile int statusCode = 200;
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldCoalesceConcurrentCalls() throws Exception {
+        shouldCoalesceConcurrentCalls(client(true));
+    }
+
+    @Test
+    void shouldCoalesceConcurrentCallsWithRuntimeImplementation() throws Exception {
+        shouldCoalesceConcurrentCalls(client(false));
+    }
+
+    private void shouldCoalesceConcurrentCalls(CoalescedNotesClient client) throws Exception {
+        List<Future<Note>> results = concurrently(() -> client.get(1));
+        release.countDown();
+
+        Note note = results.get(0).get(10, TimeUnit.SECONDS);
+        assertThat(note.getText()).isEqualTo("Aloha");
+        for (Future<Note> result : results) {
+            assertThat(result.get(10, TimeUnit.SECONDS)).isSameAs(note);
+        }
+        assertThat(requests).hasSize(1);
+
+        client.get(1);
+        assertThat(requests).hasSize(2);
+    }
+
+    @Test
+    void shouldCoalesceConcurrentAsyncCalls() throws Exception {
+        CoalescedNotesClient client = client(true);
+        Future<CompletableFuture<Note>> leader = executor.submit(() -> client.getAsync(1));
+        awaitRequests(1);
+
+        List<CompletableFuture<Note>> followers = new ArrayList<>();
+        for (int i = 0; i < FOLLOWERS; i++) {
+            followers.add(client.getAsync(1));
+        }
+        assertThat(followers).noneMatch(CompletableFuture::isDone);
+        followers.get(0).cancel(true);
+        release.countDown();
+
+        Note note = leader.get(10, TimeUnit.SECONDS).get(10, TimeUnit.SECONDS);
+        for (CompletableFuture<Note> follower : followers.subList(1, FOLLOWERS)) {
+            assertThat(follower.get(10, TimeUnit.SECONDS)).isSameAs(note);
+        }
+        assertThat(requests).hasSize(1);
+    }
+
+    @Test
+    void shouldShareFailures() throws Exception {
+        statusCode = 503;
+        CoalescedNotesClient client = client(true);
+        List<Future<Note>> results = concurrently(() -> client.get(1));
+        release.countDown();
+
+        for (Future<Note> result : results) {
+            assertThatThrownBy(() -> result.get(10, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(ServerErrorException.class);
+        }
+        assertThat(requests).hasSize(1);
+    }
+
+    @Test
+    void shouldNotCoalesceDifferentRequests() throws Exception {
+        CoalescedNotesClient client = client(true);
+        Future<Note> first = executor.submit(() -> client.get(1));
+        awaitRequests(1);
+        Future<Note> otherId = executor.submit(() -> client.get(2));
+        awaitRequests(2);
+        Future<Note> otherHeader = executor.submit(() -> client.get(1, "Bearer 1234"));
+        awaitRequests(3);
+        Future<Note> optedOut = executor.submit(() -> client.getUncoalesced(1));
+        awaitRequests(4);
+        release.countDown();
+
+        assertThat(first.get(10, TimeUnit.SECONDS)).isNotSameAs(otherId.get(10, TimeUnit.SECONDS))
+                .isNotSameAs(otherHeader.get(10, TimeUnit.SECONDS))
+                .isNotSameAs(optedOut.get(10, TimeUnit.SECONDS));
+        assertThat(requests).hasSize(4);
+    }
+
+    /**
+     * Start a leader call, wait until its request is in flight, then start the followers and wait until they are
+     * waiting for the leader.
+     *
+     * @return results of the leader (first) and the followers
+     */
+    private List<Future<Note>> concurrently(Supplier<Note> call) throws InterruptedException {
+        List<Future<Note>> results = new ArrayList<>();
+        results.add(executor.submit(call::get));
+        awaitRequests(1);
+        for (int i = 0; i < FOLLOWERS; i++) {
+            results.add(executor.submit(call::get));
+        }
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (threads.size() < FOLLOWERS + 1 || !threads.stream().allMatch(t -> t.getState() == Thread.State.WAITING)) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.sleep(1);
+        }
+        return results;
+    }
+
+    private void awaitRequests(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (requests.size() < count) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    private CoalescedNotesClient client(boolean generatedImplementations) {
+        return RestClient.builder()
+                .httpClient(new StubHttpClient(request -> {
+                    requests.add(request);
+                    try {
+                        release.await();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        return null;
+                    }
+                    return response(statusCode, NOTE, "content-type", "application/json");
+                }))
+                .wireLog(WireLog.off())
+                .generatedImplementations(generatedImplementations)
+                .build()
+                .create(BASE_URL, CoalescedNotesClient.class);
+    }
+
+    @Coalesce
+    @Path("api/notes")
+    public interface CoalescedNotesClient {
+
+        @GET
+        @Path("/{id}")
+        Note get(@PathParam("id") long id);
+
+        @GET
+        @Path("/{id}")
+        Note get(@PathParam("id") long id, @HeaderParam("authorization") String authorization);
+
+        @GET
+        @Path("/{id}")
+        CompletableFuture<Note> getAsync(@PathParam("id") long id);
+
+        @GET
+        @Path("/{id}")
+        @Coalesce(false)
+        Note getUncoalesced(@PathParam("id") long id);
+    }
+}
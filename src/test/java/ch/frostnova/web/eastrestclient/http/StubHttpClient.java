@@ -0,0 +1,254 @@
+package ch.frostnova.web.eastrestclient.http;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSession;
+import java.io.IOException;
+import java.net.Authenticator;
+import java.net.CookieHandler;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.function.Function;
+
+/**
+ * HTTP client stub, which responds with the responses of a handler: synchronously (in the calling thread, also for
+ * asynchronous requests), or asynchronously using an executor. The response bodies are passed through the body
+ * handlers of the requests, like an actual client would.
+ */
+public class StubHttpClient extends HttpClient {
+
+    private final Function<HttpRequest, Response> handler;
+    private final Executor executor;
+
+    /**
+     * Create a stub, responding synchronously.
+     *
+     * @param handler handler, returns the response for a request, or null if there is none (fails the request)
+     */
+    public StubHttpClient(Function<HttpRequest, Response> handler) {
+        this(handler, null);
+    }
+
+    /**
+     * Create a stub.
+     *
+     * @param handler  handler, returns the response for a request, or null if there is none (fails the request)
+     * @param executor executor for the asynchronous requests, optional (if not set, they are handled synchronously)
+     */
+    public StubHttpClient(Function<HttpRequest, Response> handler, Executor executor) {
+        this.handler = handler;
+        this.executor = executor;
+    }
+
+    /**
+     * Create a response.
+     *
+     * @param statusCode status code
+     * @param body       body, optional
+     * @param headers    headers, as pairs of name and value
+     * @return response
+     */
+    public static Response response(int statusCode, byte[] body, String... headers) {
+        Map<String, List<String>> headerMap = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (int i = 0; i + 1 < headers.length; i += 2) {
+            headerMap.computeIfAbsent(headers[i], name -> new ArrayList<>()).add(headers[i + 1]);
+        }
+        if (body != null) {
+            headerMap.put("content-length", List.of(String.valueOf(body.length)));
+        }
+        return new Response(statusCode, HttpHeaders.of(headerMap, (name, value) -> true), body);
+    }
+
+    /**
+     * Create a response.
+     *
+     * @param statusCode status code
+     * @param body       body (UTF-8), optional
+     * @param headers    headers, as pairs of name and value
+     * @return response
+     */
+    public static Response response(int statusCode, String body, String... headers) {
+        return response(statusCode, body != null ? body.getBytes(StandardCharsets.UTF_8) : null, headers);
+    }
+
+    @Override
+    public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> responseBodyHandler)
+            throws IOException {
+
+        Response response = handler.apply(request);
+        if (response == null) {
+            throw new IOException("no response for " + request.method() + " " + request.uri());
+        }
+        HttpResponse.BodySubscriber<T> subscriber = responseBodyHandler.apply(response);
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+        if (response.body != null) {
+            subscriber.onNext(List.of(ByteBuffer.wrap(response.body)));
+        }
+        subscriber.onComplete();
+        T body = subscriber.getBody().toCompletableFuture().join();
+        return new HttpResponse<>() {
+            @Override
+            public int statusCode() {
+                return response.statusCode;
+            }
+
+            @Override
+            public HttpRequest request() {
+                return request;
+            }
+
+            @Override
+            public Optional<HttpResponse<T>> previousResponse() {
+                return Optional.empty();
+            }
+
+            @Override
+            public HttpHeaders headers() {
+                return response.headers;
+            }
+
+            @Override
+            public T body() {
+                return body;
+            }
+
+            @Override
+            public Optional<SSLSession> sslSession() {
+                return Optional.empty();
+            }
+
+            @Override
+            public URI uri() {
+                return request.uri();
+            }
+
+            @Override
+            public Version version() {
+                return Version.HTTP_1_1;
+            }
+        };
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                            HttpResponse.BodyHandler<T> responseBodyHandler) {
+        if (executor != null) {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return send(request, responseBodyHandler);
+                } catch (IOException ex) {
+                    throw new CompletionException(ex);
+                }
+            }, executor);
+        }
+        try {
+            return CompletableFuture.completedFuture(send(request, responseBodyHandler));
+        } catch (IOException | RuntimeException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                            HttpResponse.BodyHandler<T> responseBodyHandler,
+                                                            HttpResponse.PushPromiseHandler<T> pushPromiseHandler) {
+        return sendAsync(request, responseBodyHandler);
+    }
+
+    @Override
+    public Optional<CookieHandler> cookieHandler() {
+        return Optional.empty();
+    }
+
+    @Override
+    public Optional<Duration> connectTimeout() {
+        return Optional.empty();
+    }
+
+    @Override
+    public Redirect followRedirects() {
+        return Redirect.NEVER;
+    }
+
+    @Override
+    public Optional<ProxySelector> proxy() {
+        return Optional.empty();
+    }
+
+    @Override
+    public SSLContext sslContext() {
+        return null;
+    }
+
+    @Override
+    public SSLParameters sslParameters() {
+        return null;
+    }
+
+    @Override
+    public Optional<Authenticator> authenticator() {
+        return Optional.empty();
+    }
+
+    @Override
+    public Version version() {
+        return Version.HTTP_1_1;
+    }
+
+    @Override
+    public Optional<Executor> executor() {
+        return Optional.empty();
+    }
+
+    public static class Response implements HttpResponse.ResponseInfo {
+
+        private final int statusCode;
+        private final HttpHeaders headers;
+        private final byte[] body;
+
+        private Response(int statusCode, HttpHeaders headers, byte[] body) {
+            this.statusCode = statusCode;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        @Override
+        public int statusCode() {
+            return statusCode;
+        }
+
+        @Override
+        public HttpHeaders headers() {
+            return headers;
+        }
+
+        @Override
+        public HttpClient.Version version() {
+            return HttpClient.Version.HTTP_1_1;
+        }
+    }
+}
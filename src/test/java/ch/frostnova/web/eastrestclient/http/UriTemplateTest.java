@@ -0,0 +1,53 @@
+package ch.frostnova.web.eastrestclient.http;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class UriTemplateTest {
+
+    @Test
+    void shouldJoinPaths() {
+        assertThat(UriTemplate.of()).hasToString("");
+        assertThat(UriTemplate.of(null, null)).hasToString("");
+        assertThat(UriTemplate.of("/", "")).hasToString("");
+        assertThat(UriTemplate.of("api/notes", null)).hasToString("api/notes");
+        assertThat(UriTemplate.of("/api/notes/", "/{id}")).hasToString("api/notes/{id}");
+        assertThat(UriTemplate.of(null, "hello/{lang}")).hasToString("hello/{lang}");
+    }
+
+    @Test
+    void shouldParseVariables() {
+        UriTemplate template = UriTemplate.of("api/{a}/items", "{b: [0-9]{1,3}}/{a}");
+        assertThat(template.getVariableCount()).isEqualTo(2);
+        assertThat(template.getVariable(0)).isEqualTo("a");
+        assertThat(template.getVariable(1)).isEqualTo("b");
+        assertThat(template.indexOf("a")).isEqualTo(0);
+        assertThat(template.indexOf("b")).isEqualTo(1);
+        assertThat(template.indexOf("c")).isEqualTo(-1);
+    }
+
+    @Test
+    void shouldRender() {
+        UriTemplate template = UriTemplate.of("api/{a}/items", "{b: [0-9]{1,3}}/{a}");
+        StringBuilder builder = new StringBuilder("http://localhost/");
+        template.render(builder, new String[]{"x y", "123"});
+        assertThat(builder.toString()).isEqualTo("http://localhost/api/x%20y/items/123/x%20y");
+
+        builder = new StringBuilder();
+        UriTemplate.of("api/notes").render(builder, new String[0]);
+        assertThat(builder.toString()).isEqualTo("api/notes");
+    }
+
+    @Test
+    void shouldRejectMissingValues() {
+        UriTemplate template = UriTemplate.of("api/notes/{id}");
+        assertThatThrownBy(() -> template.render(new StringBuilder(), new String[1])).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldRejectUnterminatedVariables() {
+        assertThatThrownBy(() -> UriTemplate.of("api/notes/{id")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,183 @@
+package ch.frostnova.web.eastrestclient.http;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class WireLoggerTest {
+
+    private final static URI URI = java.net.URI.create("http://localhost/api/weather/forecast?location=Winterthur");
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger(RestAdapter.class);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    @BeforeEach
+    void attachAppender() {
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @AfterEach
+    void detachAppender() {
+        logger.detachAppender(appender);
+    }
+
+    @Test
+    void shouldLogExchange() {
+        WireLogger wireLogger = new WireLogger(WireLog.defaults());
+
+        WireLogger.Exchange exchange = wireLogger.request(post(), utf8("{\"text\":\"Aloha\"}"));
+        assertThat(exchange).isNotNull();
+        exchange.response(201, responseHeaders(), utf8("{\"id\":1000}"));
+
+        List<String> messages = messages();
+        assertThat(messages).hasSize(7);
+        String id = messages.get(0).substring(0, messages.get(0).indexOf(' '));
+        assertThat(id).matches("[0-9]+-1");
+        assertThat(messages).allMatch(message -> message.startsWith(id + " "));
+        assertThat(messages.get(0)).isEqualTo(id + " > POST " + URI);
+        assertThat(messages.get(1)).isEqualTo(id + " > api-key: <redacted>");
+        assertThat(messages.get(2)).isEqualTo(id + " > content-type: application/json");
+        assertThat(messages.get(3)).isEqualTo(id + " > {\"text\":\"Aloha\"}");
+        assertThat(messages.get(4)).matches(id + " < 201 Created \\([0-9]+ ms\\)");
+        assertThat(messages.get(5)).isEqualTo(id + " < set-cookie: <redacted>");
+        assertThat(messages.get(6)).isEqualTo(id + " < {\"id\":1000}");
+    }
+
+    @Test
+    void shouldLogRequestAsSent() {
+        WireLogger wireLogger = new WireLogger(WireLog.defaults());
+        HttpRequest request = HttpRequest.newBuilder(URI)
+                .header("content-type", "application/json")
+                .header("accept-encoding", Compression.ACCEPT_ENCODING)
+                .header("content-encoding", "gzip")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(new byte[12]))
+                .build();
+
+        wireLogger.request(request, utf8("{\"text\":\"Aloha\"}"));
+
+        assertThat(messages()).hasSize(5)
+                .contains(messages().get(0).substring(0, messages().get(0).indexOf(' ')) + " > accept-encoding: gzip, deflate")
+                .anyMatch(message -> message.endsWith(" > content-encoding: gzip"))
+                .last().asString().endsWith(" > (12 bytes gzip) {\"text\":\"Aloha\"}");
+    }
+
+    @Test
+    void shouldLogHeadersOnly() {
+        WireLogger wireLogger = new WireLogger(WireLog.builder().mode(WireLog.Mode.HEADERS).redactedHeaders().build());
+
+        wireLogger.request(post(), utf8("{\"text\":\"Aloha\"}"))
+                .response(201, responseHeaders(), utf8("{\"id\":1000}"));
+
+        assertThat(messages()).hasSize(5)
+                .anyMatch(message -> message.endsWith("> api-key: secret"))
+                .noneMatch(message -> message.contains("{"));
+    }
+
+    @Test
+    void shouldTruncateBodies() {
+        WireLogger wireLogger = new WireLogger(WireLog.builder().maxBodyLength(5).build());
+
+        wireLogger.request(get(), null)
+                .response(200, null, utf8("Lorem ipsum dolor sit amet"));
+
+        assertThat(messages()).hasSize(3).last().asString().endsWith(" < Lorem... (26 characters)");
+    }
+
+    @Test
+    void shouldLogSizeOfBinaryBodies() {
+        WireLogger wireLogger = new WireLogger(WireLog.defaults());
+
+        wireLogger.request(get(), null)
+                .response(200, HttpHeaders.of(Map.of("content-type", List.of(MediaTypes.APPLICATION_CBOR)), (name, value) -> true),
+                        new byte[]{(byte) 0xa1, 0x62, 0x69, 0x64, 0x01});
+
+        assertThat(messages()).hasSize(4).last().asString().endsWith(" < (5 bytes application/cbor)");
+    }
+
+    @Test
+    void shouldNotLogWhenOff() {
+        WireLogger wireLogger = new WireLogger(WireLog.off());
+
+        assertThat(wireLogger.request(get(), null)).isNull();
+        assertThat(messages()).isEmpty();
+    }
+
+    @Test
+    void shouldSample() {
+        WireLogger wireLogger = new WireLogger(WireLog.builder().sampleRate(3).build());
+
+        for (int i = 0; i < 7; i++) {
+            WireLogger.Exchange exchange = wireLogger.request(get(), null);
+            assertThat(exchange != null).isEqualTo(i % 3 == 0);
+        }
+        assertThat(messages()).hasSize(3);
+        assertThat(messages()).allMatch(message -> message.matches("[0-9]+-[147] > GET .*"));
+    }
+
+    @Test
+    void shouldLogSlowExchangesOnly() throws Exception {
+        WireLogger wireLogger = new WireLogger(WireLog.builder().slowThreshold(Duration.ofMillis(50)).build());
+
+        wireLogger.request(get(), null).response(200, null, utf8("fast"));
+        assertThat(messages()).isEmpty();
+
+        WireLogger.Exchange slowExchange = wireLogger.request(get(), null);
+        Thread.sleep(60);
+        slowExchange.response(200, null, utf8("slow"));
+        assertThat(messages()).hasSize(3);
+        assertThat(messages().get(0)).endsWith(" > GET " + URI);
+        assertThat(messages().get(2)).endsWith(" < slow");
+    }
+
+    @Test
+    void shouldUseClientIds() {
+        WireLogger wireLogger = new WireLogger(WireLog.defaults());
+        WireLogger anotherWireLogger = new WireLogger(WireLog.defaults());
+
+        wireLogger.request(get(), null);
+        anotherWireLogger.request(get(), null);
+
+        List<String> ids = messages().stream().map(message -> message.substring(0, message.indexOf(' '))).collect(Collectors.toList());
+        assertThat(ids).hasSize(2).doesNotHaveDuplicates().allMatch(id -> id.endsWith("-1"));
+    }
+
+    private List<String> messages() {
+        return appender.list.stream().map(ILoggingEvent::getFormattedMessage).collect(Collectors.toList());
+    }
+
+    private static HttpRequest get() {
+        return HttpRequest.newBuilder(URI).GET().build();
+    }
+
+    private static HttpRequest post() {
+        return HttpRequest.newBuilder(URI)
+                .header("content-type", "application/json")
+                .header("api-key", "secret")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(utf8("{\"text\":\"Aloha\"}")))
+                .build();
+    }
+
+    private static HttpHeaders responseHeaders() {
+        return HttpHeaders.of(Map.of("set-cookie", List.of("session=secret")), (name, value) -> true);
+    }
+
+    private static byte[] utf8(String body) {
+        return body.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,88 @@
+package ch.frostnova.web.eastrestclient.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class DefaultRestClientMetricsTest {
+
+    @Test
+    void shouldMapValuesToBuckets() {
+        for (long value = 0; value < 100_000; value++) {
+            int index = LatencyHistogram.bucketIndex(value);
+            assertThat(LatencyHistogram.highestValue(index)).isGreaterThanOrEqualTo(value);
+            assertThat(index == 0 || LatencyHistogram.highestValue(index - 1) < value).isTrue();
+            assertThat(LatencyHistogram.highestValue(index) - value).isLessThanOrEqualTo(Math.max(0, value / 8));
+        }
+        assertThat(LatencyHistogram.bucketIndex((1L << 36) - 1)).isEqualTo(LatencyHistogram.BUCKETS - 1);
+    }
+
+    @Test
+    void shouldComputePercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        IntStream.rangeClosed(1, 10_000).forEach(histogram::record);
+
+        long[] counts = histogram.snapshot();
+        assertThat((double) LatencyHistogram.valueAtPercentile(counts, 50)).isCloseTo(5000, within(5000 * 0.125));
+        assertThat((double) LatencyHistogram.valueAtPercentile(counts, 99)).isCloseTo(9900, within(9900 * 0.125));
+        assertThat((double) LatencyHistogram.valueAtPercentile(counts, 99.9)).isCloseTo(9990, within(9990 * 0.125));
+        assertThat(LatencyHistogram.valueAtPercentile(new long[LatencyHistogram.BUCKETS], 50)).isZero();
+    }
+
+    @Test
+    void shouldRecordCalls() throws Exception {
+        DefaultRestClientMetrics metrics = DefaultRestClientMetrics.create();
+        MethodMetrics methodMetrics = metrics.method("NotesClient.get(long)");
+        assertThat(metrics.method("NotesClient.get(long)")).isSameAs(methodMetrics);
+
+        long first = methodMetrics.callStarted();
+        long second = methodMetrics.callStarted();
+        long third = methodMetrics.callStarted();
+        Thread.sleep(5);
+        methodMetrics.callCompleted(first, 200);
+        methodMetrics.callCompleted(second, 404);
+        methodMetrics.callStarted();
+
+        MethodMetricsSnapshot snapshot = metrics.snapshot("NotesClient.get(long)").orElseThrow();
+        assertThat(snapshot.getName()).isEqualTo("NotesClient.get(long)");
+        assertThat(snapshot.getCalls()).isEqualTo(4);
+        assertThat(snapshot.getInFlight()).isEqualTo(2);
+        assertThat(snapshot.getCompleted()).isEqualTo(2);
+        assertThat(snapshot.getStatusClassCount(2)).isEqualTo(1);
+        assertThat(snapshot.getStatusClassCount(4)).isEqualTo(1);
+        assertThat(snapshot.getStatusClassCount(5)).isZero();
+        assertThat(snapshot.getFailures()).isZero();
+        assertThat(snapshot.getP50()).isGreaterThanOrEqualTo(Duration.ofMillis(4));
+        assertThat(snapshot.getMaxLatency()).isGreaterThanOrEqualTo(Duration.ofMillis(5));
+        assertThat(snapshot.getP999()).isGreaterThanOrEqualTo(snapshot.getMaxLatency());
+
+        methodMetrics.callCompleted(third, 0);
+        assertThat(metrics.snapshot("NotesClient.get(long)").orElseThrow().getFailures()).isEqualTo(1);
+        assertThat(metrics.snapshot("NotesClient.list()")).isEmpty();
+        assertThat(metrics.snapshots()).containsOnlyKeys("NotesClient.get(long)");
+    }
+
+    @Test
+    void shouldExposeMXBeans() throws Exception {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName("ch.frostnova.easy-rest-client:type=RestMethod,client=\"notes\",method=\"NotesClient.get(long)\"");
+
+        try (DefaultRestClientMetrics metrics = DefaultRestClientMetrics.withJmx("notes")) {
+            MethodMetrics methodMetrics = metrics.method("NotesClient.get(long)");
+            methodMetrics.callCompleted(methodMetrics.callStarted(), 503);
+
+            assertThat(mBeanServer.isRegistered(objectName)).isTrue();
+            assertThat(mBeanServer.getAttribute(objectName, "Calls")).isEqualTo(1L);
+            assertThat(mBeanServer.getAttribute(objectName, "Status5xx")).isEqualTo(1L);
+            assertThat(mBeanServer.getAttribute(objectName, "InFlight")).isEqualTo(0L);
+        }
+        assertThat(mBeanServer.isRegistered(objectName)).isFalse();
+    }
+}
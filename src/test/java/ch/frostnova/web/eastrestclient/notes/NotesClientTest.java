@@ -1,12 +1,18 @@
 package ch.frostnova.web.eastrestclient.notes;
 
 
+import ch.frostnova.web.eastrestclient.GeneratedRestClient;
 import ch.frostnova.web.eastrestclient.RestClient;
+import ch.frostnova.web.eastrestclient.http.RequestMethod;
+import ch.frostnova.web.eastrestclient.metrics.DefaultRestClientMetrics;
+import ch.frostnova.web.eastrestclient.metrics.ExchangeTiming;
+import ch.frostnova.web.eastrestclient.metrics.MethodMetricsSnapshot;
 import ch.frostnova.web.eastrestclient.notes.api.Note;
 import ch.frostnova.web.eastrestclient.notes.api.NotesClient;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -14,9 +20,29 @@ import org.springframework.boot.web.server.LocalServerPort;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import javax.ws.rs.NotFoundException;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import java.lang.reflect.Proxy;
 import java.net.http.HttpClient;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static java.time.OffsetDateTime.now;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -49,6 +75,166 @@ public class NotesClientTest {
 
     @Test
     public void testCRUD() {
+        assertThat(notesClient).isInstanceOf(GeneratedRestClient.class);
+        testCRUD(notesClient);
+    }
+
+    @Test
+    public void testCRUDWithProxy() {
+        NotesClient notesClient = RestClient.builder()
+                .generatedImplementations(false)
+                .build()
+                .create(String.format("http://localhost:%d/", port), NotesClient.class);
+
+        assertThat(Proxy.isProxyClass(notesClient.getClass())).isTrue();
+        testCRUD(notesClient);
+    }
+
+    @Test
+    public void testMetrics() {
+        Map<String, MethodMetricsSnapshot> generated = testCRUDWithMetrics(true);
+        Map<String, MethodMetricsSnapshot> proxy = testCRUDWithMetrics(false);
+
+        assertThat(calledMethods(generated)).containsExactly("NotesClient.create(Note)", "NotesClient.delete(long)",
+                "NotesClient.get(long)", "NotesClient.list()", "NotesClient.update(long,Note)");
+        assertThat(calledMethods(proxy)).isEqualTo(calledMethods(generated));
+
+        for (Map<String, MethodMetricsSnapshot> metrics : List.of(generated, proxy)) {
+            MethodMetricsSnapshot get = metrics.get("NotesClient.get(long)");
+            assertThat(get.getCalls()).isEqualTo(3);
+            assertThat(get.getInFlight()).isZero();
+            assertThat(get.getStatusClassCount(2)).isEqualTo(2);
+            assertThat(get.getStatusClassCount(4)).isEqualTo(1);
+            assertThat(get.getP50()).isPositive();
+            assertThat(get.getP999()).isGreaterThanOrEqualTo(get.getP99()).isGreaterThanOrEqualTo(get.getP50());
+            assertThat(metrics.get("NotesClient.create(Note)").getStatusClassCount(2)).isEqualTo(2);
+        }
+    }
+
+    @Test
+    public void testTimings() throws Exception {
+        List<ExchangeTiming> timings = Collections.synchronizedList(new ArrayList<>());
+        NotesClient notesClient = RestClient.builder()
+                .timingListener(timings::add)
+                .build()
+                .create(String.format("http://localhost:%d/", port), NotesClient.class);
+
+        Note created = notesClient.create(new Note("Aloha"));
+        assertThat(timings).hasSize(1);
+        ExchangeTiming timing = timings.get(0);
+        assertThat(timing.getName()).isEqualTo("NotesClient.create(Note)");
+        assertThat(timing.getRequestMethod()).isEqualTo(RequestMethod.POST);
+        assertThat(timing.getUri()).hasPath("/api/notes");
+        assertThat(timing.getStatusCode()).isEqualTo(201);
+        assertThat(timing.getRequestBytes()).isEqualTo("{\"text\":\"Aloha\"}".length());
+        assertThat(timing.getResponseBytes()).isPositive();
+        assertThat(timing.getEncodeNanos()).isPositive();
+        assertThat(timing.getNetworkNanos()).isPositive();
+        assertThat(timing.getCheckNanos()).isPositive();
+        assertThat(timing.getDecodeNanos()).isPositive();
+        assertThat(timing.getTotalNanos()).isEqualTo(timing.getEncodeNanos() + timing.getNetworkNanos()
+                + timing.getCheckNanos() + timing.getDecodeNanos());
+
+        // error: fails in the check phase
+        notesClient.delete(created.getId());
+        assertThatThrownBy(() -> notesClient.get(created.getId())).isInstanceOf(NotFoundException.class);
+        timing = timings.get(2);
+        assertThat(timing.getName()).isEqualTo("NotesClient.get(long)");
+        assertThat(timing.getStatusCode()).isEqualTo(404);
+        assertThat(timing.getRequestBytes()).isZero();
+        assertThat(timing.getCheckNanos()).isPositive();
+        assertThat(timing.getDecodeNanos()).isZero();
+
+        // async: the timing is reported when the future completes (possibly just after it was completed)
+        notesClient.createAsync(new Note("Async")).get(5, TimeUnit.SECONDS);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (timings.size() < 4 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(timings).hasSize(4);
+        assertThat(timings.get(3).getName()).isEqualTo("NotesClient.createAsync(Note)");
+        assertThat(timings.get(3).getDecodeNanos()).isPositive();
+
+        // streamed: the response is decoded lazily
+        try (Stream<Note> stream = notesClient.stream()) {
+            assertThat(stream).isNotEmpty();
+        }
+        assertThat(timings).hasSize(5);
+        assertThat(timings.get(4).getName()).isEqualTo("NotesClient.stream()");
+        assertThat(timings.get(4).getStatusCode()).isEqualTo(200);
+        assertThat(timings.get(4).getNetworkNanos()).isPositive();
+    }
+
+    @Test
+    public void testFlightRecorderEvents(@TempDir Path tempDir) throws Exception {
+        Path recordingFile = tempDir.resolve("rest-client.jfr");
+        long id;
+        try (Recording recording = new Recording()) {
+            recording.enable("ch.frostnova.easyrestclient.RestExchange");
+            recording.enable("ch.frostnova.easyrestclient.RestSerialization");
+            recording.enable("ch.frostnova.easyrestclient.RestDeserialization");
+            recording.start();
+
+            id = notesClient.create(new Note("Flight Recorder")).getId();
+            notesClient.get(id);
+            notesClient.delete(id);
+            assertThatThrownBy(() -> notesClient.get(id)).isInstanceOf(NotFoundException.class);
+
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+        List<RecordedEvent> exchanges = events(events, "ch.frostnova.easyrestclient.RestExchange");
+        assertThat(exchanges).extracting(e -> e.getString("method"))
+                .containsExactly("create(Note)", "get(long)", "delete(long)", "get(long)");
+        assertThat(exchanges).extracting(e -> e.getInt("statusCode")).containsExactly(201, 200, 204, 404);
+
+        RecordedEvent create = exchanges.get(0);
+        assertThat(create.getString("restClient")).isEqualTo(NotesClient.class.getName());
+        assertThat(create.getString("httpMethod")).isEqualTo("POST");
+        assertThat(create.getString("uriTemplate")).isEqualTo("api/notes");
+        assertThat(create.getString("uri")).endsWith("/api/notes");
+        assertThat(create.getLong("requestBytes")).isPositive();
+        assertThat(create.getLong("responseBytes")).isPositive();
+        assertThat(create.getDuration()).isPositive();
+        assertThat(exchanges.get(1).getString("uriTemplate")).isEqualTo("api/notes/{id}");
+
+        List<RecordedEvent> serializations = events(events, "ch.frostnova.easyrestclient.RestSerialization");
+        assertThat(serializations).extracting(e -> e.getString("method")).contains("create(Note)");
+
+        // deserialization is attributed to the caller of the rest method
+        List<RecordedEvent> deserializations = events(events, "ch.frostnova.easyrestclient.RestDeserialization");
+        assertThat(deserializations).extracting(e -> e.getString("method")).containsExactly("create(Note)", "get(long)", "delete(long)");
+        RecordedEvent get = deserializations.get(1);
+        assertThat(get.getString("contentType")).isEqualTo("application/json");
+        assertThat(get.getLong("responseBytes")).isPositive();
+        assertThat(get.getStackTrace().getFrames()).anyMatch(frame ->
+                frame.getMethod().getType().getName().equals(NotesClientTest.class.getName())
+                        && frame.getMethod().getName().equals("testFlightRecorderEvents"));
+    }
+
+    private static List<RecordedEvent> events(List<RecordedEvent> events, String name) {
+        return events.stream().filter(e -> e.getEventType().getName().equals(name))
+                .sorted(Comparator.comparing(RecordedEvent::getStartTime))
+                .collect(Collectors.toList());
+    }
+
+    private static List<String> calledMethods(Map<String, MethodMetricsSnapshot> metrics) {
+        return metrics.values().stream().filter(m -> m.getCalls() > 0).map(MethodMetricsSnapshot::getName).collect(Collectors.toList());
+    }
+
+    private Map<String, MethodMetricsSnapshot> testCRUDWithMetrics(boolean generatedImplementations) {
+        DefaultRestClientMetrics metrics = DefaultRestClientMetrics.create();
+        NotesClient notesClient = RestClient.builder()
+                .metrics(metrics)
+                .generatedImplementations(generatedImplementations)
+                .build()
+                .create(String.format("http://localhost:%d/", port), NotesClient.class);
+        testCRUD(notesClient);
+        return metrics.snapshots();
+    }
+
+    private void testCRUD(NotesClient notesClient) {
 
         // create
         Note note = new Note();
@@ -98,4 +284,87 @@ public class NotesClientTest {
         assertThat(notesClient.list()).extracting(Note::getId).doesNotContain(id);
         assertThatThrownBy(() -> notesClient.get(id)).isInstanceOf(NotFoundException.class);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testAsync() throws Exception {
+
+        // create
+        Note created = notesClient.createAsync(new Note("Async")).get(5, TimeUnit.SECONDS);
+        assertThat(created).isNotNull();
+        assertThat(created.getId()).isNotNull();
+        assertThat(created.getText()).isEqualTo("Async");
+        long id = created.getId();
+
+        // read
+        Note loaded = notesClient.getAsync(id).get(5, TimeUnit.SECONDS);
+        assertThat(loaded).isNotNull();
+        assertThat(loaded.getText()).isEqualTo(created.getText());
+
+        // list
+        assertThat(notesClient.listAsync().toCompletableFuture().get(5, TimeUnit.SECONDS))
+                .extracting(Note::getId).contains(id);
+
+        // errors are reported through the future
+        notesClient.delete(id);
+        assertThatThrownBy(() -> notesClient.getAsync(id).get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(NotFoundException.class);
+
+        // cancel
+        CompletableFuture<Note> cancelled = notesClient.getAsync(id);
+        cancelled.cancel(true);
+        assertThat(cancelled).isCancelled();
+    }
+
+    @Test
+    public void testAsyncWithExecutor() throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        AtomicInteger executions = new AtomicInteger();
+        Executor executor = command -> {
+            executions.incrementAndGet();
+            executorService.execute(command);
+        };
+        try {
+            NotesClient notesClient = RestClient.builder()
+                    .executor(executor)
+                    .build()
+                    .create(String.format("http://localhost:%d/", port), NotesClient.class);
+
+            Note created = notesClient.createAsync(new Note("Async")).get(5, TimeUnit.SECONDS);
+            assertThat(created.getText()).isEqualTo("Async");
+            assertThat(executions.get()).isPositive();
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    public void testStreaming() {
+
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            ids.add(notesClient.create(new Note("Note " + i)).getId());
+        }
+
+        // stream
+        try (Stream<Note> stream = notesClient.stream()) {
+            assertThat(stream.map(Note::getId).collect(Collectors.toList())).containsAll(ids);
+        }
+
+        // stream, closed before all elements were consumed
+        try (Stream<Note> stream = notesClient.stream()) {
+            assertThat(stream.findFirst()).isPresent();
+        }
+
+        // iterator
+        List<Long> iteratedIds = new ArrayList<>();
+        Iterator<Note> iterator = notesClient.iterator();
+        while (iterator.hasNext()) {
+            iteratedIds.add(iterator.next().getId());
+        }
+        assertThat(iteratedIds).containsAll(ids);
+        assertThat(iteratedIds).isEqualTo(notesClient.list().stream().map(Note::getId).collect(Collectors.toList()));
+
+        ids.forEach(notesClient::delete);
+    }
+}
@@ -1,10 +1,20 @@
 package ch.frostnova.web.eastrestclient.notes;
 
+import ch.frostnova.web.eastrestclient.http.RequestMethod;
 import ch.frostnova.web.eastrestclient.http.RestClientInterface;
+import ch.frostnova.web.eastrestclient.http.RestMethodAdapter;
+import ch.frostnova.web.eastrestclient.notes.api.Note;
 import ch.frostnova.web.eastrestclient.notes.api.NotesClient;
 import org.junit.jupiter.api.Test;
 
+import javax.ws.rs.GET;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatCode;
@@ -20,4 +30,48 @@ public class RestClientInterfaceTest {
             assertThat(restClientInterface.get(method)).isNotNull();
         }
     }
+
+    @Test
+    void shouldExposeBoundMethods() throws Exception {
+
+        RestClientInterface<NotesClient> restClientInterface = RestClientInterface.of(NotesClient.class);
+        assertThat(restClientInterface.getInterfaceClass()).isEqualTo(NotesClient.class);
+        assertThat(restClientInterface.getMethodAdapters()).hasSize(NotesClient.class.getDeclaredMethods().length);
+
+        RestMethodAdapter get = restClientInterface.get(NotesClient.class.getMethod("get", long.class));
+        assertThat(get.getRequestMethod()).isEqualTo(RequestMethod.GET);
+        assertThat(get.getUriTemplate()).hasToString("api/notes/{id}");
+        assertThat(get.getReturnType()).isEqualTo(Note.class);
+    }
+
+    @Test
+    void shouldBindOnceWhenRequestedConcurrently() throws Exception {
+
+        int threads = 8;
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<RestClientInterface<ConcurrentClient>>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executorService.submit(() -> {
+                    start.await();
+                    return RestClientInterface.of(ConcurrentClient.class);
+                }));
+            }
+            start.countDown();
+
+            RestClientInterface<ConcurrentClient> restClientInterface = RestClientInterface.of(ConcurrentClient.class);
+            for (Future<RestClientInterface<ConcurrentClient>> result : results) {
+                assertThat(result.get()).isSameAs(restClientInterface);
+            }
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    interface ConcurrentClient {
+
+        @GET
+        List<Note> list();
+    }
 }
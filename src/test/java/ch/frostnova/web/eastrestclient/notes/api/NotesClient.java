@@ -7,7 +7,11 @@ import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.stream.Stream;
 
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 
@@ -21,10 +25,27 @@ public interface NotesClient {
     @Path("/{id}")
     Note get(@PathParam("id") long id);
 
+    @GET
+    CompletionStage<List<Note>> listAsync();
+
+    @GET
+    Stream<Note> stream();
+
+    @GET
+    Iterator<Note> iterator();
+
+    @GET
+    @Path("/{id}")
+    CompletableFuture<Note> getAsync(@PathParam("id") long id);
+
     @POST
     @Consumes(APPLICATION_JSON)
     Note create(Note note);
 
+    @POST
+    @Consumes(APPLICATION_JSON)
+    CompletableFuture<Note> createAsync(Note note);
+
     @PUT
     @Path("/{id}")
     @Consumes(APPLICATION_JSON)
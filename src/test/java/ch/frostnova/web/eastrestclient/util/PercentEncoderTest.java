@@ -0,0 +1,48 @@
+package ch.frostnova.web.eastrestclient.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URLEncoder;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PercentEncoderTest {
+
+    @Test
+    void shouldEncodePathSegments() {
+        assertThat(encodePathSegment("")).isEqualTo("");
+        assertThat(encodePathSegment("HelloWorld")).isEqualTo("HelloWorld");
+        assertThat(encodePathSegment("Hello World")).isEqualTo("Hello%20World");
+        assertThat(encodePathSegment("a-b.c_d~e")).isEqualTo("a-b.c_d~e");
+        assertThat(encodePathSegment("a/b?c#d+e")).isEqualTo("a%2Fb%3Fc%23d%2Be");
+        assertThat(encodePathSegment("Grüezi")).isEqualTo("Gr%C3%BCezi");
+    }
+
+    @Test
+    void shouldEncodeQueryParamsLikeUrlEncoder() {
+        String[] values = {"", "Hello World", "a-b.c_d~e*f", "a/b?c#d+e&f=g", "Grüezi", "€", "😀", "\uD83D", "\u0000\u007F\u0080߿ࠀ￿"};
+        for (String value : values) {
+            assertThat(encodeQueryParam(value)).isEqualTo(URLEncoder.encode(value, UTF_8));
+        }
+    }
+
+    @Test
+    void shouldAppendToExistingContent() {
+        StringBuilder builder = new StringBuilder("x=");
+        PercentEncoder.encodeQueryParam("1 2", builder);
+        assertThat(builder.toString()).isEqualTo("x=1+2");
+    }
+
+    private static String encodePathSegment(String value) {
+        StringBuilder builder = new StringBuilder();
+        PercentEncoder.encodePathSegment(value, builder);
+        return builder.toString();
+    }
+
+    private static String encodeQueryParam(String value) {
+        StringBuilder builder = new StringBuilder();
+        PercentEncoder.encodeQueryParam(value, builder);
+        return builder.toString();
+    }
+}
@@ -39,6 +39,8 @@ public class StringUtilTest {
         assertThat(urlEncode("HelloWorld")).isEqualTo("HelloWorld");
         assertThat(urlEncode("Hello World")).isEqualTo("Hello+World");
         assertThat(urlEncode("Hello/World")).isEqualTo("Hello%2FWorld");
-        assertThat(urlEncode("Hello?Wörld")).isEqualTo("Hello%3FW%F6rld");
+        assertThat(urlEncode("Hello?Wörld")).isEqualTo("Hello%3FW%C3%B6rld");
+        assertThat(urlEncode("a+b=c&d")).isEqualTo("a%2Bb%3Dc%26d");
+        assertThat(urlEncode("€ \uD83D\uDE00")).isEqualTo("%E2%82%AC+%F0%9F%98%80");
     }
 }
@@ -0,0 +1,63 @@
+package ch.frostnova.web.eastrestclient.util;
+
+import ch.frostnova.web.eastrestclient.RestClient;
+import ch.frostnova.web.eastrestclient.http.StubHttpClient;
+import ch.frostnova.web.eastrestclient.http.WireLog;
+import ch.frostnova.web.eastrestclient.notes.api.NotesClient;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static ch.frostnova.web.eastrestclient.http.StubHttpClient.response;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class VirtualThreadsTest {
+
+    private final static boolean JAVA_21 = Runtime.version().feature() >= 21;
+
+    @Test
+    void shouldBeAvailableOnJava21() {
+        assertThat(VirtualThreads.isAvailable()).isEqualTo(JAVA_21);
+        if (!JAVA_21) {
+            assertThatThrownBy(VirtualThreads::executor)
+                    .isInstanceOf(UnsupportedOperationException.class)
+                    .hasMessageContaining("Java 21");
+        }
+    }
+
+    @Test
+    void shouldRunTasksOnVirtualThreads() throws Exception {
+        if (!JAVA_21) {
+            return;
+        }
+        CompletableFuture<Thread> thread = new CompletableFuture<>();
+        VirtualThreads.executor().execute(() -> thread.complete(Thread.currentThread()));
+
+        Thread executingThread = thread.get(1, TimeUnit.SECONDS);
+        assertThat(Thread.class.getMethod("isVirtual").invoke(executingThread)).isEqualTo(true);
+        assertThat(executingThread.getName()).startsWith("rest-client-virtual-");
+    }
+
+    @Test
+    void shouldProcessAsyncResponsesOnVirtualThreads() throws Exception {
+        CompletableFuture<Thread> thread = new CompletableFuture<>();
+        NotesClient notesClient = RestClient.builder()
+                .httpClient(new StubHttpClient(request -> response(200, "{\"id\":1,\"text\":\"Aloha\"}",
+                        "content-type", "application/json")))
+                .wireLog(WireLog.off())
+                .virtualThreads()
+                .build()
+                .create("http://localhost:8080/", NotesClient.class);
+
+        assertThat(notesClient.get(1).getText()).isEqualTo("Aloha");
+        assertThat(notesClient.getAsync(1).thenApply(note -> {
+            thread.complete(Thread.currentThread());
+            return note;
+        }).get(1, TimeUnit.SECONDS).getText()).isEqualTo("Aloha");
+        if (JAVA_21) {
+            assertThat(Thread.class.getMethod("isVirtual").invoke(thread.get())).isEqualTo(true);
+        }
+    }
+}